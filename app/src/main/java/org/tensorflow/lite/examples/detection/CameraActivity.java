@@ -21,6 +21,7 @@ import android.app.Fragment;
 import android.content.Context;
 import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
+import android.graphics.Matrix;
 import android.hardware.Camera;
 import android.hardware.camera2.CameraAccessException;
 import android.hardware.camera2.CameraCharacteristics;
@@ -34,7 +35,7 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.HandlerThread;
-import android.os.Trace;
+import android.os.SystemClock;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
@@ -57,9 +58,17 @@ import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Locale;
 
+import org.tensorflow.lite.examples.detection.env.CameraCalibration;
+import org.tensorflow.lite.examples.detection.env.FrameBus;
+import org.tensorflow.lite.examples.detection.env.FramePool;
 import org.tensorflow.lite.examples.detection.env.ImageUtils;
 import org.tensorflow.lite.examples.detection.env.Logger;
+import org.tensorflow.lite.examples.detection.env.SharedFrame;
+import org.tensorflow.lite.examples.detection.env.SystemTraceBackend;
+import org.tensorflow.lite.examples.detection.metrics.FrameTrace;
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
 
 public abstract class CameraActivity extends AppCompatActivity
     implements OnImageAvailableListener,
@@ -78,14 +87,48 @@ public abstract class CameraActivity extends AppCompatActivity
   protected Handler handler;
   private HandlerThread handlerThread;
   private boolean useCamera2API;
-  private boolean isProcessingFrame = false;
-  private byte[][] yuvBytes = new byte[3][];
+  private String cameraId;
+  private static final long MAX_FRAME_AGE_NANOS = 1_000_000_000L;
+
+  // Frames in flight: the one with processImage() and those still held by bus consumers.
+  private static final int FRAME_POOL_SIZE = 4;
+
+  private long frameSequence;
+  private long currentFrame;
+  private long currentFrameTimestampNanos;
   private int[] rgbBytes = null;
-  private int yRowStride;
   protected int defaultModelIndex = 0;
   protected int defaultDeviceIndex = 0;
-  private Runnable postInferenceCallback;
-  private Runnable imageConverter;
+  // Camera2 images are read in place, each held open by a frame from this pool until the frame
+  // comes back. One image is left to the reader so acquireLatestImage() never stalls.
+  private final Image[] openImages = new Image[CameraConnectionFragment.MAX_PREVIEW_IMAGES - 1];
+  private final FramePool directPool =
+      FramePool.wrapping(
+          openImages.length,
+          new FramePool.Listener() {
+            @Override
+            public void onReturned(final SharedFrame frame) {
+              openImages[directPool.indexOf(frame)].close();
+            }
+          });
+  // When consumers still hold every open image, planes are copied into these frames instead so
+  // the image can be closed at once; created the first time that happens.
+  private FramePool imagePool;
+  // The legacy camera writes straight into these frames, which double as its callback buffers.
+  // Each camera the fragment opens gets a pool of its own; previewLock guards the swap against
+  // frames being returned on other threads.
+  private final Object previewLock = new Object();
+  private FramePool previewPool;
+  private Camera previewCamera;
+  /**
+   * The frame handed to the latest {@link #processImage()}, shared with the {@link #frameBus}
+   * consumers. Its pool takes it back once every holder has released it.
+   */
+  private SharedFrame frame;
+  private boolean frameIsNv21;
+  private boolean holdingFrame;
+  /** Camera frames for consumers that run alongside {@link #processImage()}. */
+  protected final FrameBus frameBus = new FrameBus();
   protected ArrayList<String> modelStrings = new ArrayList<String>();
 
   private LinearLayout bottomSheetLayout;
@@ -93,6 +136,7 @@ public abstract class CameraActivity extends AppCompatActivity
   private BottomSheetBehavior<LinearLayout> sheetBehavior;
 
   protected TextView frameValueTextView, cropValueTextView, inferenceTimeTextView;
+  protected TextView statsTextView;
   protected ImageView bottomSheetArrowImageView;
   private ImageView plusImageView, minusImageView;
   protected ListView deviceView;
@@ -105,11 +149,15 @@ public abstract class CameraActivity extends AppCompatActivity
 
   ArrayList<String> deviceStrings = new ArrayList<String>();
 
+  /** Per-stage timings, recorded while debugging or while the bottom sheet is expanded. */
+  protected final PipelineStats stats = new PipelineStats();
+
   @Override
   protected void onCreate(final Bundle savedInstanceState) {
     LOGGER.d("onCreate " + this);
     super.onCreate(null);
     getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+    FrameTrace.install(new SystemTraceBackend());
 
     setContentView(R.layout.tfe_od_activity_camera);
     Toolbar toolbar = findViewById(R.id.toolbar);
@@ -195,11 +243,13 @@ public abstract class CameraActivity extends AppCompatActivity
               case BottomSheetBehavior.STATE_EXPANDED:
                 {
                   bottomSheetArrowImageView.setImageResource(R.drawable.icn_chevron_down);
+                  stats.setEnabled(true);
                 }
                 break;
               case BottomSheetBehavior.STATE_COLLAPSED:
                 {
                   bottomSheetArrowImageView.setImageResource(R.drawable.icn_chevron_up);
+                  stats.setEnabled(debug);
                 }
                 break;
               case BottomSheetBehavior.STATE_DRAGGING:
@@ -217,6 +267,7 @@ public abstract class CameraActivity extends AppCompatActivity
     frameValueTextView = findViewById(R.id.frame_info);
     cropValueTextView = findViewById(R.id.crop_info);
     inferenceTimeTextView = findViewById(R.id.inference_info);
+    statsTextView = findViewById(R.id.stats_info);
 
     plusImageView.setOnClickListener(this);
     minusImageView.setOnClickListener(this);
@@ -242,24 +293,91 @@ public abstract class CameraActivity extends AppCompatActivity
     return res;
   }
 
+  /** Sequence number of the frame handed to the latest {@link #processImage()} call. */
+  protected long getCurrentFrame() {
+    return currentFrame;
+  }
+
+  /**
+   * Sensor timestamp of the frame handed to the latest {@link #processImage()} call, in the {@link
+   * SystemClock#elapsedRealtimeNanos()} timebase.
+   */
+  protected long getCurrentFrameTimestampNanos() {
+    return currentFrameTimestampNanos;
+  }
+
+  /**
+   * Camera2 timestamps are either elapsedRealtimeNanos() or, on devices reporting
+   * SENSOR_INFO_TIMESTAMP_SOURCE_UNKNOWN, the monotonic clock, which stops in deep sleep. A
+   * monotonic timestamp lies behind realtime by the total sleep time, so anything outside a
+   * plausible frame age is shifted across by the current offset between the two clocks.
+   */
+  private static long toElapsedRealtimeNanos(final long sensorTimestampNanos) {
+    final long now = SystemClock.elapsedRealtimeNanos();
+    if (sensorTimestampNanos <= now && now - sensorTimestampNanos < MAX_FRAME_AGE_NANOS) {
+      return sensorTimestampNanos;
+    }
+    return sensorTimestampNanos + (now - System.nanoTime());
+  }
+
+  /**
+   * Ends the trace slice of {@code frame}. Subclasses call this exactly once per frame, when its
+   * results have been delivered or when it is dropped, from whichever thread finished it.
+   */
+  protected void finishFrame(final long frame) {
+    FrameTrace.endFrame(frame);
+  }
+
   protected int[] getRgbBytes() {
-    imageConverter.run();
+    final long start = stats.begin(PipelineStats.Stage.CONVERSION);
+    if (frameIsNv21) {
+      ImageUtils.convertYUV420SPToARGB8888(
+          frame.getStorage(0), previewWidth, previewHeight, rgbBytes);
+    } else if (frame.getStorageCount() == 0) {
+      ImageUtils.convertYUV420ToARGB8888(
+          frame.getY(),
+          frame.getU(),
+          frame.getV(),
+          previewWidth,
+          previewHeight,
+          frame.getYRowStride(),
+          frame.getUvRowStride(),
+          frame.getUvPixelStride(),
+          rgbBytes);
+    } else {
+      ImageUtils.convertYUV420ToARGB8888(
+          frame.getStorage(0),
+          frame.getStorage(1),
+          frame.getStorage(2),
+          previewWidth,
+          previewHeight,
+          frame.getYRowStride(),
+          frame.getUvRowStride(),
+          frame.getUvPixelStride(),
+          rgbBytes);
+    }
+    stats.end(PipelineStats.Stage.CONVERSION, start);
     return rgbBytes;
   }
 
   protected int getLuminanceStride() {
-    return yRowStride;
+    return frame.getYRowStride();
   }
 
-  protected byte[] getLuminance() {
-    return yuvBytes[0];
+  /**
+   * The luma plane of the current frame, rows {@link #getLuminanceStride()} apart. It may be the
+   * camera's own buffer: read it with absolute gets, and not after {@link #readyForNextImage()}.
+   */
+  protected ByteBuffer getLuminance() {
+    return frame.getY();
   }
 
   /** Callback for android.hardware.Camera API */
   @Override
   public void onPreviewFrame(final byte[] bytes, final Camera camera) {
-    if (isProcessingFrame) {
+    if (holdingFrame) {
       LOGGER.w("Dropping frame!");
+      camera.addCallbackBuffer(bytes);
       return;
     }
 
@@ -277,27 +395,61 @@ public abstract class CameraActivity extends AppCompatActivity
       return;
     }
 
-    isProcessingFrame = true;
-    yuvBytes[0] = bytes;
-    yRowStride = previewWidth;
+    if (camera != previewCamera) {
+      // The fragment's buffer only starts the preview; from here on the camera cycles through
+      // the pool's frames, so it can fill one while others are being processed. Frames of an
+      // earlier camera still held by consumers are dropped when they come back.
+      synchronized (previewLock) {
+        previewCamera = camera;
+        previewPool = FramePool.nv21(
+            FRAME_POOL_SIZE, previewWidth, previewHeight, newPreviewBufferReturner(camera));
+        for (int i = 0; i < previewPool.capacity(); ++i) {
+          camera.addCallbackBuffer(previewPool.get(i).getStorage(0));
+        }
+      }
+      return;
+    }
+    final SharedFrame next = previewPool.acquire(bytes);
+    if (next == null) {
+      // The buffer's frame was returned to the camera but is not available yet.
+      LOGGER.w("Dropping frame!");
+      camera.addCallbackBuffer(bytes);
+      return;
+    }
 
-    imageConverter =
-        new Runnable() {
-          @Override
-          public void run() {
-            ImageUtils.convertYUV420SPToARGB8888(bytes, previewWidth, previewHeight, rgbBytes);
-          }
-        };
+    currentFrame = ++frameSequence;
+    currentFrameTimestampNanos = SystemClock.elapsedRealtimeNanos();
+    FrameTrace.beginFrame(currentFrame);
+    next.set(
+        currentFrame,
+        currentFrameTimestampNanos,
+        previewWidth,
+        previewHeight,
+        previewWidth,
+        previewWidth,
+        2);
+    frameIsNv21 = true;
+    publishFrame(next);
+  }
 
-    postInferenceCallback =
-        new Runnable() {
-          @Override
-          public void run() {
-            camera.addCallbackBuffer(bytes);
-            isProcessingFrame = false;
+  /** Gives returned frames back to {@code camera} as long as it is the one previewing. */
+  private FramePool.Listener newPreviewBufferReturner(final Camera camera) {
+    return new FramePool.Listener() {
+      @Override
+      public void onReturned(final SharedFrame frame) {
+        synchronized (previewLock) {
+          if (camera != previewCamera) {
+            return;
           }
-        };
-    processImage();
+          try {
+            camera.addCallbackBuffer(frame.getStorage(0));
+          } catch (final RuntimeException e) {
+            // The fragment releases the camera just before onPause() forgets it.
+            LOGGER.w("Preview camera already released");
+          }
+        }
+      }
+    };
   }
 
   /** Callback for Camera2 API */
@@ -310,6 +462,7 @@ public abstract class CameraActivity extends AppCompatActivity
     if (rgbBytes == null) {
       rgbBytes = new int[previewWidth * previewHeight];
     }
+    FrameTrace.beginSection("imageAvailable");
     try {
       final Image image = reader.acquireLatestImage();
 
@@ -317,51 +470,99 @@ public abstract class CameraActivity extends AppCompatActivity
         return;
       }
 
-      if (isProcessingFrame) {
+      if (holdingFrame) {
         image.close();
         return;
       }
-      isProcessingFrame = true;
-      Trace.beginSection("imageAvailable");
-      final Plane[] planes = image.getPlanes();
-      fillBytes(planes, yuvBytes);
-      yRowStride = planes[0].getRowStride();
-      final int uvRowStride = planes[1].getRowStride();
-      final int uvPixelStride = planes[1].getPixelStride();
-
-      imageConverter =
-          new Runnable() {
-            @Override
-            public void run() {
-              ImageUtils.convertYUV420ToARGB8888(
-                  yuvBytes[0],
-                  yuvBytes[1],
-                  yuvBytes[2],
-                  previewWidth,
-                  previewHeight,
-                  yRowStride,
-                  uvRowStride,
-                  uvPixelStride,
-                  rgbBytes);
-            }
-          };
-
-      postInferenceCallback =
-          new Runnable() {
-            @Override
-            public void run() {
-              image.close();
-              isProcessingFrame = false;
-            }
-          };
-
-      processImage();
+      final Plane[] planes;
+      final ByteBuffer y;
+      final ByteBuffer u;
+      final ByteBuffer v;
+      final long timestampNanos;
+      final int yRowStride;
+      final int uvRowStride;
+      final int uvPixelStride;
+      try {
+        planes = image.getPlanes();
+        y = planes[0].getBuffer();
+        u = planes[1].getBuffer();
+        v = planes[2].getBuffer();
+        timestampNanos = toElapsedRealtimeNanos(image.getTimestamp());
+        yRowStride = planes[0].getRowStride();
+        uvRowStride = planes[1].getRowStride();
+        uvPixelStride = planes[1].getPixelStride();
+      } catch (final RuntimeException e) {
+        image.close();
+        throw e;
+      }
+      SharedFrame next = directPool.acquire();
+      if (next != null) {
+        // Read in place; the listener closes the image once the frame comes back.
+        openImages[directPool.indexOf(next)] = image;
+        try {
+          next.set(
+              frameSequence + 1,
+              timestampNanos,
+              previewWidth,
+              previewHeight,
+              y,
+              u,
+              v,
+              yRowStride,
+              uvRowStride,
+              uvPixelStride);
+        } catch (final RuntimeException e) {
+          // Only a frame that is somehow still referenced fails here; its holders return it, but
+          // this image was never handed out.
+          image.close();
+          throw e;
+        }
+      } else {
+        if (imagePool == null) {
+          imagePool =
+              FramePool.planar(
+                  FRAME_POOL_SIZE,
+                  y.capacity(),
+                  u.capacity(),
+                  v.capacity(),
+                  null);
+        }
+        next = imagePool.acquire();
+        if (next == null) {
+          // Every frame is still held by a consumer.
+          image.close();
+          return;
+        }
+        next.set(
+            frameSequence + 1,
+            timestampNanos,
+            previewWidth,
+            previewHeight,
+            yRowStride,
+            uvRowStride,
+            uvPixelStride);
+        final long acquireStart = stats.begin(PipelineStats.Stage.ACQUISITION);
+        try {
+          fillBytes(planes, next);
+        } catch (final RuntimeException e) {
+          next.release();
+          throw e;
+        } finally {
+          // The planes are copied, so the camera can have its buffer back straight away.
+          image.close();
+          stats.end(PipelineStats.Stage.ACQUISITION, acquireStart);
+        }
+      }
+      currentFrame = ++frameSequence;
+      currentFrameTimestampNanos = timestampNanos;
+      FrameTrace.beginFrame(currentFrame);
+      frameIsNv21 = false;
+      publishFrame(next);
     } catch (final Exception e) {
       LOGGER.e(e, "Exception!");
-      Trace.endSection();
-      return;
+    } finally {
+      FrameTrace.endSection();
     }
-    Trace.endSection();
   }
 
   @Override
@@ -384,6 +585,10 @@ public abstract class CameraActivity extends AppCompatActivity
   public synchronized void onPause() {
     LOGGER.d("onPause " + this);
 
+    synchronized (previewLock) {
+      previewCamera = null;
+    }
+
     handlerThread.quitSafely();
     try {
       handlerThread.join();
@@ -505,7 +710,7 @@ public abstract class CameraActivity extends AppCompatActivity
   }
 
   protected void setFragment() {
-    String cameraId = chooseCamera();
+    cameraId = chooseCamera();
 
     Fragment fragment;
     if (useCamera2API) {
@@ -533,16 +738,11 @@ public abstract class CameraActivity extends AppCompatActivity
     getFragmentManager().beginTransaction().replace(R.id.container, fragment).commit();
   }
 
-  protected void fillBytes(final Plane[] planes, final byte[][] yuvBytes) {
-    // Because of the variable row stride it's not possible to know in
-    // advance the actual necessary dimensions of the yuv planes.
+  /** Copies the planes into {@code frame}'s own arrays, which were sized from the first image. */
+  protected void fillBytes(final Plane[] planes, final SharedFrame frame) {
     for (int i = 0; i < planes.length; ++i) {
       final ByteBuffer buffer = planes[i].getBuffer();
-      if (yuvBytes[i] == null) {
-        LOGGER.d("Initializing buffer %d at size %d", i, buffer.capacity());
-        yuvBytes[i] = new byte[buffer.capacity()];
-      }
-      buffer.get(yuvBytes[i]);
+      buffer.get(frame.getStorage(i), 0, buffer.remaining());
     }
   }
 
@@ -550,12 +750,36 @@ public abstract class CameraActivity extends AppCompatActivity
     return debug;
   }
 
+  /**
+   * Releases {@link #processImage()}'s reference to the current frame, so the next camera frame
+   * is accepted. The frame goes back to its pool, closing the image it reads from, once the {@link
+   * #frameBus} consumers have released it too, so nothing may read the frame after this.
+   */
   protected void readyForNextImage() {
-    if (postInferenceCallback != null) {
-      postInferenceCallback.run();
+    if (holdingFrame) {
+      holdingFrame = false;
+      frame.release();
     }
   }
 
+  /** Offers {@code next} to the bus consumers, then to {@link #processImage()}. */
+  private void publishFrame(final SharedFrame next) {
+    frame = next;
+    holdingFrame = true;
+    frameBus.publish(next);
+    processImage();
+  }
+
+  /**
+   * Focal length in pixels of a model input cropped from preview frames by {@code frameToCrop},
+   * from the chosen camera's lens characteristics; NaN if they are unavailable. Looks up the
+   * camera service, so call it once per preview configuration.
+   */
+  protected float getCropFocalLength(final Matrix frameToCrop) {
+    return CameraCalibration.cropFocalLength(
+        this, cameraId, previewWidth, previewHeight, frameToCrop);
+  }
+
   protected int getScreenOrientation() {
     switch (getWindowManager().getDefaultDisplay().getRotation()) {
       case Surface.ROTATION_270:
@@ -609,6 +833,29 @@ public abstract class CameraActivity extends AppCompatActivity
     inferenceTimeTextView.setText(inferenceTime);
   }
 
+  protected void showStats(String statString) {
+    statsTextView.setText(statString);
+  }
+
+  /**
+   * Pushes the frame, crop and per-stage timings to the bottom sheet. Safe to call from the
+   * inference thread on every frame; does nothing while stats are disabled.
+   */
+  protected void publishStats(final String statString, final int cropSize) {
+    if (!stats.isEnabled()) {
+      return;
+    }
+    final long inferenceNanos =
+        stats.getHistogram(PipelineStats.Stage.INFERENCE).getPercentileNanos(50);
+    runOnUiThread(
+        () -> {
+          showFrameInfo(previewWidth + "x" + previewHeight);
+          showCropInfo(cropSize + "x" + cropSize);
+          showInference(String.format(Locale.US, "%.1f ms (p50)", inferenceNanos / 1e6));
+          showStats(statString);
+        });
+  }
+
   protected abstract void updateActiveModel();
   protected abstract void processImage();
 
@@ -72,6 +72,12 @@ public class CameraConnectionFragment extends Fragment {
    */
   private static final int MINIMUM_PREVIEW_SIZE = 320;
 
+  /**
+   * Images the preview reader can hand out at once. acquireLatestImage() needs one more than the
+   * listener holds, or the camera stalls until an image is closed.
+   */
+  static final int MAX_PREVIEW_IMAGES = 3;
+
   /** Conversion from screen rotation to JPEG orientation. */
   private static final SparseIntArray ORIENTATIONS = new SparseIntArray();
 
@@ -438,7 +444,10 @@ public class CameraConnectionFragment extends Fragment {
       // Create the reader for the preview frames.
       previewReader =
           ImageReader.newInstance(
-              previewSize.getWidth(), previewSize.getHeight(), ImageFormat.YUV_420_888, 2);
+              previewSize.getWidth(),
+              previewSize.getHeight(),
+              ImageFormat.YUV_420_888,
+              MAX_PREVIEW_IMAGES);
 
       previewReader.setOnImageAvailableListener(imageListener, backgroundHandler);
       previewRequestBuilder.addTarget(previewReader.getSurface());
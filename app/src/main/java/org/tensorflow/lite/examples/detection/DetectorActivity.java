@@ -18,15 +18,27 @@ import android.util.Log;
 import android.util.Size;
 import android.widget.Toast;
 
+import com.google.android.gms.vision.text.TextRecognizer;
+
+import org.tensorflow.lite.examples.detection.audio.ClipPlayer;
+import org.tensorflow.lite.examples.detection.audio.CuePlayer;
+import org.tensorflow.lite.examples.detection.audio.PhraseCache;
 import org.tensorflow.lite.examples.detection.customview.OverlayView;
+import org.tensorflow.lite.examples.detection.env.FrameBus;
 import org.tensorflow.lite.examples.detection.env.ImageUtils;
+import org.tensorflow.lite.examples.detection.haptic.HapticRenderer;
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
+import org.tensorflow.lite.examples.detection.ocr.FrameTextReader;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
 import org.tensorflow.lite.examples.detection.tflite.Classifier;
 import org.tensorflow.lite.examples.detection.tflite.DetectorFactory;
+import org.tensorflow.lite.examples.detection.tracking.AnnouncementScheduler;
 import org.tensorflow.lite.examples.detection.tracking.MultiBoxTracker;
+import org.tensorflow.lite.examples.detection.tracking.RecognitionSpeaker;
+import org.tensorflow.lite.examples.detection.tracking.TrackAnnouncer;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 
@@ -34,23 +46,88 @@ public class DetectorActivity extends CameraActivity implements ImageReader.OnIm
     private static final String TAG = "DetectorActivity";
 
     private Classifier detector;
+    private Classifier objectDetector;
+    // Reading mode reads text from the camera frames while hazards are still announced. When the
+    // text model is bundled, its regions only tell the reader whether text is in view.
+    private static final long TEXT_FRAME_INTERVAL_NANOS = 100_000_000L;
+    // Run the text detector on every Nth object detection while reading.
+    private static final int TEXT_DETECTION_INTERVAL = 3;
+    // Reading state and the text detector are touched on the inference thread only.
+    private boolean readingMode;
+    // Loaded on the first switch to reading mode and kept.
+    private Classifier textDetector;
+    private Bitmap textCroppedBitmap;
+    private Matrix frameToTextCropTransform;
+    private int textDetections;
+    private TextRecognizer textRecognizer;
+    private FrameTextReader textReader;
+    private FrameBus.Subscription textSubscription;
     private Bitmap rgbFrameBitmap = null;
     private Bitmap croppedBitmap = null;
     private boolean computingDetection = false;
     private Matrix frameToCropTransform;
     private Matrix cropToFrameTransform;
-    private MultiBoxTracker tracker;
+    private volatile MultiBoxTracker tracker;
+    private OverlayView trackingOverlay;
+    private int framesUntilDetection = 0;
 
-    private TextToSpeech textToSpeech;
+    private volatile TextToSpeech textToSpeech;
     private SpeechRecognizer speechRecognizer;
     private boolean isListeningForStop = false;
     private final Handler voiceHandler = new Handler();
-    private long lastSpeakTime = 0;
-    private static final long SPEAK_INTERVAL_MS = 3000;
+    private final TrackAnnouncer announcer = new TrackAnnouncer();
+    private final RecognitionSpeaker speaker = new RecognitionSpeaker(stats);
+    private volatile AnnouncementScheduler<Classifier.Recognition> scheduler;
+    private PhraseCache phraseCache;
+    private ClipPlayer clipPlayer;
+    private CuePlayer cuePlayer;
+    private HapticRenderer haptics;
+    // Box centre mapped back to the upright model input, for cue panning.
+    private final float[] cuePoint = new float[2];
     private static final float MINIMUM_CONFIDENCE_TF_OD_API = 0.5f;
+    // Move boxes with optical flow between detections instead of extrapolating their velocity.
+    private static final boolean USE_OPTICAL_FLOW = true;
+    // Run the detector on every Nth frame; the tracker moves boxes on the frames between.
+    private static final int DETECTION_INTERVAL_FRAMES = USE_OPTICAL_FLOW ? 3 : 2;
     private static final Size DESIRED_PREVIEW_SIZE = new Size(640, 640);
     private Integer sensorOrientation;
 
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        phraseCache = new PhraseCache(this, PhraseCache.DEFAULT_BUDGET_BYTES);
+        phraseCache.setLanguage("en", Locale.US);
+        clipPlayer = new ClipPlayer(new ClipPlayer.Listener() {
+            @Override public void onStarted(String utteranceId) {
+                stats.getEndToEnd().speechStarted(utteranceId, SystemClock.elapsedRealtimeNanos());
+            }
+            @Override public void onDone(String utteranceId) { utteranceFinished(utteranceId); }
+            @Override public void onStopped(String utteranceId) { utteranceFinished(utteranceId); }
+        });
+        speaker.setPhraseCache(phraseCache, clipPlayer);
+        cuePlayer = new CuePlayer();
+        haptics = new HapticRenderer(this);
+    }
+
+    @Override
+    public synchronized void onDestroy() {
+        if (textDetector != null) {
+            textDetector.close();
+        }
+        if (textReader != null) {
+            textReader.close();
+        }
+        if (textRecognizer != null) {
+            textRecognizer.release();
+        }
+        speaker.setPhraseCache(null, null);
+        speaker.release();
+        clipPlayer.release();
+        phraseCache.release();
+        cuePlayer.release();
+        super.onDestroy();
+    }
+
     @Override
     public synchronized void onResume() {
         super.onResume();
@@ -67,6 +144,17 @@ public class DetectorActivity extends CameraActivity implements ImageReader.OnIm
         textToSpeech = new TextToSpeech(this, status -> {
             if (status == TextToSpeech.SUCCESS) {
                 textToSpeech.setLanguage(Locale.US);
+                textToSpeech.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+                    @Override public void onStart(String utteranceId) {
+                        stats.getEndToEnd().speechStarted(utteranceId, SystemClock.elapsedRealtimeNanos());
+                    }
+                    @Override public void onDone(String utteranceId) { utteranceFinished(utteranceId); }
+                    @Override public void onError(String utteranceId) { utteranceFinished(utteranceId); }
+                    @Override public void onStop(String utteranceId, boolean interrupted) {
+                        utteranceFinished(utteranceId);
+                    }
+                });
+                speaker.setTextToSpeech(textToSpeech);
             }
         });
         speechRecognizer = SpeechRecognizer.createSpeechRecognizer(this);
@@ -101,6 +189,14 @@ public class DetectorActivity extends CameraActivity implements ImageReader.OnIm
                             stopDetection();
                             return;
                         }
+                        if (cmd.contains("read") || cmd.contains("text") || cmd.contains("पढ़ो") || cmd.contains("చదువు")) {
+                            setReadingMode(true);
+                            break;
+                        }
+                        if (cmd.contains("object") || cmd.contains("detect") || cmd.contains("वस्तु") || cmd.contains("వస్తువు")) {
+                            setReadingMode(false);
+                            break;
+                        }
                     }
                 }
                 if (!isFinishing()) startStopListener();
@@ -114,6 +210,12 @@ public class DetectorActivity extends CameraActivity implements ImageReader.OnIm
     }
 
     private void shutdownVoiceServices() {
+        haptics.stop();
+        speaker.setTextToSpeech(null);
+        clipPlayer.stop();
+        if (scheduler != null) {
+            scheduler.clear();
+        }
         if (textToSpeech != null) {
             textToSpeech.stop();
             textToSpeech.shutdown();
@@ -149,6 +251,9 @@ public class DetectorActivity extends CameraActivity implements ImageReader.OnIm
     }
 
     private void stopDetection() {
+        speaker.setTextToSpeech(null);
+        clipPlayer.stop();
+        haptics.stop();
         if (textToSpeech != null) {
             textToSpeech.setOnUtteranceProgressListener(new UtteranceProgressListener() {
                 @Override public void onStart(String utteranceId) {}
@@ -164,83 +269,259 @@ public class DetectorActivity extends CameraActivity implements ImageReader.OnIm
     @Override
     public void onPreviewSizeChosen(final Size size, final int rotation) {
         try {
-            detector = DetectorFactory.getDetector(getAssets(), "yolov5s.tflite");
+            objectDetector = DetectorFactory.getDetector(getAssets(), "yolov5s.tflite");
         } catch (final IOException e) {
             e.printStackTrace();
             Toast.makeText(getApplicationContext(), "Classifier could not be initialized.", Toast.LENGTH_SHORT).show();
             finish();
             return;
         }
-        int cropSize = detector.getInputSize();
         previewWidth = size.getWidth();
         previewHeight = size.getHeight();
         sensorOrientation = rotation - getScreenOrientation();
         rgbFrameBitmap = Bitmap.createBitmap(previewWidth, previewHeight, Bitmap.Config.ARGB_8888);
-        croppedBitmap = Bitmap.createBitmap(cropSize, cropSize, Bitmap.Config.ARGB_8888);
-        frameToCropTransform = ImageUtils.getTransformationMatrix(previewWidth, previewHeight, cropSize, cropSize, sensorOrientation, true);
-        cropToFrameTransform = new Matrix();
-        frameToCropTransform.invert(cropToFrameTransform);
-        tracker = new MultiBoxTracker(this);
+        useDetector(objectDetector);
+        textRecognizer = new TextRecognizer.Builder(getApplicationContext()).build();
+        if (textRecognizer.isOperational()) {
+            textReader = new FrameTextReader(textRecognizer, sensorOrientation,
+                    (text, heading) -> say(text, "TextId"));
+        } else {
+            Log.w(TAG, "Text recognizer unavailable; reading mode is disabled");
+        }
         
-        OverlayView trackingOverlay = findViewById(R.id.tracking_overlay);
+        trackingOverlay = findViewById(R.id.tracking_overlay);
         trackingOverlay.addCallback(
                 canvas -> {
+                    final long overlayStart = stats.begin(PipelineStats.Stage.OVERLAY);
                     tracker.draw(canvas);
+                    stats.end(PipelineStats.Stage.OVERLAY, overlayStart);
                 });
+    }
 
-        tracker.setFrameConfiguration(previewWidth, previewHeight, sensorOrientation);
+    /**
+     * Points the frame pipeline at {@code next}: its crop size and transforms, class metadata, a
+     * fresh scheduler and tracker. The camera keeps running. Must be called with no detection in
+     * flight, on the image thread or before frames arrive.
+     */
+    private void useDetector(final Classifier next) {
+        detector = next;
+        detector.setStats(stats);
+        speaker.setClassMetadata(detector.getClassMetadata());
+        phraseCache.setClassMetadata(detector.getClassMetadata());
+        cuePlayer.setClassMetadata(detector.getClassMetadata());
+        if (scheduler != null) {
+            scheduler.clear();
+        }
+        announcer.clear();
+        scheduler = new AnnouncementScheduler<>(detector.getClassMetadata(), announcer, speaker);
+        int cropSize = detector.getInputSize();
+        croppedBitmap = Bitmap.createBitmap(cropSize, cropSize, Bitmap.Config.ARGB_8888);
+        frameToCropTransform = ImageUtils.getTransformationMatrix(previewWidth, previewHeight, cropSize, cropSize, sensorOrientation, true);
+        cropToFrameTransform = new Matrix();
+        frameToCropTransform.invert(cropToFrameTransform);
+        detector.setFocalLength(getCropFocalLength(frameToCropTransform));
+        // Track IDs and classes of one model mean nothing to the other.
+        final MultiBoxTracker nextTracker = new MultiBoxTracker(this);
+        nextTracker.setFrameConfiguration(previewWidth, previewHeight, sensorOrientation);
+        tracker = nextTracker;
+        framesUntilDetection = 0;
+    }
+
+    /**
+     * Switches reading mode on or off. Reading mode hands the camera frames to the text reader
+     * while the object detector keeps running; only hazards are announced meanwhile, and cues and
+     * haptics carry on. If the text detection model is bundled it is loaded on the inference
+     * thread the first time and run alongside, so text is only recognized while it finds any.
+     */
+    private void setReadingMode(final boolean reading) {
+        runInBackground(() -> {
+            if (reading == readingMode) {
+                return;
+            }
+            if (reading && textReader == null) {
+                say("Reading mode is not available", "ModeId");
+                return;
+            }
+            if (reading && textDetector == null) {
+                loadTextDetector();
+            }
+            readingMode = reading;
+            if (reading) {
+                textReader.setTextInView(true);
+                textDetections = 0;
+                textSubscription = frameBus.subscribe("text", textReader, TEXT_FRAME_INTERVAL_NANOS);
+            } else {
+                frameBus.unsubscribe(textSubscription);
+                textSubscription = null;
+                textReader.reset();
+            }
+            say(reading ? "Reading mode. Hazards will still be announced." : "Object mode", "ModeId");
+        });
+    }
+
+    /** Loads the optional text detector and its crop; without it every steady frame is read. */
+    private void loadTextDetector() {
+        try {
+            textDetector = DetectorFactory.getTextDetector(getAssets(), DetectorFactory.TEXT_MODEL);
+        } catch (final IOException e) {
+            Log.i(TAG, "No text detector; reading every steady frame", e);
+            return;
+        }
+        final int cropSize = textDetector.getInputSize();
+        textCroppedBitmap = Bitmap.createBitmap(cropSize, cropSize, Bitmap.Config.ARGB_8888);
+        frameToTextCropTransform = ImageUtils.getTransformationMatrix(
+                previewWidth, previewHeight, cropSize, cropSize, sensorOrientation, true);
+    }
+
+    /**
+     * Runs the text detector on the frame the object detector just saw and tells the reader
+     * whether any text is in view. Runs on the inference thread, while {@link #rgbFrameBitmap}
+     * still holds that frame.
+     */
+    private void detectText() {
+        final Canvas canvas = new Canvas(textCroppedBitmap);
+        canvas.drawBitmap(rgbFrameBitmap, frameToTextCropTransform, null);
+        boolean found = false;
+        for (final Classifier.Recognition region : textDetector.recognizeImage(textCroppedBitmap)) {
+            if (region.getConfidence() >= MINIMUM_CONFIDENCE_TF_OD_API) {
+                found = true;
+                break;
+            }
+        }
+        textReader.setTextInView(found);
+    }
+
+    private List<Classifier.Recognition> hazardsOnly(final List<Classifier.Recognition> results) {
+        final ClassMetadata classes = detector.getClassMetadata();
+        final List<Classifier.Recognition> hazards = new ArrayList<>();
+        for (final Classifier.Recognition result : results) {
+            if (classes.hazard(result.getDetectedClass()) != ClassMetadata.Hazard.NONE) {
+                hazards.add(result);
+            }
+        }
+        return hazards;
+    }
+
+    private void say(final String text, final String utteranceId) {
+        final TextToSpeech tts = textToSpeech;
+        if (tts != null) {
+            tts.speak(text, TextToSpeech.QUEUE_ADD, null, utteranceId);
+        }
     }
 
     @Override
     protected void processImage() {
         if (computingDetection || rgbFrameBitmap == null) {
             readyForNextImage();
+            finishFrame(getCurrentFrame());
             return;
         }
+        if (framesUntilDetection > 0 && tracker.hasConfirmedTracks() && propagateTracks()) {
+            framesUntilDetection--;
+            trackingOverlay.postInvalidate();
+            readyForNextImage();
+            finishFrame(getCurrentFrame());
+            return;
+        }
+        framesUntilDetection = DETECTION_INTERVAL_FRAMES - 1;
         computingDetection = true;
+        if (USE_OPTICAL_FLOW) {
+            tracker.setReferenceFrame(getLuminance(), getLuminanceStride());
+        }
         rgbFrameBitmap.setPixels(getRgbBytes(), 0, previewWidth, 0, 0, previewWidth, previewHeight);
         readyForNextImage();
 
+        final long cropStart = stats.begin(PipelineStats.Stage.CROP);
         final Canvas canvas = new Canvas(croppedBitmap);
         canvas.drawBitmap(rgbFrameBitmap, frameToCropTransform, null);
+        stats.end(PipelineStats.Stage.CROP, cropStart);
+
+        final long frame = getCurrentFrame();
+        final long frameTimestamp = getCurrentFrameTimestampNanos();
 
         runInBackground(() -> {
             try {
                 final List<Classifier.Recognition> results = detector.recognizeImage(croppedBitmap);
-                final List<Classifier.Recognition> mappedRecognitions = new LinkedList<>();
-                Classifier.Recognition bestMatch = null;
+                final List<Classifier.Recognition> mappedRecognitions = new ArrayList<>(results.size());
 
                 for (final Classifier.Recognition result : results) {
                     final RectF location = result.getLocation();
                     if (location != null && result.getConfidence() >= MINIMUM_CONFIDENCE_TF_OD_API) {
                         cropToFrameTransform.mapRect(location);
                         result.setLocation(location);
+                        result.setFrameTimestampNanos(frameTimestamp);
                         mappedRecognitions.add(result);
-                        if (result.getDistance() != null) {
-                            if (bestMatch == null || result.getDistance() < bestMatch.getDistance()) {
-                                bestMatch = result;
-                            }
-                        }
                     }
                 }
-                tracker.trackResults(mappedRecognitions, System.currentTimeMillis());
-                if (bestMatch != null) {
-                    final Classifier.Recognition finalBestMatch = bestMatch;
-                    runOnUiThread(() -> announceObject(finalBestMatch));
+                final long trackingStart = stats.begin(PipelineStats.Stage.TRACKING);
+                tracker.trackResults(mappedRecognitions, frameTimestamp / 1_000_000L);
+                stats.end(PipelineStats.Stage.TRACKING, trackingStart);
+                trackingOverlay.postInvalidate();
+                cueTracks(mappedRecognitions, SystemClock.elapsedRealtime());
+                haptics.update(mappedRecognitions, detector.getClassMetadata(),
+                        MINIMUM_CONFIDENCE_TF_OD_API, SystemClock.elapsedRealtime());
+                final List<Classifier.Recognition> announced =
+                        readingMode ? hazardsOnly(mappedRecognitions) : mappedRecognitions;
+                scheduler.offer(announced, MINIMUM_CONFIDENCE_TF_OD_API, SystemClock.elapsedRealtime());
+                if (readingMode && textDetector != null
+                        && textDetections++ % TEXT_DETECTION_INTERVAL == 0) {
+                    detectText();
                 }
+                stats.frameCompleted();
+                publishStats(detector.getStatString(), detector.getInputSize());
             } catch (Exception e) {
                 Log.e(TAG, "Exception in detection background thread!", e);
             }
             computingDetection = false;
+            finishFrame(frame);
         });
     }
 
-    private void announceObject(Classifier.Recognition recognition) {
-        long currentTime = System.currentTimeMillis();
-        if (textToSpeech != null && !textToSpeech.isSpeaking() && (currentTime - lastSpeakTime > SPEAK_INTERVAL_MS)) {
-            String message = recognition.getTitle() + ", " + String.format(Locale.US, "%.1f meters", recognition.getDistance());
-            textToSpeech.speak(message, TextToSpeech.QUEUE_FLUSH, null, null);
-            lastSpeakTime = currentTime;
+    /**
+     * Moves tracked boxes to the current frame without running the detector. Returns false if
+     * optical flow lost track of an object, in which case the frame should be re-detected.
+     */
+    private boolean propagateTracks() {
+        final long timestampMs = getCurrentFrameTimestampNanos() / 1_000_000L;
+        if (!USE_OPTICAL_FLOW) {
+            tracker.extrapolate(timestampMs);
+            return true;
+        }
+        final long flowStart = stats.begin(PipelineStats.Stage.FLOW);
+        final float confidence = tracker.propagate(getLuminance(), getLuminanceStride(), timestampMs);
+        stats.end(PipelineStats.Stage.FLOW, flowStart);
+        if (confidence < MultiBoxTracker.MIN_FLOW_CONFIDENCE) {
+            return false;
+        }
+        tracker.setReferenceFrame(getLuminance(), getLuminanceStride());
+        return true;
+    }
+
+    /**
+     * Plays a tone per high-priority track, panned by where its box is across the upright model
+     * input. Runs on the inference thread, after tracking has assigned IDs.
+     */
+    private void cueTracks(final List<Classifier.Recognition> results, final long nowMs) {
+        final float width = detector.getInputSize();
+        for (final Classifier.Recognition result : results) {
+            final Float distance = result.getDistance();
+            if (distance == null) {
+                continue;
+            }
+            final RectF location = result.getLocation();
+            cuePoint[0] = location.centerX();
+            cuePoint[1] = location.centerY();
+            frameToCropTransform.mapPoints(cuePoint);
+            final float bearing = 2 * cuePoint[0] / width - 1;
+            cuePlayer.offer(result.getTrackId(), result.getDetectedClass(), bearing, distance, nowMs);
+        }
+    }
+
+    /** Lets the scheduler speak the next queued object; called on the TTS thread. */
+    private void utteranceFinished(String utteranceId) {
+        final AnnouncementScheduler<Classifier.Recognition> current = scheduler;
+        if (current != null && AnnouncementScheduler.isAnnouncement(utteranceId)) {
+            current.onUtteranceDone(utteranceId, SystemClock.elapsedRealtime());
         }
     }
 
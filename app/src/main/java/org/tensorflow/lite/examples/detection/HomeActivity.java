@@ -12,6 +12,10 @@ import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.RectF;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
 import android.location.Location;
 import android.location.LocationManager;
 import android.media.ImageReader;
@@ -20,6 +24,7 @@ import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import android.speech.RecognitionListener;
@@ -32,9 +37,28 @@ import android.util.Log;
 import android.util.Size;
 import android.widget.Toast;
 
+import com.google.android.gms.vision.text.TextRecognizer;
+
+import org.tensorflow.lite.examples.detection.audio.ClipPlayer;
+import org.tensorflow.lite.examples.detection.audio.CuePlayer;
+import org.tensorflow.lite.examples.detection.audio.PhraseCache;
+import org.tensorflow.lite.examples.detection.env.FrameBus;
 import org.tensorflow.lite.examples.detection.env.ImageUtils;
+import org.tensorflow.lite.examples.detection.env.OrientationHistory;
+import org.tensorflow.lite.examples.detection.haptic.HapticRenderer;
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
+import org.tensorflow.lite.examples.detection.ocr.FrameTextReader;
+import org.tensorflow.lite.examples.detection.ocr.StreamingReader;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
 import org.tensorflow.lite.examples.detection.tflite.Classifier;
+import org.tensorflow.lite.examples.detection.tflite.DetectionBuffer;
 import org.tensorflow.lite.examples.detection.tflite.DetectorFactory;
+import org.tensorflow.lite.examples.detection.tracking.AnnouncementScheduler;
+import org.tensorflow.lite.examples.detection.tracking.GroundPlaneEstimator;
+import org.tensorflow.lite.examples.detection.tracking.KalmanBoxTracker;
+import org.tensorflow.lite.examples.detection.tracking.RangeEstimator;
+import org.tensorflow.lite.examples.detection.tracking.RecognitionSpeaker;
+import org.tensorflow.lite.examples.detection.tracking.TrackAnnouncer;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -45,11 +69,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-public class HomeActivity extends CameraActivity implements ImageReader.OnImageAvailableListener {
+public class HomeActivity extends CameraActivity
+        implements ImageReader.OnImageAvailableListener, SensorEventListener {
 
     private static final String TAG = "HomeActivity";
 
-    private TextToSpeech textToSpeech;
+    private volatile TextToSpeech textToSpeech;
     private SpeechRecognizer speechRecognizer;
     private static final int REQUEST_CODE_PERMISSIONS = 101;
     private final Handler handler = new Handler(Looper.getMainLooper());
@@ -77,18 +102,126 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
     private Matrix frameToCropTransform;
     private static final Size DESIRED_PREVIEW_SIZE = new Size(640, 640);
     private static final float MINIMUM_CONFIDENCE_TF_OD_API = 0.5f;
-    private long lastSpeakTime = 0;
-    private static final long SPEAK_INTERVAL_MS = 3000;
+    private static final int MAX_TRACKS = 32;
+    private static final int MAX_TRACKED_DETECTIONS = 64;
+    private final TrackAnnouncer announcer = new TrackAnnouncer();
+    private final RecognitionSpeaker objectSpeaker = new RecognitionSpeaker(stats);
+    private volatile AnnouncementScheduler<Classifier.Recognition> scheduler;
+    private PhraseCache phraseCache;
+    private ClipPlayer clipPlayer;
+    private CuePlayer cuePlayer;
+    private HapticRenderer haptics;
+    // Only used for stable track IDs so announcements can be deduplicated per object.
+    private final KalmanBoxTracker idTracker = new KalmanBoxTracker(MAX_TRACKS, MAX_TRACKED_DETECTIONS);
+    private final DetectionBuffer trackedBoxes = new DetectionBuffer(MAX_TRACKED_DETECTIONS);
+    private final RangeEstimator ranges = new RangeEstimator(MAX_TRACKS);
     private Integer sensorOrientation;
 
+    // --- Ground-plane distance ---
+    // About 2.5 s of rotation-vector samples at SENSOR_DELAY_GAME.
+    private static final int ORIENTATION_HISTORY_SIZE = 128;
+    private final OrientationHistory orientationHistory = new OrientationHistory(ORIENTATION_HISTORY_SIZE);
+    private final float[] rotationMatrix = new float[9];
+    private final float[] framePitchRoll = new float[2];
+    private SensorManager sensorManager;
+    private int sensorScreenRotation;
+    private GroundPlaneEstimator groundPlane;
+
+    // --- Sign reading, on the same camera frames as detection ---
+    // The text gate sees about ten frames a second; recognition runs whenever it is free.
+    private static final long TEXT_FRAME_INTERVAL_NANOS = 100_000_000L;
+    private static final String PAUSE_UTTERANCE_ID = "READ_PAUSE";
+    private static final long HEADING_PAUSE_MS = 400;
+    private TextRecognizer textRecognizer;
+    private FrameTextReader textReader;
+    private FrameBus.Subscription textSubscription;
+    // Set when an announcement interrupts reading, which resumes once announcements are done.
+    private volatile boolean resumeReading;
+    private final StreamingReader reader = new StreamingReader(new StreamingReader.Speaker() {
+        @Override
+        public void speak(String text, String utteranceId, boolean endOfSection) {
+            final TextToSpeech tts = textToSpeech;
+            if (tts == null) {
+                return;
+            }
+            tts.speak(text, TextToSpeech.QUEUE_ADD, null, utteranceId);
+            if (endOfSection) {
+                tts.playSilentUtterance(HEADING_PAUSE_MS, TextToSpeech.QUEUE_ADD, PAUSE_UTTERANCE_ID);
+            }
+        }
+
+        @Override
+        public void stop() {
+            final TextToSpeech tts = textToSpeech;
+            if (tts != null) {
+                tts.stop();
+            }
+        }
+    });
+    // Announcements pause reading instead of waiting for it to finish. The pause stops the
+    // engine, so it runs on the speaker's thread, ahead of the announcement.
+    private final Runnable pauseReading = () -> {
+        if (reader.isReading()) {
+            reader.pause();
+            resumeReading = true;
+        }
+    };
+    private final AnnouncementScheduler.Speaker<Classifier.Recognition> announcementSpeaker =
+            new AnnouncementScheduler.Speaker<Classifier.Recognition>() {
+        @Override
+        public void speak(Classifier.Recognition recognition, String utteranceId) {
+            objectSpeaker.post(pauseReading);
+            objectSpeaker.speak(recognition, utteranceId);
+        }
+
+        @Override
+        public boolean isBusy() {
+            return !reader.isReading() && objectSpeaker.isBusy();
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         initializeCommands();
         locationManager = (LocationManager) getSystemService(Context.LOCATION_SERVICE);
+        phraseCache = new PhraseCache(this, PhraseCache.DEFAULT_BUDGET_BYTES);
+        clipPlayer = new ClipPlayer(new ClipPlayer.Listener() {
+            @Override
+            public void onStarted(String utteranceId) {
+                stats.getEndToEnd().speechStarted(utteranceId, SystemClock.elapsedRealtimeNanos());
+            }
+            @Override
+            public void onDone(String utteranceId) {
+                objectUtteranceFinished(utteranceId);
+            }
+            @Override
+            public void onStopped(String utteranceId) {
+                objectUtteranceFinished(utteranceId);
+            }
+        });
+        objectSpeaker.setPhraseCache(phraseCache, clipPlayer);
+        cuePlayer = new CuePlayer();
+        haptics = new HapticRenderer(this);
         checkPermissionAndStart();
     }
 
+    @Override
+    public synchronized void onDestroy() {
+        if (textReader != null) {
+            textReader.close();
+        }
+        if (textRecognizer != null) {
+            textRecognizer.release();
+        }
+        objectSpeaker.setPhraseCache(null, null);
+        objectSpeaker.release();
+        clipPlayer.release();
+        phraseCache.release();
+        cuePlayer.release();
+        super.onDestroy();
+    }
+
     private void initializeCommands() {
         commandMap = new HashMap<>();
         commandMap.put(LANG_ENGLISH, Arrays.asList("detect", "read", "help"));
@@ -104,9 +237,12 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
 
     @Override
     public synchronized void onPause() {
-        if (currentState == AppState.DETECTING) {
+        if (currentState == AppState.DETECTING || currentState == AppState.READING) {
             stopDetection();
         }
+        if (sensorManager != null) {
+            sensorManager.unregisterListener(this);
+        }
         stopListening();
         super.onPause();
     }
@@ -150,6 +286,8 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
                 textToSpeech.setOnUtteranceProgressListener(new UtteranceProgressListener() {
                     @Override
                     public void onStart(String utteranceId) {
+                        stats.getEndToEnd().speechStarted(utteranceId, SystemClock.elapsedRealtimeNanos());
+                        reader.onUtteranceStart(utteranceId, SystemClock.uptimeMillis());
                         runOnUiThread(() -> stopListening());
                     }
                     @Override
@@ -157,12 +295,22 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
                         if (utteranceId.startsWith("PROMPT")) {
                             runOnUiThread(() -> startListening());
                         }
+                        reader.onUtteranceDone(utteranceId);
+                        objectUtteranceFinished(utteranceId);
                     }
                     @Override
                     public void onError(String utteranceId) {
+                        reader.onUtteranceDone(utteranceId);
+                        objectUtteranceFinished(utteranceId);
                         runOnUiThread(() -> startListening());
                     }
+                    @Override
+                    public void onStop(String utteranceId, boolean interrupted) {
+                        reader.onUtteranceDone(utteranceId);
+                        objectUtteranceFinished(utteranceId);
+                    }
                 });
+                objectSpeaker.setTextToSpeech(textToSpeech);
                 enterIdleState();
             } else {
                 Log.e(TAG, "TTS Initialization failed");
@@ -173,7 +321,7 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
     }
 
     private void enterIdleState() {
-        if (currentState == AppState.DETECTING) {
+        if (currentState == AppState.DETECTING || currentState == AppState.READING) {
             stopDetection();
         }
         currentState = AppState.IDLE;
@@ -192,6 +340,8 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
                 }
             }
         }
+        objectSpeaker.setLanguage(currentLanguage);
+        phraseCache.setLanguage(currentLanguage, currentLanguage.equals(langCode) ? locale : Locale.ENGLISH);
     }
 
     private String getLocalizedPrompt() {
@@ -280,7 +430,7 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
         if (lowerCommand.contains(commands.get(0))) { // Detect
             startDetection();
         } else if (lowerCommand.contains(commands.get(1))) { // Read
-            speak("Text reading is not yet implemented.", "INFO");
+            startReading();
         } else if (lowerCommand.contains(commands.get(2))) { // Help
             triggerEmergencySequence();
         } else if(lowerCommand.contains("stop") && currentState == AppState.DETECTING) {
@@ -299,12 +449,43 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
     
     private void startDetection() {
         currentState = AppState.DETECTING;
+        registerOrientationSensor();
         speak("Detection mode started. Say stop to exit.", "START_DETECT");
     }
 
+    /**
+     * Reads signs and other text aloud while detection keeps running on the same frames; only
+     * hazards are announced meanwhile, and they interrupt the reading.
+     */
+    private void startReading() {
+        if (textReader == null) {
+            speak("Text reading is not available.", "INFO");
+            return;
+        }
+        currentState = AppState.READING;
+        registerOrientationSensor();
+        textSubscription = frameBus.subscribe("text", textReader, TEXT_FRAME_INTERVAL_NANOS);
+        speak("Reading mode started. Hazards will still be announced.", "START_READ");
+    }
+
     private void stopDetection() {
         computingDetection = false;
         currentState = AppState.IDLE;
+        if (textSubscription != null) {
+            frameBus.unsubscribe(textSubscription);
+            textSubscription = null;
+            textReader.reset();
+        }
+        resumeReading = false;
+        reader.clear();
+        if (scheduler != null) {
+            scheduler.clear();
+        }
+        clipPlayer.stop();
+        haptics.stop();
+        if (sensorManager != null) {
+            sensorManager.unregisterListener(this);
+        }
     }
 
     private void triggerEmergencySequence() {
@@ -333,6 +514,11 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
             finish();
             return;
         }
+        detector.setStats(stats);
+        objectSpeaker.setClassMetadata(detector.getClassMetadata());
+        phraseCache.setClassMetadata(detector.getClassMetadata());
+        cuePlayer.setClassMetadata(detector.getClassMetadata());
+        scheduler = new AnnouncementScheduler<>(detector.getClassMetadata(), announcer, announcementSpeaker);
         int cropSize = detector.getInputSize();
         previewWidth = size.getWidth();
         previewHeight = size.getHeight();
@@ -341,12 +527,24 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
         croppedBitmap = Bitmap.createBitmap(cropSize, cropSize, Bitmap.Config.ARGB_8888);
         frameToCropTransform = ImageUtils.getTransformationMatrix(
                 previewWidth, previewHeight, cropSize, cropSize, sensorOrientation, true);
+        final float focalLength = getCropFocalLength(frameToCropTransform);
+        detector.setFocalLength(focalLength);
+        groundPlane = new GroundPlaneEstimator(cropSize, focalLength);
+        textRecognizer = new TextRecognizer.Builder(getApplicationContext()).build();
+        if (textRecognizer.isOperational()) {
+            textReader = new FrameTextReader(textRecognizer, sensorOrientation,
+                    (text, heading) -> reader.append(text, heading, SystemClock.uptimeMillis()));
+        } else {
+            Log.w(TAG, "Text recognizer unavailable; reading is disabled");
+        }
     }
 
     @Override
     protected void processImage() {
-        if (currentState != AppState.DETECTING || computingDetection || rgbFrameBitmap == null) {
+        if ((currentState != AppState.DETECTING && currentState != AppState.READING)
+                || computingDetection || rgbFrameBitmap == null) {
             readyForNextImage();
+            finishFrame(getCurrentFrame());
             return;
         }
         computingDetection = true;
@@ -354,40 +552,124 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
         rgbFrameBitmap.setPixels(getRgbBytes(), 0, previewWidth, 0, 0, previewWidth, previewHeight);
         readyForNextImage();
 
+        final long cropStart = stats.begin(PipelineStats.Stage.CROP);
         final Canvas canvas = new Canvas(croppedBitmap);
         canvas.drawBitmap(rgbFrameBitmap, frameToCropTransform, null);
+        stats.end(PipelineStats.Stage.CROP, cropStart);
+
+        final long frame = getCurrentFrame();
+        final long frameTimestamp = getCurrentFrameTimestampNanos();
 
         runInBackground(
                 () -> {
                     try {
                         final List<Classifier.Recognition> results = detector.recognizeImage(croppedBitmap);
-                        Classifier.Recognition bestMatch = null;
-
                         for (final Classifier.Recognition result : results) {
-                            if (result.getConfidence() >= MINIMUM_CONFIDENCE_TF_OD_API && result.getDistance() != null) {
-                                if (bestMatch == null || result.getDistance() < bestMatch.getDistance()) {
-                                    bestMatch = result;
-                                }
-                            }
-                        }
-
-                        if (bestMatch != null) {
-                            final Classifier.Recognition finalBestMatch = bestMatch;
-                            runOnUiThread(() -> announceObject(finalBestMatch));
+                            result.setFrameTimestampNanos(frameTimestamp);
                         }
+                        refineGroundDistances(results, frameTimestamp);
+                        assignTrackIds(results, frameTimestamp / 1_000_000L);
+                        cueTracks(results, SystemClock.elapsedRealtime());
+                        haptics.update(results, detector.getClassMetadata(),
+                                MINIMUM_CONFIDENCE_TF_OD_API, SystemClock.elapsedRealtime());
+                        final List<Classifier.Recognition> announced =
+                                currentState == AppState.READING ? hazardsOnly(results) : results;
+                        scheduler.offer(announced, MINIMUM_CONFIDENCE_TF_OD_API, SystemClock.elapsedRealtime());
+                        stats.frameCompleted();
+                        publishStats(detector.getStatString(), detector.getInputSize());
                     } catch (Exception e) {
                         Log.e(TAG, "Exception in detection background thread!", e);
                     }
                     computingDetection = false;
+                    finishFrame(frame);
                 });
     }
     
-    private void announceObject(Classifier.Recognition recognition) {
-        long currentTime = System.currentTimeMillis();
-        if (textToSpeech != null && !textToSpeech.isSpeaking() && (currentTime - lastSpeakTime > SPEAK_INTERVAL_MS)) {
-            String message = recognition.getTitle() + ", " + String.format(Locale.US, "%.1f meters", recognition.getDistance());
-            textToSpeech.speak(message, TextToSpeech.QUEUE_FLUSH, null, "OBJECT");
-            lastSpeakTime = currentTime;
+    /**
+     * Plays a tone per high-priority track, panned by where its box is across the model input.
+     * Runs on the inference thread, after {@link #assignTrackIds}.
+     */
+    private void cueTracks(final List<Classifier.Recognition> results, final long nowMs) {
+        final float width = detector.getInputSize();
+        for (final Classifier.Recognition result : results) {
+            final Float distance = result.getDistance();
+            if (distance != null) {
+                final float bearing = 2 * result.getLocation().centerX() / width - 1;
+                cuePlayer.offer(result.getTrackId(), result.getDetectedClass(), bearing, distance, nowMs);
+            }
+        }
+    }
+
+    /**
+     * Lets the scheduler speak the next queued object, and resumes reading interrupted by
+     * announcements once none is left; called on the TTS thread.
+     */
+    private void objectUtteranceFinished(String utteranceId) {
+        final AnnouncementScheduler<Classifier.Recognition> current = scheduler;
+        if (current != null && AnnouncementScheduler.isAnnouncement(utteranceId)) {
+            current.onUtteranceDone(utteranceId, SystemClock.elapsedRealtime());
+            if (resumeReading && current.speaking() == null) {
+                resumeReading = false;
+                reader.resume(SystemClock.uptimeMillis());
+            }
+        }
+    }
+
+    private List<Classifier.Recognition> hazardsOnly(final List<Classifier.Recognition> results) {
+        final ClassMetadata classes = detector.getClassMetadata();
+        final List<Classifier.Recognition> hazards = new ArrayList<>();
+        for (final Classifier.Recognition result : results) {
+            if (classes.hazard(result.getDetectedClass()) != ClassMetadata.Hazard.NONE) {
+                hazards.add(result);
+            }
+        }
+        return hazards;
+    }
+
+    /**
+     * Fuses the height-based distance of objects on the floor with where their box bottom meets
+     * the ground, using the camera pitch at the frame's timestamp. Runs on the inference thread.
+     */
+    private void refineGroundDistances(final List<Classifier.Recognition> results, final long frameTimestamp) {
+        if (groundPlane == null || !orientationHistory.sample(frameTimestamp, framePitchRoll)) {
+            return;
+        }
+        final ClassMetadata classes = detector.getClassMetadata();
+        for (final Classifier.Recognition result : results) {
+            if (!classes.isOnGround(result.getDetectedClass())) {
+                continue;
+            }
+            final RectF location = result.getLocation();
+            final Float distance = result.getDistance();
+            final float fused = groundPlane.fuse(distance != null ? distance : Float.NaN,
+                    location.top, location.bottom, framePitchRoll[0], framePitchRoll[1]);
+            if (fused == fused) {
+                result.setDistance(fused);
+            }
+        }
+    }
+
+    private void assignTrackIds(final List<Classifier.Recognition> results, final long timestampMs) {
+        trackedBoxes.clear();
+        for (final Classifier.Recognition result : results) {
+            final RectF location = result.getLocation();
+            trackedBoxes.add(location.left, location.top, location.right, location.bottom,
+                    location.height(), result.getConfidence(), result.getDetectedClass());
+        }
+        idTracker.update(trackedBoxes, timestampMs);
+        for (int i = 0; i < idTracker.size(); ++i) {
+            final int matched = idTracker.matchedDetection(i);
+            if (matched >= 0) {
+                final Classifier.Recognition result = results.get(matched);
+                final int id = idTracker.id(i);
+                result.setTrackId(id);
+                result.setApproachRate(idTracker.heightVelocity(i) / idTracker.height(i));
+                if (result.getDistance() != null) {
+                    ranges.update(id, result.getDistance(), timestampMs);
+                    result.setDistance(ranges.range(id));
+                    result.setTimeToCollision(ranges.timeToCollision(id));
+                }
+            }
         }
     }
     
@@ -447,11 +729,43 @@ public class HomeActivity extends CameraActivity implements ImageReader.OnImageA
         }
     }
     
-    // Unused sensor methods
+    // --- Orientation sensor ---
+    private void registerOrientationSensor() {
+        if (sensorManager == null) {
+            sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
+        }
+        if (sensorManager == null) {
+            return;
+        }
+        // The game rotation vector ignores the magnetometer, which is unreliable indoors; pitch
+        // only needs gravity.
+        Sensor sensor = sensorManager.getDefaultSensor(Sensor.TYPE_GAME_ROTATION_VECTOR);
+        if (sensor == null) {
+            sensor = sensorManager.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
+        }
+        if (sensor == null) {
+            Log.w(TAG, "No rotation vector sensor; using height-based distances only");
+            return;
+        }
+        sensorScreenRotation = getScreenOrientation();
+        sensorManager.registerListener(this, sensor, SensorManager.SENSOR_DELAY_GAME);
+    }
+
     @Override
-    public void onSensorChanged(android.hardware.SensorEvent event) {}
+    public void onSensorChanged(SensorEvent event) {
+        SensorManager.getRotationMatrixFromVector(rotationMatrix, event.values);
+        // The back camera looks along the device's -Z axis; its pitch below the horizon is the
+        // angle whose sine is the world-up component of +Z. Roll tilts the image's horizontal
+        // axis, which is device X in portrait and device Y in landscape.
+        final float pitch = (float) Math.asin(Math.max(-1f, Math.min(1f, rotationMatrix[8])));
+        final float horizontal = sensorScreenRotation % 180 == 0 ? rotationMatrix[6] : rotationMatrix[7];
+        final float roll = (float) Math.asin(Math.max(-1f, Math.min(1f, horizontal)));
+        // Sensor timestamps share the elapsedRealtimeNanos() base of getCurrentFrameTimestampNanos().
+        orientationHistory.add(event.timestamp, pitch, roll);
+    }
+
     @Override
-    public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {}
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
     @Override
     protected void setUseNNAPI(boolean isChecked) {}
     @Override
@@ -89,7 +89,7 @@ public class MainActivity extends AppCompatActivity implements TextToSpeech.OnIn
                             startActivity(new Intent(MainActivity.this, DetectorActivity.class));
                             return;
                         } else if (command.contains("ocr") || command.contains("read text")) {
-                            startActivity(new Intent(MainActivity.this, OCRActivity.class));
+                            startActivity(new Intent(MainActivity.this, HomeActivity.class));
                             return;
                         }
                     }
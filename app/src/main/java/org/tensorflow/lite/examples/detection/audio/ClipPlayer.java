@@ -0,0 +1,229 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import org.tensorflow.lite.examples.detection.env.Logger;
+
+/**
+ * Plays cached phrases back to back through a streaming {@link AudioTrack}, so a cached
+ * announcement starts within a buffer's worth of latency instead of waiting for synthesis. Reports
+ * start and end per utterance ID like a TTS engine. A new {@link #play} or {@link #stop} cuts off
+ * the clip in progress, which then reports {@link Listener#onStopped}.
+ *
+ * <p>Writes happen on a dedicated thread, in small chunks so that an interruption takes effect
+ * quickly; the track is kept open between announcements and recreated only when the sample rate
+ * changes. {@link #generation} and {@link #playing} change together under the lock, so a clip
+ * that finishes just as another starts cannot mark the new one as done.
+ */
+public final class ClipPlayer {
+  private static final Logger LOGGER = new Logger();
+
+  /** Called on the player thread. */
+  public interface Listener {
+    void onStarted(String utteranceId);
+
+    void onDone(String utteranceId);
+
+    void onStopped(String utteranceId);
+  }
+
+  private static final int CHUNK_SAMPLES = 1024;
+  private static final long POLL_MS = 5;
+
+  private final Listener listener;
+  private final HandlerThread thread = new HandlerThread("ClipPlayer");
+  private final Handler handler;
+  private final Object lock = new Object();
+  /** Incremented by every play and stop; a write loop exits as soon as it changes. */
+  private volatile int generation;
+  /** Written under {@link #lock}; read without it. */
+  private volatile boolean playing;
+  private AudioTrack track;
+  private int trackRate;
+
+  public ClipPlayer(final Listener listener) {
+    this.listener = listener;
+    thread.start();
+    handler = new Handler(thread.getLooper());
+  }
+
+  /** Plays {@code clips} in order, interrupting whatever is playing. All must share a rate. */
+  public void play(final PcmClip[] clips, final String utteranceId) {
+    final int id;
+    synchronized (lock) {
+      id = interrupt();
+      playing = true;
+    }
+    handler.post(() -> write(clips, utteranceId, id));
+  }
+
+  public void stop() {
+    interrupt();
+  }
+
+  /** True from {@link #play} until the last sample has been played or playback stopped. */
+  public boolean isPlaying() {
+    return playing;
+  }
+
+  public void release() {
+    interrupt();
+    handler.post(() -> {
+      if (track != null) {
+        track.release();
+        track = null;
+      }
+    });
+    thread.quitSafely();
+  }
+
+  /** Invalidates the clip in progress and silences the track; returns the new generation. */
+  private int interrupt() {
+    synchronized (lock) {
+      final int id = ++generation;
+      playing = false;
+      if (track != null) {
+        track.pause();
+        track.flush();
+      }
+      return id;
+    }
+  }
+
+  private void write(final PcmClip[] clips, final String utteranceId, final int id) {
+    final AudioTrack out;
+    synchronized (lock) {
+      if (generation != id) {
+        listener.onStopped(utteranceId);
+        return;
+      }
+      out = trackFor(clips[0].sampleRate);
+      if (out == null) {
+        playing = false;
+        listener.onStopped(utteranceId);
+        return;
+      }
+      out.play();
+    }
+    final int start = out.getPlaybackHeadPosition();
+    int written = 0;
+    listener.onStarted(utteranceId);
+    for (final PcmClip clip : clips) {
+      for (int offset = 0; offset < clip.samples.length; offset += CHUNK_SAMPLES) {
+        if (generation != id) {
+          abandon(out, utteranceId);
+          return;
+        }
+        final int count = Math.min(CHUNK_SAMPLES, clip.samples.length - offset);
+        final int result = out.write(clip.samples, offset, count);
+        if (generation != id) {
+          // Interrupted while writing: the chunk may have landed after the flush.
+          abandon(out, utteranceId);
+          return;
+        }
+        if (result < 0) {
+          LOGGER.w("AudioTrack write failed: %d", result);
+          stopped(utteranceId, id);
+          return;
+        }
+        written += result;
+      }
+    }
+    // Streaming writes return once the data is queued; wait for it to be heard.
+    while (generation == id && out.getPlaybackHeadPosition() - start < written) {
+      try {
+        Thread.sleep(POLL_MS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    final boolean done;
+    synchronized (lock) {
+      done = generation == id;
+      if (done) {
+        playing = false;
+      }
+    }
+    if (done) {
+      listener.onDone(utteranceId);
+    } else {
+      abandon(out, utteranceId);
+    }
+  }
+
+  private void stopped(final String utteranceId, final int id) {
+    synchronized (lock) {
+      if (generation == id) {
+        playing = false;
+      }
+    }
+    listener.onStopped(utteranceId);
+  }
+
+  /**
+   * Drops whatever an interrupted write left in {@code out}, so none of the old clip is heard once
+   * the next one starts, then reports the clip stopped.
+   */
+  private void abandon(final AudioTrack out, final String utteranceId) {
+    synchronized (lock) {
+      if (out == track) {
+        out.pause();
+        out.flush();
+      }
+    }
+    listener.onStopped(utteranceId);
+  }
+
+  /** Returns the open track for {@code sampleRate}, recreating it if needed. Holds the lock. */
+  private AudioTrack trackFor(final int sampleRate) {
+    if (track != null && trackRate == sampleRate) {
+      return track;
+    }
+    if (track != null) {
+      track.release();
+      track = null;
+    }
+    final int minBuffer = AudioTrack.getMinBufferSize(
+        sampleRate, AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT);
+    if (minBuffer <= 0) {
+      LOGGER.w("No AudioTrack buffer size for %d Hz", sampleRate);
+      return null;
+    }
+    final AudioAttributes attributes = new AudioAttributes.Builder()
+        .setUsage(AudioAttributes.USAGE_ASSISTANCE_ACCESSIBILITY)
+        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+        .build();
+    final AudioFormat format = new AudioFormat.Builder()
+        .setSampleRate(sampleRate)
+        .setChannelMask(AudioFormat.CHANNEL_OUT_MONO)
+        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+        .build();
+    final AudioTrack created;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      created = new AudioTrack.Builder()
+          .setAudioAttributes(attributes)
+          .setAudioFormat(format)
+          .setBufferSizeInBytes(minBuffer)
+          .setTransferMode(AudioTrack.MODE_STREAM)
+          .setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY)
+          .build();
+    } else {
+      created = new AudioTrack(
+          attributes, format, minBuffer, AudioTrack.MODE_STREAM, AudioManager.AUDIO_SESSION_ID_GENERATE);
+    }
+    if (created.getState() != AudioTrack.STATE_INITIALIZED) {
+      created.release();
+      LOGGER.w("AudioTrack could not be initialized at %d Hz", sampleRate);
+      return null;
+    }
+    track = created;
+    trackRate = sampleRate;
+    return track;
+  }
+}
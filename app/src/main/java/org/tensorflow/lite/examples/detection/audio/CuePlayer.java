@@ -0,0 +1,129 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import org.tensorflow.lite.examples.detection.env.Logger;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+
+/**
+ * Streams {@link ToneSynth} cues to a stereo {@link AudioTrack}, alongside TTS announcements. A
+ * dedicated thread renders small blocks into one preallocated buffer while any cue is sounding and
+ * sleeps otherwise, so an idle scene costs nothing and a new cue is heard within a block or two.
+ */
+public final class CuePlayer {
+  private static final Logger LOGGER = new Logger();
+
+  private static final int SAMPLE_RATE = 44100;
+  private static final int MAX_VOICES = 4;
+  /** About 6 ms per block, small enough that cues start promptly. */
+  private static final int BLOCK_FRAMES = 256;
+
+  private final ToneSynth synth = new ToneSynth(SAMPLE_RATE, MAX_VOICES);
+  private final short[] block = new short[2 * BLOCK_FRAMES];
+  private final Object wake = new Object();
+  private final AudioTrack track;
+  private final Thread thread;
+  private volatile SpatialCues cues;
+  private volatile boolean running = true;
+
+  public CuePlayer() {
+    track = createTrack();
+    thread = new Thread(this::run, "CuePlayer");
+    if (track != null) {
+      thread.start();
+    }
+  }
+
+  /** Sets the class table that decides which tracks are cued; cues are off until then. */
+  public void setClassMetadata(final ClassMetadata classes) {
+    cues = new SpatialCues(classes, synth);
+  }
+
+  /** See {@link SpatialCues#offer}. Safe to call from any thread. */
+  public void offer(
+      final int trackId, final int cls, final float bearing, final float distance, final long nowMs) {
+    final SpatialCues current = cues;
+    if (track != null && current != null && current.offer(trackId, cls, bearing, distance, nowMs)) {
+      synchronized (wake) {
+        wake.notify();
+      }
+    }
+  }
+
+  public void release() {
+    running = false;
+    synchronized (wake) {
+      wake.notify();
+    }
+    if (track != null) {
+      try {
+        thread.join();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      track.release();
+    }
+  }
+
+  private void run() {
+    track.play();
+    while (running) {
+      synchronized (wake) {
+        while (running && !synth.isActive()) {
+          try {
+            wake.wait();
+          } catch (final InterruptedException e) {
+            return;
+          }
+        }
+      }
+      synth.render(block, 0, BLOCK_FRAMES);
+      final int result = track.write(block, 0, block.length);
+      if (result < 0) {
+        LOGGER.w("AudioTrack write failed: %d", result);
+        return;
+      }
+    }
+    track.stop();
+  }
+
+  private static AudioTrack createTrack() {
+    final int minBuffer = AudioTrack.getMinBufferSize(
+        SAMPLE_RATE, AudioFormat.CHANNEL_OUT_STEREO, AudioFormat.ENCODING_PCM_16BIT);
+    if (minBuffer <= 0) {
+      LOGGER.w("No stereo AudioTrack at %d Hz", SAMPLE_RATE);
+      return null;
+    }
+    final AudioAttributes attributes = new AudioAttributes.Builder()
+        .setUsage(AudioAttributes.USAGE_ASSISTANCE_SONIFICATION)
+        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+        .build();
+    final AudioFormat format = new AudioFormat.Builder()
+        .setSampleRate(SAMPLE_RATE)
+        .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+        .build();
+    final AudioTrack track;
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      track = new AudioTrack.Builder()
+          .setAudioAttributes(attributes)
+          .setAudioFormat(format)
+          .setBufferSizeInBytes(minBuffer)
+          .setTransferMode(AudioTrack.MODE_STREAM)
+          .setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY)
+          .build();
+    } else {
+      track = new AudioTrack(
+          attributes, format, minBuffer, AudioTrack.MODE_STREAM, AudioManager.AUDIO_SESSION_ID_GENERATE);
+    }
+    if (track.getState() != AudioTrack.STATE_INITIALIZED) {
+      track.release();
+      LOGGER.w("Cue AudioTrack could not be initialized");
+      return null;
+    }
+    return track;
+  }
+}
@@ -0,0 +1,222 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import android.content.Context;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.tensorflow.lite.examples.detection.env.Logger;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+
+/**
+ * Pre-renders the pieces of object announcements to PCM so they can be played without waiting
+ * for synthesis. Uses a {@link TextToSpeech} instance of its own, so rendering does not share a
+ * queue or progress listener with spoken prompts.
+ *
+ * <p>When the language or class table changes, every distance bucket is rendered first, then
+ * class names in descending priority. A lookup that misses queues its phrase, so classes that are
+ * actually announced end up cached even if prefetching evicted them. Rendered clips go into a
+ * {@link ClipCache} bounded by a memory budget; the intermediate WAV files are deleted once read.
+ */
+public final class PhraseCache {
+  private static final Logger LOGGER = new Logger();
+
+  /** Roughly 90 s of 22 kHz speech, which covers the distances and the common classes. */
+  public static final int DEFAULT_BUDGET_BYTES = 4 * 1024 * 1024;
+
+  private final ClipCache clips;
+  private final File directory;
+  private final TextToSpeech engine;
+  /** Utterance ID (the cache key) to the file it is being rendered into. */
+  private final Map<String, File> rendering = new HashMap<>();
+  private boolean ready;
+  private String language;
+  private Locale locale;
+  private ClassMetadata classes;
+
+  public PhraseCache(final Context context, final int budgetBytes) {
+    clips = new ClipCache(budgetBytes);
+    directory = new File(context.getCacheDir(), "phrases");
+    engine = new TextToSpeech(context.getApplicationContext(), status -> {
+      if (status != TextToSpeech.SUCCESS) {
+        LOGGER.w("Phrase renderer unavailable: %d", status);
+        return;
+      }
+      synchronized (this) {
+        ready = true;
+        prefetch();
+      }
+    });
+    engine.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+      @Override
+      public void onStart(final String key) {}
+
+      @Override
+      public void onDone(final String key) {
+        rendered(key, true);
+      }
+
+      @Override
+      public void onError(final String key) {
+        rendered(key, false);
+      }
+    });
+  }
+
+  /**
+   * Switches to {@code language} (a code such as "hi", spoken with {@code locale}), dropping
+   * clips of the previous one, and starts prefetching.
+   */
+  public synchronized void setLanguage(final String language, final Locale locale) {
+    if (language.equals(this.language)) {
+      return;
+    }
+    this.language = language;
+    this.locale = locale;
+    clips.clear();
+    prefetch();
+  }
+
+  public synchronized void setClassMetadata(final ClassMetadata classes) {
+    this.classes = classes;
+    prefetch();
+  }
+
+  /**
+   * Returns the clips for announcing {@code cls} at {@code meters}, or null if any is missing,
+   * in which case the missing ones are queued for rendering.
+   */
+  public PcmClip[] announcement(final String language, final int cls, final float meters) {
+    final ClassMetadata table;
+    synchronized (this) {
+      if (!language.equals(this.language) || classes == null || cls >= classes.size()) {
+        return null;
+      }
+      table = classes;
+    }
+    final int bucket = AnnouncementPhrases.distanceBucket(meters);
+    if (bucket < 0) {
+      return null;
+    }
+    final String nameKey = AnnouncementPhrases.nameKey(language, cls);
+    final String distanceKey = AnnouncementPhrases.distanceKey(language, bucket);
+    final PcmClip name = clips.get(nameKey);
+    final PcmClip distance = clips.get(distanceKey);
+    if (name == null) {
+      render(nameKey, table.localizedName(cls, language));
+    }
+    if (distance == null) {
+      render(distanceKey, AnnouncementPhrases.distanceText(AnnouncementPhrases.bucketDistance(bucket)));
+    }
+    if (name == null || distance == null || name.sampleRate != distance.sampleRate) {
+      return null;
+    }
+    return new PcmClip[] {name, distance};
+  }
+
+  public void release() {
+    engine.stop();
+    engine.shutdown();
+    synchronized (this) {
+      for (final File file : rendering.values()) {
+        file.delete();
+      }
+      rendering.clear();
+    }
+    clips.clear();
+  }
+
+  /** Queues every distance bucket, then class names by descending priority. Holds the lock. */
+  private void prefetch() {
+    if (!ready || language == null) {
+      return;
+    }
+    engine.stop();
+    for (final File file : rendering.values()) {
+      file.delete();
+    }
+    rendering.clear();
+    final int result = engine.setLanguage(locale);
+    if (result == TextToSpeech.LANG_MISSING_DATA || result == TextToSpeech.LANG_NOT_SUPPORTED) {
+      LOGGER.w("Phrase renderer has no voice for %s", locale);
+      return;
+    }
+    for (int bucket = 0; bucket < AnnouncementPhrases.DISTANCE_BUCKETS; ++bucket) {
+      render(AnnouncementPhrases.distanceKey(language, bucket),
+          AnnouncementPhrases.distanceText(AnnouncementPhrases.bucketDistance(bucket)));
+    }
+    if (classes == null) {
+      return;
+    }
+    final List<Integer> byPriority = new ArrayList<>(classes.size());
+    for (int cls = 0; cls < classes.size(); ++cls) {
+      byPriority.add(cls);
+    }
+    final ClassMetadata table = classes;
+    Collections.sort(byPriority, (a, b) -> table.priority(b) - table.priority(a));
+    for (final int cls : byPriority) {
+      render(AnnouncementPhrases.nameKey(language, cls), table.localizedName(cls, language));
+    }
+  }
+
+  private synchronized void render(final String key, final String text) {
+    if (!ready || clips.contains(key) || rendering.containsKey(key)) {
+      return;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      LOGGER.w("Cannot create %s", directory);
+      return;
+    }
+    final File file = new File(directory, key.replace(':', '_') + ".wav");
+    if (engine.synthesizeToFile(text, null, file, key) == TextToSpeech.SUCCESS) {
+      rendering.put(key, file);
+    }
+  }
+
+  private void rendered(final String key, final boolean success) {
+    final File file;
+    final boolean current;
+    synchronized (this) {
+      file = rendering.remove(key);
+      current = language != null && key.startsWith(language + ":");
+    }
+    if (file == null) {
+      return;
+    }
+    try {
+      if (success && current) {
+        clips.put(key, WavDecoder.decode(readFully(file)));
+      }
+    } catch (final IOException e) {
+      LOGGER.w(e, "Could not load rendered phrase %s", key);
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static byte[] readFully(final File file) throws IOException {
+    final byte[] data = new byte[(int) file.length()];
+    try (InputStream in = new FileInputStream(file)) {
+      int offset = 0;
+      while (offset < data.length) {
+        final int read = in.read(data, offset, data.length - offset);
+        if (read < 0) {
+          break;
+        }
+        offset += read;
+      }
+      if (offset < data.length) {
+        throw new IOException("Short read of " + file);
+      }
+    }
+    return data;
+  }
+}
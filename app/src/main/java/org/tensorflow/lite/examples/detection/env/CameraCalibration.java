@@ -0,0 +1,87 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import android.content.Context;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraManager;
+import android.os.Build;
+import android.util.SizeF;
+
+/**
+ * Effective focal length of the model input, for pinhole distance estimates. Derived once per
+ * session from the camera's lens characteristics, the preview size and the frame-to-crop
+ * transform; the characteristics lookup goes through the camera service, so callers should keep
+ * the result rather than calling this per frame.
+ */
+public final class CameraCalibration {
+  private static final Logger LOGGER = new Logger();
+
+  private CameraCalibration() {}
+
+  /**
+   * Returns the focal length in pixels of the cropped model input, or NaN if the camera does not
+   * report enough to derive it. {@code frameToCrop} maps preview frames of
+   * {@code previewWidth} x {@code previewHeight} to the model input.
+   */
+  public static float cropFocalLength(
+      final Context context,
+      final String cameraId,
+      final int previewWidth,
+      final int previewHeight,
+      final Matrix frameToCrop) {
+    if (cameraId == null) {
+      return Float.NaN;
+    }
+    final CameraCharacteristics characteristics;
+    try {
+      final CameraManager manager =
+          (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+      characteristics = manager.getCameraCharacteristics(cameraId);
+    } catch (final CameraAccessException e) {
+      LOGGER.e(e, "Could not read camera characteristics");
+      return Float.NaN;
+    }
+    final Rect active = characteristics.get(CameraCharacteristics.SENSOR_INFO_ACTIVE_ARRAY_SIZE);
+    final float sensorFocal = sensorFocalLength(characteristics);
+    if (active == null) {
+      return Float.NaN;
+    }
+    final float streamFocal =
+        FocalLength.streamPixels(
+            sensorFocal, active.width(), active.height(), previewWidth, previewHeight);
+    // The crop transform is a rotation and a uniform scale, so it maps any length alike.
+    final float cropFocal = frameToCrop.mapRadius(streamFocal);
+    LOGGER.i(
+        "Focal length: %.1f sensor px, %.1f preview px, %.1f crop px",
+        sensorFocal, streamFocal, cropFocal);
+    return cropFocal;
+  }
+
+  /**
+   * Focal length in sensor pixels. Prefers the factory intrinsic calibration where the device
+   * has one, which accounts for focus breathing and lens tolerances, over the nominal focal
+   * length and physical sensor size.
+   */
+  private static float sensorFocalLength(final CameraCharacteristics characteristics) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      final float[] intrinsics =
+          characteristics.get(CameraCharacteristics.LENS_INTRINSIC_CALIBRATION);
+      if (intrinsics != null && intrinsics.length >= 2 && intrinsics[0] > 0) {
+        return intrinsics[0];
+      }
+    }
+    final float[] focalLengths =
+        characteristics.get(CameraCharacteristics.LENS_INFO_AVAILABLE_FOCAL_LENGTHS);
+    final SizeF physicalSize = characteristics.get(CameraCharacteristics.SENSOR_INFO_PHYSICAL_SIZE);
+    final android.util.Size pixelArray =
+        characteristics.get(CameraCharacteristics.SENSOR_INFO_PIXEL_ARRAY_SIZE);
+    if (focalLengths == null || focalLengths.length == 0 || physicalSize == null
+        || pixelArray == null) {
+      return Float.NaN;
+    }
+    return FocalLength.sensorPixels(
+        focalLengths[0], physicalSize.getWidth(), pixelArray.getWidth());
+  }
+}
@@ -0,0 +1,36 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import android.os.Build;
+import android.os.Trace;
+
+import org.tensorflow.lite.examples.detection.metrics.FrameTrace;
+
+/**
+ * Sends {@link FrameTrace} events to {@link android.os.Trace}, where systrace and Perfetto pick
+ * them up. Async slices need API 29; on older devices only the per-thread sections are emitted.
+ */
+public final class SystemTraceBackend implements FrameTrace.Backend {
+  @Override
+  public void beginSection(final String name) {
+    Trace.beginSection(name);
+  }
+
+  @Override
+  public void endSection() {
+    Trace.endSection();
+  }
+
+  @Override
+  public void beginAsyncSection(final String name, final int cookie) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      Trace.beginAsyncSection(name, cookie);
+    }
+  }
+
+  @Override
+  public void endAsyncSection(final String name, final int cookie) {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+      Trace.endAsyncSection(name, cookie);
+    }
+  }
+}
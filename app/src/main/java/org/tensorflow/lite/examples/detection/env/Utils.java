@@ -11,15 +11,18 @@ import android.os.Environment;
 import android.util.Log;
 
 import org.tensorflow.lite.examples.detection.MainActivity;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 
 public class Utils {
 
@@ -36,6 +39,17 @@ public class Utils {
         return fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
     }
 
+    /**
+     * Loads the label file {@code labelFilename} from Assets and joins it with the bundled
+     * {@link ClassMetadata#ASSET_NAME}.
+     */
+    public static ClassMetadata loadClassMetadata(AssetManager assets, String labelFilename)
+            throws IOException {
+        return ClassMetadata.load(
+                new InputStreamReader(assets.open(labelFilename), StandardCharsets.UTF_8),
+                new InputStreamReader(assets.open(ClassMetadata.ASSET_NAME), StandardCharsets.UTF_8));
+    }
+
     public static void softmax(final float[] vals) {
         float max = Float.NEGATIVE_INFINITY;
         for (final float val : vals) {
@@ -0,0 +1,66 @@
+package org.tensorflow.lite.examples.detection.haptic;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.VibrationEffect;
+import android.os.Vibrator;
+import java.util.List;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+import org.tensorflow.lite.examples.detection.tracking.Announceable;
+
+/**
+ * Plays the {@link HapticEncoder} pattern for the nearest obstacle on the device vibrator. Only
+ * changes the encoder reports reach the vibrator service, so calling {@link #update} every frame
+ * costs no binder calls while the pattern holds. The waveform arrays are reused; the platform
+ * copies them when building an effect.
+ */
+public final class HapticRenderer {
+  private final Vibrator vibrator;
+  private final HapticEncoder encoder = new HapticEncoder();
+  private final long[] timings = new long[2];
+  private final int[] amplitudes = new int[2];
+  /** Pre-O pattern: initial delay, then pulse and pause, repeated from index 1. */
+  private final long[] legacyPattern = new long[3];
+
+  public HapticRenderer(final Context context) {
+    final Vibrator service = (Vibrator) context.getSystemService(Context.VIBRATOR_SERVICE);
+    vibrator = service != null && service.hasVibrator() ? service : null;
+  }
+
+  /** Encodes the nearest obstacle among {@code results}. Call on every detection. */
+  public synchronized void update(
+      final List<? extends Announceable> results,
+      final ClassMetadata classes,
+      final float minConfidence,
+      final long nowMs) {
+    if (vibrator == null) {
+      return;
+    }
+    final float nearest = HapticEncoder.nearestObstacle(results, classes, minConfidence);
+    if (!encoder.update(nearest, nowMs)) {
+      return;
+    }
+    if (!encoder.isOn()) {
+      vibrator.cancel();
+      return;
+    }
+    encoder.fillWaveform(timings, amplitudes);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+      vibrator.vibrate(vibrator.hasAmplitudeControl()
+          ? VibrationEffect.createWaveform(timings, amplitudes, 0)
+          : VibrationEffect.createWaveform(timings, 0));
+    } else {
+      legacyPattern[1] = timings[0];
+      legacyPattern[2] = timings[1];
+      vibrator.vibrate(legacyPattern, 1);
+    }
+  }
+
+  /** Stops vibrating, e.g. when detection stops. */
+  public synchronized void stop() {
+    if (vibrator != null && encoder.isOn()) {
+      vibrator.cancel();
+    }
+    encoder.reset();
+  }
+}
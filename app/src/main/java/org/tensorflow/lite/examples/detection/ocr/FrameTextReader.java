@@ -0,0 +1,177 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import android.graphics.ImageFormat;
+import android.os.Handler;
+import android.os.HandlerThread;
+import com.google.android.gms.vision.Detector;
+import com.google.android.gms.vision.Frame;
+import com.google.android.gms.vision.text.TextBlock;
+import java.nio.ByteBuffer;
+import org.tensorflow.lite.examples.detection.env.FrameBus;
+import org.tensorflow.lite.examples.detection.env.Logger;
+import org.tensorflow.lite.examples.detection.env.SharedFrame;
+
+/**
+ * Reads text from frames of a {@link FrameBus}, so a camera session that is already running the
+ * object detector can read signs as well. Frames pass a {@link FrameStabilityGate} on the camera
+ * thread; a frame that passes while no recognition is running is handed to the reader's own thread,
+ * copied to NV21 for the text recognizer there and released, so neither the camera thread nor the
+ * detector waits on the copy or on recognition. Recognized lines go through {@link
+ * RecognizedText}, and each block of newly settled text is handed to the {@link Listener}.
+ */
+public final class FrameTextReader implements FrameBus.Consumer {
+  /** Receives newly settled text, in reading order, on the reader's thread. */
+  public interface Listener {
+    void onText(String text, boolean heading);
+  }
+
+  private static final Logger LOGGER = new Logger();
+  /** About ten seconds of gated frames at the usual subscription rate. */
+  private static final int REPORT_FRAMES = 100;
+
+  private final Detector<TextBlock> recognizer;
+  private final Listener listener;
+  private final int rotation;
+  private final FrameStabilityGate gate = new FrameStabilityGate();
+  private final RecognizedText recognizedText = new RecognizedText();
+  private final HandlerThread thread;
+  private final Handler handler;
+  private volatile boolean recognizing;
+  private volatile boolean textInView = true;
+  // Written only on the reader's thread.
+  private byte[] nv21 = new byte[0];
+  private byte[] vRow = new byte[0];
+  private byte[] uRow = new byte[0];
+
+  /**
+   * {@code rotation} is the clockwise rotation of the frames relative to upright, in multiples of
+   * 90 degrees.
+   */
+  public FrameTextReader(
+      final Detector<TextBlock> recognizer, final int rotation, final Listener listener) {
+    this.recognizer = recognizer;
+    this.rotation = ((rotation % 360 + 360) % 360) / 90;
+    this.listener = listener;
+    thread = new HandlerThread("text");
+    thread.start();
+    handler = new Handler(thread.getLooper());
+  }
+
+  @Override
+  public void onFrame(final SharedFrame frame) {
+    boolean handedOff = false;
+    try {
+      final boolean pass = gate.accept(
+          frame.getY(), frame.getWidth(), frame.getHeight(), frame.getYRowStride());
+      if (gate.frames() >= REPORT_FRAMES) {
+        LOGGER.i("Text gate passed %.0f%% of frames", gate.passRate() * 100);
+        gate.resetStats();
+      }
+      if (!pass || recognizing || !textInView) {
+        return;
+      }
+      recognizing = true;
+      handedOff = handler.post(() -> {
+        try {
+          recognize(frame);
+        } catch (final RuntimeException e) {
+          LOGGER.e(e, "Text recognition failed");
+        }
+        recognizing = false;
+      });
+      if (!handedOff) {
+        recognizing = false;
+      }
+    } finally {
+      if (!handedOff) {
+        frame.release();
+      }
+    }
+  }
+
+  /**
+   * Tells the reader whether a text detector running on the same frames currently finds any text,
+   * so frames without text are not sent to the recognizer. Text is assumed to be in view until
+   * this is called.
+   */
+  public void setTextInView(final boolean inView) {
+    textInView = inView;
+  }
+
+  /** Forgets what has been read, so the same text is read again if it is seen again. */
+  public void reset() {
+    handler.post(recognizedText::clear);
+  }
+
+  /** Stops the reader's thread; the recognizer is released by its owner. */
+  public void close() {
+    thread.quitSafely();
+  }
+
+  /** Copies {@code frame} to NV21, releasing it, and reads what the recognizer finds there. */
+  private void recognize(final SharedFrame frame) {
+    final int width = frame.getWidth();
+    final int height = frame.getHeight();
+    try {
+      toNv21(frame);
+    } finally {
+      frame.release();
+    }
+    final Frame image = new Frame.Builder()
+        .setImageData(ByteBuffer.wrap(nv21), width, height, ImageFormat.NV21)
+        .setRotation(rotation)
+        .build();
+    if (recognizedText.update(recognizer.detect(image))) {
+      recognizedText.read(listener::onText);
+    }
+  }
+
+  /**
+   * Copies the frame into {@link #nv21} a row at a time with bulk gets, or in one go when the luma
+   * rows are unpadded. Chroma rows are fetched in bulk too and then interleaved as V, U.
+   */
+  private void toNv21(final SharedFrame frame) {
+    final int width = frame.getWidth();
+    final int height = frame.getHeight();
+    final int frameSize = width * height;
+    final int chromaWidth = (width + 1) / 2;
+    final int chromaHeight = (height + 1) / 2;
+    final int size = frameSize + 2 * chromaWidth * chromaHeight;
+    if (nv21.length != size) {
+      nv21 = new byte[size];
+    }
+    // Duplicates, since the planes' positions are shared with every other holder.
+    final ByteBuffer y = frame.getY().duplicate();
+    final int yRowStride = frame.getYRowStride();
+    if (yRowStride == width) {
+      y.position(0);
+      y.get(nv21, 0, frameSize);
+    } else {
+      for (int row = 0; row < height; ++row) {
+        y.position(row * yRowStride);
+        y.get(nv21, row * width, width);
+      }
+    }
+    final ByteBuffer u = frame.getU().duplicate();
+    final ByteBuffer v = frame.getV().duplicate();
+    final int uvRowStride = frame.getUvRowStride();
+    final int uvPixelStride = frame.getUvPixelStride();
+    // The last row of a camera plane may stop right after its last sample.
+    final int rowLength = (chromaWidth - 1) * uvPixelStride + 1;
+    if (vRow.length < rowLength) {
+      vRow = new byte[rowLength];
+      uRow = new byte[rowLength];
+    }
+    int out = frameSize;
+    for (int row = 0; row < chromaHeight; ++row) {
+      v.position(row * uvRowStride);
+      v.get(vRow, 0, rowLength);
+      u.position(row * uvRowStride);
+      u.get(uRow, 0, rowLength);
+      for (int x = 0; x < rowLength; x += uvPixelStride) {
+        nv21[out++] = vRow[x];
+        nv21[out++] = uRow[x];
+      }
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import android.graphics.Rect;
+import android.text.TextUtils;
+import android.util.SparseArray;
+import com.google.android.gms.vision.text.Text;
+import com.google.android.gms.vision.text.TextBlock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Turns text recognizer output into text worth reading for {@link FrameTextReader}. {@link #update}
+ * takes one frame's lines with their boxes, puts them in reading order with {@link TextLayout} and
+ * votes on them with {@link LineConsensus}; {@link #read} then passes on each block's settled lines
+ * that {@link TextDelta} has not seen before.
+ *
+ * <p>Not thread-safe; meant to run on the recognizer's thread.
+ */
+final class RecognizedText {
+  /** Receives a block's newly settled lines, joined so a paragraph's sentences flow. */
+  interface Listener {
+    void onText(String text, boolean heading);
+  }
+
+  // Fingerprints of roughly the last few pages of lines, so lines are read once.
+  private static final int READ_LINE_HISTORY = 256;
+
+  private final LineConsensus lineConsensus = new LineConsensus();
+  private final TextDelta textDelta = new TextDelta(READ_LINE_HISTORY);
+  private final List<String> lines = new ArrayList<>();
+  private final List<String> settled = new ArrayList<>();
+  private List<TextLayout.Block> blocks = Collections.emptyList();
+  private float[] lineBoxes = new float[64];
+  private String[] settledLines = new String[16];
+
+  /** Takes in one frame's recognized blocks. Returns false if they hold no text to read. */
+  boolean update(final SparseArray<TextBlock> items) {
+    lines.clear();
+    for (int i = 0; i < items.size(); ++i) {
+      final TextBlock item = items.valueAt(i);
+      if (item == null) {
+        continue;
+      }
+      for (final Text line : item.getComponents()) {
+        if (line.getValue() != null) {
+          addLineBox(lines.size(), line.getBoundingBox());
+          lines.add(line.getValue());
+        }
+      }
+    }
+    if (lines.isEmpty()) {
+      blocks = Collections.emptyList();
+      return false;
+    }
+    // Recognizer order is not reading order; columns and headings come from the boxes.
+    blocks = TextLayout.arrange(lineBoxes, lines.size());
+    if (settledLines.length < lines.size()) {
+      settledLines = new String[Math.max(lines.size(), settledLines.length * 2)];
+    }
+    lineConsensus.update(lines, lineBoxes, settledLines);
+    return true;
+  }
+
+  /**
+   * Hands {@code listener} the lines of each block that settled in the latest frame and have not
+   * been read, in reading order.
+   */
+  void read(final Listener listener) {
+    for (final TextLayout.Block block : blocks) {
+      settled.clear();
+      for (final int line : block.lines) {
+        if (settledLines[line] != null) {
+          settled.add(settledLines[line]);
+        }
+      }
+      if (settled.isEmpty()) {
+        continue;
+      }
+      final List<String> fresh = textDelta.newLines(settled);
+      if (!fresh.isEmpty()) {
+        listener.onText(TextUtils.join(" ", fresh), block.heading);
+      }
+    }
+  }
+
+  /** Forgets what has been read and voted on, so the same text is read again if seen again. */
+  void clear() {
+    lineConsensus.clear();
+    textDelta.clear();
+  }
+
+  private void addLineBox(final int index, final Rect box) {
+    if (lineBoxes.length < (index + 1) * 4) {
+      lineBoxes = Arrays.copyOf(lineBoxes, lineBoxes.length * 2);
+    }
+    final int offset = index * 4;
+    if (box == null) {
+      Arrays.fill(lineBoxes, offset, offset + 4, 0f);
+      return;
+    }
+    lineBoxes[offset] = box.left;
+    lineBoxes[offset + 1] = box.top;
+    lineBoxes[offset + 2] = box.right;
+    lineBoxes[offset + 3] = box.bottom;
+  }
+}
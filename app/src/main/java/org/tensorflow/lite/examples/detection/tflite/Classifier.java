@@ -5,13 +5,29 @@ import android.graphics.RectF;
 
 import java.util.List;
 
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
+import org.tensorflow.lite.examples.detection.tracking.Announceable;
+
 public interface Classifier {
     List<Recognition> recognizeImage(Bitmap bitmap);
 
     void enableStatLogging(final boolean debug);
 
+    /** Per-stage timings recorded so far, one stage per line. Empty until stats are enabled. */
     String getStatString();
 
+    /** Records stage timings into {@code stats}, shared with the rest of the frame pipeline. */
+    void setStats(PipelineStats stats);
+
+    /**
+     * Focal length in model-input pixels for distance estimates, from the camera's calibration.
+     * Non-positive or NaN values keep the built-in default.
+     */
+    void setFocalLength(float focalLengthPixels);
+
+    /** Labels and per-class facts, indexed by {@link Recognition#getDetectedClass()}. */
+    ClassMetadata getClassMetadata();
+
     void close();
 
     void setNumThreads(int num_threads);
@@ -23,13 +39,17 @@ public interface Classifier {
     // **FIX**: Added missing method
     int getInputSize();
 
-    class Recognition {
+    class Recognition implements Announceable {
         private final String id;
         private final String title;
         private final Float confidence;
         private RectF location;
         private int detectedClass;
         private Float distance;
+        private long frameTimestampNanos;
+        private int trackId;
+        private float approachRate;
+        private float timeToCollision = Float.POSITIVE_INFINITY;
 
         public Recognition(
                 final String id, final String title, final Float confidence, final RectF location) {
@@ -53,10 +73,12 @@ public interface Classifier {
             return id;
         }
 
+        @Override
         public String getTitle() {
             return title;
         }
 
+        @Override
         public Float getConfidence() {
             return confidence;
         }
@@ -69,10 +91,12 @@ public interface Classifier {
             this.location = location;
         }
 
+        @Override
         public int getDetectedClass() {
             return detectedClass;
         }
 
+        @Override
         public Float getDistance() {
             return distance;
         }
@@ -81,6 +105,43 @@ public interface Classifier {
             this.distance = distance;
         }
 
+        /** Sensor timestamp of the frame this came from, in the SystemClock.elapsedRealtimeNanos() timebase. */
+        public long getFrameTimestampNanos() {
+            return frameTimestampNanos;
+        }
+
+        public void setFrameTimestampNanos(long frameTimestampNanos) {
+            this.frameTimestampNanos = frameTimestampNanos;
+        }
+
+        /** ID of the tracker track this detection was associated with, or 0 if untracked. */
+        @Override
+        public int getTrackId() {
+            return trackId;
+        }
+
+        public void setTrackId(int trackId) {
+            this.trackId = trackId;
+        }
+
+        @Override
+        public float getApproachRate() {
+            return approachRate;
+        }
+
+        public void setApproachRate(float approachRate) {
+            this.approachRate = approachRate;
+        }
+
+        @Override
+        public float getTimeToCollision() {
+            return timeToCollision;
+        }
+
+        public void setTimeToCollision(float timeToCollision) {
+            this.timeToCollision = timeToCollision;
+        }
+
         @Override
         public String toString() {
             String resultString = "";
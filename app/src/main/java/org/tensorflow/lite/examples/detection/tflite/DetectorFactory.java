@@ -50,4 +50,15 @@ public class DetectorFactory {
                 inputSize);
     }
 
+    /** Text detector for reading mode; not bundled, so this throws if the asset is missing. */
+    public static final String TEXT_MODEL = "text_detection.tflite";
+
+    public static TextDetector getTextDetector(
+            final AssetManager assetManager,
+            final String modelFilename)
+            throws IOException {
+        // A float model; its input size is read from the model itself.
+        return TextDetector.create(assetManager, modelFilename, false);
+    }
+
 }
@@ -0,0 +1,188 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+import org.tensorflow.lite.examples.detection.env.Utils;
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Finds lines of text with a segmentation text detector (a DBNet-style model whose single output
+ * is a [1, map, map, 1] text probability map), as a {@link Classifier} so it runs on the same
+ * cropped camera frames, stats and interpreter settings as {@link YoloV5Classifier}. Every box is
+ * the single class {@link #LABEL}. The model must take RGB in [0, 1] like the YOLO models, with
+ * any further normalization folded into the graph.
+ */
+public class TextDetector implements Classifier {
+    public static final String LABEL = "text";
+
+    public static TextDetector create(
+            final AssetManager assetManager,
+            final String modelFilename,
+            final boolean isQuantized)
+            throws IOException {
+        final TextDetector d = new TextDetector();
+        d.classes = ClassMetadata.load(Collections.singletonList(LABEL),
+                new InputStreamReader(assetManager.open(ClassMetadata.ASSET_NAME), StandardCharsets.UTF_8));
+        d.tfliteModel = Utils.loadModelFile(assetManager, modelFilename);
+        d.tfliteOptions.setNumThreads(NUM_THREADS);
+        d.tfLite = new Interpreter(d.tfliteModel, d.tfliteOptions);
+
+        // Exports differ in input size, so it comes from the model like the map size does.
+        final int[] inputShape = d.tfLite.getInputTensor(0).shape();
+        if (inputShape.length != 4 || inputShape[1] != inputShape[2]) {
+            d.tfLite.close();
+            throw new IOException("Text model input must be [1, size, size, 3], not "
+                    + Arrays.toString(inputShape));
+        }
+        final int inputSize = inputShape[1];
+        d.inputSize = inputSize;
+        d.intValues = new int[inputSize * inputSize];
+        float inpScale = 0;
+        int inpZeroPoint = 0;
+        float oupScale = 0;
+        int oupZeroPoint = 0;
+        if (isQuantized) {
+            final Tensor inpten = d.tfLite.getInputTensor(0);
+            inpScale = inpten.quantizationParams().getScale();
+            inpZeroPoint = inpten.quantizationParams().getZeroPoint();
+            final Tensor oupten = d.tfLite.getOutputTensor(0);
+            oupScale = oupten.quantizationParams().getScale();
+            oupZeroPoint = oupten.quantizationParams().getZeroPoint();
+        }
+        final int[] shape = d.tfLite.getOutputTensor(0).shape();
+        d.normalizer = new InputNormalizer(inputSize, isQuantized, inpScale, inpZeroPoint);
+        d.imgData = ByteBuffer.allocateDirect(d.normalizer.byteSize());
+        d.imgData.order(ByteOrder.nativeOrder());
+        d.decoder = new TextMapDecoder(inputSize, shape[1], isQuantized, oupScale, oupZeroPoint);
+        d.outData = ByteBuffer.allocateDirect(d.decoder.byteSize());
+        d.outData.order(ByteOrder.nativeOrder());
+        d.candidates = new DetectionBuffer(MAX_BOXES);
+        return d;
+    }
+
+    @Override
+    public ArrayList<Recognition> recognizeImage(Bitmap bitmap) {
+        long start = stats.begin(PipelineStats.Stage.PREPROCESS);
+        bitmap.getPixels(intValues, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+        normalizer.normalize(intValues, imgData);
+        stats.end(PipelineStats.Stage.PREPROCESS, start);
+
+        start = stats.begin(PipelineStats.Stage.INFERENCE);
+        outData.rewind();
+        tfLite.run(imgData, outData);
+        stats.end(PipelineStats.Stage.INFERENCE, start);
+
+        start = stats.begin(PipelineStats.Stage.DECODE);
+        decoder.decode(outData, BINARY_THRESH, getObjThresh(),
+                bitmap.getWidth() - 1, bitmap.getHeight() - 1, candidates);
+        stats.end(PipelineStats.Stage.DECODE, start);
+
+        final ArrayList<Recognition> detections = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); ++i) {
+            final RectF rect = new RectF(candidates.left(i), candidates.top(i),
+                    candidates.right(i), candidates.bottom(i));
+            detections.add(new Recognition("0", LABEL, candidates.confidence(i), rect, 0));
+        }
+        return detections;
+    }
+
+    @Override
+    public void enableStatLogging(final boolean logStats) {
+        stats.setEnabled(logStats);
+    }
+
+    @Override
+    public String getStatString() {
+        return stats.isEnabled() ? stats.report() : "";
+    }
+
+    @Override
+    public void setStats(PipelineStats stats) {
+        this.stats = stats;
+    }
+
+    /** Text has no fixed height, so there is no distance to estimate. */
+    @Override
+    public void setFocalLength(float focalLengthPixels) {}
+
+    @Override
+    public ClassMetadata getClassMetadata() {
+        return classes;
+    }
+
+    @Override
+    public void close() {
+        if (tfLite != null) {
+            tfLite.close();
+            tfLite = null;
+        }
+        tfliteModel = null;
+    }
+
+    @Override
+    public void setNumThreads(int num_threads) {
+        if (tfLite != null) {
+            tfliteOptions.setNumThreads(num_threads);
+            recreateInterpreter();
+        }
+    }
+
+    @Override
+    public void setUseNNAPI(boolean isChecked) {
+        if (tfLite != null) {
+            tfliteOptions.setUseNNAPI(isChecked);
+            recreateInterpreter();
+        }
+    }
+
+    private void recreateInterpreter() {
+        tfLite.close();
+        tfLite = new Interpreter(tfliteModel, tfliteOptions);
+    }
+
+    /** Mean map probability a region needs to count as text. */
+    @Override
+    public float getObjThresh() {
+        return 0.6f;
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    private static final int NUM_THREADS = 1;
+    // Map probability above which a pixel is text.
+    private static final float BINARY_THRESH = 0.3f;
+    private static final int MAX_BOXES = 64;
+
+    private int inputSize;
+    private MappedByteBuffer tfliteModel;
+    private final Interpreter.Options tfliteOptions = new Interpreter.Options();
+    private Interpreter tfLite;
+    private ClassMetadata classes;
+    private int[] intValues;
+    private ByteBuffer imgData;
+    private ByteBuffer outData;
+    private InputNormalizer normalizer;
+    private TextMapDecoder decoder;
+    private DetectionBuffer candidates;
+    private PipelineStats stats = new PipelineStats();
+
+    private TextDetector() {
+    }
+}
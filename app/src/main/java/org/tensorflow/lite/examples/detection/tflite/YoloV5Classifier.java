@@ -25,23 +25,19 @@ import org.tensorflow.lite.Interpreter;
 import org.tensorflow.lite.Tensor;
 import org.tensorflow.lite.examples.detection.env.Logger;
 import org.tensorflow.lite.examples.detection.env.Utils;
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
 import org.tensorflow.lite.gpu.CompatibilityList;
 import org.tensorflow.lite.gpu.GpuDelegate;
 import org.tensorflow.lite.nnapi.NnApiDelegate;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Vector;
 
 
 public class YoloV5Classifier implements Classifier {
@@ -56,14 +52,7 @@ public class YoloV5Classifier implements Classifier {
         final YoloV5Classifier d = new YoloV5Classifier();
 
         String actualFilename = labelFilename.split("file:///android_asset/")[1];
-        InputStream labelsInput = assetManager.open(actualFilename);
-        BufferedReader br = new BufferedReader(new InputStreamReader(labelsInput));
-        String line;
-        while ((line = br.readLine()) != null) {
-            LOGGER.w(line);
-            d.labels.add(line);
-        }
-        br.close();
+        d.classes = Utils.loadClassMetadata(assetManager, actualFilename);
 
         try {
             Interpreter.Options options = (new Interpreter.Options());
@@ -94,18 +83,10 @@ public class YoloV5Classifier implements Classifier {
         }
 
         d.isModelQuantized = isQuantized;
-        int numBytesPerChannel;
-        if (isQuantized) {
-            numBytesPerChannel = 1; // Quantized
-        } else {
-            numBytesPerChannel = 4; // Floating point
-        }
         d.INPUT_SIZE = inputSize;
-        d.imgData = ByteBuffer.allocateDirect(d.INPUT_SIZE * d.INPUT_SIZE * 3 * numBytesPerChannel);
-        d.imgData.order(ByteOrder.nativeOrder());
         d.intValues = new int[d.INPUT_SIZE * d.INPUT_SIZE];
 
-        d.output_box = (int) ((Math.pow((inputSize / 32.0), 2) + Math.pow((inputSize / 16.0), 2) + Math.pow((inputSize / 8.0), 2)) * 3);
+        d.output_box = YoloOutputDecoder.outputBoxesFor(inputSize);
         if (d.isModelQuantized){
             Tensor inpten = d.tfLite.getInputTensor(0);
             d.inp_scale = inpten.quantizationParams().getScale();
@@ -118,12 +99,20 @@ public class YoloV5Classifier implements Classifier {
         int[] shape = d.tfLite.getOutputTensor(0).shape();
         int numClass = shape[shape.length - 1] - 5;
         d.numClass = numClass;
-        d.outData = ByteBuffer.allocateDirect(d.output_box * (numClass + 5) * numBytesPerChannel);
+
+        d.normalizer = new InputNormalizer(inputSize, isQuantized, d.inp_scale, d.inp_zero_point);
+        d.imgData = ByteBuffer.allocateDirect(d.normalizer.byteSize());
+        d.imgData.order(ByteOrder.nativeOrder());
+
+        d.decoder = new YoloOutputDecoder(inputSize, d.output_box, numClass,
+                isQuantized, d.oup_scale, d.oup_zero_point);
+        d.outData = ByteBuffer.allocateDirect(d.decoder.byteSize());
         d.outData.order(ByteOrder.nativeOrder());
-        
-        // Initialize object heights for distance estimation
-        d.initObjectHeights();
-        
+        d.candidates = new DetectionBuffer(d.output_box);
+        d.kept = new int[d.output_box];
+        d.outputMap.put(0, d.outData);
+        d.inputArray = new Object[]{d.imgData};
+
         return d;
     }
 
@@ -132,11 +121,29 @@ public class YoloV5Classifier implements Classifier {
     }
     @Override
     public void enableStatLogging(final boolean logStats) {
+        stats.setEnabled(logStats);
     }
 
     @Override
     public String getStatString() {
-        return "";
+        return stats.isEnabled() ? stats.report() : "";
+    }
+
+    @Override
+    public void setStats(PipelineStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public ClassMetadata getClassMetadata() {
+        return classes;
+    }
+
+    @Override
+    public void setFocalLength(float focalLengthPixels) {
+        if (focalLengthPixels > 0 && !Float.isInfinite(focalLengthPixels)) {
+            this.focalLengthPixels = focalLengthPixels;
+        }
     }
 
     @Override
@@ -196,6 +203,14 @@ public class YoloV5Classifier implements Classifier {
         recreateInterpreter();
     }
 
+    /**
+     * Saves the output tensor of the last {@link #recognizeImage} call, so that a real frame can
+     * be added to the golden corpus replayed by the :core tests.
+     */
+    public void recordLastOutput(File file) throws IOException {
+        RecordedTensor.write(file, INPUT_SIZE, numClass, isModelQuantized, oup_scale, oup_zero_point, outData);
+    }
+
     @Override
     public float getObjThresh() {
         return 0.5f; // Standard threshold
@@ -203,9 +218,6 @@ public class YoloV5Classifier implements Classifier {
 
     private static final Logger LOGGER = new Logger();
 
-    private final float IMAGE_MEAN = 0;
-    private final float IMAGE_STD = 255.0f;
-
     //config yolo
     private int INPUT_SIZE = -1;
     private  int output_box;
@@ -222,11 +234,20 @@ public class YoloV5Classifier implements Classifier {
     private MappedByteBuffer tfliteModel;
     private final Interpreter.Options tfliteOptions = new Interpreter.Options();
 
-    private final Vector<String> labels = new Vector<>();
+    private ClassMetadata classes;
     private int[] intValues;
 
     private ByteBuffer imgData;
     private ByteBuffer outData;
+    private Object[] inputArray;
+    private final Map<Integer, Object> outputMap = new HashMap<>();
+
+    private InputNormalizer normalizer;
+    private YoloOutputDecoder decoder;
+    private final Nms nms = new Nms(0.6f);
+    private DetectionBuffer candidates;
+    private int[] kept;
+    private PipelineStats stats = new PipelineStats();
 
     private Interpreter tfLite;
     private float inp_scale;
@@ -235,230 +256,61 @@ public class YoloV5Classifier implements Classifier {
     private int oup_zero_point;
     private int numClass;
     
-    // Distance Estimation Map
-    private Map<String, Float> objectRealHeights = new HashMap<>();
     // Approximate Focal Length (in pixels) for standard mobile camera at 640x640 input
     // F ~ (ImageHeight / 2) / tan(FOV/2). Assuming ~60 deg vertical FOV.
-    private static final float FOCAL_LENGTH_PIXELS = 600.0f; 
+    // Used until setFocalLength supplies the calibrated value for the actual camera and crop.
+    private static final float DEFAULT_FOCAL_LENGTH_PIXELS = 600.0f;
+    private float focalLengthPixels = DEFAULT_FOCAL_LENGTH_PIXELS;
 
     private YoloV5Classifier() {
     }
     
-    private void initObjectHeights() {
-        // Average heights in meters
-        objectRealHeights.put("person", 1.7f);
-        objectRealHeights.put("bicycle", 1.5f);
-        objectRealHeights.put("car", 1.5f);
-        objectRealHeights.put("motorcycle", 1.0f);
-        objectRealHeights.put("bus", 3.0f);
-        objectRealHeights.put("truck", 3.0f);
-        objectRealHeights.put("traffic light", 2.5f);
-        objectRealHeights.put("stop sign", 2.0f);
-        objectRealHeights.put("bench", 0.5f);
-        objectRealHeights.put("chair", 1.0f); // Back of chair
-        objectRealHeights.put("couch", 0.8f);
-        objectRealHeights.put("pottedplant", 0.4f);
-        objectRealHeights.put("bed", 0.6f);
-        objectRealHeights.put("diningtable", 0.75f);
-        objectRealHeights.put("toilet", 0.5f);
-        objectRealHeights.put("tvmonitor", 0.6f);
-        objectRealHeights.put("laptop", 0.3f);
-        objectRealHeights.put("mouse", 0.1f);
-        objectRealHeights.put("remote", 0.05f);
-        objectRealHeights.put("keyboard", 0.05f);
-        objectRealHeights.put("cell phone", 0.15f);
-        objectRealHeights.put("microwave", 0.4f);
-        objectRealHeights.put("oven", 0.5f);
-        objectRealHeights.put("toaster", 0.3f);
-        objectRealHeights.put("sink", 0.8f);
-        objectRealHeights.put("refrigerator", 1.7f);
-        objectRealHeights.put("book", 0.25f);
-        objectRealHeights.put("clock", 0.3f);
-        objectRealHeights.put("vase", 0.3f);
-        objectRealHeights.put("scissors", 0.1f);
-        objectRealHeights.put("teddy bear", 0.4f);
-        objectRealHeights.put("hair drier", 0.2f);
-        objectRealHeights.put("toothbrush", 0.15f);
-        objectRealHeights.put("door", 2.0f);
-    }
-
-    //non maximum suppression
-    protected ArrayList<Recognition> nms(ArrayList<Recognition> list) {
-        ArrayList<Recognition> nmsList = new ArrayList<>();
-
-        for (int k = 0; k < labels.size(); k++) {
-            //1.find max confidence per class
-            PriorityQueue<Recognition> pq =
-                    new PriorityQueue<>(
-                            50,
-                            (Comparator<Recognition>) (lhs, rhs) -> {
-                                // Intentionally reversed to put high confidence at the head of the queue.
-                                return Float.compare(rhs.getConfidence(), lhs.getConfidence());
-                            });
-
-            for (int i = 0; i < list.size(); ++i) {
-                if (list.get(i).getDetectedClass() == k) {
-                    pq.add(list.get(i));
-                }
-            }
-
-            //2.do non maximum suppression
-            while (!pq.isEmpty()) {
-                //insert detection with max confidence
-                Recognition[] a = new Recognition[pq.size()];
-                Recognition[] detections = pq.toArray(a);
-                Recognition max = detections[0];
-                nmsList.add(max);
-                pq.clear();
-
-                for (int j = 1; j < detections.length; j++) {
-                    Recognition detection = detections[j];
-                    RectF b = detection.getLocation();
-                    if (box_iou(max.getLocation(), b) < mNmsThresh) {
-                        pq.add(detection);
-                    }
-                }
-            }
-        }
-        return nmsList;
-    }
-
-    protected float mNmsThresh = 0.6f;
-
-    protected float box_iou(RectF a, RectF b) {
-        return box_intersection(a, b) / box_union(a, b);
-    }
-
-    protected float box_intersection(RectF a, RectF b) {
-        float w = overlap((a.left + a.right) / 2, a.right - a.left,
-                (b.left + b.right) / 2, b.right - b.left);
-        float h = overlap((a.top + a.bottom) / 2, a.bottom - a.top,
-                (b.top + b.bottom) / 2, b.bottom - b.top);
-        if (w < 0 || h < 0) return 0;
-        return w * h;
-    }
-
-    protected float box_union(RectF a, RectF b) {
-        float i = box_intersection(a, b);
-        return (a.right - a.left) * (a.bottom - a.top) + (b.right - b.left) * (b.bottom - b.top) - i;
-    }
-
-    protected float overlap(float x1, float w1, float x2, float w2) {
-        float l1 = x1 - w1 / 2;
-        float l2 = x2 - w2 / 2;
-        float left = Math.max(l1, l2);
-        float r1 = x1 + w1 / 2;
-        float r2 = x2 + w2 / 2;
-        float right = Math.min(r1, r2);
-        return right - left;
-    }
-
-    protected ByteBuffer convertBitmapToByteBuffer(Bitmap bitmap) {
-        bitmap.getPixels(intValues, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
-
-        imgData.rewind();
-        for (int i = 0; i < INPUT_SIZE; ++i) {
-            for (int j = 0; j < INPUT_SIZE; ++j) {
-                int pixelValue = intValues[i * INPUT_SIZE + j];
-                if (isModelQuantized) {
-                    imgData.put((byte) ((((pixelValue >> 16) & 0xFF) - IMAGE_MEAN) / IMAGE_STD / inp_scale + inp_zero_point));
-                    imgData.put((byte) ((((pixelValue >> 8) & 0xFF) - IMAGE_MEAN) / IMAGE_STD / inp_scale + inp_zero_point));
-                    imgData.put((byte) (((pixelValue & 0xFF) - IMAGE_MEAN) / IMAGE_STD / inp_scale + inp_zero_point));
-                } else { // Float model
-                    imgData.putFloat((((pixelValue >> 16) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
-                    imgData.putFloat((((pixelValue >> 8) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
-                    imgData.putFloat(((pixelValue & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
-                }
-            }
-        }
-        return imgData;
-    }
-
     public ArrayList<Recognition> recognizeImage(Bitmap bitmap) {
-        convertBitmapToByteBuffer(bitmap);
-
-        Map<Integer, Object> outputMap = new HashMap<>();
+        long start = stats.begin(PipelineStats.Stage.PREPROCESS);
+        bitmap.getPixels(intValues, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+        normalizer.normalize(intValues, imgData);
+        stats.end(PipelineStats.Stage.PREPROCESS, start);
 
+        start = stats.begin(PipelineStats.Stage.INFERENCE);
         outData.rewind();
-        outputMap.put(0, outData);
-
-        Object[] inputArray = {imgData};
         tfLite.runForMultipleInputsOutputs(inputArray, outputMap);
-
-        ByteBuffer byteBuffer = (ByteBuffer) outputMap.get(0);
-        byteBuffer.rewind();
-
-        ArrayList<Recognition> detections = new ArrayList<>();
-
-        float[][][] out = new float[1][output_box][numClass + 5];
-        for (int i = 0; i < output_box; ++i) {
-            for (int j = 0; j < numClass + 5; ++j) {
-                if (isModelQuantized){
-                    out[0][i][j] = oup_scale * (((int) byteBuffer.get() & 0xFF) - oup_zero_point);
-                }
-                else {
-                    out[0][i][j] = byteBuffer.getFloat();
-                }
-            }
-            // Denormalize xywh
-            for (int j = 0; j < 4; ++j) {
-                out[0][i][j] *= getInputSize();
-            }
-        }
-        for (int i = 0; i < output_box; ++i){
-            final int offset = 0;
-            final float confidence = out[0][i][4];
-            int detectedClass = -1;
-            float maxClass = 0;
-
-            final float[] classes = new float[labels.size()];
-            System.arraycopy(out[0][i], 5, classes, 0, labels.size());
-
-            for (int c = 0; c < labels.size(); ++c) {
-                if (classes[c] > maxClass) {
-                    detectedClass = c;
-                    maxClass = classes[c];
+        stats.end(PipelineStats.Stage.INFERENCE, start);
+
+        start = stats.begin(PipelineStats.Stage.DECODE);
+        decoder.decode(outData, classes.size(), getObjThresh(),
+                bitmap.getWidth() - 1, bitmap.getHeight() - 1, candidates);
+        stats.end(PipelineStats.Stage.DECODE, start);
+
+        start = stats.begin(PipelineStats.Stage.NMS);
+        final int numKept = nms.run(candidates, classes.size(), kept);
+        stats.end(PipelineStats.Stage.NMS, start);
+
+        final ArrayList<Recognition> detections = new ArrayList<>(numKept);
+        for (int k = 0; k < numKept; ++k) {
+            final int i = kept[k];
+            final int detectedClass = candidates.detectedClass(i);
+            final RectF rect = new RectF(candidates.left(i), candidates.top(i),
+                    candidates.right(i), candidates.bottom(i));
+            Recognition recognition = new Recognition("0", classes.label(detectedClass),
+                    candidates.confidence(i), rect, detectedClass);
+
+            // --- Distance Estimation Logic ---
+            if (classes.hasRealHeight(detectedClass)) {
+                float realHeight = classes.realHeight(detectedClass);
+                float pixelHeight = candidates.predictedHeight(i);
+
+                // Simple Pinhole Model: Distance = (RealHeight * FocalLength) / ObjectPixelHeight
+                // Note: This assumes the object is upright and roughly filling the height. 
+                // Pixel height is relative to the input size (e.g. 640).
+
+                if (pixelHeight > 0) {
+                    float dist = (realHeight * focalLengthPixels) / pixelHeight;
+                    recognition.setDistance(dist);
                 }
             }
 
-            final float confidenceInClass = maxClass * confidence;
-            if (confidenceInClass > getObjThresh()) {
-                final float xPos = out[0][i][0];
-                final float yPos = out[0][i][1];
-
-                final float w = out[0][i][2];
-                final float h = out[0][i][3];
-
-                final RectF rect =
-                        new RectF(
-                                Math.max(0, xPos - w / 2),
-                                Math.max(0, yPos - h / 2),
-                                Math.min(bitmap.getWidth() - 1, xPos + w / 2),
-                                Math.min(bitmap.getHeight() - 1, yPos + h / 2));
-                
-                Recognition recognition = new Recognition("" + offset, labels.get(detectedClass),
-                        confidenceInClass, rect, detectedClass);
-                
-                // --- Distance Estimation Logic ---
-                String labelName = labels.get(detectedClass).toLowerCase();
-                if (objectRealHeights.containsKey(labelName)) {
-                    float realHeight = objectRealHeights.get(labelName);
-                    float pixelHeight = h;
-                    
-                    // Simple Pinhole Model: Distance = (RealHeight * FocalLength) / ObjectPixelHeight
-                    // Note: This assumes the object is upright and roughly filling the height. 
-                    // Pixel height is relative to the input size (e.g. 640).
-                    
-                    if (pixelHeight > 0) {
-                        float dist = (realHeight * FOCAL_LENGTH_PIXELS) / pixelHeight;
-                        recognition.setDistance(dist);
-                    }
-                }
-                
-                detections.add(recognition);
-            }
+            detections.add(recognition);
         }
-
-        return nms(detections);
+        return detections;
     }
 }
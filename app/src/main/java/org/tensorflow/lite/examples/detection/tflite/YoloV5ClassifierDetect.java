@@ -26,14 +26,12 @@ import org.tensorflow.lite.Tensor;
 import org.tensorflow.lite.examples.detection.MainActivity;
 import org.tensorflow.lite.examples.detection.env.Logger;
 import org.tensorflow.lite.examples.detection.env.Utils;
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
 import org.tensorflow.lite.gpu.CompatibilityList;
 import org.tensorflow.lite.gpu.GpuDelegate;
 import org.tensorflow.lite.nnapi.NnApiDelegate;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
@@ -79,14 +77,10 @@ public class YoloV5ClassifierDetect implements Classifier {
         final YoloV5ClassifierDetect d = new YoloV5ClassifierDetect();
 
         String actualFilename = labelFilename.split("file:///android_asset/")[1];
-        InputStream labelsInput = assetManager.open(actualFilename);
-        BufferedReader br = new BufferedReader(new InputStreamReader(labelsInput));
-        String line;
-        while ((line = br.readLine()) != null) {
-            LOGGER.w(line);
-            d.labels.add(line);
+        d.classes = Utils.loadClassMetadata(assetManager, actualFilename);
+        for (int i = 0; i < d.classes.size(); ++i) {
+            d.labels.add(d.classes.label(i));
         }
-        br.close();
 
         try {
             Interpreter.Options options = (new Interpreter.Options());
@@ -166,11 +160,27 @@ public class YoloV5ClassifierDetect implements Classifier {
     }
     @Override
     public void enableStatLogging(final boolean logStats) {
+        stats.setEnabled(logStats);
     }
 
     @Override
     public String getStatString() {
-        return "";
+        return stats.isEnabled() ? stats.report() : "";
+    }
+
+    @Override
+    public void setStats(PipelineStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public ClassMetadata getClassMetadata() {
+        return classes;
+    }
+
+    @Override
+    public void setFocalLength(float focalLengthPixels) {
+        // This variant does not estimate distances.
     }
 
     @Override
@@ -275,6 +285,7 @@ public class YoloV5ClassifierDetect implements Classifier {
 
     // Pre-allocated buffers.
     private Vector<String> labels = new Vector<String>();
+    private ClassMetadata classes;
     private int[] intValues;
 
     private ByteBuffer imgData;
@@ -285,6 +296,8 @@ public class YoloV5ClassifierDetect implements Classifier {
     private int inp_zero_point;
     private float[] oup_scales;
     private int[] oup_zero_points;
+    private PipelineStats stats = new PipelineStats();
+
     private YoloV5ClassifierDetect() {
     }
 
@@ -370,6 +383,7 @@ public class YoloV5ClassifierDetect implements Classifier {
     public ArrayList<Recognition> recognizeImage(Bitmap bitmap) {
         Map<Integer, Object> outputMap = new HashMap<>();
 
+        long start = stats.begin(PipelineStats.Stage.PREPROCESS);
         bitmap.getPixels(intValues, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
         imgData.rewind();
         for (int i = 0; i < INPUT_SIZE; ++i) {
@@ -388,6 +402,8 @@ public class YoloV5ClassifierDetect implements Classifier {
             }
         }
 
+        stats.end(PipelineStats.Stage.PREPROCESS, start);
+
         for (int i = 0; i < OUTPUT_WIDTH.length; i++) {
             outData[i].rewind();
             outputMap.put(i, outData[i]);
@@ -396,7 +412,11 @@ public class YoloV5ClassifierDetect implements Classifier {
         Log.d("YoloV5Classifier", "mObjThresh: " + getObjThresh());
 
         Object[] inputArray = {imgData};
+        start = stats.begin(PipelineStats.Stage.INFERENCE);
         tfLite.runForMultipleInputsOutputs(inputArray, outputMap);
+        stats.end(PipelineStats.Stage.INFERENCE, start);
+
+        start = stats.begin(PipelineStats.Stage.DECODE);
 
         ArrayList<Recognition> detections = new ArrayList<Recognition>();
 
@@ -476,7 +496,11 @@ public class YoloV5ClassifierDetect implements Classifier {
             Log.d("YoloV5Classifier", "out[" + i + "] detect end");
         }
 
+        stats.end(PipelineStats.Stage.DECODE, start);
+
+        start = stats.begin(PipelineStats.Stage.NMS);
         final ArrayList<Recognition> recognitions = nms(detections);
+        stats.end(PipelineStats.Stage.NMS, start);
 
         return recognitions;
     }
@@ -27,26 +27,33 @@ import android.graphics.Paint.Join;
 import android.graphics.Paint.Style;
 import android.graphics.RectF;
 import android.os.Build;
-import android.speech.tts.TextToSpeech;
 import android.text.TextUtils;
 import android.util.Pair;
 import android.util.TypedValue;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import org.tensorflow.lite.examples.detection.env.BorderedText;
 import org.tensorflow.lite.examples.detection.env.ImageUtils;
 import org.tensorflow.lite.examples.detection.env.Logger;
 import org.tensorflow.lite.examples.detection.tflite.Classifier.Recognition;
+import org.tensorflow.lite.examples.detection.tflite.DetectionBuffer;
 
-/** A tracker that handles non-max suppression and matches existing objects to new detections. */
+/**
+ * Draws tracked objects. Detections are fed to a {@link KalmanBoxTracker}, which keeps stable IDs
+ * across frames and can extrapolate boxes on frames where detection did not run. Each track's
+ * distance is smoothed by a {@link RangeEstimator}, which also gives its time to collision.
+ */
 public class MultiBoxTracker {
   private static final float TEXT_SIZE_DIP = 18;
   private static final float MIN_SIZE = 16.0f;
-  private static String lastStr = null;
-  private static Queue<String> queue = new LinkedList<>();
+  private static final int MAX_TRACKS = 32;
+  private static final int MAX_DETECTIONS = 64;
+  /** Flow confidence below which a track is extrapolated instead of moved by flow. */
+  public static final float MIN_FLOW_CONFIDENCE = 0.5f;
 
   private static final int[] COLORS = {
           Color.BLUE,
@@ -68,7 +75,16 @@ public class MultiBoxTracker {
   final List<Pair<Float, RectF>> screenRects = new LinkedList<Pair<Float, RectF>>();
   private final Logger logger = new Logger();
   private final Queue<Integer> availableColors = new LinkedList<Integer>();
-  private final List<TrackedRecognition> trackedObjects = new LinkedList<TrackedRecognition>();
+  private final KalmanBoxTracker tracker = new KalmanBoxTracker(MAX_TRACKS, MAX_DETECTIONS);
+  private final DetectionBuffer detections = new DetectionBuffer(MAX_DETECTIONS);
+  private final RangeEstimator ranges = new RangeEstimator(MAX_TRACKS);
+  private final Recognition[] detectionResults = new Recognition[MAX_DETECTIONS];
+  private final RectF trackedPos = new RectF();
+  private final float[] flowCentreX = new float[MAX_TRACKS];
+  private final float[] flowCentreY = new float[MAX_TRACKS];
+  private final float[] flowConfidence = new float[MAX_TRACKS];
+  private BoxFlow flow;
+  private String[] classTitles = new String[0];
   private final Paint boxPaint = new Paint();
   private final float textSizePx;
   private final BorderedText borderedText;
@@ -76,7 +92,6 @@ public class MultiBoxTracker {
   private int frameWidth;
   private int frameHeight;
   private int sensorOrientation;
- private TextToSpeech textToSpeech;
   public MultiBoxTracker(final Context context) {
     for (final int color : COLORS) {
       availableColors.add(color);
@@ -89,16 +104,6 @@ public class MultiBoxTracker {
     boxPaint.setStrokeJoin(Join.ROUND);
     boxPaint.setStrokeMiter(100);
 
-    textToSpeech = new TextToSpeech(context.getApplicationContext(), i -> {
-      switch (i) {
-        case TextToSpeech.SUCCESS:
-          textToSpeech.setLanguage(Locale.US);
-          break;
-        default:
-          break;
-      }
-    });
-
     textSizePx =
             TypedValue.applyDimension(
                     TypedValue.COMPLEX_UNIT_DIP, TEXT_SIZE_DIP, context.getResources().getDisplayMetrics());
@@ -110,6 +115,7 @@ public class MultiBoxTracker {
     frameWidth = width;
     frameHeight = height;
     this.sensorOrientation = sensorOrientation;
+    flow = new BoxFlow(width, height);
   }
 
   public synchronized void drawDebug(final Canvas canvas) {
@@ -130,9 +136,74 @@ public class MultiBoxTracker {
     }
   }
 
+  /**
+   * Updates tracks with a new set of detections in frame coordinates. {@code timestamp} is in
+   * milliseconds and must share a clock with {@link #extrapolate}. Each result matched to a track
+   * gets that track's ID, and results with a distance get the track's smoothed distance and time
+   * to collision.
+   */
   public synchronized void trackResults(final List<Recognition> results, final long timestamp) {
     logger.i("Processing %d results from %d", results.size(), timestamp);
-    processResults(results);
+    processResults(results, timestamp);
+  }
+
+  /** Moves tracked boxes to {@code timestamp} (ms) along their estimated velocity. */
+  public synchronized void extrapolate(final long timestamp) {
+    tracker.predict(timestamp);
+  }
+
+  /**
+   * Makes {@code luminance} (the Y plane of the frame tracks are currently positioned in) the
+   * reference for the next {@link #propagate}.
+   */
+  public synchronized void setReferenceFrame(final ByteBuffer luminance, final int rowStride) {
+    flow.setReference(luminance, rowStride);
+  }
+
+  /**
+   * Moves confirmed tracks to {@code timestamp} (ms) using sparse optical flow between the
+   * reference frame and {@code luminance}, seeded with each track's velocity. Tracks whose flow is
+   * unreliable are only extrapolated. Returns the lowest flow confidence among confirmed tracks,
+   * or 1 if there are none; callers should re-detect when it is low.
+   */
+  public synchronized float propagate(
+          final ByteBuffer luminance, final int rowStride, final long timestamp) {
+    if (flow == null || !flow.hasReference()) {
+      tracker.predict(timestamp);
+      return 0;
+    }
+    final long last = tracker.getTimestampMs();
+    final float dt = last >= 0 && timestamp > last ? (timestamp - last) / 1000f : 0;
+    float minConfidence = 1;
+    for (int i = 0; i < tracker.size(); ++i) {
+      if (!tracker.isConfirmed(i)) {
+        continue;
+      }
+      final float confidence = flow.track(luminance, rowStride,
+              tracker.left(i), tracker.top(i), tracker.right(i), tracker.bottom(i),
+              tracker.velocityX(i) * dt, tracker.velocityY(i) * dt);
+      flowConfidence[i] = confidence;
+      flowCentreX[i] = (tracker.left(i) + tracker.right(i)) / 2 + flow.getDx();
+      flowCentreY[i] = (tracker.top(i) + tracker.bottom(i)) / 2 + flow.getDy();
+      minConfidence = Math.min(minConfidence, confidence);
+    }
+    tracker.predict(timestamp);
+    for (int i = 0; i < tracker.size(); ++i) {
+      if (tracker.isConfirmed(i) && flowConfidence[i] >= MIN_FLOW_CONFIDENCE) {
+        tracker.observeCentre(i, flowCentreX[i], flowCentreY[i]);
+      }
+    }
+    return minConfidence;
+  }
+
+  /** True if at least one confirmed track is being drawn. */
+  public synchronized boolean hasConfirmedTracks() {
+    for (int i = 0; i < tracker.size(); ++i) {
+      if (tracker.isConfirmed(i)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private Matrix getFrameToCanvasMatrix() {
@@ -153,19 +224,25 @@ public class MultiBoxTracker {
                     (int) (multiplier * (rotated ? frameWidth : frameHeight)),
                     sensorOrientation,
                     false);
-    for (final TrackedRecognition recognition : trackedObjects) {
-      final RectF trackedPos = new RectF(recognition.location);
+    for (int i = 0; i < tracker.size(); ++i) {
+      if (!tracker.isConfirmed(i)) {
+        continue;
+      }
+      trackedPos.set(tracker.left(i), tracker.top(i), tracker.right(i), tracker.bottom(i));
 
       getFrameToCanvasMatrix().mapRect(trackedPos);
-      boxPaint.setColor(recognition.color);
+      final int detectedClass = tracker.detectedClass(i);
+      boxPaint.setColor(COLORS[detectedClass % COLORS.length]);
 
       float cornerSize = Math.min(trackedPos.width(), trackedPos.height()) / 8.0f;
       canvas.drawRoundRect(trackedPos, cornerSize, cornerSize, boxPaint);
 
+      final String title = detectedClass < classTitles.length ? classTitles[detectedClass] : null;
+      final float confidence = tracker.confidence(i);
       final String labelString =
-              !TextUtils.isEmpty(recognition.title)
-                      ? String.format("%s %.2f", recognition.title, (100 * recognition.detectionConfidence))
-                      : String.format("%.2f", (100 * recognition.detectionConfidence));
+              !TextUtils.isEmpty(title)
+                      ? String.format("%s %.2f", title, (100 * confidence))
+                      : String.format("%.2f", (100 * confidence));
       //            borderedText.drawText(canvas, trackedPos.left + cornerSize, trackedPos.top,
       // labelString);
       borderedText.drawText(
@@ -173,8 +250,8 @@ public class MultiBoxTracker {
     }
   }
 
-  private void processResults(final List<Recognition> results) {
-    final List<Pair<Float, Recognition>> rectsToTrack = new LinkedList<Pair<Float, Recognition>>();
+  private void processResults(final List<Recognition> results, final long timestamp) {
+    detections.clear();
 
     screenRects.clear();
     final Matrix rgbFrameToScreen = new Matrix(getFrameToCanvasMatrix());
@@ -191,21 +268,6 @@ public class MultiBoxTracker {
       logger.v(
               "Result! Frame: " + result.getLocation() + " mapped to screen:" + detectionScreenRect);
 
-      if(!queue.contains(result.getTitle())){
-          if(queue.size()>=2){
-              queue.poll();
-          }
-          queue.add(result.getTitle());
-        textToSpeech.setSpeechRate(1.2f);
-        textToSpeech.speak(result.getTitle() + " is detected !", TextToSpeech.QUEUE_ADD, null);
-      }
-
-//      if(lastStr == null || lastStr != result.getTitle()){
-//        lastStr = result.getTitle();
-//        textToSpeech.speak(result.getTitle() + " is detected !", TextToSpeech.QUEUE_ADD, null);
-//        textToSpeech.playSilentUtterance(1000, TextToSpeech.QUEUE_ADD,null);
-//      }
-
       screenRects.add(new Pair<Float, RectF>(result.getConfidence(), detectionScreenRect));
 
       if (detectionFrameRect.width() < MIN_SIZE || detectionFrameRect.height() < MIN_SIZE) {
@@ -213,34 +275,44 @@ public class MultiBoxTracker {
         continue;
       }
 
-      rectsToTrack.add(new Pair<Float, Recognition>(result.getConfidence(), result));
+      final int index = detections.add(detectionFrameRect.left, detectionFrameRect.top,
+              detectionFrameRect.right, detectionFrameRect.bottom, detectionFrameRect.height(),
+              result.getConfidence(), result.getDetectedClass());
+      if (index < 0) {
+        logger.w("Too many detections to track, dropping " + result);
+        continue;
+      }
+      detectionResults[index] = result;
+      rememberTitle(result.getDetectedClass(), result.getTitle());
     }
 
-    trackedObjects.clear();
-    if (rectsToTrack.isEmpty()) {
-      logger.v("Nothing to track, aborting.");
-      return;
+    tracker.update(detections, timestamp);
+    for (int i = 0; i < tracker.size(); ++i) {
+      final int matched = tracker.matchedDetection(i);
+      if (matched >= 0) {
+        final Recognition result = detectionResults[matched];
+        final int id = tracker.id(i);
+        result.setTrackId(id);
+        result.setApproachRate(tracker.heightVelocity(i) / tracker.height(i));
+        if (result.getDistance() != null) {
+          ranges.update(id, result.getDistance(), timestamp);
+          result.setDistance(ranges.range(id));
+          result.setTimeToCollision(ranges.timeToCollision(id));
+        }
+      }
     }
-
-    for (final Pair<Float, Recognition> potential : rectsToTrack) {
-      final TrackedRecognition trackedRecognition = new TrackedRecognition();
-      trackedRecognition.detectionConfidence = potential.first;
-      trackedRecognition.location = new RectF(potential.second.getLocation());
-      trackedRecognition.title = potential.second.getTitle();
-//      trackedRecognition.color = COLORS[trackedObjects.size() % COLORS.length];
-      trackedRecognition.color = COLORS[potential.second.getDetectedClass() % COLORS.length];
-      trackedObjects.add(trackedRecognition);
-
-//      if (trackedObjects.size() >= COLORS.length) {
-//        break;
-//      }
+    for (int i = 0; i < detections.size(); ++i) {
+      detectionResults[i] = null;
     }
   }
 
-  private static class TrackedRecognition {
-    RectF location;
-    float detectionConfidence;
-    int color;
-    String title;
+  private void rememberTitle(final int detectedClass, final String title) {
+    if (detectedClass < 0) {
+      return;
+    }
+    if (detectedClass >= classTitles.length) {
+      classTitles = Arrays.copyOf(classTitles, detectedClass + 1);
+    }
+    classTitles[detectedClass] = title;
   }
 }
@@ -0,0 +1,136 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.speech.tts.TextToSpeech;
+import org.tensorflow.lite.examples.detection.audio.AnnouncementPhrases;
+import org.tensorflow.lite.examples.detection.audio.ClipPlayer;
+import org.tensorflow.lite.examples.detection.audio.PcmClip;
+import org.tensorflow.lite.examples.detection.audio.PhraseCache;
+import org.tensorflow.lite.examples.detection.metrics.PipelineStats;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+import org.tensorflow.lite.examples.detection.tflite.Classifier.Recognition;
+
+/**
+ * Speaks recognitions chosen by an {@link AnnouncementScheduler} as "name, 2.5 meters", with the
+ * name in the current announcement language. Each utterance flushes the engine's queue, which is
+ * how a more urgent announcement cuts off the one in progress.
+ *
+ * <p>When a {@link PhraseCache} holds both the class name and the distance, they are played
+ * through the {@link ClipPlayer} instead of being synthesized, and distances are rounded to the
+ * cache's steps whether or not it is used, so the same object always sounds the same.
+ *
+ * <p>The engine is swapped in with {@link #setTextToSpeech} once it has initialized, and the
+ * class table with {@link #setClassMetadata} once the detector has loaded; until the engine is
+ * set announcements are dropped, and until the table is set labels are spoken untranslated.
+ *
+ * <p>The scheduler calls in with its lock held, so the engine and player calls, which go through
+ * the TTS service, happen on the speaker's own thread in the order announcements were made. For
+ * the same reason {@link #isBusy} answers from the engine state last read on that thread and asks
+ * for a fresh read, so it can lag by one call. {@link #release} stops the thread.
+ */
+public final class RecognitionSpeaker implements AnnouncementScheduler.Speaker<Recognition> {
+  private final PipelineStats stats;
+  private volatile TextToSpeech textToSpeech;
+  private volatile ClassMetadata classes;
+  private volatile String language = "en";
+  private volatile PhraseCache phrases;
+  private volatile ClipPlayer player;
+  private final HandlerThread thread = new HandlerThread("speech");
+  private final Handler handler;
+  private volatile boolean engineSpeaking;
+  private volatile boolean refreshPending;
+  private final Runnable refreshEngineState = () -> {
+    refreshPending = false;
+    final TextToSpeech tts = textToSpeech;
+    engineSpeaking = tts != null && tts.isSpeaking();
+  };
+
+  public RecognitionSpeaker(final PipelineStats stats) {
+    this.stats = stats;
+    thread.start();
+    handler = new Handler(thread.getLooper());
+  }
+
+  public void setTextToSpeech(final TextToSpeech textToSpeech) {
+    this.textToSpeech = textToSpeech;
+  }
+
+  public void setClassMetadata(final ClassMetadata classes) {
+    this.classes = classes;
+  }
+
+  /** Plays cached phrases through {@code player} when {@code phrases} has them; null disables. */
+  public void setPhraseCache(final PhraseCache phrases, final ClipPlayer player) {
+    this.phrases = phrases;
+    this.player = player;
+  }
+
+  /** Language code such as "hi", as used in {@link ClassMetadata#localizedName}. */
+  public void setLanguage(final String language) {
+    this.language = language;
+  }
+
+  /** Runs {@code task} on the speaker's thread, after the announcements already made. */
+  public void post(final Runnable task) {
+    handler.post(task);
+  }
+
+  /** Stops the speaker's thread; announcements not yet spoken are dropped. */
+  public void release() {
+    thread.quitSafely();
+  }
+
+  @Override
+  public void speak(final Recognition recognition, final String utteranceId) {
+    if (textToSpeech == null) {
+      return;
+    }
+    stats.getEndToEnd().announced(utteranceId, recognition.getFrameTimestampNanos());
+    handler.post(() -> say(recognition, utteranceId));
+  }
+
+  @Override
+  public boolean isBusy() {
+    if (!refreshPending) {
+      refreshPending = true;
+      handler.post(refreshEngineState);
+    }
+    final ClipPlayer clipPlayer = player;
+    return engineSpeaking || (clipPlayer != null && clipPlayer.isPlaying());
+  }
+
+  private void say(final Recognition recognition, final String utteranceId) {
+    final TextToSpeech tts = textToSpeech;
+    if (tts == null) {
+      return;
+    }
+    final long speechStart = stats.begin(PipelineStats.Stage.SPEECH);
+    final String lang = language;
+    final float distance = recognition.getDistance();
+    final int bucket = AnnouncementPhrases.distanceBucket(distance);
+    final float spoken = bucket >= 0 ? AnnouncementPhrases.bucketDistance(bucket) : distance;
+    final PhraseCache cache = phrases;
+    final ClipPlayer clipPlayer = player;
+    final PcmClip[] clips = cache != null && clipPlayer != null
+        ? cache.announcement(lang, recognition.getDetectedClass(), spoken)
+        : null;
+    if (clips != null) {
+      if (tts.isSpeaking()) {
+        tts.stop();
+      }
+      clipPlayer.play(clips, utteranceId);
+    } else {
+      if (clipPlayer != null) {
+        clipPlayer.stop();
+      }
+      final ClassMetadata table = classes;
+      final String name = table != null
+          ? table.localizedName(recognition.getDetectedClass(), lang)
+          : recognition.getTitle();
+      tts.speak(name + ", " + AnnouncementPhrases.distanceText(spoken),
+          TextToSpeech.QUEUE_FLUSH, null, utteranceId);
+    }
+    stats.end(PipelineStats.Stage.SPEECH, speechStart);
+  }
+}
@@ -0,0 +1,73 @@
+package org.tensorflow.lite.examples.detection.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/** Deterministic synthetic inputs and recorded tensors for the benchmarks. */
+final class Fixtures {
+    static final int INPUT_SIZE = 416;
+    static final int NUM_CLASS = 80;
+
+    private Fixtures() {}
+
+    /** Camera-like YUV420 bytes: a smooth gradient with noise, so branches are not trivially predicted. */
+    static byte[] yuvNoise(int length, long seed) {
+        final Random random = new Random(seed);
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            bytes[i] = (byte) ((i * 7 / 5 + random.nextInt(32)) & 0xFF);
+        }
+        return bytes;
+    }
+
+    static int[] argbNoise(int length, long seed) {
+        final Random random = new Random(seed);
+        final int[] pixels = new int[length];
+        for (int i = 0; i < length; ++i) {
+            pixels[i] = 0xff000000 | random.nextInt(0x1000000);
+        }
+        return pixels;
+    }
+
+    /**
+     * A float32 YOLOv5 output tensor in native order. Most rows are background; {@code objects}
+     * clusters of overlapping, confident boxes are scattered over the image so NMS has real work.
+     */
+    static ByteBuffer syntheticOutput(int outputBoxes, int numClass, int objects, long seed) {
+        final Random random = new Random(seed);
+        final int rowLength = numClass + 5;
+        final ByteBuffer buffer =
+                ByteBuffer.allocateDirect(outputBoxes * rowLength * 4).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < outputBoxes; ++i) {
+            final int row = i * rowLength * 4;
+            buffer.putFloat(row, random.nextFloat());
+            buffer.putFloat(row + 4, random.nextFloat());
+            buffer.putFloat(row + 8, 0.05f + random.nextFloat() * 0.2f);
+            buffer.putFloat(row + 12, 0.05f + random.nextFloat() * 0.2f);
+            buffer.putFloat(row + 16, random.nextFloat() * 0.05f);
+            for (int c = 0; c < numClass; ++c) {
+                buffer.putFloat(row + (5 + c) * 4, random.nextFloat() * 0.1f);
+            }
+        }
+        // Each object lights up a run of neighbouring anchors with jittered boxes.
+        for (int o = 0; o < objects; ++o) {
+            final float cx = 0.1f + random.nextFloat() * 0.8f;
+            final float cy = 0.1f + random.nextFloat() * 0.8f;
+            final float w = 0.1f + random.nextFloat() * 0.3f;
+            final float h = 0.1f + random.nextFloat() * 0.4f;
+            final int cls = random.nextInt(numClass);
+            final int first = random.nextInt(outputBoxes - 32);
+            for (int k = 0; k < 24; ++k) {
+                final int row = (first + k) * rowLength * 4;
+                buffer.putFloat(row, cx + (random.nextFloat() - 0.5f) * 0.02f);
+                buffer.putFloat(row + 4, cy + (random.nextFloat() - 0.5f) * 0.02f);
+                buffer.putFloat(row + 8, w * (0.95f + random.nextFloat() * 0.1f));
+                buffer.putFloat(row + 12, h * (0.95f + random.nextFloat() * 0.1f));
+                buffer.putFloat(row + 16, 0.7f + random.nextFloat() * 0.3f);
+                buffer.putFloat(row + (5 + cls) * 4, 0.75f + random.nextFloat() * 0.25f);
+            }
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,40 @@
+package org.tensorflow.lite.examples.detection.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tensorflow.lite.examples.detection.tflite.InputNormalizer;
+
+/** ARGB pixels to the interpreter's input tensor, for float and int8 models. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InputNormalizationBenchmark {
+    @Param({"false", "true"})
+    public boolean quantized;
+
+    private InputNormalizer normalizer;
+    private int[] pixels;
+    private ByteBuffer imgData;
+
+    @Setup
+    public void setUp() {
+        normalizer = new InputNormalizer(Fixtures.INPUT_SIZE, quantized, 1.0f / 255.0f, 0);
+        pixels = Fixtures.argbNoise(Fixtures.INPUT_SIZE * Fixtures.INPUT_SIZE, 5);
+        imgData = ByteBuffer.allocateDirect(normalizer.byteSize()).order(ByteOrder.nativeOrder());
+    }
+
+    @Benchmark
+    public ByteBuffer normalize() {
+        normalizer.normalize(pixels, imgData);
+        return imgData;
+    }
+}
@@ -0,0 +1,84 @@
+package org.tensorflow.lite.examples.detection.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tensorflow.lite.examples.detection.tflite.DetectionBuffer;
+import org.tensorflow.lite.examples.detection.tflite.Nms;
+import org.tensorflow.lite.examples.detection.tflite.RecordedTensor;
+import org.tensorflow.lite.examples.detection.tflite.YoloOutputDecoder;
+
+/**
+ * Output tensor decode and NMS. Uses a synthetic tensor unless {@code recordedTensor} points at a
+ * {@link RecordedTensor} file, e.g. one from the golden corpus (run with
+ * {@code -p recordedTensor=core/src/test/resources/golden/street_f32_160.yolt}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OutputDecodeBenchmark {
+    @Param({""})
+    public String recordedTensor;
+
+    @Param({"4", "16"})
+    public int objects;
+
+    private int inputSize;
+    private YoloOutputDecoder decoder;
+    private ByteBuffer output;
+    private DetectionBuffer candidates;
+    private DetectionBuffer decoded;
+    private Nms nms;
+    private int[] kept;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (recordedTensor.isEmpty()) {
+            inputSize = Fixtures.INPUT_SIZE;
+            decoder = new YoloOutputDecoder(inputSize, YoloOutputDecoder.outputBoxesFor(inputSize),
+                    Fixtures.NUM_CLASS, false, 0, 0);
+            output = Fixtures.syntheticOutput(decoder.getOutputBoxes(), Fixtures.NUM_CLASS, objects, 6);
+        } else {
+            final RecordedTensor recorded = RecordedTensor.map(new File(recordedTensor));
+            inputSize = recorded.getInputSize();
+            decoder = recorded.newDecoder();
+            output = recorded.getData();
+        }
+        final int outputBoxes = decoder.getOutputBoxes();
+        candidates = new DetectionBuffer(outputBoxes);
+        decoded = new DetectionBuffer(outputBoxes);
+        decodeInto(decoded);
+        nms = new Nms(0.6f);
+        kept = new int[outputBoxes];
+    }
+
+    private void decodeInto(DetectionBuffer out) {
+        decoder.decode(output, decoder.getNumClass(), 0.5f, inputSize - 1, inputSize - 1, out);
+    }
+
+    @Benchmark
+    public DetectionBuffer decode() {
+        decodeInto(candidates);
+        return candidates;
+    }
+
+    @Benchmark
+    public int nms() {
+        return nms.run(decoded, decoder.getNumClass(), kept);
+    }
+
+    @Benchmark
+    public int decodeAndNms() {
+        decodeInto(candidates);
+        return nms.run(candidates, decoder.getNumClass(), kept);
+    }
+}
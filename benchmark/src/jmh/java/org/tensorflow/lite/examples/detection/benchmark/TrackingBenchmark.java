@@ -0,0 +1,207 @@
+package org.tensorflow.lite.examples.detection.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+import org.tensorflow.lite.examples.detection.tflite.DetectionBuffer;
+import org.tensorflow.lite.examples.detection.tracking.Announceable;
+import org.tensorflow.lite.examples.detection.tracking.AnnouncementScheduler;
+import org.tensorflow.lite.examples.detection.tracking.KalmanBoxTracker;
+import org.tensorflow.lite.examples.detection.tracking.RangeEstimator;
+import org.tensorflow.lite.examples.detection.tracking.TrackAnnouncer;
+
+/** Per-frame tracker bookkeeping and scheduling what to announce. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrackingBenchmark {
+    private static final String[] TITLES = {"person", "car", "chair", "bicycle", "door", "bench"};
+    private static final String METADATA = "name\taliases\theight\tpriority\thazard\tground\n"
+            + "person\t-\t1.7\t2\tobstacle\ty\n"
+            + "car\t-\t1.5\t3\tvehicle\ty\n"
+            + "chair\t-\t0.9\t1\tobstacle\ty\n"
+            + "bicycle\t-\t1.0\t3\tvehicle\ty\n"
+            + "bench\t-\t0.5\t1\tobstacle\ty\n";
+    /** Time advanced per call, so cooldowns run out and tracks are announced again. */
+    private static final long FRAME_STEP_MS = 1_500;
+
+    @Param({"5", "30"})
+    public int detections;
+
+    private List<Result> results;
+    private long nowMs;
+    private KalmanBoxTracker tracker;
+    private DetectionBuffer boxes;
+    private float[] originX;
+    private float[] originY;
+    private float[] sizes;
+    private int[] classes;
+    private float[] velocities;
+    private int frame;
+    private RangeEstimator ranges;
+    private AnnouncementScheduler<Result> scheduler;
+    private final Speaker speaker = new Speaker();
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(7);
+        results = new ArrayList<>(detections);
+        for (int i = 0; i < detections; ++i) {
+            final int cls = random.nextInt(TITLES.length);
+            results.add(new Result(
+                    TITLES[cls],
+                    cls,
+                    0.3f + random.nextFloat() * 0.7f,
+                    random.nextInt(4) == 0 ? null : 0.5f + random.nextFloat() * 8f,
+                    i + 1,
+                    random.nextFloat() * 0.4f - 0.1f,
+                    random.nextInt(3) == 0 ? 1 + random.nextFloat() * 10 : Float.POSITIVE_INFINITY));
+        }
+        nowMs = 0;
+
+        // Boxes drifting at constant speed, so every update exercises association and correction.
+        boxes = new DetectionBuffer(detections);
+        originX = new float[detections];
+        originY = new float[detections];
+        sizes = new float[detections];
+        classes = new int[detections];
+        velocities = new float[detections];
+        for (int i = 0; i < detections; ++i) {
+            originX[i] = random.nextFloat() * 560;
+            originY[i] = random.nextFloat() * 560;
+            sizes[i] = 40 + random.nextFloat() * 60;
+            classes[i] = random.nextInt(TITLES.length);
+            velocities[i] = random.nextFloat() * 4 - 2;
+        }
+        tracker = new KalmanBoxTracker(detections, detections);
+        frame = 0;
+        ranges = new RangeEstimator(detections);
+        scheduler = new AnnouncementScheduler<>(
+                ClassMetadata.load(Arrays.asList(TITLES), new StringReader(METADATA)),
+                new TrackAnnouncer(), speaker);
+    }
+
+    /**
+     * Scoring and queueing one frame's results, then finishing the utterance so the next frame
+     * can speak again.
+     */
+    @Benchmark
+    public int scheduleAnnouncements() {
+        nowMs += FRAME_STEP_MS;
+        scheduler.offer(results, 0.5f, nowMs);
+        scheduler.onUtteranceDone(speaker.lastId, nowMs);
+        return scheduler.queued();
+    }
+
+    /** One detection round: predict, associate, correct. Boxes wrap around every 100 frames. */
+    @Benchmark
+    public int kalmanUpdate() {
+        final int step = frame++ % 100;
+        if (step == 0) {
+            tracker.clear();
+        }
+        boxes.clear();
+        for (int i = 0; i < detections; ++i) {
+            final float x = originX[i] + velocities[i] * step;
+            final float y = originY[i] + velocities[i] * step;
+            boxes.add(x, y, x + sizes[i], y + sizes[i], sizes[i], 0.9f, classes[i]);
+        }
+        tracker.update(boxes, step * 33L);
+        return tracker.size();
+    }
+
+    /** Range filtering for every track on a detection frame, approaching at its own speed. */
+    @Benchmark
+    public float rangeUpdate() {
+        final int step = frame++ % 100;
+        float nearest = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < detections; ++i) {
+            ranges.update(i + 1, 10 + velocities[i] * step * 0.033f, step * 33L);
+            nearest = Math.min(nearest, ranges.timeToCollision(i + 1));
+        }
+        return nearest;
+    }
+
+    static final class Speaker implements AnnouncementScheduler.Speaker<Result> {
+        String lastId;
+
+        @Override
+        public void speak(Result item, String utteranceId) {
+            lastId = utteranceId;
+        }
+
+        @Override
+        public boolean isBusy() {
+            return false;
+        }
+    }
+
+    static final class Result implements Announceable {
+        private final String title;
+        private final int detectedClass;
+        private final Float confidence;
+        private final Float distance;
+        private final int trackId;
+        private final float approachRate;
+        private final float timeToCollision;
+
+        Result(String title, int detectedClass, Float confidence, Float distance, int trackId,
+                float approachRate, float timeToCollision) {
+            this.title = title;
+            this.detectedClass = detectedClass;
+            this.confidence = confidence;
+            this.distance = distance;
+            this.trackId = trackId;
+            this.approachRate = approachRate;
+            this.timeToCollision = timeToCollision;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public int getDetectedClass() {
+            return detectedClass;
+        }
+
+        @Override
+        public Float getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public Float getDistance() {
+            return distance;
+        }
+
+        @Override
+        public int getTrackId() {
+            return trackId;
+        }
+
+        @Override
+        public float getApproachRate() {
+            return approachRate;
+        }
+
+        @Override
+        public float getTimeToCollision() {
+            return timeToCollision;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.tensorflow.lite.examples.detection.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.tensorflow.lite.examples.detection.env.YuvConverter;
+
+/**
+ * YUV to ARGB conversion for the Camera2 (planar, strided) and legacy (NV21) paths. Camera2 planes
+ * arrive in direct buffers, converted either in place or after the copy into heap arrays.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class YuvConversionBenchmark {
+    @Param({"640x480", "1280x720"})
+    public String size;
+
+    private int width;
+    private int height;
+    private byte[] nv21;
+    private byte[] y;
+    private byte[] u;
+    private byte[] v;
+    private ByteBuffer directY;
+    private ByteBuffer directU;
+    private ByteBuffer directV;
+    private int[] argb;
+
+    @Setup
+    public void setUp() {
+        final String[] dims = size.split("x");
+        width = Integer.parseInt(dims[0]);
+        height = Integer.parseInt(dims[1]);
+        nv21 = Fixtures.yuvNoise(YuvConverter.getYUVByteSize(width, height), 1);
+        y = Fixtures.yuvNoise(width * height, 2);
+        // Semi-planar chroma as most Camera2 devices deliver it: pixel stride 2.
+        u = Fixtures.yuvNoise(width * height / 2, 3);
+        v = Fixtures.yuvNoise(width * height / 2, 4);
+        directY = direct(y);
+        directU = direct(u);
+        directV = direct(v);
+        argb = new int[width * height];
+    }
+
+    @Benchmark
+    public int[] nv21ToArgb() {
+        YuvConverter.convertYUV420SPToARGB8888(nv21, width, height, argb);
+        return argb;
+    }
+
+    @Benchmark
+    public int[] yuv420ToArgb() {
+        YuvConverter.convertYUV420ToARGB8888(y, u, v, width, height, width, width, 2, argb);
+        return argb;
+    }
+
+    @Benchmark
+    public int[] directPlanesToArgb() {
+        YuvConverter.convertYUV420ToARGB8888(
+                directY, directU, directV, width, height, width, width, 2, argb);
+        return argb;
+    }
+
+    /** What the Camera2 path did before reading planes in place: copy, then convert. */
+    @Benchmark
+    public int[] copyThenYuv420ToArgb() {
+        directY.duplicate().get(y);
+        directU.duplicate().get(u);
+        directV.duplicate().get(v);
+        YuvConverter.convertYUV420ToARGB8888(y, u, v, width, height, width, width, 2, argb);
+        return argb;
+    }
+
+    private static ByteBuffer direct(byte[] data) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.rewind();
+        return buffer;
+    }
+}
@@ -0,0 +1,45 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import java.util.Locale;
+
+/**
+ * The pieces an object announcement is assembled from, so that they can be rendered ahead of time
+ * and cached: the class name, then the distance rounded to {@link #DISTANCE_STEP}. Distances are
+ * bucketed up to {@link #MAX_DISTANCE}; beyond that, or below half a step, there is no cached
+ * phrase and the announcement is synthesized as a whole.
+ *
+ * <p>Keys include the language, since a cache filled for Hindi is useless after switching to
+ * Telugu.
+ */
+public final class AnnouncementPhrases {
+  public static final float DISTANCE_STEP = 0.5f;
+  public static final float MAX_DISTANCE = 10f;
+  /** Number of distance buckets: 0.5, 1.0, ... {@link #MAX_DISTANCE}. */
+  public static final int DISTANCE_BUCKETS = Math.round(MAX_DISTANCE / DISTANCE_STEP);
+
+  private AnnouncementPhrases() {}
+
+  /** Index of the bucket {@code meters} rounds to, from 0 for half a step, or -1 if out of range. */
+  public static int distanceBucket(final float meters) {
+    final int bucket = Math.round(meters / DISTANCE_STEP) - 1;
+    return bucket >= 0 && bucket < DISTANCE_BUCKETS ? bucket : -1;
+  }
+
+  /** Distance in meters that {@code bucket} stands for. */
+  public static float bucketDistance(final int bucket) {
+    return (bucket + 1) * DISTANCE_STEP;
+  }
+
+  /** Text spoken for a distance: "2.5 meters". Matches what is said without the cache. */
+  public static String distanceText(final float meters) {
+    return String.format(Locale.US, "%.1f meters", meters);
+  }
+
+  public static String nameKey(final String language, final int cls) {
+    return language + ":name:" + cls;
+  }
+
+  public static String distanceKey(final String language, final int bucket) {
+    return language + ":dist:" + bucket;
+  }
+}
@@ -0,0 +1,69 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of rendered phrases, bounded by the total size of their samples
+ * rather than their number, since a long class name takes several times the memory of "one
+ * meter". Clips larger than the whole budget are not cached. Thread-safe; clips are added from the
+ * renderer's thread and read when announcing.
+ */
+public final class ClipCache {
+  private final int budgetBytes;
+  private final LinkedHashMap<String, PcmClip> clips = new LinkedHashMap<>(64, 0.75f, true);
+  private int sizeBytes;
+
+  public ClipCache(final int budgetBytes) {
+    this.budgetBytes = budgetBytes;
+  }
+
+  /** Returns the clip for {@code key} and marks it most recently used, or null. */
+  public synchronized PcmClip get(final String key) {
+    return clips.get(key);
+  }
+
+  public synchronized boolean contains(final String key) {
+    return clips.containsKey(key);
+  }
+
+  /**
+   * Adds or replaces the clip for {@code key}, evicting least recently used clips until the cache
+   * fits its budget. Returns false if the clip alone exceeds the budget.
+   */
+  public synchronized boolean put(final String key, final PcmClip clip) {
+    if (clip.sizeBytes() > budgetBytes) {
+      return false;
+    }
+    final PcmClip previous = clips.put(key, clip);
+    if (previous != null) {
+      sizeBytes -= previous.sizeBytes();
+    }
+    sizeBytes += clip.sizeBytes();
+    final Iterator<Map.Entry<String, PcmClip>> eldest = clips.entrySet().iterator();
+    while (sizeBytes > budgetBytes) {
+      final Map.Entry<String, PcmClip> entry = eldest.next();
+      sizeBytes -= entry.getValue().sizeBytes();
+      eldest.remove();
+    }
+    return true;
+  }
+
+  public synchronized void clear() {
+    clips.clear();
+    sizeBytes = 0;
+  }
+
+  public synchronized int size() {
+    return clips.size();
+  }
+
+  public synchronized int sizeBytes() {
+    return sizeBytes;
+  }
+
+  public int budgetBytes() {
+    return budgetBytes;
+  }
+}
@@ -0,0 +1,21 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+/** Mono 16-bit PCM audio at a fixed sample rate. Samples are shared, not copied; do not modify. */
+public final class PcmClip {
+  public final short[] samples;
+  public final int sampleRate;
+
+  public PcmClip(final short[] samples, final int sampleRate) {
+    this.samples = samples;
+    this.sampleRate = sampleRate;
+  }
+
+  public long durationMillis() {
+    return samples.length * 1000L / sampleRate;
+  }
+
+  /** Memory held by the samples, for cache budgets. */
+  public int sizeBytes() {
+    return samples.length * 2;
+  }
+}
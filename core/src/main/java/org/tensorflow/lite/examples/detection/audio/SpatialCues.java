@@ -0,0 +1,72 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+import org.tensorflow.lite.examples.detection.tracking.IntLongMap;
+
+/**
+ * Decides which tracks get a tone cue and how often. Only classes with at least
+ * {@link #MIN_PRIORITY} in the {@link ClassMetadata} and within {@link ToneSynth#FAR_DISTANCE}
+ * are cued. Like a parking sensor, each track repeats faster as it gets closer: every
+ * {@link #INTERVAL_PER_METER_MS} per meter, between {@link #MIN_INTERVAL_MS} and
+ * {@link #MAX_INTERVAL_MS}.
+ *
+ * <p>Runs alongside speech: cues say where things are, announcements say what they are.
+ * Thread-safe; last-cue times live in an {@link IntLongMap} keyed by track ID.
+ */
+public final class SpatialCues {
+  public static final int MIN_PRIORITY = 2;
+  public static final long MIN_INTERVAL_MS = 250;
+  public static final long MAX_INTERVAL_MS = 1_500;
+  public static final long INTERVAL_PER_METER_MS = 300;
+
+  private static final int PURGE_SIZE = 64;
+
+  private final ClassMetadata classes;
+  private final ToneSynth synth;
+  private final IntLongMap lastCue = new IntLongMap(PURGE_SIZE);
+
+  public SpatialCues(final ClassMetadata classes, final ToneSynth synth) {
+    this.classes = classes;
+    this.synth = synth;
+  }
+
+  /**
+   * Cues track {@code trackId} of class {@code cls} at {@code bearing} (-1 left to 1 right) and
+   * {@code distance} meters if it qualifies and its interval has passed. Returns true if a tone
+   * was triggered.
+   */
+  public synchronized boolean offer(
+      final int trackId,
+      final int cls,
+      final float bearing,
+      final float distance,
+      final long nowMs) {
+    if (trackId <= 0
+        || cls < 0
+        || cls >= classes.size()
+        || classes.priority(cls) < MIN_PRIORITY
+        || !(distance <= ToneSynth.FAR_DISTANCE)) {
+      return false;
+    }
+    final long last = lastCue.get(trackId, Long.MIN_VALUE);
+    if (last != Long.MIN_VALUE && nowMs - last < interval(distance)) {
+      return false;
+    }
+    if (lastCue.size() >= PURGE_SIZE) {
+      lastCue.removeValuesBelow(nowMs - MAX_INTERVAL_MS);
+    }
+    lastCue.put(trackId, nowMs);
+    synth.trigger(bearing, distance);
+    return true;
+  }
+
+  public synchronized void clear() {
+    lastCue.clear();
+  }
+
+  /** Time between cues of a track {@code distance} meters away. */
+  public static long interval(final float distance) {
+    final long interval = (long) (distance * INTERVAL_PER_METER_MS);
+    return Math.max(MIN_INTERVAL_MS, Math.min(MAX_INTERVAL_MS, interval));
+  }
+}
@@ -0,0 +1,161 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import java.util.Arrays;
+
+/**
+ * Procedural stereo tone cues: one short sine blip per object, panned by bearing and pitched by
+ * distance, so the user can hear where things are without waiting for speech. Closer objects sound
+ * higher and louder; bearing -1 is hard left, +1 hard right, with constant-power panning so a cue
+ * sounds equally loud wherever it is.
+ *
+ * <p>Up to {@code maxVoices} cues play at once; triggering another steals the oldest. Each cue has
+ * a short raised-cosine attack and release so it starts and stops without clicks. Rendering mixes
+ * into a caller-supplied interleaved buffer using a sine table and does not allocate. Thread-safe;
+ * cues are triggered from the inference thread and rendered on the audio thread.
+ */
+public final class ToneSynth {
+  public static final float NEAR_DISTANCE = 0.5f;
+  public static final float FAR_DISTANCE = 8f;
+  /** Pitch at {@link #NEAR_DISTANCE} and closer. */
+  public static final float MAX_FREQUENCY = 1320;
+  /** Pitch at {@link #FAR_DISTANCE} and beyond, two octaves below. */
+  public static final float MIN_FREQUENCY = 330;
+  public static final int TONE_MS = 90;
+
+  private static final int RAMP_MS = 8;
+  private static final float MAX_AMPLITUDE = 0.4f;
+  /** Loudness at {@link #FAR_DISTANCE} relative to {@link #NEAR_DISTANCE}. */
+  private static final float FAR_LOUDNESS = 0.5f;
+  private static final int TABLE_BITS = 11;
+  private static final int TABLE_SIZE = 1 << TABLE_BITS;
+  private static final float[] SINE = new float[TABLE_SIZE + 1];
+
+  static {
+    for (int i = 0; i <= TABLE_SIZE; ++i) {
+      SINE[i] = (float) Math.sin(2 * Math.PI * i / TABLE_SIZE);
+    }
+  }
+
+  private final int sampleRate;
+  private final int toneFrames;
+  private final int rampFrames;
+  /** Phase per frame, in table entries. */
+  private final float[] step;
+  private final float[] phase;
+  private final float[] gainLeft;
+  private final float[] gainRight;
+  /** Frames played so far, or -1 if the voice is free. */
+  private final int[] position;
+  private final long[] startedAt;
+  private long triggers;
+
+  public ToneSynth(final int sampleRate, final int maxVoices) {
+    this.sampleRate = sampleRate;
+    toneFrames = sampleRate * TONE_MS / 1000;
+    rampFrames = Math.max(1, sampleRate * RAMP_MS / 1000);
+    step = new float[maxVoices];
+    phase = new float[maxVoices];
+    gainLeft = new float[maxVoices];
+    gainRight = new float[maxVoices];
+    position = new int[maxVoices];
+    startedAt = new long[maxVoices];
+    Arrays.fill(position, -1);
+  }
+
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /** Starts a cue for an object at {@code bearing} in [-1, 1] and {@code distance} meters. */
+  public synchronized void trigger(final float bearing, final float distance) {
+    int voice = 0;
+    for (int v = 0; v < position.length; ++v) {
+      if (position[v] < 0) {
+        voice = v;
+        break;
+      }
+      if (startedAt[v] < startedAt[voice]) {
+        voice = v;
+      }
+    }
+    final float nearness = 1 - farness(distance);
+    final float amplitude = MAX_AMPLITUDE * (FAR_LOUDNESS + (1 - FAR_LOUDNESS) * nearness);
+    final double angle = (Math.max(-1, Math.min(1, bearing)) + 1) * Math.PI / 4;
+    step[voice] = frequency(distance) * TABLE_SIZE / sampleRate;
+    phase[voice] = 0;
+    gainLeft[voice] = amplitude * (float) Math.cos(angle);
+    gainRight[voice] = amplitude * (float) Math.sin(angle);
+    position[voice] = 0;
+    startedAt[voice] = ++triggers;
+  }
+
+  /** True while any cue is still sounding. */
+  public synchronized boolean isActive() {
+    for (int v = 0; v < position.length; ++v) {
+      if (position[v] >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes {@code frames} stereo frames (left, right interleaved) to {@code out} from
+   * {@code offset}, silence where no cue is playing. Overlapping cues are summed and clipped.
+   */
+  public synchronized void render(final short[] out, final int offset, final int frames) {
+    for (int f = 0; f < frames; ++f) {
+      float left = 0;
+      float right = 0;
+      for (int v = 0; v < position.length; ++v) {
+        final int t = position[v];
+        if (t < 0) {
+          continue;
+        }
+        final float sample = envelope(t) * sine(phase[v]);
+        left += gainLeft[v] * sample;
+        right += gainRight[v] * sample;
+        phase[v] += step[v];
+        if (phase[v] >= TABLE_SIZE) {
+          phase[v] -= TABLE_SIZE;
+        }
+        position[v] = t + 1 < toneFrames ? t + 1 : -1;
+      }
+      out[offset + 2 * f] = toPcm(left);
+      out[offset + 2 * f + 1] = toPcm(right);
+    }
+  }
+
+  /** Cue pitch in Hz for an object {@code distance} meters away. */
+  public static float frequency(final float distance) {
+    return (float) (MAX_FREQUENCY * Math.pow(MIN_FREQUENCY / MAX_FREQUENCY, farness(distance)));
+  }
+
+  /** 0 at {@link #NEAR_DISTANCE}, 1 at {@link #FAR_DISTANCE}, logarithmic in between. */
+  private static float farness(final float distance) {
+    if (!(distance > NEAR_DISTANCE)) {
+      return 0;
+    }
+    final double t = Math.log(distance / NEAR_DISTANCE) / Math.log(FAR_DISTANCE / NEAR_DISTANCE);
+    return (float) Math.min(1, t);
+  }
+
+  private float envelope(final int t) {
+    final int edge = Math.min(t, toneFrames - 1 - t);
+    if (edge >= rampFrames) {
+      return 1;
+    }
+    return 0.5f - 0.5f * sine(TABLE_SIZE / 4f + edge * (TABLE_SIZE / 2f) / rampFrames);
+  }
+
+  private static float sine(final float tablePhase) {
+    final int i = (int) tablePhase & (TABLE_SIZE - 1);
+    final float fraction = tablePhase - (int) tablePhase;
+    return SINE[i] + fraction * (SINE[i + 1] - SINE[i]);
+  }
+
+  private static short toPcm(final float value) {
+    final float clipped = Math.max(-1, Math.min(1, value));
+    return (short) (clipped * Short.MAX_VALUE);
+  }
+}
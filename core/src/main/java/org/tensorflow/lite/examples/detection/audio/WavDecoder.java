@@ -0,0 +1,94 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import java.io.IOException;
+
+/**
+ * Reads the RIFF/WAVE files written by {@code TextToSpeech.synthesizeToFile}: 16-bit PCM, mono or
+ * multi-channel (downmixed to mono). Chunks other than {@code fmt } and {@code data} are skipped.
+ * A data chunk whose size was left at 0 or 0xFFFFFFFF by a streaming writer runs to the end of
+ * the file.
+ */
+public final class WavDecoder {
+  private static final int FORMAT_PCM = 1;
+  private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+
+  private WavDecoder() {}
+
+  public static PcmClip decode(final byte[] wav) throws IOException {
+    return decode(wav, wav.length);
+  }
+
+  /** Decodes the first {@code length} bytes of {@code wav}. */
+  public static PcmClip decode(final byte[] wav, final int length) throws IOException {
+    if (length < 12 || !tag(wav, 0, "RIFF") || !tag(wav, 8, "WAVE")) {
+      throw new IOException("Not a WAVE file");
+    }
+    int channels = 0;
+    int sampleRate = 0;
+    int offset = 12;
+    while (offset + 8 <= length) {
+      final long declared = readInt(wav, offset + 4) & 0xFFFFFFFFL;
+      final int body = offset + 8;
+      if (tag(wav, offset, "fmt ")) {
+        if (declared < 16 || body + 16 > length) {
+          throw new IOException("Truncated fmt chunk");
+        }
+        final int format = readShort(wav, body) & 0xFFFF;
+        channels = readShort(wav, body + 2);
+        sampleRate = readInt(wav, body + 4);
+        final int bits = readShort(wav, body + 14);
+        if ((format != FORMAT_PCM && format != FORMAT_EXTENSIBLE) || bits != 16) {
+          throw new IOException("Unsupported WAVE format " + format + ", " + bits + " bits");
+        }
+        if (channels <= 0 || sampleRate <= 0) {
+          throw new IOException("Invalid WAVE format");
+        }
+      } else if (tag(wav, offset, "data")) {
+        if (channels == 0) {
+          throw new IOException("data chunk before fmt chunk");
+        }
+        final long available = length - body;
+        final long size = declared == 0 || declared > available ? available : declared;
+        return new PcmClip(readSamples(wav, body, (int) size, channels), sampleRate);
+      }
+      offset = (int) Math.min(body + declared + (declared & 1), Integer.MAX_VALUE);
+    }
+    throw new IOException("No data chunk");
+  }
+
+  private static short[] readSamples(
+      final byte[] wav, final int offset, final int size, final int channels) {
+    final int frames = size / (2 * channels);
+    final short[] samples = new short[frames];
+    int in = offset;
+    for (int i = 0; i < frames; ++i) {
+      int sum = 0;
+      for (int c = 0; c < channels; ++c) {
+        sum += readShort(wav, in);
+        in += 2;
+      }
+      samples[i] = (short) (sum / channels);
+    }
+    return samples;
+  }
+
+  private static boolean tag(final byte[] wav, final int offset, final String tag) {
+    for (int i = 0; i < 4; ++i) {
+      if (wav[offset + i] != tag.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static short readShort(final byte[] wav, final int offset) {
+    return (short) ((wav[offset] & 0xFF) | (wav[offset + 1] << 8));
+  }
+
+  private static int readInt(final byte[] wav, final int offset) {
+    return (wav[offset] & 0xFF)
+        | (wav[offset + 1] & 0xFF) << 8
+        | (wav[offset + 2] & 0xFF) << 16
+        | (wav[offset + 3] & 0xFF) << 24;
+  }
+}
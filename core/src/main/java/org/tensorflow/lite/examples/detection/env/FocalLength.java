@@ -0,0 +1,53 @@
+package org.tensorflow.lite.examples.detection.env;
+
+/**
+ * Converts lens characteristics into a focal length in pixels of a particular output stream, for
+ * pinhole distance estimates. Methods return NaN when the characteristics are missing or
+ * inconsistent, so callers can fall back to a default.
+ */
+public final class FocalLength {
+  private FocalLength() {}
+
+  /**
+   * Focal length in sensor pixels, from the focal length and physical width of the sensor in
+   * millimeters and its width in pixels.
+   */
+  public static float sensorPixels(
+      final float focalLengthMm, final float sensorWidthMm, final int pixelArrayWidth) {
+    if (!(focalLengthMm > 0) || !(sensorWidthMm > 0) || pixelArrayWidth <= 0) {
+      return Float.NaN;
+    }
+    return focalLengthMm * pixelArrayWidth / sensorWidthMm;
+  }
+
+  /**
+   * Focal length in pixels of a {@code streamWidth} x {@code streamHeight} output. The camera
+   * fills a stream from the largest centred region of the active array that has the stream's
+   * aspect ratio, so the scale is the larger of the two per-axis ratios.
+   */
+  public static float streamPixels(
+      final float sensorFocalPixels,
+      final int activeWidth,
+      final int activeHeight,
+      final int streamWidth,
+      final int streamHeight) {
+    if (!(sensorFocalPixels > 0)
+        || activeWidth <= 0
+        || activeHeight <= 0
+        || streamWidth <= 0
+        || streamHeight <= 0) {
+      return Float.NaN;
+    }
+    final float scale =
+        Math.max(streamWidth / (float) activeWidth, streamHeight / (float) activeHeight);
+    return sensorFocalPixels * scale;
+  }
+
+  /** Focal length of a stream whose field of view spans {@code fovDegrees} over {@code size}. */
+  public static float fromFieldOfView(final float fovDegrees, final int size) {
+    if (!(fovDegrees > 0 && fovDegrees < 180) || size <= 0) {
+      return Float.NaN;
+    }
+    return (float) (size / 2.0 / Math.tan(Math.toRadians(fovDegrees) / 2));
+  }
+}
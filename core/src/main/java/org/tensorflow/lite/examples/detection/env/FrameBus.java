@@ -0,0 +1,118 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import java.util.Arrays;
+
+/**
+ * Fans camera frames out to several consumers, such as the object detector and a text reader, so
+ * one camera session serves them all. Each consumer has its own minimum interval between frames,
+ * measured on frame timestamps, and is handed a reference to the same {@link SharedFrame} rather
+ * than a copy.
+ *
+ * <p>Frames are published on the camera thread and consumers are called there, in subscription
+ * order; they must hand heavy work to a thread of their own. Subscribing and unsubscribing are
+ * safe from any thread and take effect from the next frame.
+ */
+public final class FrameBus {
+  /** Receives frames from the bus. */
+  public interface Consumer {
+    /**
+     * Takes a reference to {@code frame}, which the consumer must {@link SharedFrame#release}
+     * exactly once, now or later from any thread. A busy consumer releases it straight away. The
+     * camera reuses the frame's buffers only after every holder has released it, so a consumer
+     * that keeps a frame for long should copy what it needs and release early.
+     */
+    void onFrame(SharedFrame frame);
+  }
+
+  /** A consumer's registration and delivery counts. */
+  public static final class Subscription {
+    private final String name;
+    private final Consumer consumer;
+    private final long minIntervalNanos;
+    private boolean started;
+    private long lastNanos;
+    private volatile long delivered;
+    private volatile long skipped;
+
+    Subscription(final String name, final Consumer consumer, final long minIntervalNanos) {
+      this.name = name;
+      this.consumer = consumer;
+      this.minIntervalNanos = minIntervalNanos;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /** Frames handed to the consumer. */
+    public long getDelivered() {
+      return delivered;
+    }
+
+    /** Frames withheld because they came sooner than the consumer's interval. */
+    public long getSkipped() {
+      return skipped;
+    }
+  }
+
+  private final Object lock = new Object();
+  private volatile Subscription[] subscriptions = new Subscription[0];
+
+  /**
+   * Delivers frames to {@code consumer} at least {@code minIntervalNanos} apart; zero delivers
+   * every frame.
+   */
+  public Subscription subscribe(
+      final String name, final Consumer consumer, final long minIntervalNanos) {
+    final Subscription subscription = new Subscription(name, consumer, minIntervalNanos);
+    synchronized (lock) {
+      final Subscription[] next = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+      next[subscriptions.length] = subscription;
+      subscriptions = next;
+    }
+    return subscription;
+  }
+
+  /** Stops deliveries; frames already handed out must still be released. */
+  public void unsubscribe(final Subscription subscription) {
+    synchronized (lock) {
+      final Subscription[] current = subscriptions;
+      for (int i = 0; i < current.length; ++i) {
+        if (current[i] == subscription) {
+          final Subscription[] next = new Subscription[current.length - 1];
+          System.arraycopy(current, 0, next, 0, i);
+          System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+          subscriptions = next;
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Hands {@code frame} to every consumer whose interval has elapsed, each with a reference of
+   * its own. The publisher keeps its reference. Returns the number of consumers served.
+   */
+  public int publish(final SharedFrame frame) {
+    final long timestamp = frame.getTimestampNanos();
+    int served = 0;
+    for (final Subscription subscription : subscriptions) {
+      if (subscription.started
+          && timestamp - subscription.lastNanos < subscription.minIntervalNanos) {
+        ++subscription.skipped;
+        continue;
+      }
+      subscription.started = true;
+      subscription.lastNanos = timestamp;
+      ++subscription.delivered;
+      ++served;
+      frame.retain();
+      subscription.consumer.onFrame(frame);
+    }
+    return served;
+  }
+
+  public boolean hasSubscribers() {
+    return subscriptions.length > 0;
+  }
+}
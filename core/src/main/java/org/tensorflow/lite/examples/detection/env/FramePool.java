@@ -0,0 +1,162 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A fixed set of {@link SharedFrame}s with preallocated planes, so frames can be handed to
+ * several consumers and kept past the camera callback without allocating per frame. A frame is
+ * taken with {@link #acquire()} and comes back when its last reference is released; if every frame
+ * is still held, the camera frame has to be dropped.
+ *
+ * <p>Frames either hold three planes of YUV 420 copied out of an {@code android.media.Image}, or
+ * one NV21 image, which the legacy camera API writes into directly as a callback buffer; such a
+ * frame is found again with {@link #acquire(byte[])}. A {@link #wrapping} pool's frames own no
+ * planes and point at buffers owned by someone else, typically an {@code Image} that the {@link
+ * Listener} closes when the frame comes back.
+ *
+ * <p>Thread-safe: frames are usually acquired on the camera thread and returned on whichever
+ * thread releases them last.
+ */
+public final class FramePool {
+  /** Told when a frame comes back, e.g. to return its buffer to the camera. */
+  public interface Listener {
+    /**
+     * Called on the releasing thread just before the frame is available again, so whatever the
+     * caller associated with the frame is still its own.
+     */
+    void onReturned(SharedFrame frame);
+  }
+
+  private final SharedFrame[] frames;
+  private final boolean[] available;
+  private final Listener listener;
+  private int availableCount;
+
+  private final SharedFrame.Recycler recycler =
+      new SharedFrame.Recycler() {
+        @Override
+        public void recycle(final SharedFrame frame) {
+          try {
+            if (listener != null) {
+              listener.onReturned(frame);
+            }
+          } finally {
+            synchronized (FramePool.this) {
+              final int index = indexOf(frame);
+              available[index] = true;
+              ++availableCount;
+            }
+          }
+        }
+      };
+
+  private FramePool(final int capacity, final Listener listener) {
+    frames = new SharedFrame[capacity];
+    available = new boolean[capacity];
+    this.listener = listener;
+    availableCount = capacity;
+    Arrays.fill(available, true);
+  }
+
+  /** {@code capacity} frames of three planes, each at least as large as the given sizes. */
+  public static FramePool planar(
+      final int capacity,
+      final int ySize,
+      final int uSize,
+      final int vSize,
+      final Listener listener) {
+    final FramePool pool = new FramePool(capacity, listener);
+    for (int i = 0; i < capacity; ++i) {
+      final byte[][] storage = {new byte[ySize], new byte[uSize], new byte[vSize]};
+      pool.frames[i] = new SharedFrame(pool.recycler, storage,
+          ByteBuffer.wrap(storage[0]), ByteBuffer.wrap(storage[1]), ByteBuffer.wrap(storage[2]));
+    }
+    return pool;
+  }
+
+  /**
+   * {@code capacity} frames holding one NV21 image of {@code width} x {@code height}: the luma
+   * plane followed by interleaved V and U at half resolution.
+   */
+  public static FramePool nv21(
+      final int capacity, final int width, final int height, final Listener listener) {
+    final FramePool pool = new FramePool(capacity, listener);
+    final int frameSize = width * height;
+    final int size = YuvConverter.getYUVByteSize(width, height);
+    for (int i = 0; i < capacity; ++i) {
+      final byte[] image = new byte[size];
+      pool.frames[i] = new SharedFrame(pool.recycler, new byte[][] {image},
+          ByteBuffer.wrap(image),
+          ByteBuffer.wrap(image, frameSize + 1, size - frameSize - 1).slice(),
+          ByteBuffer.wrap(image, frameSize, size - frameSize).slice());
+    }
+    return pool;
+  }
+
+  /**
+   * {@code capacity} frames that own no planes, to be {@link SharedFrame#set(long, long, int, int,
+   * ByteBuffer, ByteBuffer, ByteBuffer, int, int, int) set} with the caller's buffers. The pool
+   * then bounds how many of those buffers are held at once.
+   */
+  public static FramePool wrapping(final int capacity, final Listener listener) {
+    final FramePool pool = new FramePool(capacity, listener);
+    for (int i = 0; i < capacity; ++i) {
+      pool.frames[i] = new SharedFrame(pool.recycler);
+    }
+    return pool;
+  }
+
+  /** Takes an available frame, or returns null if all are held. */
+  public synchronized SharedFrame acquire() {
+    for (int i = 0; i < frames.length; ++i) {
+      if (available[i]) {
+        available[i] = false;
+        --availableCount;
+        return frames[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Takes the frame whose first storage array is {@code image}, or returns null if it is held,
+   * still being returned, or not one of this pool's.
+   */
+  public synchronized SharedFrame acquire(final byte[] image) {
+    for (int i = 0; i < frames.length; ++i) {
+      if (frames[i].getStorageCount() > 0 && frames[i].getStorage(0) == image) {
+        if (!available[i]) {
+          return null;
+        }
+        available[i] = false;
+        --availableCount;
+        return frames[i];
+      }
+    }
+    return null;
+  }
+
+  /** The {@code index}th frame, whether or not it is held, e.g. to hand its buffer out. */
+  public SharedFrame get(final int index) {
+    return frames[index];
+  }
+
+  /** Index of {@code frame} for {@link #get}, or -1 if it is not one of this pool's. */
+  public int indexOf(final SharedFrame frame) {
+    for (int i = 0; i < frames.length; ++i) {
+      if (frames[i] == frame) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public int capacity() {
+    return frames.length;
+  }
+
+  public synchronized int available() {
+    return availableCount;
+  }
+}
@@ -0,0 +1,132 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recent device orientation samples, so a camera frame can be matched with the orientation at its
+ * own timestamp rather than whatever arrived last.
+ *
+ * <p>A fixed ring written by one thread (the sensor callback) and read by any number of others
+ * without locks or allocation. Each slot is guarded by a sequence number that is odd while the
+ * slot is being written; readers retry a slot whose sequence changed under them, and give up on
+ * one the writer has lapped. All fields are held in atomic arrays so that the sequence checks
+ * order the data reads on Java 8.
+ */
+public final class OrientationHistory {
+  /** Samples further than this from the requested time are not extrapolated. */
+  public static final long MAX_GAP_NANOS = 200_000_000L;
+
+  private static final int MAX_RETRIES = 4;
+
+  private final int mask;
+  private final AtomicLongArray sequence;
+  private final AtomicLongArray timestamp;
+  /** Pitch and roll as float bits, pitch in the high word. */
+  private final AtomicLongArray angles;
+  private final AtomicLong count = new AtomicLong();
+
+  /** {@code capacity} is rounded up to a power of two. */
+  public OrientationHistory(final int capacity) {
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    mask = size - 1;
+    sequence = new AtomicLongArray(size);
+    timestamp = new AtomicLongArray(size);
+    angles = new AtomicLongArray(size);
+  }
+
+  /**
+   * Appends a sample; {@code pitch} and {@code roll} are in radians. Must only be called from one
+   * thread, with non-decreasing timestamps.
+   */
+  public void add(final long timestampNanos, final float pitch, final float roll) {
+    final long n = count.get();
+    final int slot = (int) n & mask;
+    final long seq = 2 * (n / (mask + 1)) + 1;
+    sequence.set(slot, seq);
+    timestamp.set(slot, timestampNanos);
+    angles.set(slot, ((long) Float.floatToRawIntBits(pitch) << 32)
+        | (Float.floatToRawIntBits(roll) & 0xFFFFFFFFL));
+    sequence.set(slot, seq + 1);
+    count.set(n + 1);
+  }
+
+  /**
+   * Writes the pitch and roll at {@code timestampNanos} into {@code out[0]} and {@code out[1]},
+   * interpolating between the samples either side. Uses the newest or oldest sample for times
+   * outside the ring if it is within {@link #MAX_GAP_NANOS}. Returns false, leaving {@code out}
+   * untouched, if there is no usable sample.
+   */
+  public boolean sample(final long timestampNanos, final float[] out) {
+    final long newest = count.get() - 1;
+    final long oldest = Math.max(0, newest - mask);
+    long laterIndex = -1;
+    long laterTime = 0;
+    long laterAngles = 0;
+    for (long n = newest; n >= oldest; --n) {
+      final int slot = (int) n & mask;
+      final long expected = 2 * (n / (mask + 1)) + 2;
+      long time = 0;
+      long packed = 0;
+      boolean consistent = false;
+      for (int attempt = 0; attempt < MAX_RETRIES && !consistent; ++attempt) {
+        if (sequence.get(slot) != expected) {
+          break;
+        }
+        time = timestamp.get(slot);
+        packed = angles.get(slot);
+        consistent = sequence.get(slot) == expected;
+      }
+      if (!consistent) {
+        // Overwritten by a newer sample; everything older is gone too.
+        break;
+      }
+      if (time <= timestampNanos) {
+        if (laterIndex < 0) {
+          if (timestampNanos - time > MAX_GAP_NANOS) {
+            return false;
+          }
+          write(packed, out);
+        } else {
+          final float t = (timestampNanos - time) / (float) (laterTime - time);
+          interpolate(packed, laterAngles, laterTime > time ? t : 0, out);
+        }
+        return true;
+      }
+      laterIndex = n;
+      laterTime = time;
+      laterAngles = packed;
+    }
+    if (laterIndex >= 0 && laterTime - timestampNanos <= MAX_GAP_NANOS) {
+      write(laterAngles, out);
+      return true;
+    }
+    return false;
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+  private static void write(final long packed, final float[] out) {
+    out[0] = pitch(packed);
+    out[1] = roll(packed);
+  }
+
+  private static void interpolate(
+      final long before, final long after, final float t, final float[] out) {
+    out[0] = pitch(before) + t * (pitch(after) - pitch(before));
+    out[1] = roll(before) + t * (roll(after) - roll(before));
+  }
+
+  private static float pitch(final long packed) {
+    return Float.intBitsToFloat((int) (packed >>> 32));
+  }
+
+  private static float roll(final long packed) {
+    return Float.intBitsToFloat((int) packed);
+  }
+}
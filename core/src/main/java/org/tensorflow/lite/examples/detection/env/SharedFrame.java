@@ -0,0 +1,211 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A YUV 420 camera frame shared by several consumers without copying. Each holder owns one
+ * reference; the last {@link #release} hands the frame to its {@link Recycler}, which returns the
+ * underlying camera buffer, after which the frame may be {@link #set} again for a new image.
+ *
+ * <p>A frame from a {@link FramePool} owns preallocated plane arrays, exposed through {@link
+ * #getStorage}, which the producer fills before {@link #set(long, long, int, int, int, int, int)}.
+ * Other frames point at buffers owned by someone else, such as the camera.
+ *
+ * <p>Planes are described the way {@code android.media.Image} describes them: a luma plane with
+ * its row stride, and two chroma planes at half resolution sharing a row and pixel stride, so
+ * both planar and interleaved (NV21) layouts fit. The plane buffers are shared by every holder:
+ * read them with absolute gets only and never change their position or limit.
+ *
+ * <p>Reference counting is thread-safe; the frame's fields are written by the producer before the
+ * frame is handed out and only read afterwards.
+ */
+public final class SharedFrame {
+  /** Takes back a frame once its last reference is released. */
+  public interface Recycler {
+    /** Called on the thread that released the last reference. */
+    void recycle(SharedFrame frame);
+  }
+
+  private final Recycler recycler;
+  private final AtomicInteger references = new AtomicInteger();
+  private final byte[][] storage;
+  private final ByteBuffer ownY;
+  private final ByteBuffer ownU;
+  private final ByteBuffer ownV;
+  private long sequence;
+  private long timestampNanos;
+  private int width;
+  private int height;
+  private ByteBuffer y;
+  private ByteBuffer u;
+  private ByteBuffer v;
+  private int yRowStride;
+  private int uvRowStride;
+  private int uvPixelStride;
+
+  public SharedFrame(final Recycler recycler) {
+    this(recycler, null, null, null, null);
+  }
+
+  /** A frame whose planes are views {@code y}, {@code u} and {@code v} of {@code storage}. */
+  SharedFrame(
+      final Recycler recycler,
+      final byte[][] storage,
+      final ByteBuffer y,
+      final ByteBuffer u,
+      final ByteBuffer v) {
+    this.recycler = recycler;
+    this.storage = storage;
+    ownY = y;
+    ownU = u;
+    ownV = v;
+  }
+
+  /**
+   * Fills in this frame for a new image held in its own {@link #getStorage} planes, with one
+   * reference owned by the caller.
+   *
+   * @throws IllegalStateException if the frame is still referenced or owns no planes
+   */
+  public void set(
+      final long sequence,
+      final long timestampNanos,
+      final int width,
+      final int height,
+      final int yRowStride,
+      final int uvRowStride,
+      final int uvPixelStride) {
+    if (storage == null) {
+      throw new IllegalStateException("Frame owns no planes");
+    }
+    set(sequence, timestampNanos, width, height, ownY, ownU, ownV,
+        yRowStride, uvRowStride, uvPixelStride);
+  }
+
+  /**
+   * Fills in this frame for a new image, with one reference owned by the caller.
+   *
+   * @throws IllegalStateException if the frame is still referenced
+   */
+  public void set(
+      final long sequence,
+      final long timestampNanos,
+      final int width,
+      final int height,
+      final ByteBuffer y,
+      final ByteBuffer u,
+      final ByteBuffer v,
+      final int yRowStride,
+      final int uvRowStride,
+      final int uvPixelStride) {
+    if (references.get() != 0) {
+      throw new IllegalStateException("Frame " + this.sequence + " is still in use");
+    }
+    this.sequence = sequence;
+    this.timestampNanos = timestampNanos;
+    this.width = width;
+    this.height = height;
+    this.y = y;
+    this.u = u;
+    this.v = v;
+    this.yRowStride = yRowStride;
+    this.uvRowStride = uvRowStride;
+    this.uvPixelStride = uvPixelStride;
+    references.set(1);
+  }
+
+  /**
+   * Takes another reference, which must be released once.
+   *
+   * @throws IllegalStateException if the frame has already been recycled
+   */
+  public void retain() {
+    while (true) {
+      final int count = references.get();
+      if (count <= 0) {
+        throw new IllegalStateException("Frame " + sequence + " has been recycled");
+      }
+      if (references.compareAndSet(count, count + 1)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Drops a reference, recycling the frame if it was the last.
+   *
+   * @throws IllegalStateException if no reference was held
+   */
+  public void release() {
+    final int count = references.decrementAndGet();
+    if (count == 0) {
+      recycler.recycle(this);
+    } else if (count < 0) {
+      references.incrementAndGet();
+      throw new IllegalStateException("Frame " + sequence + " released too often");
+    }
+  }
+
+  /**
+   * The {@code index}th array this frame owns: the Y, U and V planes in that order, or a single
+   * NV21 image.
+   */
+  public byte[] getStorage(final int index) {
+    if (storage == null) {
+      throw new IllegalStateException("Frame owns no planes");
+    }
+    return storage[index];
+  }
+
+  /** Arrays this frame owns; zero if its planes belong to someone else. */
+  public int getStorageCount() {
+    return storage == null ? 0 : storage.length;
+  }
+
+  /** References still held; zero once recycled. */
+  public int references() {
+    return references.get();
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  /** Sensor timestamp in the {@code SystemClock.elapsedRealtimeNanos()} timebase. */
+  public long getTimestampNanos() {
+    return timestampNanos;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public ByteBuffer getY() {
+    return y;
+  }
+
+  public ByteBuffer getU() {
+    return u;
+  }
+
+  public ByteBuffer getV() {
+    return v;
+  }
+
+  public int getYRowStride() {
+    return yRowStride;
+  }
+
+  public int getUvRowStride() {
+    return uvRowStride;
+  }
+
+  public int getUvPixelStride() {
+    return uvPixelStride;
+  }
+}
@@ -0,0 +1,126 @@
+package org.tensorflow.lite.examples.detection.haptic;
+
+import java.util.List;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+import org.tensorflow.lite.examples.detection.tracking.Announceable;
+
+/**
+ * Encodes the distance to the nearest obstacle as a repeating vibration, for streets too loud to
+ * hear announcements: one pulse every {@link #MIN_PERIOD_MS} at {@link #MIN_DISTANCE} and closer,
+ * slowing logarithmically to one every {@link #MAX_PERIOD_MS} at {@link #MAX_DISTANCE}, and off
+ * beyond. Pulses also get stronger as the obstacle gets closer.
+ *
+ * <p>Every frame can call {@link #update}, but it only reports a change when the period moves to a
+ * different {@link #PERIOD_STEP_MS} step, and at most once per {@link #MIN_UPDATE_MS}; a change
+ * that arrives too soon is picked up by the first update after the interval, with whatever the
+ * distance is by then. That keeps binder calls to the vibrator service to a few per second
+ * however fast frames arrive. Not thread-safe.
+ */
+public final class HapticEncoder {
+  public static final float MIN_DISTANCE = 0.5f;
+  public static final float MAX_DISTANCE = 4f;
+  public static final long MIN_PERIOD_MS = 150;
+  public static final long MAX_PERIOD_MS = 1_000;
+  public static final long PERIOD_STEP_MS = 50;
+  public static final long PULSE_MS = 40;
+  public static final long MIN_UPDATE_MS = 300;
+  /** Pulse strength on the 1-255 scale of {@code VibrationEffect} at the far and near ends. */
+  public static final int MIN_AMPLITUDE = 96;
+  public static final int MAX_AMPLITUDE = 255;
+
+  private long periodMs;
+  private int amplitude;
+  private long lastChangeMs = Long.MIN_VALUE;
+
+  /**
+   * Distance to the nearest result in {@code results} that is at least {@code minConfidence}, has
+   * a distance, and whose class is a hazard of some kind; or NaN if there is none.
+   */
+  public static float nearestObstacle(
+      final List<? extends Announceable> results,
+      final ClassMetadata classes,
+      final float minConfidence) {
+    float nearest = Float.NaN;
+    for (int i = 0; i < results.size(); ++i) {
+      final Announceable result = results.get(i);
+      final Float distance = result.getDistance();
+      final int cls = result.getDetectedClass();
+      if (distance == null
+          || result.getConfidence() < minConfidence
+          || cls < 0
+          || cls >= classes.size()
+          || classes.hazard(cls) == ClassMetadata.Hazard.NONE) {
+        continue;
+      }
+      if (!(distance >= nearest)) {
+        nearest = distance;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Updates the pattern for an obstacle {@code distance} meters away (NaN for none) at
+   * {@code nowMs}. Returns true if the pattern changed and should be sent to the vibrator.
+   */
+  public boolean update(final float distance, final long nowMs) {
+    final long period = period(distance);
+    if (period == periodMs) {
+      return false;
+    }
+    if (lastChangeMs != Long.MIN_VALUE && nowMs - lastChangeMs < MIN_UPDATE_MS) {
+      return false;
+    }
+    periodMs = period;
+    amplitude = period > 0 ? amplitude(period) : 0;
+    lastChangeMs = nowMs;
+    return true;
+  }
+
+  /** Stops the pattern; the next update with an obstacle in range reports a change. */
+  public void reset() {
+    periodMs = 0;
+    amplitude = 0;
+    lastChangeMs = Long.MIN_VALUE;
+  }
+
+  public boolean isOn() {
+    return periodMs > 0;
+  }
+
+  /** Time from one pulse to the next, or 0 when off. */
+  public long getPeriodMs() {
+    return periodMs;
+  }
+
+  public int getAmplitude() {
+    return amplitude;
+  }
+
+  /**
+   * Writes one cycle of the pattern, for a waveform repeated from index 0: {@code timings} gets
+   * the pulse and the pause after it, {@code amplitudes} their strengths. Both need 2 entries.
+   */
+  public void fillWaveform(final long[] timings, final int[] amplitudes) {
+    timings[0] = PULSE_MS;
+    timings[1] = periodMs - PULSE_MS;
+    amplitudes[0] = amplitude;
+    amplitudes[1] = 0;
+  }
+
+  /** Pulse period for {@code distance}, rounded to {@link #PERIOD_STEP_MS}; 0 if out of range. */
+  static long period(final float distance) {
+    if (!(distance <= MAX_DISTANCE)) {
+      return 0;
+    }
+    final float clamped = Math.max(distance, MIN_DISTANCE);
+    final double t = Math.log(clamped / MIN_DISTANCE) / Math.log(MAX_DISTANCE / MIN_DISTANCE);
+    final double period = MIN_PERIOD_MS + t * (MAX_PERIOD_MS - MIN_PERIOD_MS);
+    return Math.round(period / PERIOD_STEP_MS) * PERIOD_STEP_MS;
+  }
+
+  private static int amplitude(final long period) {
+    final float nearness = (MAX_PERIOD_MS - period) / (float) (MAX_PERIOD_MS - MIN_PERIOD_MS);
+    return Math.round(MIN_AMPLITUDE + nearness * (MAX_AMPLITUDE - MIN_AMPLITUDE));
+  }
+}
@@ -0,0 +1,152 @@
+package org.tensorflow.lite.examples.detection.metrics;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Photon to speech" latency: from the sensor timestamp of the frame a result came from until the
+ * text-to-speech engine starts speaking it. Both ends must use the same clock; the app uses {@code
+ * SystemClock.elapsedRealtimeNanos()}.
+ *
+ * <p>An announcement is registered with {@link #announced} when it is handed to the engine and
+ * completed by {@link #speechStarted} from {@code UtteranceProgressListener.onStart}. Utterances
+ * that are flushed before they start are simply overwritten by the next one with the same id.
+ *
+ * <p>Samples go to a cumulative {@link LatencyHistogram}, a rolling window of the last {@value
+ * #WINDOW} samples for {@link #snapshot()} and {@link #export}, and an optional {@link Listener}
+ * for streaming them into field logs.
+ */
+public final class EndToEndLatency {
+  /** Receives every sample as it is recorded, on the TTS callback thread. */
+  public interface Listener {
+    void onSample(long frameTimestampNanos, long latencyNanos);
+  }
+
+  /** Rolling-window summary, in nanoseconds. */
+  public static final class Snapshot {
+    public final int count;
+    public final long p50;
+    public final long p90;
+    public final long p99;
+    public final long max;
+
+    Snapshot(final int count, final long p50, final long p90, final long p99, final long max) {
+      this.count = count;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.max = max;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(Locale.US, "e2e        %6.0f /%6.0f /%6.0f ms (n=%d, max %.0f)",
+          p50 / 1e6, p90 / 1e6, p99 / 1e6, count, max / 1e6);
+    }
+  }
+
+  static final int WINDOW = 128;
+
+  private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+  private final LatencyHistogram histogram = new LatencyHistogram();
+  private final long[] frameTimestamps = new long[WINDOW];
+  private final long[] latencies = new long[WINDOW];
+  private int next;
+  private int size;
+  private volatile Listener listener;
+
+  public void setListener(final Listener listener) {
+    this.listener = listener;
+  }
+
+  /** Registers that {@code utteranceId} announces a result from the frame taken at the given time. */
+  public void announced(final String utteranceId, final long frameTimestampNanos) {
+    if (utteranceId != null && frameTimestampNanos > 0) {
+      pending.put(utteranceId, frameTimestampNanos);
+    }
+  }
+
+  /** Completes the sample for {@code utteranceId}; ignored for utterances never announced. */
+  public void speechStarted(final String utteranceId, final long nowNanos) {
+    final Long frameTimestamp = utteranceId != null ? pending.remove(utteranceId) : null;
+    if (frameTimestamp != null) {
+      record(frameTimestamp, nowNanos - frameTimestamp);
+    }
+  }
+
+  /** Records a sample measured elsewhere. */
+  public void record(final long frameTimestampNanos, final long latencyNanos) {
+    if (latencyNanos < 0) {
+      return;
+    }
+    histogram.record(latencyNanos);
+    synchronized (this) {
+      frameTimestamps[next] = frameTimestampNanos;
+      latencies[next] = latencyNanos;
+      next = (next + 1) % WINDOW;
+      size = Math.min(size + 1, WINDOW);
+    }
+    final Listener l = listener;
+    if (l != null) {
+      l.onSample(frameTimestampNanos, latencyNanos);
+    }
+  }
+
+  /** All samples since creation or {@link #reset()}. */
+  public LatencyHistogram getHistogram() {
+    return histogram;
+  }
+
+  /** Exact percentiles over the last {@value #WINDOW} samples. */
+  public Snapshot snapshot() {
+    final long[] sorted;
+    synchronized (this) {
+      sorted = Arrays.copyOf(latencies, size);
+    }
+    if (sorted.length == 0) {
+      return new Snapshot(0, 0, 0, 0, 0);
+    }
+    Arrays.sort(sorted);
+    return new Snapshot(sorted.length, percentile(sorted, 50), percentile(sorted, 90),
+        percentile(sorted, 99), sorted[sorted.length - 1]);
+  }
+
+  /**
+   * Writes the rolling window, oldest first, as CSV lines {@code frame_timestamp_ns,latency_ns}
+   * preceded by a header line.
+   */
+  public void export(final Appendable out) throws IOException {
+    final long[] timestamps = new long[WINDOW];
+    final long[] values = new long[WINDOW];
+    final int count;
+    synchronized (this) {
+      count = size;
+      for (int i = 0; i < count; ++i) {
+        final int slot = (next - count + i + WINDOW) % WINDOW;
+        timestamps[i] = frameTimestamps[slot];
+        values[i] = latencies[slot];
+      }
+    }
+    out.append("frame_timestamp_ns,latency_ns\n");
+    for (int i = 0; i < count; ++i) {
+      out.append(Long.toString(timestamps[i])).append(',').append(Long.toString(values[i]))
+          .append('\n');
+    }
+  }
+
+  public void reset() {
+    pending.clear();
+    histogram.reset();
+    synchronized (this) {
+      next = 0;
+      size = 0;
+    }
+  }
+
+  private static long percentile(final long[] sorted, final int percentile) {
+    final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.max(0, rank - 1)];
+  }
+}
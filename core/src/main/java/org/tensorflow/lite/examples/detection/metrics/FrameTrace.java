@@ -0,0 +1,67 @@
+package org.tensorflow.lite.examples.detection.metrics;
+
+/**
+ * Trace hooks for the frame pipeline. Synchronous sections mark work on one thread and must be
+ * closed on the thread that opened them; the async "frame" slice spans a frame from acquisition to
+ * the end of its processing, across threads, and is keyed by the frame's sequence number.
+ *
+ * <p>Nothing is emitted until a {@link Backend} is installed. The app installs one backed by
+ * {@code android.os.Trace}, so a single Perfetto capture shows every frame; host tests and
+ * benchmarks run the same hooks against the no-op default.
+ */
+public final class FrameTrace {
+  /** Where trace events go. Implementations must be thread-safe. */
+  public interface Backend {
+    void beginSection(String name);
+
+    void endSection();
+
+    void beginAsyncSection(String name, int cookie);
+
+    void endAsyncSection(String name, int cookie);
+  }
+
+  public static final String FRAME = "frame";
+
+  private static final Backend NO_OP =
+      new Backend() {
+        @Override
+        public void beginSection(final String name) {}
+
+        @Override
+        public void endSection() {}
+
+        @Override
+        public void beginAsyncSection(final String name, final int cookie) {}
+
+        @Override
+        public void endAsyncSection(final String name, final int cookie) {}
+      };
+
+  private static volatile Backend backend = NO_OP;
+
+  private FrameTrace() {}
+
+  /** Routes trace events to {@code newBackend}, or drops them again if it is null. */
+  public static void install(final Backend newBackend) {
+    backend = newBackend != null ? newBackend : NO_OP;
+  }
+
+  public static void beginSection(final String name) {
+    backend.beginSection(name);
+  }
+
+  public static void endSection() {
+    backend.endSection();
+  }
+
+  /** Opens the async slice for frame {@code sequence}. */
+  public static void beginFrame(final long sequence) {
+    backend.beginAsyncSection(FRAME, (int) sequence);
+  }
+
+  /** Closes the async slice for frame {@code sequence}; may be called from any thread. */
+  public static void endFrame(final long sequence) {
+    backend.endAsyncSection(FRAME, (int) sequence);
+  }
+}
@@ -0,0 +1,107 @@
+package org.tensorflow.lite.examples.detection.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free latency histogram. Buckets are log-linear: each power of two between
+ * 1 us and ~8.6 s is split into 8 sub-buckets, so any reported percentile is within ~6% of the
+ * true value. Recording is one atomic increment and never allocates; it may be called from any
+ * thread while another thread reads percentiles.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MIN_EXPONENT = 10; // 1024 ns
+  private static final int MAX_EXPONENT = 33; // ~8.6 s
+  /** Bucket 0 holds everything below 2^MIN_EXPONENT, the last everything above 2^MAX_EXPONENT. */
+  private static final int BUCKETS = (MAX_EXPONENT - MIN_EXPONENT) * SUB_BUCKETS + 2;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sumNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  public void record(final long nanos) {
+    if (nanos < 0) {
+      return;
+    }
+    counts.incrementAndGet(bucketFor(nanos));
+    count.incrementAndGet();
+    sumNanos.addAndGet(nanos);
+    long max;
+    while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+      // Retry until the max is at least this sample.
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  public double getMeanNanos() {
+    final long n = count.get();
+    return n == 0 ? 0 : (double) sumNanos.get() / n;
+  }
+
+  /**
+   * Returns the approximate value at {@code percentile} (0 to 100) in nanoseconds, or 0 if
+   * nothing has been recorded. Concurrent recording may make the result slightly stale.
+   */
+  public long getPercentileNanos(final double percentile) {
+    long total = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      total += counts.get(i);
+    }
+    if (total == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(bucketMidpoint(i), maxNanos.get());
+      }
+    }
+    return maxNanos.get();
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKETS; ++i) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    sumNanos.set(0);
+    maxNanos.set(0);
+  }
+
+  static int bucketFor(final long nanos) {
+    if (nanos < (1L << MIN_EXPONENT)) {
+      return 0;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    if (exponent >= MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    final int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return 1 + (exponent - MIN_EXPONENT) * SUB_BUCKETS + sub;
+  }
+
+  static long bucketMidpoint(final int bucket) {
+    if (bucket == 0) {
+      return (1L << MIN_EXPONENT) / 2;
+    }
+    if (bucket == BUCKETS - 1) {
+      return 1L << MAX_EXPONENT;
+    }
+    final int exponent = MIN_EXPONENT + (bucket - 1) / SUB_BUCKETS;
+    final int sub = (bucket - 1) % SUB_BUCKETS;
+    final long width = 1L << (exponent - SUB_BUCKET_BITS);
+    return (1L << exponent) + sub * width + width / 2;
+  }
+}
@@ -0,0 +1,163 @@
+package org.tensorflow.lite.examples.detection.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-stage latency for the detection pipeline, plus frame rate. Stages are timed with {@link
+ * System#nanoTime()}:
+ *
+ * <pre>
+ *   final long start = stats.begin(PipelineStats.Stage.INFERENCE);
+ *   ... work ...
+ *   stats.end(PipelineStats.Stage.INFERENCE, start);
+ * </pre>
+ *
+ * {@code begin}/{@code end} also open and close a {@link FrameTrace} section named after the
+ * stage, whether or not stats are enabled, so they must be paired on the same thread. When
+ * disabled no clock is read, so instrumented code costs a volatile read per stage and never
+ * allocates.
+ */
+public final class PipelineStats {
+  public enum Stage {
+    ACQUISITION("acquire"),
+    CONVERSION("convert"),
+    CROP("crop"),
+    PREPROCESS("preprocess"),
+    INFERENCE("inference"),
+    DECODE("decode"),
+    NMS("nms"),
+    TRACKING("tracking"),
+    FLOW("flow"),
+    OVERLAY("overlay"),
+    SPEECH("speech");
+
+    final String label;
+
+    Stage(final String label) {
+      this.label = label;
+    }
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+  private static final int FPS_WINDOW = 32;
+
+  private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+  private final AtomicLongArray frameTimes = new AtomicLongArray(FPS_WINDOW);
+  private final AtomicLong frames = new AtomicLong();
+  private final EndToEndLatency endToEnd = new EndToEndLatency();
+  private volatile boolean enabled;
+
+  public PipelineStats() {
+    for (int i = 0; i < histograms.length; ++i) {
+      histograms[i] = new LatencyHistogram();
+    }
+  }
+
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Returns a start timestamp for {@link #record}, or 0 when disabled. */
+  public long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /** Records the time since {@code startNanos}; ignored when disabled or not started. */
+  public void record(final Stage stage, final long startNanos) {
+    if (startNanos == 0 || !enabled) {
+      return;
+    }
+    histograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+  }
+
+  /** Opens the stage's trace section and returns a start timestamp for {@link #end}. */
+  public long begin(final Stage stage) {
+    FrameTrace.beginSection(stage.label);
+    return start();
+  }
+
+  /** Records the stage like {@link #record} and closes the section opened by {@link #begin}. */
+  public void end(final Stage stage, final long startNanos) {
+    record(stage, startNanos);
+    FrameTrace.endSection();
+  }
+
+  /** Records an externally measured duration. */
+  public void recordNanos(final Stage stage, final long nanos) {
+    if (enabled) {
+      histograms[stage.ordinal()].record(nanos);
+    }
+  }
+
+  /** Marks the end of one processed frame, for the FPS estimate. */
+  public void frameCompleted() {
+    if (!enabled) {
+      return;
+    }
+    final long n = frames.getAndIncrement();
+    frameTimes.set((int) (n % FPS_WINDOW), System.nanoTime());
+  }
+
+  /** Frames per second over the last {@value #FPS_WINDOW} completed frames. */
+  public double getFps() {
+    final long n = frames.get();
+    if (n < 2) {
+      return 0;
+    }
+    final int window = (int) Math.min(n, FPS_WINDOW);
+    final long newest = frameTimes.get((int) ((n - 1) % FPS_WINDOW));
+    final long oldest = frameTimes.get((int) ((n - window) % FPS_WINDOW));
+    return newest > oldest ? (window - 1) * 1e9 / (newest - oldest) : 0;
+  }
+
+  public LatencyHistogram getHistogram(final Stage stage) {
+    return histograms[stage.ordinal()];
+  }
+
+  /**
+   * Frame-to-speech latency. Unlike the stage histograms it is recorded whether or not stats are
+   * enabled, since it is sampled once per announcement and feeds the field logs.
+   */
+  public EndToEndLatency getEndToEnd() {
+    return endToEnd;
+  }
+
+  public void reset() {
+    endToEnd.reset();
+    for (final LatencyHistogram histogram : histograms) {
+      histogram.reset();
+    }
+    frames.set(0);
+  }
+
+  /**
+   * One line per stage that has samples: "name p50/p95/p99 ms", then the end-to-end p50/p90/p99
+   * if any announcement was timed, then the frame rate.
+   */
+  public String report() {
+    final StringBuilder sb = new StringBuilder();
+    for (final Stage stage : STAGES) {
+      final LatencyHistogram h = histograms[stage.ordinal()];
+      if (h.getCount() == 0) {
+        continue;
+      }
+      sb.append(String.format(Locale.US, "%-10s %6.1f /%6.1f /%6.1f ms%n",
+          stage.label,
+          h.getPercentileNanos(50) / 1e6,
+          h.getPercentileNanos(95) / 1e6,
+          h.getPercentileNanos(99) / 1e6));
+    }
+    final EndToEndLatency.Snapshot e2e = endToEnd.snapshot();
+    if (e2e.count > 0) {
+      sb.append(e2e).append(String.format(Locale.US, "%n"));
+    }
+    sb.append(String.format(Locale.US, "fps        %6.1f", getFps()));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,193 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decides whether a camera frame is worth running text recognition on. While the user is aiming,
+ * most frames are blurred by motion or focus hunting and recognize as garbage or nothing.
+ *
+ * <p>Each frame's luma is box-averaged down to about {@link #TARGET_WIDTH} pixels wide, and two
+ * measures are taken on the small image:
+ *
+ * <ul>
+ *   <li>Motion: mean absolute luma difference from the previous frame.
+ *   <li>Sharpness: variance of the 4-neighbour Laplacian. Its scale depends on the scene, so a
+ *       frame must reach {@link #RELATIVE_SHARPNESS} of the recent peak (which decays by
+ *       {@link #PEAK_DECAY} per frame) as well as the absolute floor {@link #MIN_SHARPNESS}.
+ * </ul>
+ *
+ * A frame passes if it moved less than {@link #MAX_MOTION} and is sharp by both tests. The first
+ * frame, and the first after the size changes, never passes since motion is unknown. Buffers are
+ * allocated once per frame size. Thread-safe.
+ */
+public final class FrameStabilityGate {
+  public static final int TARGET_WIDTH = 160;
+  /** Mean absolute difference, in luma levels, above which the camera is moving. */
+  public static final float MAX_MOTION = 6f;
+  public static final float MIN_SHARPNESS = 40f;
+  public static final float RELATIVE_SHARPNESS = 0.5f;
+  public static final float PEAK_DECAY = 0.98f;
+
+  private int[] current = new int[0];
+  private int[] previous = new int[0];
+  private int smallWidth;
+  private int smallHeight;
+  private boolean hasPrevious;
+  private float peakSharpness;
+  private float sharpness;
+  private float motion;
+  private long frames;
+  private long passed;
+
+  /**
+   * {@link #accept(byte[], int, int, int, int)} for a luma plane in a buffer, e.g. NV21 or the
+   * direct buffer of a camera image, starting at its position. Direct buffers are read in place
+   * with absolute gets.
+   */
+  public boolean accept(
+      final ByteBuffer luma, final int width, final int height, final int rowStride) {
+    if (luma.hasArray()) {
+      return accept(
+          luma.array(), luma.arrayOffset() + luma.position(), width, height, rowStride);
+    }
+    synchronized (this) {
+      final int factor = resize(width, height);
+      downsample(luma, luma.position(), rowStride, factor);
+      return measure();
+    }
+  }
+
+  /**
+   * Measures the {@code width} x {@code height} luma plane starting at {@code offset} in
+   * {@code luma}, with rows {@code rowStride} bytes apart, and returns true if it should be
+   * recognized.
+   */
+  public synchronized boolean accept(
+      final byte[] luma, final int offset, final int width, final int height, final int rowStride) {
+    final int factor = resize(width, height);
+    downsample(luma, offset, rowStride, factor);
+    return measure();
+  }
+
+  /** Returns the downsampling factor for a frame, reallocating if the frame size changed. */
+  private int resize(final int width, final int height) {
+    final int factor = Math.max(1, width / TARGET_WIDTH);
+    final int w = width / factor;
+    final int h = height / factor;
+    if (w != smallWidth || h != smallHeight) {
+      smallWidth = w;
+      smallHeight = h;
+      current = new int[w * h];
+      previous = new int[w * h];
+      hasPrevious = false;
+      peakSharpness = 0;
+    }
+    return factor;
+  }
+
+  /** Takes both measures on {@link #current}, which then becomes the previous frame. */
+  private boolean measure() {
+    motion = hasPrevious ? meanDifference() : Float.POSITIVE_INFINITY;
+    sharpness = laplacianVariance();
+    peakSharpness = Math.max(sharpness, peakSharpness * PEAK_DECAY);
+
+    final int[] swap = previous;
+    previous = current;
+    current = swap;
+    hasPrevious = true;
+
+    final boolean pass = motion <= MAX_MOTION
+        && sharpness >= MIN_SHARPNESS
+        && sharpness >= RELATIVE_SHARPNESS * peakSharpness;
+    ++frames;
+    if (pass) {
+      ++passed;
+    }
+    return pass;
+  }
+
+  /** Fraction of frames passed since creation or {@link #resetStats}; 0 before any frame. */
+  public synchronized float passRate() {
+    return frames > 0 ? passed / (float) frames : 0;
+  }
+
+  public synchronized long frames() {
+    return frames;
+  }
+
+  public synchronized void resetStats() {
+    frames = 0;
+    passed = 0;
+  }
+
+  /** Sharpness of the last frame. */
+  public synchronized float getSharpness() {
+    return sharpness;
+  }
+
+  /** Motion of the last frame, or infinity if it had no predecessor. */
+  public synchronized float getMotion() {
+    return motion;
+  }
+
+  private void downsample(final byte[] luma, final int offset, final int rowStride, final int factor) {
+    final int area = factor * factor;
+    for (int y = 0; y < smallHeight; ++y) {
+      for (int x = 0; x < smallWidth; ++x) {
+        int sum = 0;
+        int row = offset + y * factor * rowStride + x * factor;
+        for (int dy = 0; dy < factor; ++dy, row += rowStride) {
+          for (int dx = 0; dx < factor; ++dx) {
+            sum += luma[row + dx] & 0xFF;
+          }
+        }
+        current[y * smallWidth + x] = sum / area;
+      }
+    }
+  }
+
+  private void downsample(
+      final ByteBuffer luma, final int offset, final int rowStride, final int factor) {
+    final int area = factor * factor;
+    for (int y = 0; y < smallHeight; ++y) {
+      for (int x = 0; x < smallWidth; ++x) {
+        int sum = 0;
+        int row = offset + y * factor * rowStride + x * factor;
+        for (int dy = 0; dy < factor; ++dy, row += rowStride) {
+          for (int dx = 0; dx < factor; ++dx) {
+            sum += luma.get(row + dx) & 0xFF;
+          }
+        }
+        current[y * smallWidth + x] = sum / area;
+      }
+    }
+  }
+
+  private float meanDifference() {
+    long sum = 0;
+    for (int i = 0; i < current.length; ++i) {
+      sum += Math.abs(current[i] - previous[i]);
+    }
+    return sum / (float) current.length;
+  }
+
+  private float laplacianVariance() {
+    if (smallWidth < 3 || smallHeight < 3) {
+      return 0;
+    }
+    long sum = 0;
+    long sumSquares = 0;
+    for (int y = 1; y < smallHeight - 1; ++y) {
+      for (int x = 1; x < smallWidth - 1; ++x) {
+        final int i = y * smallWidth + x;
+        final int laplacian = current[i - 1] + current[i + 1] + current[i - smallWidth]
+            + current[i + smallWidth] - 4 * current[i];
+        sum += laplacian;
+        sumSquares += (long) laplacian * laplacian;
+      }
+    }
+    final int count = (smallWidth - 2) * (smallHeight - 2);
+    final double mean = sum / (double) count;
+    return (float) (sumSquares / (double) count - mean * mean);
+  }
+}
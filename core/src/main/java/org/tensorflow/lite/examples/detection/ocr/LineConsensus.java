@@ -0,0 +1,280 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Votes on recognized lines across frames so that a line is passed on only once its reading has
+ * settled, instead of every single-frame misreading being spoken.
+ *
+ * <p>Each line seen is aligned to a slot holding the readings of the same line in earlier frames:
+ * its box must overlap the slot's last box by at least {@link #MIN_OVERLAP} (intersection over
+ * union) and its text must be within {@link #MAX_EDIT_FRACTION} of the slot's last reading by
+ * character edit distance. Lines that align nowhere open a new slot. A slot keeps the readings of
+ * the last {@code window} frames; the reading within {@link #AGREE_EDITS} edits of the most others
+ * is the consensus, and once {@code minVotes} readings agree with it the line is emitted, once per
+ * slot. Slots unseen for {@code window} frames are freed, so a line that leaves and comes back is
+ * voted on again.
+ *
+ * <p>Slots live in parallel primitive arrays sized at construction. Thread-safe.
+ */
+public final class LineConsensus {
+  public static final int DEFAULT_CAPACITY = 32;
+  public static final int DEFAULT_WINDOW = 5;
+  public static final int DEFAULT_MIN_VOTES = 3;
+  public static final float MIN_OVERLAP = 0.3f;
+  /** Edits, relative to the longer reading, for a line to align to a slot. */
+  public static final float MAX_EDIT_FRACTION = 0.25f;
+  /** Edits within which two readings vote for each other. */
+  public static final int AGREE_EDITS = 1;
+
+  private final int capacity;
+  private final int window;
+  private final int minVotes;
+  /** Left, top, right, bottom of each slot's last box. */
+  private final float[] boxes;
+  private final String[] lastReading;
+  private final int[] lastSeen;
+  private final int[] matchedFrame;
+  private final boolean[] used;
+  private final boolean[] emitted;
+  /** {@code window} readings per slot, indexed by frame modulo window. */
+  private final String[] readings;
+  private final int[] readingFrames;
+  private int frame;
+  private int[] editRow = new int[32];
+  private int[] editPrevious = new int[32];
+
+  public LineConsensus() {
+    this(DEFAULT_CAPACITY, DEFAULT_WINDOW, DEFAULT_MIN_VOTES);
+  }
+
+  /**
+   * Tracks up to {@code capacity} lines, voting over the last {@code window} frames and emitting
+   * a line once {@code minVotes} of them agree.
+   */
+  public LineConsensus(final int capacity, final int window, final int minVotes) {
+    if (minVotes < 1 || minVotes > window) {
+      throw new IllegalArgumentException("minVotes must be in [1, window]");
+    }
+    this.capacity = capacity;
+    this.window = window;
+    this.minVotes = minVotes;
+    boxes = new float[capacity * 4];
+    lastReading = new String[capacity];
+    lastSeen = new int[capacity];
+    matchedFrame = new int[capacity];
+    used = new boolean[capacity];
+    emitted = new boolean[capacity];
+    readings = new String[capacity * window];
+    readingFrames = new int[capacity * window];
+  }
+
+  /**
+   * Adds one frame's lines, with their boxes as left, top, right, bottom quadruples in
+   * {@code lineBoxes}, and returns the consensus readings of lines that settled in this frame, in
+   * the order of {@code lines}. An empty box aligns by text alone.
+   */
+  public List<String> update(final List<String> lines, final float[] lineBoxes) {
+    final String[] readings = new String[lines.size()];
+    update(lines, lineBoxes, readings);
+    final List<String> settled = new ArrayList<>();
+    for (final String reading : readings) {
+      if (reading != null) {
+        settled.add(reading);
+      }
+    }
+    return settled;
+  }
+
+  /**
+   * Like {@link #update(List, float[])}, but stores the consensus reading of each line that
+   * settled in this frame at the line's index in {@code settled}, and null for the others.
+   */
+  public synchronized void update(
+      final List<String> lines, final float[] lineBoxes, final String[] settled) {
+    ++frame;
+    expire();
+    for (int i = 0; i < lines.size(); ++i) {
+      settled[i] = null;
+      final String line = lines.get(i).trim();
+      if (line.isEmpty()) {
+        continue;
+      }
+      int slot = align(line, lineBoxes, i * 4);
+      if (slot < 0) {
+        slot = allocate();
+      }
+      record(slot, line, lineBoxes, i * 4);
+      if (!emitted[slot]) {
+        final String consensus = consensus(slot);
+        if (consensus != null) {
+          emitted[slot] = true;
+          settled[i] = consensus;
+        }
+      }
+    }
+  }
+
+  /** Forgets all slots, e.g. when the user asks to read the page again. */
+  public synchronized void clear() {
+    for (int slot = 0; slot < capacity; ++slot) {
+      release(slot);
+    }
+  }
+
+  /** Number of lines being voted on or already emitted. */
+  public synchronized int size() {
+    int count = 0;
+    for (int slot = 0; slot < capacity; ++slot) {
+      if (used[slot]) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /** Intersection over union of the boxes at {@code a} in {@code boxesA} and {@code b}. */
+  static float overlap(final float[] boxesA, final int a, final float[] boxesB, final int b) {
+    final float width = Math.min(boxesA[a + 2], boxesB[b + 2]) - Math.max(boxesA[a], boxesB[b]);
+    final float height =
+        Math.min(boxesA[a + 3], boxesB[b + 3]) - Math.max(boxesA[a + 1], boxesB[b + 1]);
+    if (width <= 0 || height <= 0) {
+      return 0;
+    }
+    final float intersection = width * height;
+    return intersection / (area(boxesA, a) + area(boxesB, b) - intersection);
+  }
+
+  /** Case-insensitive Levenshtein distance between {@code a} and {@code b}. */
+  int editDistance(final String a, final String b) {
+    if (editRow.length < b.length() + 1) {
+      editRow = new int[b.length() + 1];
+      editPrevious = new int[b.length() + 1];
+    }
+    int[] previous = editPrevious;
+    int[] row = editRow;
+    for (int j = 0; j <= b.length(); ++j) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); ++i) {
+      row[0] = i;
+      final char ca = Character.toLowerCase(a.charAt(i - 1));
+      for (int j = 1; j <= b.length(); ++j) {
+        final int substitute =
+            previous[j - 1] + (ca == Character.toLowerCase(b.charAt(j - 1)) ? 0 : 1);
+        row[j] = Math.min(substitute, Math.min(previous[j], row[j - 1]) + 1);
+      }
+      final int[] swap = previous;
+      previous = row;
+      row = swap;
+    }
+    return previous[b.length()];
+  }
+
+  private int align(final String line, final float[] lineBoxes, final int offset) {
+    final boolean hasBox = area(lineBoxes, offset) > 0;
+    int best = -1;
+    float bestScore = 0;
+    for (int slot = 0; slot < capacity; ++slot) {
+      if (!used[slot] || matchedFrame[slot] == frame) {
+        continue;
+      }
+      final String reading = lastReading[slot];
+      final int allowed = (int) (Math.max(line.length(), reading.length()) * MAX_EDIT_FRACTION);
+      final int edits = editDistance(line, reading);
+      if (edits > allowed) {
+        continue;
+      }
+      float score = 1 - edits / (float) Math.max(line.length(), reading.length());
+      if (hasBox && area(boxes, slot * 4) > 0) {
+        final float iou = overlap(lineBoxes, offset, boxes, slot * 4);
+        if (iou < MIN_OVERLAP) {
+          continue;
+        }
+        score += iou;
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        best = slot;
+      }
+    }
+    return best;
+  }
+
+  private int allocate() {
+    int oldest = 0;
+    for (int slot = 0; slot < capacity; ++slot) {
+      if (!used[slot]) {
+        return slot;
+      }
+      if (lastSeen[slot] < lastSeen[oldest]) {
+        oldest = slot;
+      }
+    }
+    release(oldest);
+    return oldest;
+  }
+
+  private void record(
+      final int slot, final String line, final float[] lineBoxes, final int offset) {
+    used[slot] = true;
+    lastReading[slot] = line;
+    lastSeen[slot] = frame;
+    matchedFrame[slot] = frame;
+    System.arraycopy(lineBoxes, offset, boxes, slot * 4, 4);
+    final int index = slot * window + frame % window;
+    readings[index] = line;
+    readingFrames[index] = frame;
+  }
+
+  /** The reading most others agree with, if at least {@code minVotes} do, else null. */
+  private String consensus(final int slot) {
+    final int base = slot * window;
+    String best = null;
+    int bestVotes = 0;
+    for (int i = 0; i < window; ++i) {
+      if (!isCurrent(base + i)) {
+        continue;
+      }
+      int votes = 0;
+      for (int j = 0; j < window; ++j) {
+        if (isCurrent(base + j)
+            && editDistance(readings[base + i], readings[base + j]) <= AGREE_EDITS) {
+          ++votes;
+        }
+      }
+      if (votes > bestVotes) {
+        bestVotes = votes;
+        best = readings[base + i];
+      }
+    }
+    return bestVotes >= minVotes ? best : null;
+  }
+
+  private boolean isCurrent(final int index) {
+    return readings[index] != null && readingFrames[index] > frame - window;
+  }
+
+  private void expire() {
+    for (int slot = 0; slot < capacity; ++slot) {
+      if (used[slot] && lastSeen[slot] <= frame - window) {
+        release(slot);
+      }
+    }
+  }
+
+  private void release(final int slot) {
+    used[slot] = false;
+    emitted[slot] = false;
+    lastReading[slot] = null;
+    for (int i = slot * window; i < (slot + 1) * window; ++i) {
+      readings[i] = null;
+    }
+  }
+
+  private static float area(final float[] boxes, final int offset) {
+    return Math.max(0, boxes[offset + 2] - boxes[offset])
+        * Math.max(0, boxes[offset + 3] - boxes[offset + 1]);
+  }
+}
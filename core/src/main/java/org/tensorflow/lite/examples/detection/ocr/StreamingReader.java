@@ -0,0 +1,273 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.tensorflow.lite.examples.detection.metrics.LatencyHistogram;
+
+/**
+ * Reads long text as a stream of sentence-sized utterances, so the first words play as soon as
+ * the first sentence is synthesized and reading can be paused, skipped or repeated a sentence at a
+ * time instead of only cut off as a whole.
+ *
+ * <p>Appended text is split into chunks of at most {@link #MAX_CHUNK_CHARS} characters, at
+ * sentence ends where possible. Only the chunk being spoken and up to {@link #LOOKAHEAD} more are
+ * handed to the {@link Speaker} at once; each completion queues the next. The position is the
+ * first chunk not yet finished, so {@link #pause} followed by {@link #resume} rereads an
+ * interrupted sentence from its start. {@link #HISTORY} finished chunks are kept for
+ * {@link #repeat}.
+ *
+ * <p>Utterance IDs carry a generation that changes whenever queued speech is flushed, so
+ * callbacks for flushed utterances are ignored. The time from text becoming due (appended while
+ * idle, or resumed) to the engine starting it is recorded as time to first word.
+ *
+ * <p>Thread-safe; text usually arrives on the recognizer's thread and callbacks on the speech
+ * engine's. The {@link Speaker} is called with the reader's lock held and must not block.
+ */
+public final class StreamingReader {
+  /** Speech output, implemented over the platform TTS engine or a fake in tests. */
+  public interface Speaker {
+    /**
+     * Queues {@code text} after everything queued before, with a pause after it if it ends a
+     * section such as a heading. Must report start through {@link #onUtteranceStart} and
+     * completion, interruption or failure through {@link #onUtteranceDone}.
+     */
+    void speak(String text, String utteranceId, boolean endOfSection);
+
+    /** Stops speaking and drops everything queued. */
+    void stop();
+  }
+
+  public static final int MAX_CHUNK_CHARS = 160;
+  /** Chunks queued on the engine beyond the one playing. */
+  public static final int LOOKAHEAD = 2;
+  /** Finished chunks kept so they can be repeated. */
+  public static final int HISTORY = 16;
+  public static final String UTTERANCE_PREFIX = "READ:";
+
+  private static final class Chunk {
+    final String text;
+    final boolean endOfSection;
+
+    Chunk(final String text, final boolean endOfSection) {
+      this.text = text;
+      this.endOfSection = endOfSection;
+    }
+  }
+
+  private final Speaker speaker;
+  private final LatencyHistogram timeToFirstWord = new LatencyHistogram();
+  private final List<Chunk> chunks = new ArrayList<>();
+  /** Stream index of {@code chunks.get(0)}. */
+  private int base;
+  /** Stream index of the first chunk not finished. */
+  private int position;
+  /** Stream index past the last chunk handed to the speaker. */
+  private int queuedEnd;
+  private int generation;
+  private boolean paused;
+  /** When text became due with nothing playing, or -1. */
+  private long dueSinceMs = -1;
+
+  public StreamingReader(final Speaker speaker) {
+    this.speaker = speaker;
+  }
+
+  /** Appends {@code text} to the stream and starts reading it unless paused. */
+  public synchronized void append(final String text, final boolean endOfSection, final long nowMs) {
+    final List<String> pieces = split(text, MAX_CHUNK_CHARS);
+    if (pieces.isEmpty()) {
+      return;
+    }
+    for (int i = 0; i < pieces.size(); ++i) {
+      chunks.add(new Chunk(pieces.get(i), endOfSection && i == pieces.size() - 1));
+    }
+    if (!paused && queuedEnd == position && dueSinceMs < 0) {
+      dueSinceMs = nowMs;
+    }
+    pump();
+  }
+
+  public synchronized void onUtteranceStart(final String utteranceId, final long nowMs) {
+    if (indexOf(utteranceId) < 0) {
+      return;
+    }
+    if (dueSinceMs >= 0) {
+      timeToFirstWord.record(Math.max(0, nowMs - dueSinceMs) * 1_000_000L);
+      dueSinceMs = -1;
+    }
+  }
+
+  public synchronized void onUtteranceDone(final String utteranceId) {
+    final int index = indexOf(utteranceId);
+    if (index < position) {
+      return;
+    }
+    position = index + 1;
+    final int finished = Math.min(position - base - HISTORY, chunks.size());
+    if (finished > 0) {
+      chunks.subList(0, finished).clear();
+      base += finished;
+    }
+    pump();
+  }
+
+  /** Stops reading, keeping the position at the start of the interrupted sentence. */
+  public synchronized void pause() {
+    paused = true;
+    flush();
+    dueSinceMs = -1;
+  }
+
+  /** Continues reading from the position. */
+  public synchronized void resume(final long nowMs) {
+    paused = false;
+    restart(nowMs);
+  }
+
+  /** Abandons the current sentence and reads the next. */
+  public synchronized void skip(final long nowMs) {
+    flush();
+    position = Math.min(position + 1, end());
+    paused = false;
+    restart(nowMs);
+  }
+
+  /** Rereads the current sentence, or the last one finished if nothing is being read. */
+  public synchronized void repeat(final long nowMs) {
+    final boolean reading = queuedEnd > position;
+    flush();
+    if (!reading) {
+      position = Math.max(base, position - 1);
+    }
+    paused = false;
+    restart(nowMs);
+  }
+
+  /** Stops reading and forgets all text. */
+  public synchronized void clear() {
+    flush();
+    base = end();
+    position = base;
+    queuedEnd = base;
+    chunks.clear();
+    dueSinceMs = -1;
+  }
+
+  /** True while some chunk is queued or playing. */
+  public synchronized boolean isReading() {
+    return queuedEnd > position;
+  }
+
+  public synchronized boolean isPaused() {
+    return paused;
+  }
+
+  /** Chunks not yet finished, including the one playing. */
+  public synchronized int remaining() {
+    return end() - position;
+  }
+
+  public LatencyHistogram getTimeToFirstWord() {
+    return timeToFirstWord;
+  }
+
+  public static boolean isReaderUtterance(final String utteranceId) {
+    return utteranceId != null && utteranceId.startsWith(UTTERANCE_PREFIX);
+  }
+
+  /**
+   * Splits {@code text} into trimmed chunks of at most {@code maxChars}, ending at sentence ends
+   * where possible, then at clause punctuation, then at spaces.
+   */
+  static List<String> split(final String text, final int maxChars) {
+    final List<String> pieces = new ArrayList<>();
+    final int length = text.length();
+    int start = 0;
+    while (true) {
+      while (start < length && Character.isWhitespace(text.charAt(start))) {
+        ++start;
+      }
+      if (start == length) {
+        return pieces;
+      }
+      int end = sentenceEnd(text, start);
+      if (end - start > maxChars) {
+        end = breakBefore(text, start, start + maxChars);
+      }
+      pieces.add(text.substring(start, end).trim());
+      start = end;
+    }
+  }
+
+  private static int sentenceEnd(final String text, final int start) {
+    for (int i = start; i < text.length(); ++i) {
+      final char ch = text.charAt(i);
+      if ((ch == '.' || ch == '!' || ch == '?')
+          && (i + 1 == text.length() || Character.isWhitespace(text.charAt(i + 1)))) {
+        return i + 1;
+      }
+    }
+    return text.length();
+  }
+
+  /** Best place before {@code limit} to cut a sentence that is too long. */
+  private static int breakBefore(final String text, final int start, final int limit) {
+    final int earliest = start + (limit - start) / 2;
+    for (int i = limit - 1; i >= earliest; --i) {
+      final char ch = text.charAt(i);
+      if (ch == ',' || ch == ';' || ch == ':') {
+        return i + 1;
+      }
+    }
+    for (int i = limit; i > start; --i) {
+      if (Character.isWhitespace(text.charAt(i))) {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  private void pump() {
+    while (!paused && queuedEnd < end() && queuedEnd - position <= LOOKAHEAD) {
+      final Chunk chunk = chunks.get(queuedEnd - base);
+      speaker.speak(
+          chunk.text, UTTERANCE_PREFIX + generation + ':' + queuedEnd, chunk.endOfSection);
+      ++queuedEnd;
+    }
+  }
+
+  private void flush() {
+    if (queuedEnd > position) {
+      speaker.stop();
+    }
+    ++generation;
+    queuedEnd = position;
+  }
+
+  private void restart(final long nowMs) {
+    queuedEnd = position;
+    dueSinceMs = !paused && position < end() ? nowMs : -1;
+    pump();
+  }
+
+  private int end() {
+    return base + chunks.size();
+  }
+
+  /** Stream index of one of this generation's utterances, or -1. */
+  private int indexOf(final String utteranceId) {
+    if (!isReaderUtterance(utteranceId)) {
+      return -1;
+    }
+    final int colon = utteranceId.indexOf(':', UTTERANCE_PREFIX.length());
+    try {
+      if (colon < 0 || Integer.parseInt(
+          utteranceId.substring(UTTERANCE_PREFIX.length(), colon)) != generation) {
+        return -1;
+      }
+      return Integer.parseInt(utteranceId.substring(colon + 1));
+    } catch (final NumberFormatException e) {
+      return -1;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Picks out the lines of recognized text that have not been read yet, so that pointing the camera
+ * at a page reads each line once instead of rereading the page whenever one word changes.
+ *
+ * <p>Each line is normalized to lower-case word tokens and fingerprinted with a 64-bit FNV-1a
+ * hash; fingerprints of the last {@code history} lines queued are kept in a ring. A line whose
+ * fingerprint is in the ring is skipped. Otherwise its tokens are diffed against the recently
+ * queued lines (longest common subsequence of tokens): if fewer than {@link #NEW_TOKEN_FRACTION}
+ * of them are new, it is the same line misread slightly differently and is skipped too, but its
+ * fingerprint is remembered so the misreading is cheap to skip next time. Lines with fewer than
+ * {@link #MIN_CHARACTERS} letters or digits are noise and never read.
+ *
+ * <p>Thread-safe; meant to run on the recognizer's thread rather than the UI thread.
+ */
+public final class TextDelta {
+  /** Fraction of a line's tokens that must be new for it to be read again. */
+  public static final float NEW_TOKEN_FRACTION = 0.34f;
+  public static final int MIN_CHARACTERS = 2;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long TOKEN_SEPARATOR = ' ';
+  /** Lines compared token by token; older ones are checked by fingerprint only. */
+  private static final int DIFF_LINES = 32;
+
+  private final long[] fingerprints;
+  private int fingerprintCount;
+  private int nextFingerprint;
+  private final String[][] recentTokens = new String[DIFF_LINES][];
+  private int nextRecent;
+  private int[] lcsRow = new int[16];
+
+  /** Remembers the fingerprints of the last {@code history} lines read or skipped. */
+  public TextDelta(final int history) {
+    fingerprints = new long[history];
+  }
+
+  /**
+   * Returns the lines of {@code lines}, in order, that are new, and remembers them as read. The
+   * returned strings are the original lines, trimmed.
+   */
+  public synchronized List<String> newLines(final List<String> lines) {
+    final List<String> fresh = new ArrayList<>();
+    for (int i = 0; i < lines.size(); ++i) {
+      final String line = lines.get(i);
+      final String[] tokens = tokens(line);
+      if (characters(tokens) < MIN_CHARACTERS) {
+        continue;
+      }
+      final long fingerprint = fingerprint(tokens);
+      if (seen(fingerprint)) {
+        continue;
+      }
+      remember(fingerprint);
+      if (isVariantOfRecent(tokens)) {
+        continue;
+      }
+      recentTokens[nextRecent] = tokens;
+      nextRecent = (nextRecent + 1) % DIFF_LINES;
+      fresh.add(line.trim());
+    }
+    return fresh;
+  }
+
+  /** Forgets everything read, e.g. when the user asks to read the page again. */
+  public synchronized void clear() {
+    fingerprintCount = 0;
+    nextFingerprint = 0;
+    for (int i = 0; i < DIFF_LINES; ++i) {
+      recentTokens[i] = null;
+    }
+  }
+
+  /** Lower-case runs of letters and digits; punctuation and spacing do not matter. */
+  static String[] tokens(final String line) {
+    final List<String> tokens = new ArrayList<>();
+    final StringBuilder token = new StringBuilder();
+    for (int i = 0; i < line.length(); ++i) {
+      final char ch = line.charAt(i);
+      if (Character.isLetterOrDigit(ch)) {
+        token.append(ch);
+      } else if (token.length() > 0) {
+        tokens.add(token.toString().toLowerCase(Locale.ROOT));
+        token.setLength(0);
+      }
+    }
+    if (token.length() > 0) {
+      tokens.add(token.toString().toLowerCase(Locale.ROOT));
+    }
+    return tokens.toArray(new String[0]);
+  }
+
+  static long fingerprint(final String[] tokens) {
+    long hash = FNV_OFFSET;
+    for (final String token : tokens) {
+      for (int i = 0; i < token.length(); ++i) {
+        hash = (hash ^ token.charAt(i)) * FNV_PRIME;
+      }
+      hash = (hash ^ TOKEN_SEPARATOR) * FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /** Length of the longest common subsequence of tokens of {@code a} and {@code b}. */
+  int commonTokens(final String[] a, final String[] b) {
+    if (lcsRow.length < b.length + 1) {
+      lcsRow = new int[b.length + 1];
+    }
+    final int[] row = lcsRow;
+    for (int j = 0; j <= b.length; ++j) {
+      row[j] = 0;
+    }
+    for (int i = 0; i < a.length; ++i) {
+      int diagonal = 0;
+      for (int j = 0; j < b.length; ++j) {
+        final int above = row[j + 1];
+        row[j + 1] = a[i].equals(b[j]) ? diagonal + 1 : Math.max(above, row[j]);
+        diagonal = above;
+      }
+    }
+    return row[b.length];
+  }
+
+  private boolean isVariantOfRecent(final String[] tokens) {
+    final int allowedNew = (int) (tokens.length * NEW_TOKEN_FRACTION);
+    for (final String[] recent : recentTokens) {
+      if (recent != null && tokens.length - commonTokens(tokens, recent) < Math.max(1, allowedNew)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean seen(final long fingerprint) {
+    for (int i = 0; i < fingerprintCount; ++i) {
+      if (fingerprints[i] == fingerprint) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void remember(final long fingerprint) {
+    fingerprints[nextFingerprint] = fingerprint;
+    nextFingerprint = (nextFingerprint + 1) % fingerprints.length;
+    fingerprintCount = Math.min(fingerprintCount + 1, fingerprints.length);
+  }
+
+  private static int characters(final String[] tokens) {
+    int count = 0;
+    for (final String token : tokens) {
+      count += token.length();
+    }
+    return count;
+  }
+}
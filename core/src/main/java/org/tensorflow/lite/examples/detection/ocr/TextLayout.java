@@ -0,0 +1,212 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Puts recognized lines into reading order and groups them into headings and paragraphs, so that
+ * multi-column signs and menus are read column by column rather than in recognizer order.
+ *
+ * <p>Columns are found by a sweep over the lines' left edges that merges overlapping horizontal
+ * extents. Lines wider than {@link #SPANNING_FRACTION} of the text's extent that cross two or more
+ * columns of the narrower lines (titles, banners) split the page into horizontal bands; within a
+ * band the columns are read left to right, each top to bottom. A column breaks into a
+ * new block where a vertical gap exceeds {@link #PARAGRAPH_GAP} line heights or where headings
+ * start or end; a heading is a line at least {@link #HEADING_RATIO} times the median line height.
+ * Both sorts make it O(n log n) in the number of lines.
+ */
+public final class TextLayout {
+  public static final float SPANNING_FRACTION = 0.6f;
+  public static final float HEADING_RATIO = 1.3f;
+  /** Vertical gap, in median line heights, that starts a new paragraph. */
+  public static final float PARAGRAPH_GAP = 0.8f;
+  /** Horizontal gap, in median line heights, below which extents join one column. */
+  public static final float COLUMN_GAP = 0.5f;
+
+  /** A heading or paragraph: indices of its lines, in reading order. */
+  public static final class Block {
+    public final boolean heading;
+    /** Column within its band, counting from the left; spanning lines are column 0. */
+    public final int column;
+    public final int[] lines;
+
+    Block(final boolean heading, final int column, final int[] lines) {
+      this.heading = heading;
+      this.column = column;
+      this.lines = lines;
+    }
+  }
+
+  private TextLayout() {}
+
+  /**
+   * Arranges {@code count} lines whose boxes are left, top, right, bottom quadruples in
+   * {@code boxes}. Returns the blocks in reading order; every line is in exactly one.
+   */
+  public static List<Block> arrange(final float[] boxes, final int count) {
+    if (count == 0) {
+      return Collections.emptyList();
+    }
+    final float lineHeight = medianHeight(boxes, count);
+    float left = Float.MAX_VALUE;
+    float right = -Float.MAX_VALUE;
+    for (int i = 0; i < count; ++i) {
+      left = Math.min(left, boxes[i * 4]);
+      right = Math.max(right, boxes[i * 4 + 2]);
+    }
+    final float wide = SPANNING_FRACTION * (right - left);
+    final float gap = COLUMN_GAP * lineHeight;
+    final List<Integer> narrow = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      if (width(boxes, i) < wide) {
+        narrow.add(i);
+      }
+    }
+    final float[] columns = columnExtents(boxes, narrow, gap);
+
+    final Integer[] byTop = indices(count);
+    Arrays.sort(byTop, edge(boxes, 1));
+    final List<Block> blocks = new ArrayList<>();
+    final List<Integer> band = new ArrayList<>();
+    for (final Integer line : byTop) {
+      if (width(boxes, line) >= wide && crossedColumns(boxes, line, columns) >= 2) {
+        arrangeBand(boxes, band, lineHeight, blocks);
+        band.clear();
+        blocks.add(new Block(isHeading(boxes, line, lineHeight), 0, new int[] {line}));
+      } else {
+        band.add(line);
+      }
+    }
+    arrangeBand(boxes, band, lineHeight, blocks);
+    return blocks;
+  }
+
+  /** Left, right pairs of the columns formed by {@code lines}, left to right. */
+  private static float[] columnExtents(
+      final float[] boxes, final List<Integer> lines, final float gap) {
+    final Integer[] byLeft = lines.toArray(new Integer[0]);
+    Arrays.sort(byLeft, edge(boxes, 0));
+    float[] extents = new float[8];
+    int size = 0;
+    for (final Integer line : byLeft) {
+      final float lineLeft = boxes[line * 4];
+      final float lineRight = boxes[line * 4 + 2];
+      if (size > 0 && lineLeft <= extents[size - 1] + gap) {
+        extents[size - 1] = Math.max(extents[size - 1], lineRight);
+        continue;
+      }
+      if (size == extents.length) {
+        extents = Arrays.copyOf(extents, size * 2);
+      }
+      extents[size++] = lineLeft;
+      extents[size++] = lineRight;
+    }
+    return Arrays.copyOf(extents, size);
+  }
+
+  private static int crossedColumns(final float[] boxes, final int line, final float[] columns) {
+    int crossed = 0;
+    for (int i = 0; i < columns.length; i += 2) {
+      if (boxes[line * 4] < columns[i + 1] && boxes[line * 4 + 2] > columns[i]) {
+        ++crossed;
+      }
+    }
+    return crossed;
+  }
+
+  /** Splits a band, sorted by top, into columns and appends their blocks. */
+  private static void arrangeBand(
+      final float[] boxes,
+      final List<Integer> band,
+      final float lineHeight,
+      final List<Block> blocks) {
+    if (band.isEmpty()) {
+      return;
+    }
+    final Integer[] byLeft = band.toArray(new Integer[0]);
+    Arrays.sort(byLeft, edge(boxes, 0));
+    final float gap = COLUMN_GAP * lineHeight;
+    final List<Integer> column = new ArrayList<>();
+    int columnIndex = 0;
+    float columnRight = 0;
+    for (final Integer line : byLeft) {
+      final float lineRight = boxes[line * 4 + 2];
+      if (!column.isEmpty() && boxes[line * 4] > columnRight + gap) {
+        arrangeColumn(boxes, column, columnIndex++, lineHeight, blocks);
+        column.clear();
+      }
+      columnRight = column.isEmpty() ? lineRight : Math.max(columnRight, lineRight);
+      column.add(line);
+    }
+    arrangeColumn(boxes, column, columnIndex, lineHeight, blocks);
+  }
+
+  private static void arrangeColumn(
+      final float[] boxes,
+      final List<Integer> column,
+      final int columnIndex,
+      final float lineHeight,
+      final List<Block> blocks) {
+    Collections.sort(column, edge(boxes, 1));
+    int start = 0;
+    for (int i = 1; i <= column.size(); ++i) {
+      if (i == column.size() || breaksBefore(boxes, column.get(i - 1), column.get(i), lineHeight)) {
+        final int[] lines = new int[i - start];
+        for (int j = start; j < i; ++j) {
+          lines[j - start] = column.get(j);
+        }
+        blocks.add(new Block(isHeading(boxes, lines[0], lineHeight), columnIndex, lines));
+        start = i;
+      }
+    }
+  }
+
+  private static boolean breaksBefore(
+      final float[] boxes, final int previous, final int next, final float lineHeight) {
+    final float gap = boxes[next * 4 + 1] - boxes[previous * 4 + 3];
+    return gap > PARAGRAPH_GAP * lineHeight
+        || isHeading(boxes, previous, lineHeight) != isHeading(boxes, next, lineHeight);
+  }
+
+  private static boolean isHeading(final float[] boxes, final int line, final float lineHeight) {
+    return height(boxes, line) >= HEADING_RATIO * lineHeight;
+  }
+
+  private static float medianHeight(final float[] boxes, final int count) {
+    final float[] heights = new float[count];
+    for (int i = 0; i < count; ++i) {
+      heights[i] = height(boxes, i);
+    }
+    Arrays.sort(heights);
+    return heights[count / 2];
+  }
+
+  private static float width(final float[] boxes, final int line) {
+    return boxes[line * 4 + 2] - boxes[line * 4];
+  }
+
+  private static float height(final float[] boxes, final int line) {
+    return boxes[line * 4 + 3] - boxes[line * 4 + 1];
+  }
+
+  private static Integer[] indices(final int count) {
+    final Integer[] indices = new Integer[count];
+    for (int i = 0; i < count; ++i) {
+      indices[i] = i;
+    }
+    return indices;
+  }
+
+  /** Orders line indices by the box coordinate at {@code edge} (0 left, 1 top). */
+  private static Comparator<Integer> edge(final float[] boxes, final int edge) {
+    return new Comparator<Integer>() {
+      @Override
+      public int compare(final Integer a, final Integer b) {
+        return Float.compare(boxes[a * 4 + edge], boxes[b * 4 + edge]);
+      }
+    };
+  }
+}
@@ -0,0 +1,218 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-class facts used after detection, in parallel arrays indexed by class ID: the interned
+ * label, real-world height for distance estimation, announcement priority, hazard category,
+ * whether the object stands on the floor, and localized names. Built once at model load so that
+ * the decode path is array indexing rather than string and map lookups.
+ *
+ * <p>Labels come from a label file such as {@code coco.txt}, one per line in class-ID order. Facts
+ * come from a tab-separated metadata file keyed by name. Its header names the columns:
+ *
+ * <pre>
+ * name  aliases  height  priority  hazard  ground  hi  te
+ * </pre>
+ *
+ * Aliases are comma-separated alternative spellings, so label sets that say {@code motorbike} or
+ * {@code tvmonitor} share one row; names are matched ignoring case, spaces and punctuation.
+ * Columns after {@code ground} are language codes. {@code -} or an empty cell means unknown.
+ * Lines starting with {@code #} are comments.
+ */
+public final class ClassMetadata {
+    /** Asset holding the metadata for the bundled label sets. */
+    public static final String ASSET_NAME = "class_metadata.tsv";
+
+    /** Coarse kind of danger an object poses to someone walking, for prioritizing and alerts. */
+    public enum Hazard {
+        NONE,
+        /** Something to walk around: furniture, doors, poles. */
+        OBSTACLE,
+        /** Moves fast and is heavy: cars, bikes, buses. */
+        VEHICLE,
+        ANIMAL,
+        /** Traffic control: lights, signs, hydrants at the kerb. */
+        TRAFFIC,
+        SHARP
+    }
+
+    private static final Hazard[] HAZARDS = Hazard.values();
+    private static final int LANGUAGE_COLUMN = 6;
+
+    private final String[] label;
+    private final float[] realHeight;
+    private final int[] priority;
+    private final byte[] hazard;
+    private final boolean[] onGround;
+    private final String[] languages;
+    /** Indexed by language, then class; null where no translation is known. */
+    private final String[][] localizedName;
+
+    private ClassMetadata(int size, String[] languages) {
+        label = new String[size];
+        realHeight = new float[size];
+        Arrays.fill(realHeight, Float.NaN);
+        priority = new int[size];
+        hazard = new byte[size];
+        onGround = new boolean[size];
+        this.languages = languages;
+        localizedName = new String[languages.length][size];
+    }
+
+    /** Reads one label per line, skipping blank lines. Closes {@code labels}. */
+    public static List<String> readLabels(Reader labels) throws IOException {
+        final List<String> result = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(labels)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    result.add(line);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Loads a label file and joins it with a metadata file. Closes both readers. */
+    public static ClassMetadata load(Reader labels, Reader metadata) throws IOException {
+        return load(readLabels(labels), metadata);
+    }
+
+    /**
+     * Builds the table for {@code labels} (in class-ID order) from {@code metadata}. Labels without
+     * a metadata row keep only their name. Closes {@code metadata}.
+     */
+    public static ClassMetadata load(List<String> labels, Reader metadata) throws IOException {
+        final List<String[]> rows = new ArrayList<>();
+        String[] header = null;
+        try (BufferedReader reader = new BufferedReader(metadata)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] cells = line.split("\t", -1);
+                if (header == null) {
+                    header = cells;
+                } else {
+                    rows.add(cells);
+                }
+            }
+        }
+        final String[] languages = header != null && header.length > LANGUAGE_COLUMN
+                ? Arrays.copyOfRange(header, LANGUAGE_COLUMN, header.length)
+                : new String[0];
+        for (int l = 0; l < languages.length; ++l) {
+            languages[l] = languages[l].trim().intern();
+        }
+
+        final Map<String, String[]> byName = new HashMap<>();
+        for (final String[] row : rows) {
+            byName.put(normalize(row[0]), row);
+            if (row.length > 1 && !isUnknown(row[1])) {
+                for (final String alias : row[1].split(",")) {
+                    byName.put(normalize(alias), row);
+                }
+            }
+        }
+
+        final ClassMetadata table = new ClassMetadata(labels.size(), languages);
+        for (int c = 0; c < labels.size(); ++c) {
+            table.label[c] = labels.get(c).intern();
+            final String[] row = byName.get(normalize(labels.get(c)));
+            if (row != null) {
+                table.fill(c, row);
+            }
+        }
+        return table;
+    }
+
+    public int size() {
+        return label.length;
+    }
+
+    /** The label as it appears in the label file. Interned, so it can be compared with ==. */
+    public String label(int cls) {
+        return label[cls];
+    }
+
+    /** Typical height in meters, or NaN if unknown. */
+    public float realHeight(int cls) {
+        return realHeight[cls];
+    }
+
+    public boolean hasRealHeight(int cls) {
+        return realHeight[cls] == realHeight[cls];
+    }
+
+    /** Announcement priority; higher is more important, 0 if unknown. */
+    public int priority(int cls) {
+        return priority[cls];
+    }
+
+    public Hazard hazard(int cls) {
+        return HAZARDS[hazard[cls]];
+    }
+
+    /** True if the object stands on the floor, so the bottom of its box is where it meets it. */
+    public boolean isOnGround(int cls) {
+        return onGround[cls];
+    }
+
+    /** Name of {@code cls} in {@code language} (e.g. "hi"), falling back to the label. */
+    public String localizedName(int cls, String language) {
+        for (int l = 0; l < languages.length; ++l) {
+            if (languages[l].equals(language)) {
+                final String name = localizedName[l][cls];
+                return name != null ? name : label[cls];
+            }
+        }
+        return label[cls];
+    }
+
+    private void fill(int c, String[] row) {
+        if (row.length > 2 && !isUnknown(row[2])) {
+            realHeight[c] = Float.parseFloat(row[2].trim());
+        }
+        if (row.length > 3 && !isUnknown(row[3])) {
+            priority[c] = Integer.parseInt(row[3].trim());
+        }
+        if (row.length > 4 && !isUnknown(row[4])) {
+            hazard[c] = (byte) Hazard.valueOf(row[4].trim().toUpperCase(Locale.ROOT)).ordinal();
+        }
+        if (row.length > 5) {
+            onGround[c] = row[5].trim().equals("y");
+        }
+        for (int l = 0; l < languages.length && LANGUAGE_COLUMN + l < row.length; ++l) {
+            final String name = row[LANGUAGE_COLUMN + l].trim();
+            localizedName[l][c] = isUnknown(name) ? null : name.intern();
+        }
+    }
+
+    private static boolean isUnknown(String cell) {
+        final String trimmed = cell.trim();
+        return trimmed.isEmpty() || trimmed.equals("-");
+    }
+
+    /** Lower case with everything but letters and digits removed: "Dining Table" -> "diningtable". */
+    static String normalize(String name) {
+        final StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); ++i) {
+            final char ch = name.charAt(i);
+            if (Character.isLetterOrDigit(ch)) {
+                sb.append(Character.toLowerCase(ch));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,94 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+/**
+ * Fixed-capacity, struct-of-arrays store for decoded boxes. The decoder writes candidates here
+ * and {@link Nms} selects from it by index, so the per-frame path never allocates one object
+ * per anchor. Coordinates are in model-input pixels.
+ */
+public final class DetectionBuffer {
+    private final float[] left;
+    private final float[] top;
+    private final float[] right;
+    private final float[] bottom;
+    private final float[] predictedHeight;
+    private final float[] confidence;
+    private final int[] detectedClass;
+    private int size;
+
+    public DetectionBuffer(int capacity) {
+        left = new float[capacity];
+        top = new float[capacity];
+        right = new float[capacity];
+        bottom = new float[capacity];
+        predictedHeight = new float[capacity];
+        confidence = new float[capacity];
+        detectedClass = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Appends a box; returns its index, or -1 if the buffer is full. {@code predicted} is the box
+     * height before clamping to the image, which is what distance estimation needs.
+     */
+    public int add(float l, float t, float r, float b, float predicted, float conf, int cls) {
+        if (size == left.length) {
+            return -1;
+        }
+        final int i = size++;
+        left[i] = l;
+        top[i] = t;
+        right[i] = r;
+        bottom[i] = b;
+        predictedHeight[i] = predicted;
+        confidence[i] = conf;
+        detectedClass[i] = cls;
+        return i;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return left.length;
+    }
+
+    public float left(int i) {
+        return left[i];
+    }
+
+    public float top(int i) {
+        return top[i];
+    }
+
+    public float right(int i) {
+        return right[i];
+    }
+
+    public float bottom(int i) {
+        return bottom[i];
+    }
+
+    public float width(int i) {
+        return right[i] - left[i];
+    }
+
+    public float height(int i) {
+        return bottom[i] - top[i];
+    }
+
+    public float predictedHeight(int i) {
+        return predictedHeight[i];
+    }
+
+    public float confidence(int i) {
+        return confidence[i];
+    }
+
+    public int detectedClass(int i) {
+        return detectedClass[i];
+    }
+}
@@ -0,0 +1,47 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes ARGB_8888 pixels into the interpreter input buffer as RGB, scaled to [0, 1] for float
+ * models or to the input tensor's quantization for int8 models.
+ */
+public final class InputNormalizer {
+    private static final float IMAGE_MEAN = 0;
+    private static final float IMAGE_STD = 255.0f;
+
+    private final int inputSize;
+    private final boolean isQuantized;
+    private final float inpScale;
+    private final int inpZeroPoint;
+
+    public InputNormalizer(int inputSize, boolean isQuantized, float inpScale, int inpZeroPoint) {
+        this.inputSize = inputSize;
+        this.isQuantized = isQuantized;
+        this.inpScale = inpScale;
+        this.inpZeroPoint = inpZeroPoint;
+    }
+
+    /** Bytes needed in the destination buffer for one frame. */
+    public int byteSize() {
+        return inputSize * inputSize * 3 * (isQuantized ? 1 : 4);
+    }
+
+    public void normalize(int[] pixels, ByteBuffer imgData) {
+        imgData.rewind();
+        for (int i = 0; i < inputSize; ++i) {
+            for (int j = 0; j < inputSize; ++j) {
+                int pixelValue = pixels[i * inputSize + j];
+                if (isQuantized) {
+                    imgData.put((byte) ((((pixelValue >> 16) & 0xFF) - IMAGE_MEAN) / IMAGE_STD / inpScale + inpZeroPoint));
+                    imgData.put((byte) ((((pixelValue >> 8) & 0xFF) - IMAGE_MEAN) / IMAGE_STD / inpScale + inpZeroPoint));
+                    imgData.put((byte) (((pixelValue & 0xFF) - IMAGE_MEAN) / IMAGE_STD / inpScale + inpZeroPoint));
+                } else { // Float model
+                    imgData.putFloat((((pixelValue >> 16) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
+                    imgData.putFloat((((pixelValue >> 8) & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
+                    imgData.putFloat(((pixelValue & 0xFF) - IMAGE_MEAN) / IMAGE_STD);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.util.Arrays;
+
+/**
+ * Per-class greedy non maximum suppression over a {@link DetectionBuffer}.
+ *
+ * <p>Candidates are ordered by (class, descending confidence, index) through a single primitive
+ * sort of packed {@code long} keys, then suppressed class by class. The output order is the same
+ * as the original PriorityQueue implementation: classes ascending, confidence descending within a
+ * class. Scratch arrays are sized once, so steady-state calls do not allocate.
+ */
+public final class Nms {
+    private static final int INDEX_BITS = 16;
+    private static final int CONF_BITS = 31;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private final float iouThresh;
+    private long[] keys = new long[0];
+    private boolean[] suppressed = new boolean[0];
+
+    public Nms(float iouThresh) {
+        this.iouThresh = iouThresh;
+    }
+
+    public float getIouThresh() {
+        return iouThresh;
+    }
+
+    /**
+     * Runs NMS for classes [0, numClasses) and writes the surviving indices into {@code keep}.
+     *
+     * @return the number of indices written.
+     */
+    public int run(DetectionBuffer boxes, int numClasses, int[] keep) {
+        final int n = boxes.size();
+        if (n > INDEX_MASK + 1) {
+            throw new IllegalArgumentException("Too many candidates for NMS: " + n);
+        }
+        ensureCapacity(n);
+
+        int m = 0;
+        for (int i = 0; i < n; ++i) {
+            final int cls = boxes.detectedClass(i);
+            if (cls < 0 || cls >= numClasses) {
+                continue;
+            }
+            // Confidence is positive, so its IEEE bits sort like the value; invert for descending.
+            final long conf = (long) (Integer.MAX_VALUE - Float.floatToRawIntBits(boxes.confidence(i)));
+            keys[m++] = ((long) cls << (CONF_BITS + INDEX_BITS)) | (conf << INDEX_BITS) | i;
+        }
+        Arrays.sort(keys, 0, m);
+        Arrays.fill(suppressed, 0, m, false);
+
+        int kept = 0;
+        for (int a = 0; a < m; ++a) {
+            if (suppressed[a]) {
+                continue;
+            }
+            final int max = (int) (keys[a] & INDEX_MASK);
+            final int cls = boxes.detectedClass(max);
+            keep[kept++] = max;
+            for (int b = a + 1; b < m; ++b) {
+                final int other = (int) (keys[b] & INDEX_MASK);
+                if (boxes.detectedClass(other) != cls) {
+                    break;
+                }
+                // Written as !(iou < thresh) so degenerate (NaN) overlaps suppress, as before.
+                if (!suppressed[b] && !(iou(boxes, max, other) < iouThresh)) {
+                    suppressed[b] = true;
+                }
+            }
+        }
+        return kept;
+    }
+
+    private void ensureCapacity(int n) {
+        if (keys.length < n) {
+            keys = new long[n];
+            suppressed = new boolean[n];
+        }
+    }
+
+    static float iou(DetectionBuffer boxes, int a, int b) {
+        return iou(boxes.left(a), boxes.top(a), boxes.right(a), boxes.bottom(a),
+                boxes.left(b), boxes.top(b), boxes.right(b), boxes.bottom(b));
+    }
+
+    /** Intersection over union of two boxes, computed as in the original YoloV5Classifier. */
+    public static float iou(float al, float at, float ar, float ab,
+                            float bl, float bt, float br, float bb) {
+        final float i = intersection(al, at, ar, ab, bl, bt, br, bb);
+        final float u = (ar - al) * (ab - at) + (br - bl) * (bb - bt) - i;
+        return i / u;
+    }
+
+    private static float intersection(float al, float at, float ar, float ab,
+                                      float bl, float bt, float br, float bb) {
+        float w = overlap((al + ar) / 2, ar - al, (bl + br) / 2, br - bl);
+        float h = overlap((at + ab) / 2, ab - at, (bt + bb) / 2, bb - bt);
+        if (w < 0 || h < 0) return 0;
+        return w * h;
+    }
+
+    private static float overlap(float x1, float w1, float x2, float w2) {
+        float l1 = x1 - w1 / 2;
+        float l2 = x2 - w2 / 2;
+        float left = Math.max(l1, l2);
+        float r1 = x1 + w1 / 2;
+        float r2 = x2 + w2 / 2;
+        float right = Math.min(r1, r2);
+        return right - left;
+    }
+}
@@ -0,0 +1,141 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A raw YOLOv5 output tensor saved to disk together with the parameters needed to decode it.
+ *
+ * <p>File layout, all little-endian: a 64 byte header (magic "YOLT", version, input size, output
+ * boxes, classes, quantized flag, output scale, output zero point, zero padding) followed by the
+ * tensor bytes exactly as the interpreter wrote them. The payload is memory-mapped, not copied.
+ */
+public final class RecordedTensor {
+    public static final String EXTENSION = ".yolt";
+
+    private static final int MAGIC = 0x544C4F59; // "YOLT" read as a little-endian int
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+
+    private final int inputSize;
+    private final int outputBoxes;
+    private final int numClass;
+    private final boolean isQuantized;
+    private final float oupScale;
+    private final int oupZeroPoint;
+    private final ByteBuffer data;
+
+    private RecordedTensor(int inputSize, int outputBoxes, int numClass, boolean isQuantized,
+                           float oupScale, int oupZeroPoint, ByteBuffer data) {
+        this.inputSize = inputSize;
+        this.outputBoxes = outputBoxes;
+        this.numClass = numClass;
+        this.isQuantized = isQuantized;
+        this.oupScale = oupScale;
+        this.oupZeroPoint = oupZeroPoint;
+        this.data = data;
+    }
+
+    public static RecordedTensor map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final MappedByteBuffer mapped =
+                    raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            return parse(mapped, file.getName());
+        }
+    }
+
+    /** Parses a recording already held in memory, e.g. one loaded from a classpath resource. */
+    public static RecordedTensor wrap(ByteBuffer bytes) throws IOException {
+        return parse(bytes, "buffer");
+    }
+
+    private static RecordedTensor parse(ByteBuffer bytes, String name) throws IOException {
+        final ByteBuffer header = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.remaining() < HEADER_BYTES || header.getInt(0) != MAGIC) {
+            throw new IOException(name + " is not a recorded YOLO tensor");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException(name + " has unsupported version " + header.getInt(4));
+        }
+        final int inputSize = header.getInt(8);
+        final int outputBoxes = header.getInt(12);
+        final int numClass = header.getInt(16);
+        final boolean isQuantized = header.getInt(20) != 0;
+        final float oupScale = header.getFloat(24);
+        final int oupZeroPoint = header.getInt(28);
+
+        final int payload = outputBoxes * (numClass + 5) * (isQuantized ? 1 : 4);
+        if (header.limit() - HEADER_BYTES < payload) {
+            throw new IOException(name + " is truncated: expected " + payload + " tensor bytes");
+        }
+        header.position(HEADER_BYTES).limit(HEADER_BYTES + payload);
+        final ByteBuffer data = header.slice().order(ByteOrder.LITTLE_ENDIAN);
+        return new RecordedTensor(
+                inputSize, outputBoxes, numClass, isQuantized, oupScale, oupZeroPoint, data);
+    }
+
+    /**
+     * Writes the output tensor held in {@code tensor} to {@code file}. Values are read with
+     * absolute indexing in the buffer's own byte order, so its position does not matter.
+     */
+    public static void write(File file, int inputSize, int numClass, boolean isQuantized,
+                             float oupScale, int oupZeroPoint, ByteBuffer tensor) throws IOException {
+        final int outputBoxes = YoloOutputDecoder.outputBoxesFor(inputSize);
+        final int values = outputBoxes * (numClass + 5);
+        final ByteBuffer out = ByteBuffer
+                .allocate(HEADER_BYTES + values * (isQuantized ? 1 : 4))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(inputSize).putInt(outputBoxes).putInt(numClass)
+                .putInt(isQuantized ? 1 : 0).putFloat(oupScale).putInt(oupZeroPoint);
+        out.position(HEADER_BYTES);
+        if (isQuantized) {
+            for (int i = 0; i < values; ++i) {
+                out.put(tensor.get(i));
+            }
+        } else {
+            for (int i = 0; i < values; ++i) {
+                out.putFloat(tensor.getFloat(i << 2));
+            }
+        }
+        try (FileOutputStream stream = new FileOutputStream(file)) {
+            stream.write(out.array());
+        }
+    }
+
+    /** A decoder configured for this recording. */
+    public YoloOutputDecoder newDecoder() {
+        return new YoloOutputDecoder(
+                inputSize, outputBoxes, numClass, isQuantized, oupScale, oupZeroPoint);
+    }
+
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    public int getNumClass() {
+        return numClass;
+    }
+
+    public boolean isQuantized() {
+        return isQuantized;
+    }
+
+    public float getOupScale() {
+        return oupScale;
+    }
+
+    public int getOupZeroPoint() {
+        return oupZeroPoint;
+    }
+
+    /** The tensor payload, as a little-endian view starting at the first value. */
+    public ByteBuffer getData() {
+        return data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
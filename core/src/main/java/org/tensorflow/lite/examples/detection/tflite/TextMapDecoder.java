@@ -0,0 +1,127 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the [1, map, map, 1] text probability map of a segmentation text detector (DBNet and
+ * its PaddleOCR and MMOCR exports) into text boxes. Pixels above the binary threshold are grouped
+ * into 4-connected regions; a region is kept if its mean probability reaches the box threshold,
+ * and its bounds are grown by the DBNet "unclip" offset (area * ratio / perimeter), since the
+ * model is trained to predict shrunken text kernels. Labels and the flood-fill stack are
+ * preallocated, so decoding a frame allocates nothing.
+ */
+public final class TextMapDecoder {
+    /** DBNet's default unclip ratio. */
+    public static final float UNCLIP_RATIO = 1.5f;
+    /** Regions smaller than this many map pixels are noise. */
+    public static final int MIN_AREA = 3;
+
+    private final int inputSize;
+    private final int mapSize;
+    private final boolean isQuantized;
+    private final float oupScale;
+    private final int oupZeroPoint;
+    private final int[] labels;
+    private final int[] stack;
+
+    public TextMapDecoder(int inputSize, int mapSize,
+                          boolean isQuantized, float oupScale, int oupZeroPoint) {
+        this.inputSize = inputSize;
+        this.mapSize = mapSize;
+        this.isQuantized = isQuantized;
+        this.oupScale = oupScale;
+        this.oupZeroPoint = oupZeroPoint;
+        labels = new int[mapSize * mapSize];
+        stack = new int[mapSize * mapSize];
+    }
+
+    public int getMapSize() {
+        return mapSize;
+    }
+
+    /** Bytes the interpreter writes for the map. */
+    public int byteSize() {
+        return mapSize * mapSize * (isQuantized ? 1 : 4);
+    }
+
+    /**
+     * Decodes {@code raw} into {@code out} as class 0, in model-input pixels clamped to
+     * [0, maxX] x [0, maxY]. Pixels above {@code binaryThresh} are text; regions whose mean
+     * probability is below {@code boxThresh} are dropped.
+     */
+    public void decode(ByteBuffer raw, float binaryThresh, float boxThresh, float maxX, float maxY,
+                       DetectionBuffer out) {
+        out.clear();
+        final int pixels = mapSize * mapSize;
+        for (int i = 0; i < pixels; ++i) {
+            labels[i] = value(raw, i) > binaryThresh ? -1 : 0;
+        }
+        final float scale = inputSize / (float) mapSize;
+        int region = 0;
+        for (int seed = 0; seed < pixels; ++seed) {
+            if (labels[seed] != -1) {
+                continue;
+            }
+            ++region;
+            int minX = mapSize;
+            int minY = mapSize;
+            int maxXMap = -1;
+            int maxYMap = -1;
+            int area = 0;
+            float sum = 0;
+            int top = 0;
+            stack[top++] = seed;
+            labels[seed] = region;
+            while (top > 0) {
+                final int p = stack[--top];
+                final int x = p % mapSize;
+                final int y = p / mapSize;
+                minX = Math.min(minX, x);
+                maxXMap = Math.max(maxXMap, x);
+                minY = Math.min(minY, y);
+                maxYMap = Math.max(maxYMap, y);
+                ++area;
+                sum += value(raw, p);
+                if (x > 0 && labels[p - 1] == -1) {
+                    labels[p - 1] = region;
+                    stack[top++] = p - 1;
+                }
+                if (x < mapSize - 1 && labels[p + 1] == -1) {
+                    labels[p + 1] = region;
+                    stack[top++] = p + 1;
+                }
+                if (y > 0 && labels[p - mapSize] == -1) {
+                    labels[p - mapSize] = region;
+                    stack[top++] = p - mapSize;
+                }
+                if (y < mapSize - 1 && labels[p + mapSize] == -1) {
+                    labels[p + mapSize] = region;
+                    stack[top++] = p + mapSize;
+                }
+            }
+            final float score = sum / area;
+            if (area < MIN_AREA || score < boxThresh) {
+                continue;
+            }
+            final float width = maxXMap - minX + 1;
+            final float height = maxYMap - minY + 1;
+            final float grow = width * height * UNCLIP_RATIO / (2 * (width + height));
+            final float predictedHeight = (height + 2 * grow) * scale;
+            if (out.add(
+                    Math.max(0, (minX - grow) * scale),
+                    Math.max(0, (minY - grow) * scale),
+                    Math.min(maxX, (maxXMap + 1 + grow) * scale),
+                    Math.min(maxY, (maxYMap + 1 + grow) * scale),
+                    predictedHeight, score, 0) < 0) {
+                return;
+            }
+        }
+    }
+
+    private float value(ByteBuffer raw, int index) {
+        if (isQuantized) {
+            return oupScale * (((int) raw.get(index) & 0xFF) - oupZeroPoint);
+        }
+        return raw.getFloat(index << 2);
+    }
+}
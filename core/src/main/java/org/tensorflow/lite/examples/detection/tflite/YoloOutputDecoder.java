@@ -0,0 +1,94 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the single [1, boxes, 5 + classes] output tensor of an exported YOLOv5 model into
+ * thresholded candidate boxes. Rows are read in place with absolute indexing, so decoding a frame
+ * allocates nothing.
+ */
+public final class YoloOutputDecoder {
+    private final int inputSize;
+    private final int outputBoxes;
+    private final int numClass;
+    private final boolean isQuantized;
+    private final float oupScale;
+    private final int oupZeroPoint;
+
+    public YoloOutputDecoder(int inputSize, int outputBoxes, int numClass,
+                             boolean isQuantized, float oupScale, int oupZeroPoint) {
+        this.inputSize = inputSize;
+        this.outputBoxes = outputBoxes;
+        this.numClass = numClass;
+        this.isQuantized = isQuantized;
+        this.oupScale = oupScale;
+        this.oupZeroPoint = oupZeroPoint;
+    }
+
+    /** Number of anchors YOLOv5 emits for a square input of the given size. */
+    public static int outputBoxesFor(int inputSize) {
+        return (int) ((Math.pow((inputSize / 32.0), 2) + Math.pow((inputSize / 16.0), 2) + Math.pow((inputSize / 8.0), 2)) * 3);
+    }
+
+    public int getOutputBoxes() {
+        return outputBoxes;
+    }
+
+    public int getNumClass() {
+        return numClass;
+    }
+
+    /** Bytes the interpreter writes for one output tensor. */
+    public int byteSize() {
+        return outputBoxes * (numClass + 5) * (isQuantized ? 1 : 4);
+    }
+
+    /**
+     * Decodes {@code raw} into {@code out}, keeping boxes whose class confidence exceeds
+     * {@code objThresh}. Only the first {@code numLabels} class scores are considered, matching
+     * the label file that was loaded. Boxes are clamped to [0, maxX] x [0, maxY].
+     */
+    public void decode(ByteBuffer raw, int numLabels, float objThresh, float maxX, float maxY,
+                       DetectionBuffer out) {
+        out.clear();
+        final int rowLength = numClass + 5;
+        final int labels = Math.min(numLabels, numClass);
+        for (int i = 0; i < outputBoxes; ++i) {
+            final int row = i * rowLength;
+            final float confidence = value(raw, row + 4);
+            int detectedClass = -1;
+            float maxClass = 0;
+            for (int c = 0; c < labels; ++c) {
+                final float cls = value(raw, row + 5 + c);
+                if (cls > maxClass) {
+                    detectedClass = c;
+                    maxClass = cls;
+                }
+            }
+
+            final float confidenceInClass = maxClass * confidence;
+            if (confidenceInClass > objThresh) {
+                // Denormalize xywh
+                final float xPos = value(raw, row) * inputSize;
+                final float yPos = value(raw, row + 1) * inputSize;
+                final float w = value(raw, row + 2) * inputSize;
+                final float h = value(raw, row + 3) * inputSize;
+                if (out.add(
+                        Math.max(0, xPos - w / 2),
+                        Math.max(0, yPos - h / 2),
+                        Math.min(maxX, xPos + w / 2),
+                        Math.min(maxY, yPos + h / 2),
+                        h, confidenceInClass, detectedClass) < 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private float value(ByteBuffer raw, int index) {
+        if (isQuantized) {
+            return oupScale * (((int) raw.get(index) & 0xFF) - oupZeroPoint);
+        }
+        return raw.getFloat(index << 2);
+    }
+}
@@ -0,0 +1,26 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+/** The fields of a recognition that announcement selection looks at. */
+public interface Announceable {
+  String getTitle();
+
+  /** Class ID, indexing the detector's {@code ClassMetadata}. */
+  int getDetectedClass();
+
+  Float getConfidence();
+
+  /** Estimated distance in meters, or null if the class has no known real-world size. */
+  Float getDistance();
+
+  /** ID of the track this result belongs to, or 0 if it is not tracked. */
+  int getTrackId();
+
+  /** Relative growth of the object's apparent height per second; positive when approaching. */
+  float getApproachRate();
+
+  /**
+   * Seconds until the object reaches the camera at its current closing speed, or
+   * {@link Float#POSITIVE_INFINITY} if it is not known to be closing in.
+   */
+  float getTimeToCollision();
+}
@@ -0,0 +1,249 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import java.util.List;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+
+/**
+ * Decides what to say and when, so that the most dangerous object is spoken first and a sudden
+ * hazard can cut off a less important announcement.
+ *
+ * <p>Each frame's candidates are scored by hazard category and class priority from
+ * {@link ClassMetadata}, urgency (the sooner of time to collision and walking time, see
+ * {@link TrackAnnouncer}) and novelty (tracks never announced before rank higher). They wait in a
+ * small bounded queue ordered by score, one entry per track, and are dropped once older than
+ * {@link #MAX_QUEUE_AGE_MS}. When nothing is being said the best entry is spoken; while an
+ * announcement is in progress, an entry scoring at least {@link #PREEMPT_RATIO} times higher
+ * interrupts it. Per-track cooldowns come from the {@link TrackAnnouncer}.
+ *
+ * <p>The queue lives in parallel arrays kept sorted by insertion, and utterance IDs are
+ * preallocated, so scoring and queueing do not allocate. Thread-safe; candidates usually arrive
+ * on the inference thread and completions on the speech engine's thread. The {@link Speaker} is
+ * called with the scheduler's lock held and must not block.
+ */
+public final class AnnouncementScheduler<T extends Announceable> {
+  /** Speech output, implemented over the platform TTS engine or a fake in tests. */
+  public interface Speaker<T> {
+    /**
+     * Speaks {@code item}, interrupting anything this scheduler asked for before. Must report
+     * completion, interruption or failure through {@link #onUtteranceDone}.
+     */
+    void speak(T item, String utteranceId);
+
+    /** True if the engine is saying something this scheduler did not ask for. */
+    boolean isBusy();
+  }
+
+  public static final int DEFAULT_CAPACITY = 8;
+  public static final long MAX_QUEUE_AGE_MS = 1_500;
+  public static final float PREEMPT_RATIO = 2.0f;
+  /** An announcement with no completion after this long is treated as finished. */
+  public static final long MAX_UTTERANCE_MS = 8_000;
+  /** Prefix of every utterance ID this scheduler hands to its {@link Speaker}. */
+  public static final String UTTERANCE_PREFIX = "OBJECT:";
+
+  /** Score multiplier per {@link ClassMetadata.Hazard}, in declaration order. */
+  private static final float[] HAZARD_WEIGHT = {1, 2, 8, 3, 4, 2};
+  /** Extra weight per step of class priority. */
+  private static final float PRIORITY_WEIGHT = 0.25f;
+  /** Weight of a track that has been announced before, relative to a new one. */
+  private static final float REPEAT_WEIGHT = 0.6f;
+  /** Urgency stops growing below this many seconds to reach. */
+  private static final float MIN_TIME_TO_REACH = 0.5f;
+  private static final int UTTERANCE_IDS = 4;
+
+  private final ClassMetadata classes;
+  private final TrackAnnouncer cooldowns;
+  private final Speaker<T> speaker;
+
+  private final float[] score;
+  private final int[] key;
+  private final long[] queuedMs;
+  private final Object[] item;
+  private int size;
+
+  private final String[] utteranceIds = new String[UTTERANCE_IDS];
+  private int nextUtterance;
+  private T speaking;
+  private int speakingKey;
+  private float speakingScore;
+  private String speakingId;
+  private long speakingSinceMs;
+
+  public AnnouncementScheduler(
+      final ClassMetadata classes, final TrackAnnouncer cooldowns, final Speaker<T> speaker) {
+    this(classes, cooldowns, speaker, DEFAULT_CAPACITY);
+  }
+
+  public AnnouncementScheduler(
+      final ClassMetadata classes,
+      final TrackAnnouncer cooldowns,
+      final Speaker<T> speaker,
+      final int capacity) {
+    this.classes = classes;
+    this.cooldowns = cooldowns;
+    this.speaker = speaker;
+    score = new float[capacity];
+    key = new int[capacity];
+    queuedMs = new long[capacity];
+    item = new Object[capacity];
+    for (int i = 0; i < UTTERANCE_IDS; ++i) {
+      utteranceIds[i] = UTTERANCE_PREFIX + i;
+    }
+  }
+
+  /** True if {@code utteranceId} was issued by a scheduler. */
+  public static boolean isAnnouncement(final String utteranceId) {
+    return utteranceId != null && utteranceId.startsWith(UTTERANCE_PREFIX);
+  }
+
+  /**
+   * Scores and queues this frame's {@code candidates}, skipping those below
+   * {@code minConfidence}, without a distance, or still cooling down, then speaks or preempts if
+   * warranted. Iterates by index so that it does not allocate an iterator per frame.
+   */
+  public synchronized void offer(
+      final List<T> candidates, final float minConfidence, final long nowMs) {
+    expire(nowMs);
+    for (int i = 0; i < candidates.size(); ++i) {
+      final T candidate = candidates.get(i);
+      final Float distance = candidate.getDistance();
+      if (distance == null || candidate.getConfidence() < minConfidence) {
+        continue;
+      }
+      final int candidateKey = TrackAnnouncer.key(candidate);
+      if ((speaking != null && candidateKey == speakingKey)
+          || cooldowns.isCoolingDown(candidate, nowMs)) {
+        continue;
+      }
+      insert(candidate, candidateKey, score(candidate, distance), nowMs);
+    }
+    dispatch(nowMs);
+  }
+
+  /**
+   * Reports that {@code utteranceId} finished, was interrupted or failed, so the next queued
+   * announcement can be spoken. IDs this scheduler is no longer waiting for are ignored.
+   */
+  public synchronized void onUtteranceDone(final String utteranceId, final long nowMs) {
+    if (speaking != null && speakingId.equals(utteranceId)) {
+      speaking = null;
+      expire(nowMs);
+      dispatch(nowMs);
+    }
+  }
+
+  /** Forgets queued entries and the announcement in progress, e.g. when detection stops. */
+  public synchronized void clear() {
+    for (int i = 0; i < size; ++i) {
+      item[i] = null;
+    }
+    size = 0;
+    speaking = null;
+  }
+
+  public synchronized int queued() {
+    return size;
+  }
+
+  /** The item being spoken, or null. */
+  public synchronized T speaking() {
+    return speaking;
+  }
+
+  /**
+   * Higher is more urgent: hazard and class priority, times one over the seconds until the user
+   * and the object meet, times a discount for tracks announced before.
+   */
+  float score(final Announceable candidate, final float distance) {
+    final int cls = candidate.getDetectedClass();
+    float weight = 1;
+    if (classes != null && cls >= 0 && cls < classes.size()) {
+      weight = HAZARD_WEIGHT[classes.hazard(cls).ordinal()]
+          * (1 + PRIORITY_WEIGHT * classes.priority(cls));
+    }
+    final float time = TrackAnnouncer.timeToReach(
+        candidate, distance, TrackAnnouncer.isApproaching(candidate));
+    final float novelty = cooldowns.wasAnnounced(candidate) ? REPEAT_WEIGHT : 1;
+    return weight * novelty / Math.max(time, MIN_TIME_TO_REACH);
+  }
+
+  private void dispatch(final long nowMs) {
+    if (speaking != null && nowMs - speakingSinceMs > MAX_UTTERANCE_MS) {
+      speaking = null;
+    }
+    if (size == 0) {
+      return;
+    }
+    if (speaking != null) {
+      if (score[0] < PREEMPT_RATIO * speakingScore) {
+        return;
+      }
+    } else if (speaker.isBusy()) {
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    final T next = (T) item[0];
+    speaking = next;
+    speakingKey = key[0];
+    speakingScore = score[0];
+    speakingSinceMs = nowMs;
+    speakingId = utteranceIds[nextUtterance];
+    nextUtterance = (nextUtterance + 1) % UTTERANCE_IDS;
+    removeAt(0);
+    cooldowns.announced(next, nowMs);
+    speaker.speak(next, speakingId);
+  }
+
+  private void insert(final T candidate, final int candidateKey, final float s, final long nowMs) {
+    for (int i = 0; i < size; ++i) {
+      if (key[i] == candidateKey) {
+        removeAt(i);
+        break;
+      }
+    }
+    if (size == score.length) {
+      if (s <= score[size - 1]) {
+        return;
+      }
+      removeAt(size - 1);
+    }
+    int i = size++;
+    while (i > 0 && score[i - 1] < s) {
+      score[i] = score[i - 1];
+      key[i] = key[i - 1];
+      queuedMs[i] = queuedMs[i - 1];
+      item[i] = item[i - 1];
+      --i;
+    }
+    score[i] = s;
+    key[i] = candidateKey;
+    queuedMs[i] = nowMs;
+    item[i] = candidate;
+  }
+
+  private void expire(final long nowMs) {
+    int kept = 0;
+    for (int i = 0; i < size; ++i) {
+      if (nowMs - queuedMs[i] <= MAX_QUEUE_AGE_MS) {
+        score[kept] = score[i];
+        key[kept] = key[i];
+        queuedMs[kept] = queuedMs[i];
+        item[kept] = item[i];
+        ++kept;
+      }
+    }
+    for (int i = kept; i < size; ++i) {
+      item[i] = null;
+    }
+    size = kept;
+  }
+
+  private void removeAt(final int index) {
+    --size;
+    System.arraycopy(score, index + 1, score, index, size - index);
+    System.arraycopy(key, index + 1, key, index, size - index);
+    System.arraycopy(queuedMs, index + 1, queuedMs, index, size - index);
+    System.arraycopy(item, index + 1, item, index, size - index);
+    item[size] = null;
+  }
+}
@@ -0,0 +1,210 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Sparse Lucas-Kanade optical flow on the luminance plane, evaluated only inside the boxes being
+ * tracked. A grid of points inside each box is tracked from a reference frame to the current one;
+ * the box moves by the median displacement and the fraction of points that converged and agree
+ * with it is reported as confidence.
+ *
+ * <p>Each point uses the inverse-compositional formulation: gradients and the 2x2 structure tensor
+ * come from the reference frame, so every iteration only samples the current frame bilinearly.
+ * Iteration starts from a caller-supplied guess, usually the tracker's velocity times the frame
+ * interval, which lets single-scale LK follow motions well beyond its window. All working storage
+ * is allocated up front.
+ *
+ * <p>The current frame is read in place with absolute gets, so it can be a camera plane that other
+ * consumers share; only the reference is copied, since it has to outlive its frame.
+ */
+public final class BoxFlow {
+  private static final int GRID = 4;
+  private static final int POINTS = GRID * GRID;
+  private static final int HALF_WINDOW = 4;
+  private static final int WINDOW_PIXELS = (2 * HALF_WINDOW + 1) * (2 * HALF_WINDOW + 1);
+  private static final int MAX_ITERATIONS = 8;
+  private static final float EPSILON = 0.03f;
+  /** Minimum smallest eigenvalue of the structure tensor, per window pixel. */
+  private static final float MIN_EIGEN = 4f;
+  /** Largest acceptable mean absolute intensity error after convergence. */
+  private static final float MAX_RESIDUAL = 18f;
+  /** Points further than this from the median displacement do not count towards confidence. */
+  private static final float AGREEMENT_PX = 2f;
+  /** Inset of the point grid from the box edges, as a fraction of box size. */
+  private static final float INSET = 0.2f;
+
+  private final int width;
+  private final int height;
+  private final byte[] reference;
+  private boolean hasReference;
+
+  private final float[] pointDx = new float[POINTS];
+  private final float[] pointDy = new float[POINTS];
+  private final float[] sortScratch = new float[POINTS];
+  private final float[] templ = new float[WINDOW_PIXELS];
+  private final float[] gradX = new float[WINDOW_PIXELS];
+  private final float[] gradY = new float[WINDOW_PIXELS];
+  private float dx;
+  private float dy;
+
+  public BoxFlow(final int width, final int height) {
+    this.width = width;
+    this.height = height;
+    reference = new byte[width * height];
+  }
+
+  /** Copies {@code luminance} so later calls to {@link #track} measure motion relative to it. */
+  public void setReference(final ByteBuffer luminance, final int rowStride) {
+    final ByteBuffer rows = luminance.duplicate();
+    for (int y = 0; y < height; ++y) {
+      rows.position(y * rowStride);
+      rows.get(reference, y * width, width);
+    }
+    hasReference = true;
+  }
+
+  public boolean hasReference() {
+    return hasReference;
+  }
+
+  /**
+   * Estimates how the box (l, t, r, b), given in reference-frame pixels, moved in {@code
+   * luminance}. Returns a confidence in [0, 1]; the displacement is then available from {@link
+   * #getDx()} and {@link #getDy()}. Returns 0 if there is no reference or no point could be
+   * tracked.
+   */
+  public float track(final ByteBuffer luminance, final int rowStride, final float l, final float t,
+      final float r, final float b, final float guessDx, final float guessDy) {
+    dx = guessDx;
+    dy = guessDy;
+    if (!hasReference) {
+      return 0;
+    }
+    final float insetX = (r - l) * INSET;
+    final float insetY = (b - t) * INSET;
+    final float stepX = (r - l - 2 * insetX) / (GRID - 1);
+    final float stepY = (b - t - 2 * insetY) / (GRID - 1);
+    int valid = 0;
+    for (int gy = 0; gy < GRID; ++gy) {
+      for (int gx = 0; gx < GRID; ++gx) {
+        final int px = Math.round(l + insetX + gx * stepX);
+        final int py = Math.round(t + insetY + gy * stepY);
+        if (trackPoint(luminance, rowStride, px, py, guessDx, guessDy, valid)) {
+          valid++;
+        }
+      }
+    }
+    if (valid == 0) {
+      return 0;
+    }
+    dx = median(pointDx, valid);
+    dy = median(pointDy, valid);
+    int agreeing = 0;
+    for (int i = 0; i < valid; ++i) {
+      if (Math.abs(pointDx[i] - dx) <= AGREEMENT_PX && Math.abs(pointDy[i] - dy) <= AGREEMENT_PX) {
+        agreeing++;
+      }
+    }
+    return agreeing / (float) POINTS;
+  }
+
+  public float getDx() {
+    return dx;
+  }
+
+  public float getDy() {
+    return dy;
+  }
+
+  /** Tracks one point; on success stores its displacement at {@code slot} and returns true. */
+  private boolean trackPoint(final ByteBuffer luminance, final int rowStride, final int px,
+      final int py, final float guessDx, final float guessDy, final int slot) {
+    if (px - HALF_WINDOW - 1 < 0 || py - HALF_WINDOW - 1 < 0
+        || px + HALF_WINDOW + 1 >= width || py + HALF_WINDOW + 1 >= height) {
+      return false;
+    }
+    float gxx = 0;
+    float gxy = 0;
+    float gyy = 0;
+    int k = 0;
+    for (int wy = -HALF_WINDOW; wy <= HALF_WINDOW; ++wy) {
+      final int row = (py + wy) * width;
+      for (int wx = -HALF_WINDOW; wx <= HALF_WINDOW; ++wx, ++k) {
+        final int i = row + px + wx;
+        final float ix = ((reference[i + 1] & 0xFF) - (reference[i - 1] & 0xFF)) * 0.5f;
+        final float iy = ((reference[i + width] & 0xFF) - (reference[i - width] & 0xFF)) * 0.5f;
+        templ[k] = reference[i] & 0xFF;
+        gradX[k] = ix;
+        gradY[k] = iy;
+        gxx += ix * ix;
+        gxy += ix * iy;
+        gyy += iy * iy;
+      }
+    }
+    final float trace = gxx + gyy;
+    final float det = gxx * gyy - gxy * gxy;
+    final float minEigen =
+        (trace - (float) Math.sqrt(Math.max(0, trace * trace - 4 * det))) / 2;
+    if (minEigen < MIN_EIGEN * WINDOW_PIXELS) {
+      return false;
+    }
+
+    float ux = guessDx;
+    float uy = guessDy;
+    float residual = Float.MAX_VALUE;
+    for (int iteration = 0; iteration < MAX_ITERATIONS; ++iteration) {
+      final float cx = px + ux;
+      final float cy = py + uy;
+      if (cx - HALF_WINDOW < 0 || cy - HALF_WINDOW < 0
+          || cx + HALF_WINDOW + 1 >= width || cy + HALF_WINDOW + 1 >= height) {
+        return false;
+      }
+      final int x0 = (int) Math.floor(cx);
+      final int y0 = (int) Math.floor(cy);
+      final float fx = cx - x0;
+      final float fy = cy - y0;
+      float bx = 0;
+      float by = 0;
+      float absError = 0;
+      k = 0;
+      for (int wy = -HALF_WINDOW; wy <= HALF_WINDOW; ++wy) {
+        final int row = (y0 + wy) * rowStride;
+        for (int wx = -HALF_WINDOW; wx <= HALF_WINDOW; ++wx, ++k) {
+          final int i = row + x0 + wx;
+          final float top =
+              (luminance.get(i) & 0xFF) * (1 - fx) + (luminance.get(i + 1) & 0xFF) * fx;
+          final float bottom =
+              (luminance.get(i + rowStride) & 0xFF) * (1 - fx)
+                  + (luminance.get(i + rowStride + 1) & 0xFF) * fx;
+          final float error = top * (1 - fy) + bottom * fy - templ[k];
+          bx += gradX[k] * error;
+          by += gradY[k] * error;
+          absError += Math.abs(error);
+        }
+      }
+      residual = absError / WINDOW_PIXELS;
+      final float stepX = (gyy * bx - gxy * by) / det;
+      final float stepY = (gxx * by - gxy * bx) / det;
+      ux -= stepX;
+      uy -= stepY;
+      if (stepX * stepX + stepY * stepY < EPSILON * EPSILON) {
+        break;
+      }
+    }
+    if (residual > MAX_RESIDUAL) {
+      return false;
+    }
+    pointDx[slot] = ux;
+    pointDy[slot] = uy;
+    return true;
+  }
+
+  private float median(final float[] values, final int count) {
+    System.arraycopy(values, 0, sortScratch, 0, count);
+    Arrays.sort(sortScratch, 0, count);
+    return (count & 1) == 1
+        ? sortScratch[count / 2]
+        : (sortScratch[count / 2 - 1] + sortScratch[count / 2]) / 2;
+  }
+}
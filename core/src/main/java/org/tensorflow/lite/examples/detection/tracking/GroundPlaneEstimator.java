@@ -0,0 +1,103 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+/**
+ * Distance to objects standing on the ground, from where the bottom of their box meets the floor.
+ *
+ * <p>With the camera held {@link #getCameraHeight} above a flat floor and pitched down by a known
+ * angle, the ray through an image row hits the ground at a distance fixed by trigonometry. This
+ * works for objects whose top is cut off, which break the height-based pinhole estimate, and
+ * {@link #fuse} combines the two by inverse variance. Rows at or above the horizon do not hit the
+ * ground and give NaN.
+ *
+ * <p>Image coordinates are those of an upright model input with the principal point at its
+ * centre. Pitch is in radians, positive when the camera looks down. Not thread-safe.
+ */
+public final class GroundPlaneEstimator {
+  public static final float DEFAULT_CAMERA_HEIGHT = 1.4f;
+  /** Rays closer than this to the horizon are too flat to give a usable distance. */
+  public static final float MIN_DEPRESSION = (float) Math.toRadians(2);
+  /** Boxes within this many pixels of an image edge are treated as cut off by it. */
+  public static final float EDGE_MARGIN = 2;
+  /** Roll beyond which rows are no longer level enough to use. */
+  public static final float MAX_ROLL = (float) Math.toRadians(25);
+
+  /** Uncertainty of the sensor pitch plus box-edge jitter, in radians. */
+  private static final float ANGLE_NOISE = (float) Math.toRadians(1.5);
+  /** Uncertainty of the height-based estimate, as a fraction of it. */
+  private static final float HEIGHT_NOISE = 0.15f;
+
+  private final int imageSize;
+  private float focalLength;
+  private float cameraHeight = DEFAULT_CAMERA_HEIGHT;
+
+  /** {@code imageSize} is the side of the square model input, in pixels. */
+  public GroundPlaneEstimator(final int imageSize, final float focalLength) {
+    this.imageSize = imageSize;
+    this.focalLength = focalLength;
+  }
+
+  public void setFocalLength(final float focalLength) {
+    this.focalLength = focalLength;
+  }
+
+  /** Height of the camera above the floor in meters, e.g. chest height for a phone on a lanyard. */
+  public void setCameraHeight(final float cameraHeight) {
+    this.cameraHeight = cameraHeight;
+  }
+
+  public float getCameraHeight() {
+    return cameraHeight;
+  }
+
+  /** Horizontal distance in meters to where the ray through {@code row} meets the ground. */
+  public float groundDistance(final float row, final float pitch) {
+    if (!(focalLength > 0)) {
+      return Float.NaN;
+    }
+    final double depression = pitch + Math.atan((row - imageSize / 2f) / focalLength);
+    if (!(depression >= MIN_DEPRESSION) || depression >= Math.PI / 2) {
+      return Float.NaN;
+    }
+    return (float) (cameraHeight / Math.tan(depression));
+  }
+
+  /**
+   * Best distance estimate for an object on the ground whose box spans rows {@code top} to
+   * {@code bottom}, given the height-based {@code heightDistance} (NaN if unknown).
+   *
+   * <ul>
+   *   <li>If the bottom is cut off, the feet are below the frame and closer than where the bottom
+   *       row meets the ground; that bounds the estimate.
+   *   <li>If the top is cut off, the box is too short and only the ground estimate is used.
+   *   <li>Otherwise the estimates are weighted by their variances; the ground estimate loses
+   *       precision quickly as the ray flattens towards the horizon.
+   * </ul>
+   */
+  public float fuse(
+      final float heightDistance,
+      final float top,
+      final float bottom,
+      final float pitch,
+      final float roll) {
+    if (Math.abs(roll) > MAX_ROLL) {
+      return heightDistance;
+    }
+    final float ground = groundDistance(bottom, pitch);
+    if (ground != ground) {
+      return heightDistance;
+    }
+    if (bottom >= imageSize - EDGE_MARGIN) {
+      return heightDistance == heightDistance ? Math.min(heightDistance, ground) : ground;
+    }
+    if (top <= EDGE_MARGIN || heightDistance != heightDistance) {
+      return ground;
+    }
+    // d = h / tan(a), so dd/da = -h / sin^2(a) = -(h^2 + d^2) / h.
+    final float groundSigma = (cameraHeight * cameraHeight + ground * ground) / cameraHeight
+        * ANGLE_NOISE;
+    final float heightSigma = HEIGHT_NOISE * heightDistance;
+    final float groundWeight = 1 / (groundSigma * groundSigma);
+    final float heightWeight = 1 / (heightSigma * heightSigma);
+    return (ground * groundWeight + heightDistance * heightWeight) / (groundWeight + heightWeight);
+  }
+}
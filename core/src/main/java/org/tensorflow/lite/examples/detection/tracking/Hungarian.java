@@ -0,0 +1,103 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment for a rows x cols cost matrix with rows <= cols (Kuhn-Munkres with
+ * potentials, O(rows^2 * cols)). Every row is assigned a distinct column. All working storage is
+ * sized once for the largest problem, so {@link #solve} does not allocate.
+ */
+public final class Hungarian {
+  private final int maxRows;
+  private final int maxCols;
+  private final float[] cost;
+  private final float[] u;
+  private final float[] v;
+  private final float[] minv;
+  private final int[] p;
+  private final int[] way;
+  private final boolean[] used;
+
+  public Hungarian(final int maxRows, final int maxCols) {
+    this.maxRows = maxRows;
+    this.maxCols = maxCols;
+    cost = new float[maxRows * maxCols];
+    u = new float[maxRows + 1];
+    v = new float[maxCols + 1];
+    minv = new float[maxCols + 1];
+    p = new int[maxCols + 1];
+    way = new int[maxCols + 1];
+    used = new boolean[maxCols + 1];
+  }
+
+  public int getMaxRows() {
+    return maxRows;
+  }
+
+  public int getMaxCols() {
+    return maxCols;
+  }
+
+  /** Sets the cost of assigning {@code row} to {@code col}; the matrix uses {@code maxCols} stride. */
+  public void setCost(final int row, final int col, final float value) {
+    cost[row * maxCols + col] = value;
+  }
+
+  /**
+   * Solves the assignment over the first {@code rows} rows and {@code cols} columns and writes
+   * the column chosen for each row to {@code rowToCol}. Requires {@code rows <= cols}.
+   */
+  public void solve(final int rows, final int cols, final int[] rowToCol) {
+    if (rows > cols || rows > maxRows || cols > maxCols) {
+      throw new IllegalArgumentException(rows + "x" + cols + " does not fit " + maxRows + "x" + maxCols);
+    }
+    Arrays.fill(u, 0, rows + 1, 0);
+    Arrays.fill(v, 0, cols + 1, 0);
+    Arrays.fill(p, 0, cols + 1, 0);
+    Arrays.fill(way, 0, cols + 1, 0);
+    for (int i = 1; i <= rows; ++i) {
+      p[0] = i;
+      int j0 = 0;
+      Arrays.fill(minv, 0, cols + 1, Float.POSITIVE_INFINITY);
+      Arrays.fill(used, 0, cols + 1, false);
+      do {
+        used[j0] = true;
+        final int i0 = p[j0];
+        float delta = Float.POSITIVE_INFINITY;
+        int j1 = 0;
+        for (int j = 1; j <= cols; ++j) {
+          if (!used[j]) {
+            final float cur = cost[(i0 - 1) * maxCols + (j - 1)] - u[i0] - v[j];
+            if (cur < minv[j]) {
+              minv[j] = cur;
+              way[j] = j0;
+            }
+            if (minv[j] < delta) {
+              delta = minv[j];
+              j1 = j;
+            }
+          }
+        }
+        for (int j = 0; j <= cols; ++j) {
+          if (used[j]) {
+            u[p[j]] += delta;
+            v[j] -= delta;
+          } else {
+            minv[j] -= delta;
+          }
+        }
+        j0 = j1;
+      } while (p[j0] != 0);
+      do {
+        final int j1 = way[j0];
+        p[j0] = p[j1];
+        j0 = j1;
+      } while (j0 != 0);
+    }
+    for (int j = 1; j <= cols; ++j) {
+      if (p[j] != 0) {
+        rowToCol[p[j] - 1] = j - 1;
+      }
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int to long with linear probing, for per-track bookkeeping keyed
+ * by track ID without boxing. Removal shifts later entries back instead of leaving tombstones, so
+ * lookups stay constant-time however often tracks come and go. {@link Integer#MIN_VALUE} cannot
+ * be used as a key. Not thread-safe.
+ */
+public final class IntLongMap {
+  private static final int EMPTY = Integer.MIN_VALUE;
+
+  private int[] keys;
+  private long[] values;
+  private int mask;
+  private int size;
+
+  /** Creates a map that holds {@code expectedSize} entries before it first grows. */
+  public IntLongMap(final int expectedSize) {
+    int capacity = 4;
+    while (capacity < expectedSize * 2) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean containsKey(final int key) {
+    return keys[slot(key)] != EMPTY;
+  }
+
+  /** Returns the value for {@code key}, or {@code defaultValue} if absent. */
+  public long get(final int key, final long defaultValue) {
+    final int slot = slot(key);
+    return keys[slot] != EMPTY ? values[slot] : defaultValue;
+  }
+
+  public void put(final int key, final long value) {
+    if (key == EMPTY) {
+      throw new IllegalArgumentException("Integer.MIN_VALUE is reserved");
+    }
+    final int slot = slot(key);
+    if (keys[slot] == EMPTY) {
+      keys[slot] = key;
+      ++size;
+    }
+    values[slot] = value;
+    if (size * 2 > keys.length) {
+      rehash(keys.length << 1);
+    }
+  }
+
+  public void remove(final int key) {
+    int slot = slot(key);
+    if (keys[slot] == EMPTY) {
+      return;
+    }
+    keys[slot] = EMPTY;
+    --size;
+    // Shift back any entry whose probe sequence passed through the freed slot.
+    int next = (slot + 1) & mask;
+    while (keys[next] != EMPTY) {
+      final int home = hash(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        keys[slot] = keys[next];
+        values[slot] = values[next];
+        keys[next] = EMPTY;
+        slot = next;
+      }
+      next = (next + 1) & mask;
+    }
+  }
+
+  /** Removes every entry whose value is less than {@code threshold}. */
+  public void removeValuesBelow(final long threshold) {
+    for (int i = 0; i < keys.length; ) {
+      if (keys[i] != EMPTY && values[i] < threshold) {
+        remove(keys[i]);
+        // A shifted entry may now occupy slot i; look at it again.
+      } else {
+        ++i;
+      }
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  private int slot(final int key) {
+    int slot = hash(key) & mask;
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int hash(final int key) {
+    final int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private void allocate(final int capacity) {
+    keys = new int[capacity];
+    values = new long[capacity];
+    Arrays.fill(keys, EMPTY);
+    mask = capacity - 1;
+  }
+
+  private void rehash(final int capacity) {
+    final int[] oldKeys = keys;
+    final long[] oldValues = values;
+    allocate(capacity);
+    size = 0;
+    for (int i = 0; i < oldKeys.length; ++i) {
+      if (oldKeys[i] != EMPTY) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+}
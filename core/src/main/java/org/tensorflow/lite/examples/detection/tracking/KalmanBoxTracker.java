@@ -0,0 +1,365 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import org.tensorflow.lite.examples.detection.tflite.DetectionBuffer;
+import org.tensorflow.lite.examples.detection.tflite.Nms;
+
+/**
+ * Multi-object tracker with a constant-velocity Kalman filter per track.
+ *
+ * <p>Each track's state is box centre, width and height plus their rates of change, in frame
+ * pixels and pixels per second. The four axes are filtered independently, each with a 2x2
+ * position/velocity covariance, which is exact for this model since process and measurement noise
+ * are uncorrelated across axes. Process and measurement noise scale with box height, so near and
+ * far objects are smoothed alike.
+ *
+ * <p>Detections are associated to predicted tracks of the same class by a minimum-cost assignment
+ * on 1 - IoU; pairs below {@link #MIN_IOU} are never matched. A new track is tentative until it
+ * has been matched {@link #MIN_HITS} times and is dropped on its first miss; a confirmed track
+ * survives {@link #MAX_MISSES} detection rounds without a match, extrapolated by its velocity.
+ * Track IDs increase monotonically and are never reused.
+ *
+ * <p>All state is held in parallel primitive arrays indexed by track slot. Slots are compacted
+ * when tracks die, so a track's index may change between updates but its {@link #id} does not.
+ * Not thread-safe.
+ */
+public final class KalmanBoxTracker {
+  public static final float MIN_IOU = 0.3f;
+  public static final int MIN_HITS = 2;
+  public static final int MAX_MISSES = 3;
+
+  private static final int AXES = 4; // centre x, centre y, width, height
+  /** Acceleration noise, in box heights per second squared. */
+  private static final float ACCEL_NOISE = 2.0f;
+  /** Measurement noise, in box heights. */
+  private static final float MEASUREMENT_NOISE = 0.05f;
+  /** Noise of optical-flow centre measurements, in box heights. */
+  private static final float FLOW_NOISE = 0.03f;
+  /** Initial velocity uncertainty, in box heights per second. */
+  private static final float INITIAL_VELOCITY_NOISE = 2.0f;
+  private static final float MIN_SIZE = 1.0f;
+  private static final float NO_MATCH = 1.0f;
+
+  private final int capacity;
+  private final int[] id;
+  private final int[] detectedClass;
+  private final float[] confidence;
+  private final int[] hits;
+  private final int[] misses;
+  private final int[] matchedDetection;
+  private final float[] x;
+  private final float[] v;
+  private final float[] p00;
+  private final float[] p01;
+  private final float[] p11;
+  private int size;
+  private int nextId = 1;
+  private long lastTimestampMs = -1;
+
+  private final Hungarian hungarian;
+  private final int[] assignment;
+  private final boolean[] detectionUsed;
+
+  /**
+   * @param capacity maximum number of live tracks; detections that would exceed it are ignored
+   * @param maxDetections largest detection count passed to {@link #update}
+   */
+  public KalmanBoxTracker(final int capacity, final int maxDetections) {
+    this.capacity = capacity;
+    id = new int[capacity];
+    detectedClass = new int[capacity];
+    confidence = new float[capacity];
+    hits = new int[capacity];
+    misses = new int[capacity];
+    matchedDetection = new int[capacity];
+    x = new float[capacity * AXES];
+    v = new float[capacity * AXES];
+    p00 = new float[capacity * AXES];
+    p01 = new float[capacity * AXES];
+    p11 = new float[capacity * AXES];
+    final int n = Math.max(capacity, maxDetections);
+    hungarian = new Hungarian(n, n);
+    assignment = new int[n];
+    detectionUsed = new boolean[maxDetections];
+  }
+
+  /**
+   * Advances every track to {@code timestampMs} using its velocity, without new measurements.
+   * Used between detections; boxes keep moving but hit and miss counts are unchanged.
+   */
+  public void predict(final long timestampMs) {
+    if (lastTimestampMs >= 0 && timestampMs > lastTimestampMs) {
+      final float dt = (timestampMs - lastTimestampMs) / 1000f;
+      for (int t = 0; t < size; ++t) {
+        predictTrack(t, dt);
+      }
+    }
+    if (timestampMs > lastTimestampMs) {
+      lastTimestampMs = timestampMs;
+    }
+  }
+
+  /**
+   * Predicts all tracks to {@code timestampMs}, associates {@code detections} (frame pixels) with
+   * them, corrects matched tracks, ages unmatched ones and starts tentative tracks for unmatched
+   * detections.
+   */
+  public void update(final DetectionBuffer detections, final long timestampMs) {
+    predict(timestampMs);
+    final int numDetections = Math.min(detections.size(), detectionUsed.length);
+    for (int d = 0; d < numDetections; ++d) {
+      detectionUsed[d] = false;
+    }
+    for (int t = 0; t < size; ++t) {
+      matchedDetection[t] = -1;
+    }
+
+    if (size > 0 && numDetections > 0) {
+      associate(detections, numDetections);
+    }
+
+    for (int t = 0; t < size; ++t) {
+      final int d = matchedDetection[t];
+      if (d >= 0) {
+        correct(t, detections, d);
+        hits[t]++;
+        misses[t] = 0;
+      } else {
+        misses[t]++;
+      }
+    }
+
+    for (int t = size - 1; t >= 0; --t) {
+      final boolean confirmed = hits[t] >= MIN_HITS;
+      if (misses[t] > (confirmed ? MAX_MISSES : 0)) {
+        remove(t);
+      }
+    }
+
+    for (int d = 0; d < numDetections && size < capacity; ++d) {
+      if (!detectionUsed[d]) {
+        start(detections, d);
+      }
+    }
+  }
+
+  /** Time the tracks were last predicted or updated to, in ms, or -1 before the first update. */
+  public long getTimestampMs() {
+    return lastTimestampMs;
+  }
+
+  public void clear() {
+    size = 0;
+    lastTimestampMs = -1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int id(final int i) {
+    return id[i];
+  }
+
+  public int detectedClass(final int i) {
+    return detectedClass[i];
+  }
+
+  /** Confidence of the detection last matched to this track. */
+  public float confidence(final int i) {
+    return confidence[i];
+  }
+
+  /** True once the track has been matched {@link #MIN_HITS} times. */
+  public boolean isConfirmed(final int i) {
+    return hits[i] >= MIN_HITS;
+  }
+
+  /** Consecutive detection rounds without a match; 0 if matched in the latest update. */
+  public int misses(final int i) {
+    return misses[i];
+  }
+
+  /** Index into the detections of the latest {@link #update} matched to this track, or -1. */
+  public int matchedDetection(final int i) {
+    return matchedDetection[i];
+  }
+
+  /** Slot of the track with {@code trackId}, or -1 if it is no longer alive. */
+  public int indexOf(final int trackId) {
+    for (int t = 0; t < size; ++t) {
+      if (id[t] == trackId) {
+        return t;
+      }
+    }
+    return -1;
+  }
+
+  public float left(final int i) {
+    return x[i * AXES] - x[i * AXES + 2] / 2;
+  }
+
+  public float top(final int i) {
+    return x[i * AXES + 1] - x[i * AXES + 3] / 2;
+  }
+
+  public float right(final int i) {
+    return x[i * AXES] + x[i * AXES + 2] / 2;
+  }
+
+  public float bottom(final int i) {
+    return x[i * AXES + 1] + x[i * AXES + 3] / 2;
+  }
+
+  public float width(final int i) {
+    return x[i * AXES + 2];
+  }
+
+  public float height(final int i) {
+    return x[i * AXES + 3];
+  }
+
+  /** Horizontal velocity of the box centre, in pixels per second. */
+  public float velocityX(final int i) {
+    return v[i * AXES];
+  }
+
+  /** Vertical velocity of the box centre, in pixels per second. */
+  public float velocityY(final int i) {
+    return v[i * AXES + 1];
+  }
+
+  /** Rate of change of box height, in pixels per second; positive when approaching. */
+  public float heightVelocity(final int i) {
+    return v[i * AXES + 3];
+  }
+
+  /**
+   * Corrects the centre of track {@code i} with a position measured by other means, such as
+   * optical flow, after {@link #predict} has moved it to the measurement's time. Hit and miss
+   * counts are unchanged, so propagated tracks still die if detection stops confirming them.
+   */
+  public void observeCentre(final int i, final float centreX, final float centreY) {
+    final float noise = FLOW_NOISE * Math.max(height(i), MIN_SIZE);
+    correctAxis(i * AXES, centreX, noise * noise);
+    correctAxis(i * AXES + 1, centreY, noise * noise);
+  }
+
+  private void associate(final DetectionBuffer detections, final int numDetections) {
+    final int n = Math.max(size, numDetections);
+    for (int t = 0; t < n; ++t) {
+      for (int d = 0; d < n; ++d) {
+        float cost = NO_MATCH;
+        if (t < size && d < numDetections && detections.detectedClass(d) == detectedClass[t]) {
+          final float iou = iou(t, detections, d);
+          if (iou >= MIN_IOU) {
+            cost = 1 - iou;
+          }
+        }
+        hungarian.setCost(t, d, cost);
+      }
+    }
+    hungarian.solve(n, n, assignment);
+    for (int t = 0; t < size; ++t) {
+      final int d = assignment[t];
+      if (d < numDetections
+          && detections.detectedClass(d) == detectedClass[t]
+          && iou(t, detections, d) >= MIN_IOU) {
+        matchedDetection[t] = d;
+        detectionUsed[d] = true;
+      }
+    }
+  }
+
+  private float iou(final int t, final DetectionBuffer detections, final int d) {
+    final float iou = Nms.iou(left(t), top(t), right(t), bottom(t),
+        detections.left(d), detections.top(d), detections.right(d), detections.bottom(d));
+    return iou == iou ? iou : 0; // zero-area boxes give NaN
+  }
+
+  private void predictTrack(final int t, final float dt) {
+    final float sigma = ACCEL_NOISE * Math.max(height(t), MIN_SIZE);
+    final float q = sigma * sigma;
+    final float dt2 = dt * dt;
+    for (int a = t * AXES; a < (t + 1) * AXES; ++a) {
+      x[a] += v[a] * dt;
+      p00[a] += dt * (2 * p01[a] + dt * p11[a]) + q * dt2 * dt2 / 4;
+      p01[a] += dt * p11[a] + q * dt2 * dt / 2;
+      p11[a] += q * dt2;
+    }
+    x[t * AXES + 2] = Math.max(x[t * AXES + 2], MIN_SIZE);
+    x[t * AXES + 3] = Math.max(x[t * AXES + 3], MIN_SIZE);
+  }
+
+  private void correct(final int t, final DetectionBuffer detections, final int d) {
+    final float noise = MEASUREMENT_NOISE * Math.max(detections.height(d), MIN_SIZE);
+    final float r = noise * noise;
+    for (int a = 0; a < AXES; ++a) {
+      correctAxis(t * AXES + a, measurement(detections, d, a), r);
+    }
+    confidence[t] = detections.confidence(d);
+  }
+
+  private void correctAxis(final int i, final float z, final float r) {
+    final float s = p00[i] + r;
+    final float k0 = p00[i] / s;
+    final float k1 = p01[i] / s;
+    final float residual = z - x[i];
+    x[i] += k0 * residual;
+    v[i] += k1 * residual;
+    p11[i] -= k1 * p01[i];
+    p00[i] *= 1 - k0;
+    p01[i] *= 1 - k0;
+  }
+
+  private void start(final DetectionBuffer detections, final int d) {
+    final int t = size++;
+    id[t] = nextId++;
+    detectedClass[t] = detections.detectedClass(d);
+    confidence[t] = detections.confidence(d);
+    hits[t] = 1;
+    misses[t] = 0;
+    matchedDetection[t] = d;
+    final float h = Math.max(detections.height(d), MIN_SIZE);
+    final float r = MEASUREMENT_NOISE * h * MEASUREMENT_NOISE * h;
+    final float velocityNoise = INITIAL_VELOCITY_NOISE * h;
+    for (int a = 0; a < AXES; ++a) {
+      final int i = t * AXES + a;
+      x[i] = measurement(detections, d, a);
+      v[i] = 0;
+      p00[i] = r;
+      p01[i] = 0;
+      p11[i] = velocityNoise * velocityNoise;
+    }
+  }
+
+  private void remove(final int t) {
+    final int last = --size;
+    if (t == last) {
+      return;
+    }
+    id[t] = id[last];
+    detectedClass[t] = detectedClass[last];
+    confidence[t] = confidence[last];
+    hits[t] = hits[last];
+    misses[t] = misses[last];
+    matchedDetection[t] = matchedDetection[last];
+    System.arraycopy(x, last * AXES, x, t * AXES, AXES);
+    System.arraycopy(v, last * AXES, v, t * AXES, AXES);
+    System.arraycopy(p00, last * AXES, p00, t * AXES, AXES);
+    System.arraycopy(p01, last * AXES, p01, t * AXES, AXES);
+    System.arraycopy(p11, last * AXES, p11, t * AXES, AXES);
+  }
+
+  private static float measurement(final DetectionBuffer detections, final int d, final int axis) {
+    switch (axis) {
+      case 0:
+        return (detections.left(d) + detections.right(d)) / 2;
+      case 1:
+        return (detections.top(d) + detections.bottom(d)) / 2;
+      case 2:
+        return detections.width(d);
+      default:
+        return detections.height(d);
+    }
+  }
+}
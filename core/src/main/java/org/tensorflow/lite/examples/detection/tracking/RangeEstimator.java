@@ -0,0 +1,182 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+/**
+ * Smooths per-track distance estimates over time and derives closing speed and time to collision.
+ *
+ * <p>Each track has a constant-velocity Kalman filter on range in meters. Single-frame pinhole
+ * distances are noisy in proportion to the distance itself, so measurement noise is
+ * {@link #RANGE_NOISE} times the measured range. Closing speed is only reported once it is at
+ * least two standard deviations away from zero, so a stationary object does not flicker between
+ * approaching and receding.
+ *
+ * <p>Tracks are keyed by tracker ID. State lives in parallel primitive arrays; an
+ * {@link IntLongMap} maps IDs to slots, so updates and queries take constant time and do not
+ * allocate. When every slot is taken, the track that was updated least recently is evicted. A
+ * track not updated for {@link #MAX_GAP_MS} restarts from its next measurement. Not thread-safe.
+ */
+public final class RangeEstimator {
+  /** Measurement noise as a fraction of the measured range. */
+  public static final float RANGE_NOISE = 0.1f;
+  /** Closing speeds below this, in meters per second, are treated as stationary. */
+  public static final float MIN_CLOSING_SPEED = 0.1f;
+  public static final long MAX_GAP_MS = 2_000;
+
+  /** Acceleration noise, in meters per second squared. */
+  private static final float ACCEL_NOISE = 1.0f;
+  /** Initial speed uncertainty, in meters per second. */
+  private static final float INITIAL_SPEED_NOISE = 2.0f;
+  private static final float MIN_RANGE = 0.1f;
+
+  private final int[] trackId;
+  private final long[] timestampMs;
+  private final float[] range;
+  private final float[] speed;
+  private final float[] p00;
+  private final float[] p01;
+  private final float[] p11;
+  private final IntLongMap slots;
+  private int size;
+
+  public RangeEstimator(final int capacity) {
+    trackId = new int[capacity];
+    timestampMs = new long[capacity];
+    range = new float[capacity];
+    speed = new float[capacity];
+    p00 = new float[capacity];
+    p01 = new float[capacity];
+    p11 = new float[capacity];
+    slots = new IntLongMap(capacity);
+  }
+
+  /** Adds a distance measurement in meters for {@code id} taken at {@code nowMs}. */
+  public void update(final int id, final float measured, final long nowMs) {
+    if (!(measured > 0) || Float.isInfinite(measured)) {
+      return;
+    }
+    final int slot = (int) slots.get(id, -1);
+    if (slot < 0) {
+      start(acquire(id), measured, nowMs);
+      return;
+    }
+    final long elapsed = nowMs - timestampMs[slot];
+    if (elapsed > MAX_GAP_MS || elapsed < 0) {
+      start(slot, measured, nowMs);
+      return;
+    }
+    predict(slot, elapsed / 1000f);
+    correct(slot, measured);
+    timestampMs[slot] = nowMs;
+  }
+
+  /** True if {@code id} has a range estimate. */
+  public boolean contains(final int id) {
+    return slots.containsKey(id);
+  }
+
+  /** Smoothed range of {@code id} in meters at its last update, or NaN if unknown. */
+  public float range(final int id) {
+    final int slot = (int) slots.get(id, -1);
+    return slot >= 0 ? range[slot] : Float.NaN;
+  }
+
+  /**
+   * Speed at which {@code id} is getting closer, in meters per second; negative while it recedes.
+   * Zero if unknown or not significantly different from zero.
+   */
+  public float closingSpeed(final int id) {
+    final int slot = (int) slots.get(id, -1);
+    if (slot < 0) {
+      return 0;
+    }
+    final float closing = -speed[slot];
+    return closing * closing > 4 * p11[slot] ? closing : 0;
+  }
+
+  /**
+   * Seconds until {@code id} reaches the camera at its current closing speed, or
+   * {@link Float#POSITIVE_INFINITY} if it is unknown, stationary or receding.
+   */
+  public float timeToCollision(final int id) {
+    final float closing = closingSpeed(id);
+    if (closing < MIN_CLOSING_SPEED) {
+      return Float.POSITIVE_INFINITY;
+    }
+    return range(id) / closing;
+  }
+
+  public void remove(final int id) {
+    final int slot = (int) slots.get(id, -1);
+    if (slot < 0) {
+      return;
+    }
+    slots.remove(id);
+    final int last = --size;
+    if (slot != last) {
+      trackId[slot] = trackId[last];
+      timestampMs[slot] = timestampMs[last];
+      range[slot] = range[last];
+      speed[slot] = speed[last];
+      p00[slot] = p00[last];
+      p01[slot] = p01[last];
+      p11[slot] = p11[last];
+      slots.put(trackId[slot], slot);
+    }
+  }
+
+  public void clear() {
+    slots.clear();
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private int acquire(final int id) {
+    if (size == trackId.length) {
+      int oldest = 0;
+      for (int s = 1; s < size; ++s) {
+        if (timestampMs[s] < timestampMs[oldest]) {
+          oldest = s;
+        }
+      }
+      remove(trackId[oldest]);
+    }
+    final int slot = size++;
+    trackId[slot] = id;
+    slots.put(id, slot);
+    return slot;
+  }
+
+  private void start(final int slot, final float measured, final long nowMs) {
+    final float noise = RANGE_NOISE * measured;
+    timestampMs[slot] = nowMs;
+    range[slot] = measured;
+    speed[slot] = 0;
+    p00[slot] = noise * noise;
+    p01[slot] = 0;
+    p11[slot] = INITIAL_SPEED_NOISE * INITIAL_SPEED_NOISE;
+  }
+
+  private void predict(final int slot, final float dt) {
+    final float q = ACCEL_NOISE * ACCEL_NOISE;
+    final float dt2 = dt * dt;
+    range[slot] = Math.max(range[slot] + speed[slot] * dt, MIN_RANGE);
+    p00[slot] += dt * (2 * p01[slot] + dt * p11[slot]) + q * dt2 * dt2 / 4;
+    p01[slot] += dt * p11[slot] + q * dt2 * dt / 2;
+    p11[slot] += q * dt2;
+  }
+
+  private void correct(final int slot, final float measured) {
+    final float noise = RANGE_NOISE * measured;
+    final float s = p00[slot] + noise * noise;
+    final float k0 = p00[slot] / s;
+    final float k1 = p01[slot] / s;
+    final float residual = measured - range[slot];
+    range[slot] = Math.max(range[slot] + k0 * residual, MIN_RANGE);
+    speed[slot] += k1 * residual;
+    p11[slot] -= k1 * p01[slot];
+    p00[slot] *= 1 - k0;
+    p01[slot] *= 1 - k0;
+  }
+}
@@ -0,0 +1,91 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+/**
+ * Per-track announcement bookkeeping for the {@link AnnouncementScheduler}: when each track was
+ * last announced, and how urgent a candidate is. Repeats are suppressed per track rather than per
+ * title, so a second person walking in is announced even though "person" was just said, while
+ * the same chair is not repeated every few seconds.
+ *
+ * <ul>
+ *   <li>Each track has a cooldown of {@link #TRACK_COOLDOWN_MS} after it was announced, shortened
+ *       to {@link #APPROACHING_COOLDOWN_MS} while it is approaching.
+ *   <li>Urgency is the sooner of a candidate's time to collision and the time to walk its
+ *       distance at {@link #WALKING_SPEED}. A track that looks approaching from its growing box
+ *       but has no time to collision yet counts as {@link #APPROACHING_BOOST} times closer.
+ * </ul>
+ *
+ * Results without a track ID (0) fall back to a cooldown keyed by title. Last-announced times are
+ * kept in an {@link IntLongMap}; entries past every cooldown are purged as the map fills.
+ * Thread-safe; cooldowns are checked on the inference thread and {@link #announced} may be called
+ * from the speech engine's thread.
+ */
+public final class TrackAnnouncer {
+  public static final long TRACK_COOLDOWN_MS = 10_000;
+  public static final long APPROACHING_COOLDOWN_MS = 3_000;
+  /** Relative growth of box height per second above which a track counts as approaching. */
+  public static final float APPROACH_RATE = 0.15f;
+  public static final float APPROACHING_BOOST = 2.0f;
+  /** Time to collision, in seconds, below which a track counts as approaching. */
+  public static final float TTC_HORIZON = 8.0f;
+  /** Typical walking speed in meters per second, to compare static objects with moving ones. */
+  public static final float WALKING_SPEED = 1.4f;
+
+  private static final int PURGE_SIZE = 64;
+
+  private final IntLongMap lastAnnounced = new IntLongMap(PURGE_SIZE);
+
+  /** Records that {@code announced} was spoken at {@code nowMs}. */
+  public synchronized void announced(final Announceable announced, final long nowMs) {
+    if (lastAnnounced.size() >= PURGE_SIZE) {
+      lastAnnounced.removeValuesBelow(nowMs - TRACK_COOLDOWN_MS);
+    }
+    lastAnnounced.put(key(announced), nowMs);
+  }
+
+  /** True if {@code candidate}'s track was announced less than its cooldown before {@code nowMs}. */
+  public synchronized boolean isCoolingDown(final Announceable candidate, final long nowMs) {
+    return coolingDown(candidate, isApproaching(candidate), nowMs);
+  }
+
+  /** True if {@code candidate}'s track has been announced before, however long ago. */
+  public synchronized boolean wasAnnounced(final Announceable candidate) {
+    return lastAnnounced.containsKey(key(candidate));
+  }
+
+  public synchronized void clear() {
+    lastAnnounced.clear();
+  }
+
+  static boolean isApproaching(final Announceable candidate) {
+    return candidate.getTimeToCollision() < TTC_HORIZON
+        || candidate.getApproachRate() > APPROACH_RATE;
+  }
+
+  /** Seconds until the user and {@code candidate} meet; lower is more urgent. */
+  static float timeToReach(
+      final Announceable candidate, final float distance, final boolean approaching) {
+    final float walking = Math.max(distance, 0.1f) / WALKING_SPEED;
+    final float collision = candidate.getTimeToCollision();
+    if (collision < walking) {
+      return collision;
+    }
+    return approaching ? walking / APPROACHING_BOOST : walking;
+  }
+
+  private boolean coolingDown(
+      final Announceable candidate, final boolean approaching, final long nowMs) {
+    final long last = lastAnnounced.get(key(candidate), Long.MIN_VALUE);
+    final long cooldown = approaching ? APPROACHING_COOLDOWN_MS : TRACK_COOLDOWN_MS;
+    return last != Long.MIN_VALUE && nowMs - last < cooldown;
+  }
+
+  /** Track IDs are positive; untracked results use a negative key derived from the title. */
+  static int key(final Announceable candidate) {
+    final int trackId = candidate.getTrackId();
+    if (trackId > 0) {
+      return trackId;
+    }
+    final String title = candidate.getTitle();
+    return -1 - ((title != null ? title.hashCode() : 0) & 0x3FFFFFFF);
+  }
+}
@@ -0,0 +1,72 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ClipCacheTest {
+    @Test
+    public void evictsLeastRecentlyUsedToFitBudget() {
+        final ClipCache cache = new ClipCache(1000);
+        final PcmClip a = clip(200);
+        final PcmClip b = clip(200);
+        cache.put("a", a);
+        cache.put("b", b);
+        assertSame(a, cache.get("a"));
+
+        // 400 + 400 + 400 bytes: "b" is now the least recently used and has to go.
+        cache.put("c", clip(200));
+        assertNull(cache.get("b"));
+        assertSame(a, cache.get("a"));
+        assertEquals(800, cache.sizeBytes());
+    }
+
+    @Test
+    public void evictsAsManyAsNeeded() {
+        final ClipCache cache = new ClipCache(1000);
+        for (int i = 0; i < 5; ++i) {
+            cache.put("small" + i, clip(100));
+        }
+        cache.put("large", clip(400));
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("small4"));
+        assertEquals(1000, cache.sizeBytes());
+    }
+
+    @Test
+    public void replacingAClipUpdatesTheSize() {
+        final ClipCache cache = new ClipCache(1000);
+        cache.put("a", clip(300));
+        cache.put("a", clip(100));
+        assertEquals(1, cache.size());
+        assertEquals(200, cache.sizeBytes());
+    }
+
+    @Test
+    public void rejectsClipsLargerThanBudget() {
+        final ClipCache cache = new ClipCache(1000);
+        cache.put("a", clip(100));
+        assertFalse(cache.put("huge", clip(501)));
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("huge"));
+    }
+
+    @Test
+    public void phrasesBucketDistances() {
+        assertEquals(-1, AnnouncementPhrases.distanceBucket(0.2f));
+        assertEquals(0, AnnouncementPhrases.distanceBucket(0.5f));
+        assertEquals(4, AnnouncementPhrases.distanceBucket(2.3f));
+        assertEquals(2.5f, AnnouncementPhrases.bucketDistance(4), 0);
+        assertEquals(AnnouncementPhrases.DISTANCE_BUCKETS - 1, AnnouncementPhrases.distanceBucket(10));
+        assertEquals(-1, AnnouncementPhrases.distanceBucket(10.3f));
+        assertEquals("2.5 meters", AnnouncementPhrases.distanceText(2.5f));
+    }
+
+    private static PcmClip clip(int samples) {
+        return new PcmClip(new short[samples], 22050);
+    }
+}
@@ -0,0 +1,68 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+
+public class SpatialCuesTest {
+    private static final String METADATA = ""
+            + "name\taliases\theight\tpriority\thazard\tground\n"
+            + "car\t-\t1.5\t3\tvehicle\ty\n"
+            + "cup\t-\t0.1\t0\tnone\tn\n";
+    private static final int CAR = 0;
+    private static final int CUP = 1;
+
+    private final ToneSynth synth = new ToneSynth(16000, 4);
+    private SpatialCues cues;
+
+    @Before
+    public void setUp() throws IOException {
+        cues = new SpatialCues(
+                ClassMetadata.load(Arrays.asList("car", "cup"), new StringReader(METADATA)), synth);
+    }
+
+    @Test
+    public void cuesHighPriorityTracksOnly() {
+        assertFalse(cues.offer(1, CUP, 0, 1, 0));
+        assertFalse(synth.isActive());
+        assertTrue(cues.offer(2, CAR, 0, 1, 0));
+        assertTrue(synth.isActive());
+    }
+
+    @Test
+    public void skipsUntrackedAndDistantObjects() {
+        assertFalse(cues.offer(0, CAR, 0, 1, 0));
+        assertFalse(cues.offer(1, CAR, 0, ToneSynth.FAR_DISTANCE + 1, 0));
+        assertFalse(cues.offer(1, CAR, 0, Float.NaN, 0));
+    }
+
+    @Test
+    public void repeatsFasterWhenCloser() {
+        assertTrue(cues.offer(1, CAR, 0, 4, 0));
+        assertFalse(cues.offer(1, CAR, 0, 4, 1000));
+        assertTrue(cues.offer(1, CAR, 0, 4, 1200));
+
+        assertTrue(cues.offer(2, CAR, 0, 0.5f, 0));
+        assertTrue(cues.offer(2, CAR, 0, 0.5f, SpatialCues.MIN_INTERVAL_MS));
+    }
+
+    @Test
+    public void intervalIsBounded() {
+        assertEquals(SpatialCues.MIN_INTERVAL_MS, SpatialCues.interval(0.1f));
+        assertEquals(900, SpatialCues.interval(3));
+        assertEquals(SpatialCues.MAX_INTERVAL_MS, SpatialCues.interval(8));
+    }
+
+    @Test
+    public void tracksAreIndependent() {
+        assertTrue(cues.offer(1, CAR, -1, 3, 0));
+        assertTrue(cues.offer(2, CAR, 1, 3, 10));
+    }
+}
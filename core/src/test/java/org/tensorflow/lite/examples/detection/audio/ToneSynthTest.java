@@ -0,0 +1,118 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ToneSynthTest {
+    private static final int RATE = 48000;
+    private static final int TONE_FRAMES = RATE * ToneSynth.TONE_MS / 1000;
+
+    @Test
+    public void pansByBearing() {
+        final short[] left = renderOne(-1, 2);
+        assertTrue(energy(left, 0) > 0);
+        assertEquals(0, energy(left, 1), 1e-3);
+
+        final short[] right = renderOne(0.5f, 2);
+        assertTrue(energy(right, 1) > 3 * energy(right, 0));
+
+        final short[] centre = renderOne(0, 2);
+        assertEquals(energy(centre, 0), energy(centre, 1), energy(centre, 0) * 0.01);
+        // Constant power: the centre is as loud overall as hard left.
+        assertEquals(energy(left, 0), energy(centre, 0) + energy(centre, 1), energy(left, 0) * 0.02);
+    }
+
+    @Test
+    public void closerIsHigherAndLouder() {
+        final short[] near = renderOne(0, 0.5f);
+        final short[] far = renderOne(0, 8);
+        assertEquals(ToneSynth.MAX_FREQUENCY, frequency(near), 15);
+        assertEquals(ToneSynth.MIN_FREQUENCY, frequency(far), 15);
+        assertTrue(energy(near, 0) > 2 * energy(far, 0));
+        assertEquals(ToneSynth.MAX_FREQUENCY, ToneSynth.frequency(0.1f), 0);
+        assertEquals(ToneSynth.MIN_FREQUENCY, ToneSynth.frequency(30), 0.01f);
+    }
+
+    @Test
+    public void tonesStartAndEndSilently() {
+        final short[] out = renderOne(0, 1);
+        assertTrue(Math.abs(out[0]) < 50);
+        assertTrue(Math.abs(out[2 * (TONE_FRAMES - 1)]) < 50);
+        for (int f = TONE_FRAMES; f < out.length / 2; ++f) {
+            assertEquals(0, out[2 * f]);
+        }
+    }
+
+    @Test
+    public void becomesInactiveWhenTonesEnd() {
+        final ToneSynth synth = new ToneSynth(RATE, 2);
+        assertFalse(synth.isActive());
+        synth.trigger(0, 1);
+        assertTrue(synth.isActive());
+        final short[] out = new short[2 * TONE_FRAMES];
+        synth.render(out, 0, TONE_FRAMES - 1);
+        assertTrue(synth.isActive());
+        synth.render(out, 0, 1);
+        assertFalse(synth.isActive());
+    }
+
+    @Test
+    public void manyOverlappingTonesClipInsteadOfWrapping() {
+        final ToneSynth synth = new ToneSynth(RATE, 8);
+        for (int i = 0; i < 8; ++i) {
+            synth.trigger(-1, 0.5f);
+        }
+        final short[] out = new short[2 * TONE_FRAMES];
+        synth.render(out, 0, TONE_FRAMES);
+        int min = 0;
+        int max = 0;
+        for (int f = 0; f < TONE_FRAMES; ++f) {
+            min = Math.min(min, out[2 * f]);
+            max = Math.max(max, out[2 * f]);
+        }
+        assertEquals(Short.MAX_VALUE, max);
+        assertEquals(-Short.MAX_VALUE, min);
+    }
+
+    @Test
+    public void stealsOldestVoiceWhenFull() {
+        final ToneSynth synth = new ToneSynth(RATE, 1);
+        synth.trigger(-1, 1);
+        final short[] out = new short[2 * TONE_FRAMES];
+        synth.render(out, 0, TONE_FRAMES / 2);
+        synth.trigger(1, 1);
+        synth.render(out, 0, TONE_FRAMES);
+        assertEquals(0, energy(out, 0), 1e-3);
+        assertTrue(energy(out, 1) > 0);
+    }
+
+    private static short[] renderOne(float bearing, float distance) {
+        final ToneSynth synth = new ToneSynth(RATE, 4);
+        synth.trigger(bearing, distance);
+        final short[] out = new short[2 * (TONE_FRAMES + 100)];
+        synth.render(out, 0, TONE_FRAMES + 100);
+        return out;
+    }
+
+    private static double energy(short[] stereo, int channel) {
+        double sum = 0;
+        for (int i = channel; i < stereo.length; i += 2) {
+            sum += (double) stereo[i] * stereo[i];
+        }
+        return sum;
+    }
+
+    /** Estimates pitch from upward zero crossings over the tone. */
+    private static float frequency(short[] stereo) {
+        int crossings = 0;
+        for (int f = 1; f < TONE_FRAMES; ++f) {
+            if (stereo[2 * (f - 1)] < 0 && stereo[2 * f] >= 0) {
+                ++crossings;
+            }
+        }
+        return crossings * RATE / (float) TONE_FRAMES;
+    }
+}
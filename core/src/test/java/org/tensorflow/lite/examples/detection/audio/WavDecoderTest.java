@@ -0,0 +1,98 @@
+package org.tensorflow.lite.examples.detection.audio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+public class WavDecoderTest {
+    @Test
+    public void decodesMonoPcm() throws IOException {
+        final byte[] wav = wav(1, 24000, 16, new short[] {0, 1000, -1000, 32767, -32768}, false);
+        final PcmClip clip = WavDecoder.decode(wav);
+        assertEquals(24000, clip.sampleRate);
+        assertArrayEquals(new short[] {0, 1000, -1000, 32767, -32768}, clip.samples);
+    }
+
+    @Test
+    public void downmixesStereo() throws IOException {
+        final PcmClip clip = WavDecoder.decode(
+                wav(2, 22050, 16, new short[] {100, 300, -200, -400}, false));
+        assertArrayEquals(new short[] {200, -300}, clip.samples);
+    }
+
+    @Test
+    public void skipsUnknownChunks() throws IOException {
+        final PcmClip clip = WavDecoder.decode(wav(1, 16000, 16, new short[] {5, 6}, true));
+        assertArrayEquals(new short[] {5, 6}, clip.samples);
+    }
+
+    @Test
+    public void unsizedDataRunsToEndOfFile() throws IOException {
+        final byte[] wav = wav(1, 16000, 16, new short[] {7, 8, 9}, false);
+        // Data size field is the last 4 bytes before the samples.
+        final int sizeOffset = wav.length - 3 * 2 - 4;
+        for (int i = 0; i < 4; ++i) {
+            wav[sizeOffset + i] = (byte) 0xFF;
+        }
+        assertArrayEquals(new short[] {7, 8, 9}, WavDecoder.decode(wav).samples);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsEightBitAudio() throws IOException {
+        WavDecoder.decode(wav(1, 8000, 8, new short[] {1}, false));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsNonWave() throws IOException {
+        WavDecoder.decode("not a wave file at all".getBytes("US-ASCII"));
+    }
+
+    private static byte[] wav(int channels, int rate, int bits, short[] samples, boolean extraChunk) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int dataSize = samples.length * 2;
+        writeTag(out, "RIFF");
+        writeInt(out, 0);
+        writeTag(out, "WAVE");
+        writeTag(out, "fmt ");
+        writeInt(out, 16);
+        writeShort(out, 1);
+        writeShort(out, channels);
+        writeInt(out, rate);
+        writeInt(out, rate * channels * bits / 8);
+        writeShort(out, channels * bits / 8);
+        writeShort(out, bits);
+        if (extraChunk) {
+            writeTag(out, "LIST");
+            writeInt(out, 3);
+            out.write(1);
+            out.write(2);
+            out.write(3);
+            out.write(0);
+        }
+        writeTag(out, "data");
+        writeInt(out, dataSize);
+        for (final short sample : samples) {
+            writeShort(out, sample);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeTag(ByteArrayOutputStream out, String tag) {
+        for (int i = 0; i < 4; ++i) {
+            out.write(tag.charAt(i));
+        }
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >> 8);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        writeShort(out, value);
+        writeShort(out, value >> 16);
+    }
+}
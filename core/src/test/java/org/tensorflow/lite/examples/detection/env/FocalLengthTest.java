@@ -0,0 +1,44 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FocalLengthTest {
+    @Test
+    public void sensorPixelsFromPhysicalSize() {
+        // 4.25 mm lens on a 5.6 mm wide, 4032 pixel sensor (1.39 um pixels).
+        assertEquals(3060, FocalLength.sensorPixels(4.25f, 5.6f, 4032), 1);
+    }
+
+    @Test
+    public void streamScalesByLargerRatio() {
+        // 4:3 active array to a 16:9 stream: the width fills, top and bottom are cropped.
+        assertEquals(3060 * 1280 / 4032f,
+                FocalLength.streamPixels(3060, 4032, 3024, 1280, 720), 0.01f);
+        // Same active array to a 4:3 stream scales uniformly.
+        assertEquals(3060 * 640 / 4032f,
+                FocalLength.streamPixels(3060, 4032, 3024, 640, 480), 0.01f);
+    }
+
+    @Test
+    public void matchesFieldOfView() {
+        // A 60 degree horizontal field of view over 640 pixels.
+        final float focal = FocalLength.fromFieldOfView(60, 640);
+        assertEquals(554.3f, focal, 0.1f);
+        final float sensorWidthMm = 2 * 4 * (float) Math.tan(Math.toRadians(30));
+        final float fromLens = FocalLength.streamPixels(
+                FocalLength.sensorPixels(4, sensorWidthMm, 4000), 4000, 3000, 640, 480);
+        assertEquals(focal, fromLens, 0.1f);
+    }
+
+    @Test
+    public void invalidCharacteristicsGiveNaN() {
+        assertTrue(Float.isNaN(FocalLength.sensorPixels(0, 5.6f, 4032)));
+        assertTrue(Float.isNaN(FocalLength.sensorPixels(4, Float.NaN, 4032)));
+        assertTrue(Float.isNaN(FocalLength.streamPixels(Float.NaN, 4032, 3024, 640, 480)));
+        assertTrue(Float.isNaN(FocalLength.streamPixels(3000, 0, 3024, 640, 480)));
+        assertTrue(Float.isNaN(FocalLength.fromFieldOfView(180, 640)));
+    }
+}
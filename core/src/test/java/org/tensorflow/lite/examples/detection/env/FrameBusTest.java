@@ -0,0 +1,119 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class FrameBusTest {
+    private static final long MS = 1_000_000L;
+
+    private final FrameBus bus = new FrameBus();
+    private final List<SharedFrame> recycled = new ArrayList<>();
+    private final SharedFrame frame = new SharedFrame(new SharedFrame.Recycler() {
+        @Override
+        public void recycle(SharedFrame frame) {
+            recycled.add(frame);
+        }
+    });
+
+    @Test
+    public void eachConsumerHasItsOwnRate() {
+        final Holder detector = new Holder();
+        final Holder reader = new Holder();
+        bus.subscribe("detector", detector, 0);
+        final FrameBus.Subscription text = bus.subscribe("text", reader, 100 * MS);
+        for (int i = 0; i < 10; ++i) {
+            set(i, i * 33 * MS);
+            bus.publish(frame);
+            detector.releaseAll();
+            reader.releaseAll();
+            frame.release();
+        }
+        assertEquals(10, detector.frames);
+        // 0, 132 and 264 ms, each at least 100 ms after the last delivery.
+        assertEquals(3, reader.frames);
+        assertEquals(3, text.getDelivered());
+        assertEquals(7, text.getSkipped());
+        assertEquals(10, recycled.size());
+    }
+
+    @Test
+    public void recycledOnlyAfterEveryHolderReleases() {
+        final Holder detector = new Holder();
+        final Holder reader = new Holder();
+        bus.subscribe("detector", detector, 0);
+        bus.subscribe("text", reader, 0);
+        set(1, 0);
+        assertEquals(2, bus.publish(frame));
+        assertEquals(3, frame.references());
+        frame.release();
+        detector.releaseAll();
+        assertEquals(0, recycled.size());
+        reader.releaseAll();
+        assertEquals(1, recycled.size());
+        assertSame(frame, recycled.get(0));
+    }
+
+    @Test
+    public void unsubscribedConsumersGetNothing() {
+        final Holder reader = new Holder();
+        final FrameBus.Subscription subscription = bus.subscribe("text", reader, 0);
+        bus.unsubscribe(subscription);
+        set(1, 0);
+        assertEquals(0, bus.publish(frame));
+        frame.release();
+        assertEquals(0, reader.frames);
+        assertEquals(1, recycled.size());
+    }
+
+    @Test
+    public void misuseIsCaught() {
+        set(1, 0);
+        try {
+            set(2, 0);
+            fail("set while in use");
+        } catch (IllegalStateException expected) {
+        }
+        frame.release();
+        try {
+            frame.release();
+            fail("released twice");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            frame.retain();
+            fail("retained after recycling");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(0, frame.references());
+        assertEquals(1, recycled.size());
+    }
+
+    private void set(long sequence, long timestampNanos) {
+        final ByteBuffer plane = ByteBuffer.allocate(16);
+        frame.set(sequence, timestampNanos, 4, 4, plane, plane, plane, 4, 4, 2);
+    }
+
+    private static final class Holder implements FrameBus.Consumer {
+        final List<SharedFrame> held = new ArrayList<>();
+        int frames;
+
+        @Override
+        public void onFrame(SharedFrame frame) {
+            held.add(frame);
+            ++frames;
+        }
+
+        void releaseAll() {
+            for (final SharedFrame frame : held) {
+                frame.release();
+            }
+            held.clear();
+        }
+    }
+}
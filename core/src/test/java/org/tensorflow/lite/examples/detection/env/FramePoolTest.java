@@ -0,0 +1,96 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class FramePoolTest {
+    private final List<SharedFrame> returned = new ArrayList<>();
+    private final FramePool.Listener listener = new FramePool.Listener() {
+        @Override
+        public void onReturned(SharedFrame frame) {
+            returned.add(frame);
+        }
+    };
+
+    @Test
+    public void framesComeBackWhenTheLastHolderReleases() {
+        final FramePool pool = FramePool.planar(2, 16, 8, 8, listener);
+        final SharedFrame first = pool.acquire();
+        first.set(1, 0, 4, 4, 4, 4, 2);
+        final SharedFrame second = pool.acquire();
+        second.set(2, 0, 4, 4, 4, 4, 2);
+        assertNotSame(first, second);
+        assertNull(pool.acquire());
+        assertEquals(0, pool.available());
+
+        first.retain();
+        first.release();
+        assertNull(pool.acquire());
+        first.release();
+        assertEquals(1, pool.available());
+        assertSame(first, returned.get(0));
+        assertSame(first, pool.acquire());
+    }
+
+    @Test
+    public void framesKeepTheirOwnPlanes() {
+        final FramePool pool = FramePool.planar(1, 16, 8, 7, null);
+        final SharedFrame frame = pool.acquire();
+        final byte[] y = frame.getStorage(0);
+        frame.getStorage(1)[3] = 42;
+        frame.set(1, 0, 4, 4, 4, 4, 2);
+        assertEquals(3, frame.getStorageCount());
+        assertEquals(42, frame.getU().get(3));
+        assertEquals(7, frame.getStorage(2).length);
+        frame.release();
+
+        final SharedFrame again = pool.acquire();
+        again.set(2, 0, 4, 4, 4, 4, 2);
+        assertSame(y, again.getStorage(0));
+        assertSame(y, again.getY().array());
+    }
+
+    @Test
+    public void wrappingFramesBoundTheBuffersHeld() {
+        final FramePool pool = FramePool.wrapping(2, listener);
+        final ByteBuffer plane = ByteBuffer.allocateDirect(16);
+        final SharedFrame first = pool.acquire();
+        first.set(1, 0, 4, 4, plane, plane, plane, 4, 4, 2);
+        assertEquals(0, first.getStorageCount());
+        assertSame(plane, first.getY());
+        pool.acquire().set(2, 0, 4, 4, plane, plane, plane, 4, 4, 2);
+        assertNull(pool.acquire());
+        assertNull(pool.acquire(new byte[16]));
+        assertEquals(1, pool.indexOf(pool.get(1)));
+        first.release();
+        assertSame(first, returned.get(0));
+        assertSame(first, pool.acquire());
+    }
+
+    @Test
+    public void nv21FramesAreFoundByTheirBuffer() {
+        final FramePool pool = FramePool.nv21(3, 4, 2, listener);
+        final byte[] image = pool.get(2).getStorage(0);
+        assertEquals(YuvConverter.getYUVByteSize(4, 2), image.length);
+        image[8] = 1; // V
+        image[9] = 2; // U
+
+        final SharedFrame frame = pool.acquire(image);
+        assertSame(pool.get(2), frame);
+        assertNull(pool.acquire(image));
+        assertNull(pool.acquire(new byte[image.length]));
+        frame.set(1, 0, 4, 2, 4, 4, 2);
+        assertEquals(1, frame.getV().get(0));
+        assertEquals(2, frame.getU().get(0));
+        frame.release();
+        assertSame(frame, returned.get(0));
+        assertEquals(3, pool.available());
+    }
+}
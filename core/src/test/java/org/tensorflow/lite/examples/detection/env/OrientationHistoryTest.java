@@ -0,0 +1,95 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class OrientationHistoryTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void interpolatesBetweenSamples() {
+        final OrientationHistory history = new OrientationHistory(8);
+        history.add(100 * MS, 0.1f, 0.0f);
+        history.add(110 * MS, 0.2f, 0.02f);
+        final float[] out = new float[2];
+        assertTrue(history.sample(107 * MS, out));
+        assertEquals(0.17f, out[0], 1e-5f);
+        assertEquals(0.014f, out[1], 1e-5f);
+    }
+
+    @Test
+    public void usesNearestSampleOutsideTheRing() {
+        final OrientationHistory history = new OrientationHistory(8);
+        history.add(100 * MS, 0.1f, 0);
+        history.add(110 * MS, 0.2f, 0);
+        final float[] out = new float[2];
+        assertTrue(history.sample(150 * MS, out));
+        assertEquals(0.2f, out[0], 0);
+        assertTrue(history.sample(90 * MS, out));
+        assertEquals(0.1f, out[0], 0);
+    }
+
+    @Test
+    public void refusesStaleOrMissingSamples() {
+        final OrientationHistory history = new OrientationHistory(8);
+        final float[] out = {7, 7};
+        assertFalse(history.sample(0, out));
+        history.add(100 * MS, 0.1f, 0);
+        assertFalse(history.sample(100 * MS + OrientationHistory.MAX_GAP_NANOS + 1, out));
+        assertEquals(7, out[0], 0);
+    }
+
+    @Test
+    public void forgetsSamplesOlderThanCapacity() {
+        final OrientationHistory history = new OrientationHistory(4);
+        for (int i = 0; i < 10; ++i) {
+            history.add(i * 10 * MS, i, 0);
+        }
+        final float[] out = new float[2];
+        // Samples 0-5 are overwritten; 15 ms is before the oldest kept sample but within the gap.
+        assertTrue(history.sample(15 * MS, out));
+        assertEquals(6, out[0], 0);
+        assertTrue(history.sample(75 * MS, out));
+        assertEquals(7.5f, out[0], 1e-5f);
+    }
+
+    @Test
+    public void readersNeverSeeTornSamples() throws Exception {
+        final OrientationHistory history = new OrientationHistory(16);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final AtomicLong written = new AtomicLong();
+        final Thread writer = new Thread(() -> {
+            for (long i = 1; i <= 2_000_000; ++i) {
+                // Roll always mirrors pitch, so a mix of two samples shows up as a mismatch.
+                history.add(i * MS, i, -i);
+                written.lazySet(i);
+            }
+            done.set(true);
+        });
+        final Thread reader = new Thread(() -> {
+            final float[] out = new float[2];
+            int lag = 0;
+            while (!done.get()) {
+                // Aim at samples the writer is about to overwrite as well as fresh ones.
+                lag = (lag + 1) % 20;
+                final long t = (written.get() - lag) * MS + MS / 3;
+                if (history.sample(t, out) && out[0] != -out[1]) {
+                    failure.set(out[0] + " / " + out[1]);
+                    return;
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+        assertEquals(null, failure.get());
+    }
+}
@@ -0,0 +1,54 @@
+package org.tensorflow.lite.examples.detection.env;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+public class YuvConverterTest {
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 6;
+    private static final int Y_ROW_STRIDE = 16;
+    private static final int UV_ROW_STRIDE = 16;
+
+    @Test
+    public void directPlanesConvertLikeArrays() {
+        final Random random = new Random(7);
+        final byte[] y = noise(random, Y_ROW_STRIDE * HEIGHT);
+        // Semi-planar chroma: pixel stride 2, V one byte behind U.
+        final byte[] uv = noise(random, UV_ROW_STRIDE * HEIGHT / 2 + 1);
+        final byte[] u = new byte[uv.length - 1];
+        final byte[] v = new byte[uv.length - 1];
+        System.arraycopy(uv, 0, u, 0, u.length);
+        System.arraycopy(uv, 1, v, 0, v.length);
+        final int[] expected = new int[WIDTH * HEIGHT];
+        YuvConverter.convertYUV420ToARGB8888(
+                y, u, v, WIDTH, HEIGHT, Y_ROW_STRIDE, UV_ROW_STRIDE, 2, expected);
+
+        final ByteBuffer directUv = direct(uv);
+        final ByteBuffer directY = direct(y);
+        // A shared buffer may be positioned anywhere; only absolute reads are allowed.
+        directY.position(5);
+        final ByteBuffer directU = directUv.duplicate();
+        directUv.position(1);
+        final ByteBuffer directV = directUv.slice();
+        final int[] actual = new int[WIDTH * HEIGHT];
+        YuvConverter.convertYUV420ToARGB8888(
+                directY, directU, directV, WIDTH, HEIGHT, Y_ROW_STRIDE, UV_ROW_STRIDE, 2, actual);
+        assertArrayEquals(expected, actual);
+    }
+
+    private static byte[] noise(Random random, int size) {
+        final byte[] data = new byte[size];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static ByteBuffer direct(byte[] data) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+        buffer.put(data);
+        buffer.rewind();
+        return buffer;
+    }
+}
@@ -0,0 +1,143 @@
+package org.tensorflow.lite.examples.detection.haptic;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+import org.tensorflow.lite.examples.detection.tracking.Announceable;
+
+public class HapticEncoderTest {
+    private final HapticEncoder encoder = new HapticEncoder();
+
+    @Test
+    public void closerObstaclesPulseFasterAndHarder() {
+        assertTrue(encoder.update(0.3f, 0));
+        assertEquals(HapticEncoder.MIN_PERIOD_MS, encoder.getPeriodMs());
+        assertEquals(HapticEncoder.MAX_AMPLITUDE, encoder.getAmplitude());
+
+        assertTrue(encoder.update(HapticEncoder.MAX_DISTANCE, 1000));
+        assertEquals(HapticEncoder.MAX_PERIOD_MS, encoder.getPeriodMs());
+        assertEquals(HapticEncoder.MIN_AMPLITUDE, encoder.getAmplitude());
+
+        // Logarithmic: 2 m is two doublings of the three from 0.5 m to 4 m.
+        assertTrue(encoder.update(2, 2000));
+        assertEquals(700, encoder.getPeriodMs());
+    }
+
+    @Test
+    public void turnsOffOutOfRange() {
+        encoder.update(1, 0);
+        assertTrue(encoder.update(HapticEncoder.MAX_DISTANCE + 0.5f, 1000));
+        assertFalse(encoder.isOn());
+        assertFalse(encoder.update(Float.NaN, 2000));
+        assertEquals(0, encoder.getAmplitude());
+    }
+
+    @Test
+    public void smallChangesAreIgnored() {
+        encoder.update(2, 0);
+        final long period = encoder.getPeriodMs();
+        assertFalse(encoder.update(2.02f, 1000));
+        assertEquals(period, encoder.getPeriodMs());
+    }
+
+    @Test
+    public void changesAreRateLimitedAndCoalesced() {
+        assertTrue(encoder.update(3, 0));
+        assertFalse(encoder.update(2, 100));
+        assertFalse(encoder.update(1, 200));
+        // The first update after the interval sends the latest distance, not the ones in between.
+        assertTrue(encoder.update(1, HapticEncoder.MIN_UPDATE_MS));
+        assertEquals(HapticEncoder.period(1), encoder.getPeriodMs());
+    }
+
+    @Test
+    public void resetAllowsImmediateRestart() {
+        encoder.update(1, 0);
+        encoder.reset();
+        assertFalse(encoder.isOn());
+        assertTrue(encoder.update(1, 10));
+    }
+
+    @Test
+    public void fillsOneCycleOfWaveform() {
+        encoder.update(0.5f, 0);
+        final long[] timings = new long[2];
+        final int[] amplitudes = new int[2];
+        encoder.fillWaveform(timings, amplitudes);
+        assertArrayEquals(new long[] {HapticEncoder.PULSE_MS,
+                HapticEncoder.MIN_PERIOD_MS - HapticEncoder.PULSE_MS}, timings);
+        assertArrayEquals(new int[] {HapticEncoder.MAX_AMPLITUDE, 0}, amplitudes);
+    }
+
+    @Test
+    public void nearestObstacleSkipsHarmlessAndUncertainResults() throws IOException {
+        final ClassMetadata classes = ClassMetadata.load(Arrays.asList("chair", "cup"),
+                new StringReader("name\taliases\theight\tpriority\thazard\tground\n"
+                        + "chair\t-\t0.9\t1\tobstacle\ty\n"
+                        + "cup\t-\t0.1\t0\tnone\tn\n"));
+        final Result cup = new Result(1, 0.5f, 0.9f);
+        final Result unsure = new Result(0, 1f, 0.2f);
+        final Result chair = new Result(0, 2.5f, 0.9f);
+        final Result farChair = new Result(0, 3f, 0.9f);
+        final Result unknown = new Result(0, null, 0.9f);
+        assertEquals(2.5f, HapticEncoder.nearestObstacle(
+                Arrays.asList(cup, unsure, farChair, chair, unknown), classes, 0.5f), 0);
+        assertTrue(Float.isNaN(HapticEncoder.nearestObstacle(
+                Collections.singletonList(cup), classes, 0.5f)));
+    }
+
+    private static final class Result implements Announceable {
+        final int cls;
+        final Float distance;
+        final float confidence;
+
+        Result(int cls, Float distance, float confidence) {
+            this.cls = cls;
+            this.distance = distance;
+            this.confidence = confidence;
+        }
+
+        @Override
+        public String getTitle() {
+            return "object";
+        }
+
+        @Override
+        public int getDetectedClass() {
+            return cls;
+        }
+
+        @Override
+        public Float getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public Float getDistance() {
+            return distance;
+        }
+
+        @Override
+        public int getTrackId() {
+            return 0;
+        }
+
+        @Override
+        public float getApproachRate() {
+            return 0;
+        }
+
+        @Override
+        public float getTimeToCollision() {
+            return Float.POSITIVE_INFINITY;
+        }
+    }
+}
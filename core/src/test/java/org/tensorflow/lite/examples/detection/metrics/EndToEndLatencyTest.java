@@ -0,0 +1,72 @@
+package org.tensorflow.lite.examples.detection.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class EndToEndLatencyTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void pairsAnnouncementWithSpeechStart() {
+        final EndToEndLatency latency = new EndToEndLatency();
+        final List<Long> samples = new ArrayList<>();
+        latency.setListener((frameTimestamp, nanos) -> samples.add(nanos));
+
+        latency.announced("OBJECT", 1000 * MS);
+        latency.speechStarted("PROMPT_IDLE", 1100 * MS);
+        latency.speechStarted("OBJECT", 1250 * MS);
+        latency.speechStarted("OBJECT", 1300 * MS);
+
+        assertEquals(1, samples.size());
+        assertEquals(250 * MS, (long) samples.get(0));
+        assertEquals(1, latency.getHistogram().getCount());
+    }
+
+    @Test
+    public void flushedAnnouncementIsReplacedByTheNextOne() {
+        final EndToEndLatency latency = new EndToEndLatency();
+        latency.announced("OBJECT", 1000 * MS);
+        latency.announced("OBJECT", 1400 * MS);
+        latency.speechStarted("OBJECT", 1500 * MS);
+
+        final EndToEndLatency.Snapshot snapshot = latency.snapshot();
+        assertEquals(1, snapshot.count);
+        assertEquals(100 * MS, snapshot.max);
+    }
+
+    @Test
+    public void snapshotCoversOnlyTheRollingWindow() {
+        final EndToEndLatency latency = new EndToEndLatency();
+        for (int i = 0; i < EndToEndLatency.WINDOW; ++i) {
+            latency.record(i, 1000 * MS);
+        }
+        for (int i = 1; i <= EndToEndLatency.WINDOW; ++i) {
+            latency.record(i, i * MS);
+        }
+        final EndToEndLatency.Snapshot snapshot = latency.snapshot();
+        assertEquals(EndToEndLatency.WINDOW, snapshot.count);
+        assertEquals(64 * MS, snapshot.p50);
+        assertEquals(EndToEndLatency.WINDOW * MS, snapshot.max);
+        assertEquals(2 * EndToEndLatency.WINDOW, latency.getHistogram().getCount());
+    }
+
+    @Test
+    public void exportWritesOldestFirst() throws IOException {
+        final EndToEndLatency latency = new EndToEndLatency();
+        for (int i = 0; i < EndToEndLatency.WINDOW + 2; ++i) {
+            latency.record(i, 10 + i);
+        }
+        final StringBuilder out = new StringBuilder();
+        latency.export(out);
+        final String[] lines = out.toString().split("\n");
+        assertEquals(EndToEndLatency.WINDOW + 1, lines.length);
+        assertEquals("frame_timestamp_ns,latency_ns", lines[0]);
+        assertEquals("2,12", lines[1]);
+        assertEquals((EndToEndLatency.WINDOW + 1) + "," + (EndToEndLatency.WINDOW + 11),
+                lines[lines.length - 1]);
+    }
+}
@@ -0,0 +1,64 @@
+package org.tensorflow.lite.examples.detection.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+
+public class FrameTraceTest {
+    private final List<String> events = new ArrayList<>();
+
+    @After
+    public void uninstall() {
+        FrameTrace.install(null);
+    }
+
+    @Test
+    public void noOpBackendRunsWithoutInstall() {
+        final PipelineStats stats = new PipelineStats();
+        stats.setEnabled(true);
+        FrameTrace.beginFrame(1);
+        stats.end(PipelineStats.Stage.INFERENCE, stats.begin(PipelineStats.Stage.INFERENCE));
+        FrameTrace.endFrame(1);
+        assertEquals(1, stats.getHistogram(PipelineStats.Stage.INFERENCE).getCount());
+    }
+
+    @Test
+    public void stageSectionsAreBalancedEvenWhenStatsAreDisabled() {
+        FrameTrace.install(new RecordingBackend());
+        final PipelineStats stats = new PipelineStats();
+
+        FrameTrace.beginFrame(7);
+        final long start = stats.begin(PipelineStats.Stage.DECODE);
+        stats.end(PipelineStats.Stage.DECODE, start);
+        FrameTrace.endFrame(7);
+
+        assertEquals(Arrays.asList("async+ frame 7", "+ decode", "-", "async- frame 7"), events);
+        assertEquals(0, stats.getHistogram(PipelineStats.Stage.DECODE).getCount());
+    }
+
+    private final class RecordingBackend implements FrameTrace.Backend {
+        @Override
+        public void beginSection(String name) {
+            events.add("+ " + name);
+        }
+
+        @Override
+        public void endSection() {
+            events.add("-");
+        }
+
+        @Override
+        public void beginAsyncSection(String name, int cookie) {
+            events.add("async+ " + name + " " + cookie);
+        }
+
+        @Override
+        public void endAsyncSection(String name, int cookie) {
+            events.add("async- " + name + " " + cookie);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.tensorflow.lite.examples.detection.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void emptyHistogramReportsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(0, histogram.getMeanNanos(), 0);
+    }
+
+    @Test
+    public void percentilesAreWithinBucketResolution() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ++ms) {
+            histogram.record(ms * 1_000_000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMaxNanos());
+        assertNear(50_000_000L, histogram.getPercentileNanos(50));
+        assertNear(95_000_000L, histogram.getPercentileNanos(95));
+        assertNear(99_000_000L, histogram.getPercentileNanos(99));
+        assertNear(100_000_000L, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void bucketsCoverTheWholeRange() {
+        long previous = -1;
+        for (long nanos = 1; nanos < (1L << 40); nanos = nanos * 3 / 2 + 1) {
+            final int bucket = LatencyHistogram.bucketFor(nanos);
+            assertTrue(bucket >= previous);
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void disabledStatsRecordNothing() {
+        final PipelineStats stats = new PipelineStats();
+        final long start = stats.start();
+        stats.record(PipelineStats.Stage.INFERENCE, start);
+        stats.recordNanos(PipelineStats.Stage.NMS, 1000);
+        assertEquals(0, start);
+        assertEquals(0, stats.getHistogram(PipelineStats.Stage.INFERENCE).getCount());
+        assertEquals(0, stats.getHistogram(PipelineStats.Stage.NMS).getCount());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 16);
+    }
+}
@@ -0,0 +1,133 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class FrameStabilityGateTest {
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+
+    private final FrameStabilityGate gate = new FrameStabilityGate();
+
+    @Test
+    public void steadySharpFramesPass() {
+        final byte[] page = page(0);
+        assertFalse(gate.accept(page, 0, WIDTH, HEIGHT, WIDTH));
+        assertTrue(gate.accept(page, 0, WIDTH, HEIGHT, WIDTH));
+        assertEquals(0, gate.getMotion(), 0);
+        assertTrue(gate.getSharpness() > FrameStabilityGate.MIN_SHARPNESS);
+    }
+
+    @Test
+    public void movingFramesAreRejected() {
+        gate.accept(page(0), 0, WIDTH, HEIGHT, WIDTH);
+        assertFalse(gate.accept(page(12), 0, WIDTH, HEIGHT, WIDTH));
+        assertTrue(gate.getMotion() > FrameStabilityGate.MAX_MOTION);
+    }
+
+    @Test
+    public void blurredFramesAreRejectedAfterSharpOnes() {
+        final byte[] sharp = page(0);
+        final byte[] blurred = blur(sharp, 6);
+        gate.accept(sharp, 0, WIDTH, HEIGHT, WIDTH);
+        gate.accept(sharp, 0, WIDTH, HEIGHT, WIDTH);
+        gate.accept(blurred, 0, WIDTH, HEIGHT, WIDTH);
+        // Steady, but far below the recent peak.
+        assertFalse(gate.accept(blurred, 0, WIDTH, HEIGHT, WIDTH));
+        assertTrue(gate.getMotion() <= FrameStabilityGate.MAX_MOTION);
+    }
+
+    @Test
+    public void blankFramesAreRejected() {
+        final byte[] wall = new byte[WIDTH * HEIGHT];
+        Arrays.fill(wall, (byte) 128);
+        gate.accept(wall, 0, WIDTH, HEIGHT, WIDTH);
+        assertFalse(gate.accept(wall, 0, WIDTH, HEIGHT, WIDTH));
+    }
+
+    @Test
+    public void peakDecaysSoSofterScenesEventuallyPass() {
+        final byte[] sharp = page(0);
+        final byte[] softer = blur(sharp, 1);
+        gate.accept(sharp, 0, WIDTH, HEIGHT, WIDTH);
+        boolean passed = false;
+        for (int i = 0; i < 100 && !passed; ++i) {
+            passed = gate.accept(softer, 0, WIDTH, HEIGHT, WIDTH);
+        }
+        assertTrue(passed);
+    }
+
+    @Test
+    public void honoursRowStrideAndBuffers() {
+        final int stride = WIDTH + 64;
+        final byte[] page = page(0);
+        final byte[] padded = new byte[16 + stride * HEIGHT];
+        for (int y = 0; y < HEIGHT; ++y) {
+            System.arraycopy(page, y * WIDTH, padded, 16 + y * stride, WIDTH);
+        }
+        gate.accept(page, 0, WIDTH, HEIGHT, WIDTH);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(padded.length);
+        buffer.put(padded);
+        buffer.position(16);
+        assertTrue(gate.accept(buffer, WIDTH, HEIGHT, stride));
+        assertEquals(0, gate.getMotion(), 0);
+    }
+
+    @Test
+    public void reportsPassRate() {
+        assertEquals(0, gate.passRate(), 0);
+        final byte[] page = page(0);
+        for (int i = 0; i < 4; ++i) {
+            gate.accept(page, 0, WIDTH, HEIGHT, WIDTH);
+        }
+        assertEquals(0.75f, gate.passRate(), 0);
+        assertEquals(4, gate.frames());
+        gate.resetStats();
+        assertEquals(0, gate.frames());
+    }
+
+    /** Black-on-white blocks like printed glyphs, scrolled {@code shift} pixels to the left. */
+    private static byte[] page(int shift) {
+        final Random random = new Random(3);
+        final boolean[][] ink = new boolean[HEIGHT / 4 + 1][WIDTH / 4 + 8];
+        for (final boolean[] row : ink) {
+            for (int x = 0; x < row.length; ++x) {
+                row[x] = random.nextInt(3) == 0;
+            }
+        }
+        final byte[] luma = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                luma[y * WIDTH + x] = (byte) (ink[y / 4][(x + shift) / 4] ? 20 : 230);
+            }
+        }
+        return luma;
+    }
+
+    /** Box blur with the given radius, clamped at the edges. */
+    private static byte[] blur(byte[] luma, int radius) {
+        final byte[] out = new byte[luma.length];
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                int sum = 0;
+                int count = 0;
+                for (int dy = -radius; dy <= radius; ++dy) {
+                    for (int dx = -radius; dx <= radius; ++dx) {
+                        final int sx = Math.max(0, Math.min(WIDTH - 1, x + dx));
+                        final int sy = Math.max(0, Math.min(HEIGHT - 1, y + dy));
+                        sum += luma[sy * WIDTH + sx] & 0xFF;
+                        ++count;
+                    }
+                }
+                out[y * WIDTH + x] = (byte) (sum / count);
+            }
+        }
+        return out;
+    }
+}
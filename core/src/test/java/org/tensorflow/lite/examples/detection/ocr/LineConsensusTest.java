@@ -0,0 +1,108 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class LineConsensusTest {
+    private static final float[] TOP = {10, 10, 200, 40};
+    private static final float[] BOTTOM = {10, 100, 200, 130};
+
+    private final LineConsensus consensus = new LineConsensus(8, 5, 3);
+
+    @Test
+    public void lineIsEmittedOnceItSettles() {
+        assertTrue(frame("Platform 3", TOP).isEmpty());
+        assertTrue(frame("Platform 3", TOP).isEmpty());
+        assertEquals(Collections.singletonList("Platform 3"), frame("Platform 3", TOP));
+        assertTrue(frame("Platform 3", TOP).isEmpty());
+    }
+
+    @Test
+    public void flickeringReadingsVoteForTheMajority() {
+        assertTrue(frame("Next traln 10:42", TOP).isEmpty());
+        assertTrue(frame("Next train 10:42", shifted(TOP, 3)).isEmpty());
+        // Both misreadings are one edit from the true reading but two from each other.
+        assertEquals(Collections.singletonList("Next train 10:42"), frame("Next train 1O:42", TOP));
+        assertEquals(1, consensus.size());
+    }
+
+    @Test
+    public void linesAreAlignedByPosition() {
+        final List<String> lines = Arrays.asList("Exit", "Exit");
+        final float[] boxes = concat(TOP, BOTTOM);
+        consensus.update(lines, boxes);
+        consensus.update(lines, boxes);
+        assertEquals(lines, consensus.update(lines, boxes));
+        assertEquals(2, consensus.size());
+    }
+
+    @Test
+    public void differentTextAtTheSamePlaceIsANewLine() {
+        frame("Arrivals", TOP);
+        frame("Arrivals", TOP);
+        frame("Arrivals", TOP);
+        assertTrue(frame("Departures", TOP).isEmpty());
+        assertEquals(2, consensus.size());
+    }
+
+    @Test
+    public void emptyBoxesAlignByText() {
+        final float[] none = new float[4];
+        frame("Keep left", none);
+        frame("Keep left", none);
+        assertEquals(Collections.singletonList("Keep left"), frame("Keep left", none));
+    }
+
+    @Test
+    public void lineThatLeavesIsVotedOnAgain() {
+        for (int i = 0; i < 3; ++i) {
+            frame("Gate A", TOP);
+        }
+        for (int i = 0; i < 5; ++i) {
+            consensus.update(Collections.<String>emptyList(), new float[0]);
+        }
+        assertEquals(0, consensus.size());
+        frame("Gate A", TOP);
+        frame("Gate A", TOP);
+        assertEquals(Collections.singletonList("Gate A"), frame("Gate A", TOP));
+    }
+
+    @Test
+    public void oldestSlotIsReusedWhenFull() {
+        final LineConsensus small = new LineConsensus(2, 3, 1);
+        small.update(Collections.singletonList("one"), TOP);
+        small.update(Collections.singletonList("two"), BOTTOM);
+        assertEquals(Collections.singletonList("three"),
+                small.update(Collections.singletonList("three"), shifted(BOTTOM, 200)));
+        assertEquals(2, small.size());
+    }
+
+    @Test
+    public void overlapAndEditDistance() {
+        assertEquals(1f, LineConsensus.overlap(TOP, 0, TOP, 0), 1e-6f);
+        assertEquals(0f, LineConsensus.overlap(TOP, 0, BOTTOM, 0), 0);
+        assertEquals(1f / 3, LineConsensus.overlap(new float[] {0, 0, 2, 1}, 0, new float[] {1, 0, 3, 1}, 0), 1e-6f);
+        assertEquals(0, consensus.editDistance("Exit", "EXIT"));
+        assertEquals(3, consensus.editDistance("kitten", "sitting"));
+        assertEquals(4, consensus.editDistance("", "gate"));
+    }
+
+    private List<String> frame(String line, float[] box) {
+        return consensus.update(Collections.singletonList(line), box);
+    }
+
+    private static float[] shifted(float[] box, float dy) {
+        return new float[] {box[0], box[1] + dy, box[2], box[3] + dy};
+    }
+
+    private static float[] concat(float[] a, float[] b) {
+        final float[] both = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, both, a.length, b.length);
+        return both;
+    }
+}
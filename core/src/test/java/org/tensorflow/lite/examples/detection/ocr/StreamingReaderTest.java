@@ -0,0 +1,177 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class StreamingReaderTest {
+    private static final String PAGE = "One. Two! Three? Four. Five. Six.";
+
+    private final FakeSpeaker speaker = new FakeSpeaker();
+    private final StreamingReader reader = new StreamingReader(speaker);
+
+    @Test
+    public void splitsAtSentenceEnds() {
+        assertEquals(Arrays.asList("Next train 10.42 to London.", "Mind the gap!", "Thanks"),
+                StreamingReader.split("  Next train 10.42 to London. Mind the gap!\nThanks ", 160));
+        assertTrue(StreamingReader.split(" \n ", 160).isEmpty());
+    }
+
+    @Test
+    public void longSentencesBreakAtClausesThenSpaces() {
+        assertEquals(Arrays.asList("aaaa bbbb,", "cccc dddd"), StreamingReader.split("aaaa bbbb, cccc dddd", 12));
+        assertEquals(Arrays.asList("aaaa bbbb", "cccc dddd"), StreamingReader.split("aaaa bbbb cccc dddd", 12));
+        assertEquals(Arrays.asList("aaaaaaaa", "aaaa"), StreamingReader.split("aaaaaaaaaaaa", 8));
+    }
+
+    @Test
+    public void queuesOnlyALookahead() {
+        reader.append(PAGE, false, 0);
+        assertEquals(Arrays.asList("One.", "Two!", "Three?"), speaker.texts);
+        speaker.finishNext(reader);
+        assertEquals("Four.", speaker.texts.get(3));
+        assertEquals(5, reader.remaining());
+        assertTrue(reader.isReading());
+    }
+
+    @Test
+    public void readsToTheEndAcrossAppends() {
+        reader.append("One.", false, 0);
+        speaker.finishNext(reader);
+        assertFalse(reader.isReading());
+        reader.append("Two.", true, 10);
+        assertEquals(Arrays.asList("One.", "Two."), speaker.texts);
+        assertTrue(speaker.sectionEnds.get(1));
+        speaker.finishNext(reader);
+        assertEquals(0, reader.remaining());
+    }
+
+    @Test
+    public void pauseAndResumeRereadTheInterruptedSentence() {
+        reader.append(PAGE, false, 0);
+        speaker.finishNext(reader);
+        reader.pause();
+        assertTrue(reader.isPaused());
+        assertFalse(reader.isReading());
+        assertEquals(1, speaker.stops);
+        // A late completion for flushed speech does not move the position.
+        reader.onUtteranceDone(speaker.ids.get(1));
+        speaker.reset();
+        reader.append("Seven.", false, 0);
+        assertTrue(speaker.texts.isEmpty());
+        reader.resume(0);
+        assertEquals(Arrays.asList("Two!", "Three?", "Four."), speaker.texts);
+    }
+
+    @Test
+    public void skipMovesToTheNextSentence() {
+        reader.append(PAGE, false, 0);
+        speaker.reset();
+        reader.skip(0);
+        assertEquals(Arrays.asList("Two!", "Three?", "Four."), speaker.texts);
+    }
+
+    @Test
+    public void repeatRestartsOrRereadsTheLastSentence() {
+        reader.append(PAGE, false, 0);
+        speaker.reset();
+        reader.repeat(0);
+        assertEquals("One.", speaker.texts.get(0));
+
+        speaker.reset();
+        final StreamingReader idle = new StreamingReader(speaker);
+        idle.append("Only.", false, 0);
+        speaker.finishNext(idle);
+        speaker.reset();
+        idle.repeat(0);
+        assertEquals(Arrays.asList("Only."), speaker.texts);
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        reader.append(PAGE, false, 0);
+        reader.clear();
+        assertEquals(0, reader.remaining());
+        speaker.reset();
+        reader.repeat(0);
+        assertTrue(speaker.texts.isEmpty());
+    }
+
+    @Test
+    public void recordsTimeToFirstWord() {
+        reader.append(PAGE, false, 100);
+        reader.onUtteranceStart(speaker.ids.get(0), 350);
+        reader.onUtteranceStart(speaker.ids.get(1), 900);
+        assertEquals(1, reader.getTimeToFirstWord().getCount());
+        assertEquals(250_000_000L, reader.getTimeToFirstWord().getMaxNanos());
+        // Nothing is due while speech is already playing.
+        reader.append("More.", false, 1000);
+        reader.onUtteranceStart(speaker.ids.get(2), 1100);
+        assertEquals(1, reader.getTimeToFirstWord().getCount());
+    }
+
+    @Test
+    public void ignoresForeignUtterances() {
+        reader.append(PAGE, false, 0);
+        reader.onUtteranceDone("OCR_LINE");
+        reader.onUtteranceDone(StreamingReader.UTTERANCE_PREFIX + "x:y");
+        assertEquals(6, reader.remaining());
+        assertFalse(StreamingReader.isReaderUtterance(null));
+    }
+
+    @Test
+    public void oldSentencesAreForgotten() {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < StreamingReader.HISTORY + 10; ++i) {
+            text.append("Sentence ").append(i).append(". ");
+        }
+        reader.append(text.toString(), false, 0);
+        for (int i = 0; i < StreamingReader.HISTORY + 10; ++i) {
+            speaker.finishNext(reader);
+        }
+        assertEquals(0, reader.remaining());
+        for (int i = 0; i < StreamingReader.HISTORY + 5; ++i) {
+            reader.repeat(0);
+            reader.pause();
+        }
+        speaker.reset();
+        reader.resume(0);
+        assertEquals("Sentence 10.", speaker.texts.get(0));
+    }
+
+    private static final class FakeSpeaker implements StreamingReader.Speaker {
+        final List<String> texts = new ArrayList<>();
+        final List<String> ids = new ArrayList<>();
+        final List<Boolean> sectionEnds = new ArrayList<>();
+        int stops;
+        int finished;
+
+        @Override
+        public void speak(String text, String utteranceId, boolean endOfSection) {
+            texts.add(text);
+            ids.add(utteranceId);
+            sectionEnds.add(endOfSection);
+        }
+
+        @Override
+        public void stop() {
+            ++stops;
+        }
+
+        void finishNext(StreamingReader reader) {
+            reader.onUtteranceDone(ids.get(finished++));
+        }
+
+        void reset() {
+            texts.clear();
+            ids.clear();
+            sectionEnds.clear();
+            finished = 0;
+        }
+    }
+}
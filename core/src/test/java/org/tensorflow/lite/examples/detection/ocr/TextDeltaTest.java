@@ -0,0 +1,80 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class TextDeltaTest {
+    private final TextDelta delta = new TextDelta(64);
+
+    @Test
+    public void readsEachLineOnce() {
+        final List<String> page = Arrays.asList("Chapter One", "It was a bright cold day", "in April.");
+        assertEquals(page, delta.newLines(page));
+        assertTrue(delta.newLines(page).isEmpty());
+    }
+
+    @Test
+    public void onlyTheChangedLineIsRead() {
+        delta.newLines(Arrays.asList("Platform 3", "Departures to London", "Next train 10:42"));
+        assertEquals(Collections.singletonList("Next train 10:57"),
+                delta.newLines(Arrays.asList("Platform 3", "Departures to London", "Next train 10:57")));
+    }
+
+    @Test
+    public void changesPastTheFirstCharactersAreNoticed() {
+        delta.newLines(Collections.singletonList("Opening hours: 9 to 5"));
+        assertEquals(Collections.singletonList("Opening hours: 9 to 6"),
+                delta.newLines(Collections.singletonList("Opening hours: 9 to 6")));
+    }
+
+    @Test
+    public void punctuationCaseAndSpacingDoNotMakeALineNew() {
+        delta.newLines(Collections.singletonList("Keep Left"));
+        assertTrue(delta.newLines(Arrays.asList("keep  left.", "KEEP-LEFT")).isEmpty());
+    }
+
+    @Test
+    public void slightMisreadingsOfLongLinesAreSkipped() {
+        delta.newLines(Collections.singletonList("Please keep your ticket until the end of the journey"));
+        assertTrue(delta.newLines(Collections.singletonList(
+                "Please keep your ticket untl the end of the journey")).isEmpty());
+        // A line cut off at the edge of the frame is part of one already read.
+        assertTrue(delta.newLines(Collections.singletonList("keep your ticket until")).isEmpty());
+    }
+
+    @Test
+    public void mostlyNewLineIsRead() {
+        delta.newLines(Collections.singletonList("Gate A"));
+        assertEquals(Collections.singletonList("Gate A closes at noon today"),
+                delta.newLines(Collections.singletonList("Gate A closes at noon today")));
+    }
+
+    @Test
+    public void noiseIsIgnored() {
+        assertTrue(delta.newLines(Arrays.asList("", " . ", "|", "a")).isEmpty());
+    }
+
+    @Test
+    public void forgetsOldLinesAndCanBeCleared() {
+        final TextDelta small = new TextDelta(2);
+        small.newLines(Collections.singletonList("first line"));
+        small.clear();
+        assertEquals(Collections.singletonList("first line"),
+                small.newLines(Collections.singletonList("first line")));
+    }
+
+    @Test
+    public void tokensAndFingerprints() {
+        assertArrayEquals(new String[] {"next", "train", "10", "42"}, TextDelta.tokens(" Next train: 10:42 "));
+        assertEquals(TextDelta.fingerprint(TextDelta.tokens("a bc")), TextDelta.fingerprint(TextDelta.tokens("A, bc!")));
+        assertNotEquals(TextDelta.fingerprint(TextDelta.tokens("ab c")), TextDelta.fingerprint(TextDelta.tokens("a bc")));
+        assertEquals(3, delta.commonTokens(TextDelta.tokens("a b c d"), TextDelta.tokens("a x c d")));
+    }
+}
@@ -0,0 +1,75 @@
+package org.tensorflow.lite.examples.detection.ocr;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+public class TextLayoutTest {
+
+    @Test
+    public void twoColumnMenuIsReadColumnByColumn() {
+        // Recognizer order interleaves the columns row by row.
+        final float[] boxes = {
+            10, 10, 290, 50,    // 0: MENU, spanning title
+            10, 70, 120, 90,    // 1: left column, row 1
+            160, 70, 290, 90,   // 2: right column, row 1
+            160, 95, 290, 115,  // 3: right column, row 2
+            10, 95, 120, 115,   // 4: left column, row 2
+        };
+        final List<TextLayout.Block> blocks = TextLayout.arrange(boxes, 5);
+        assertEquals(3, blocks.size());
+        assertTrue(blocks.get(0).heading);
+        assertArrayEquals(new int[] {0}, blocks.get(0).lines);
+        assertArrayEquals(new int[] {1, 4}, blocks.get(1).lines);
+        assertEquals(0, blocks.get(1).column);
+        assertFalse(blocks.get(1).heading);
+        assertArrayEquals(new int[] {2, 3}, blocks.get(2).lines);
+        assertEquals(1, blocks.get(2).column);
+    }
+
+    @Test
+    public void gapsAndHeadingsStartNewBlocks() {
+        final float[] boxes = {
+            10, 200, 100, 220,  // 0: second paragraph
+            10, 10, 100, 40,    // 1: heading
+            10, 50, 100, 70,    // 2: first paragraph
+            10, 75, 90, 95,     // 3: first paragraph
+        };
+        final List<TextLayout.Block> blocks = TextLayout.arrange(boxes, 4);
+        assertEquals(3, blocks.size());
+        assertTrue(blocks.get(0).heading);
+        assertArrayEquals(new int[] {1}, blocks.get(0).lines);
+        assertArrayEquals(new int[] {2, 3}, blocks.get(1).lines);
+        assertArrayEquals(new int[] {0}, blocks.get(2).lines);
+    }
+
+    @Test
+    public void bandsBelowASpanningLineAreSeparate() {
+        final float[] boxes = {
+            10, 10, 100, 30,    // 0: left, above
+            200, 10, 300, 30,   // 1: right, above
+            10, 50, 300, 70,    // 2: spanning
+            200, 90, 300, 110,  // 3: right, below
+            10, 90, 100, 110,   // 4: left, below
+        };
+        final List<TextLayout.Block> blocks = TextLayout.arrange(boxes, 5);
+        assertEquals(5, blocks.size());
+        final int[] order = new int[5];
+        for (int i = 0; i < 5; ++i) {
+            order[i] = blocks.get(i).lines[0];
+        }
+        assertArrayEquals(new int[] {0, 1, 2, 4, 3}, order);
+    }
+
+    @Test
+    public void emptyAndSingleLine() {
+        assertTrue(TextLayout.arrange(new float[0], 0).isEmpty());
+        final List<TextLayout.Block> blocks = TextLayout.arrange(new float[] {0, 0, 50, 10}, 1);
+        assertEquals(1, blocks.size());
+        assertFalse(blocks.get(0).heading);
+    }
+}
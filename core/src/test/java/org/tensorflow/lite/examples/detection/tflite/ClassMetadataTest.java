@@ -0,0 +1,77 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class ClassMetadataTest {
+    private static final String METADATA = ""
+            + "# comment\n"
+            + "name\taliases\theight\tpriority\thazard\tground\thi\tte\n"
+            + "person\t-\t1.7\t2\tobstacle\ty\t\u0935\u094d\u092f\u0915\u094d\u0924\u093f\t\u0c35\u0c4d\u0c2f\u0c15\u0c4d\u0c24\u0c3f\n"
+            + "motorcycle\tmotorbike\t1.0\t3\tvehicle\ty\t\u092e\u094b\u091f\u0930\u0938\u093e\u0907\u0915\u093f\u0932\t-\n"
+            + "dining table\tdiningtable\t0.75\t2\tobstacle\ty\t-\t-\n"
+            + "tv\ttvmonitor\t0.6\t0\tnone\tn\t\u091f\u0940\u0935\u0940\t\u0c1f\u0c40\u0c35\u0c40\n"
+            + "knife\t-\t-\t1\tsharp\tn\n";
+
+    @Test
+    public void joinsLabelsWithMetadataByIndex() throws IOException {
+        final ClassMetadata table = load("person\nmotorbike\n\nknife\nunicorn\n");
+        assertEquals(4, table.size());
+        assertEquals("motorbike", table.label(1));
+        assertEquals(1.7f, table.realHeight(0), 0);
+        assertEquals(1.0f, table.realHeight(1), 0);
+        assertEquals(3, table.priority(1));
+        assertEquals(ClassMetadata.Hazard.VEHICLE, table.hazard(1));
+        assertTrue(table.isOnGround(0));
+        assertEquals(ClassMetadata.Hazard.SHARP, table.hazard(2));
+        assertFalse(table.hasRealHeight(2));
+        assertFalse(table.isOnGround(2));
+    }
+
+    @Test
+    public void unknownLabelsKeepOnlyTheirName() throws IOException {
+        final ClassMetadata table = load("unicorn");
+        assertEquals("unicorn", table.label(0));
+        assertTrue(Float.isNaN(table.realHeight(0)));
+        assertEquals(0, table.priority(0));
+        assertEquals(ClassMetadata.Hazard.NONE, table.hazard(0));
+        assertEquals("unicorn", table.localizedName(0, "hi"));
+    }
+
+    @Test
+    public void namesMatchIgnoringCaseSpacesAndAliases() throws IOException {
+        final ClassMetadata table = load("Dining Table\ndiningtable\ntvmonitor\nTV");
+        for (int c = 0; c < 2; ++c) {
+            assertEquals(0.75f, table.realHeight(c), 0);
+        }
+        for (int c = 2; c < 4; ++c) {
+            assertEquals(0.6f, table.realHeight(c), 0);
+        }
+    }
+
+    @Test
+    public void localizedNamesFallBackToLabel() throws IOException {
+        final ClassMetadata table = load("person\nmotorbike\ntv");
+        assertEquals("\u0935\u094d\u092f\u0915\u094d\u0924\u093f", table.localizedName(0, "hi"));
+        assertEquals("\u0c35\u0c4d\u0c2f\u0c15\u0c4d\u0c24\u0c3f", table.localizedName(0, "te"));
+        assertEquals("motorbike", table.localizedName(1, "te"));
+        assertEquals("person", table.localizedName(0, "en"));
+        assertEquals("\u0c1f\u0c40\u0c35\u0c40", table.localizedName(2, "te"));
+    }
+
+    @Test
+    public void labelsAreInterned() throws IOException {
+        final ClassMetadata table = load("person");
+        assertSame("person", table.label(0));
+    }
+
+    private static ClassMetadata load(String labels) throws IOException {
+        return ClassMetadata.load(new StringReader(labels), new StringReader(METADATA));
+    }
+}
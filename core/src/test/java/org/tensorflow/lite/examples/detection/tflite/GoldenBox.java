@@ -0,0 +1,69 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.util.Locale;
+
+/** One expected post-NMS detection in model-input pixels. */
+final class GoldenBox {
+    final int detectedClass;
+    final float left;
+    final float top;
+    final float right;
+    final float bottom;
+    final float confidence;
+
+    GoldenBox(int detectedClass, float left, float top, float right, float bottom, float confidence) {
+        this.detectedClass = detectedClass;
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+        this.confidence = confidence;
+    }
+
+    static GoldenBox from(DetectionBuffer boxes, int i) {
+        return new GoldenBox(boxes.detectedClass(i), boxes.left(i), boxes.top(i),
+                boxes.right(i), boxes.bottom(i), boxes.confidence(i));
+    }
+
+    /** Same layout as the old DetectorTest results files, with a class ID for the category. */
+    static GoldenBox parse(String line) {
+        final String[] f = line.trim().split("\\s+");
+        return new GoldenBox(Integer.parseInt(f[0]), Float.parseFloat(f[1]), Float.parseFloat(f[2]),
+                Float.parseFloat(f[3]), Float.parseFloat(f[4]), Float.parseFloat(f[5]));
+    }
+
+    /** Float.toString round-trips exactly, which the exact comparison relies on. */
+    String format() {
+        return detectedClass + " " + left + " " + top + " " + right + " " + bottom + " " + confidence;
+    }
+
+    boolean sameBits(GoldenBox o) {
+        return detectedClass == o.detectedClass
+                && Float.floatToIntBits(left) == Float.floatToIntBits(o.left)
+                && Float.floatToIntBits(top) == Float.floatToIntBits(o.top)
+                && Float.floatToIntBits(right) == Float.floatToIntBits(o.right)
+                && Float.floatToIntBits(bottom) == Float.floatToIntBits(o.bottom)
+                && Float.floatToIntBits(confidence) == Float.floatToIntBits(o.confidence);
+    }
+
+    // Confidence tolerance: absolute 1%
+    boolean matchConfidence(GoldenBox o) {
+        return Math.abs(confidence - o.confidence) < 0.01;
+    }
+
+    // Bounding Box tolerance: overlapped area > 95% of each one
+    boolean matchBoundingBox(GoldenBox o) {
+        final float areaA = (right - left) * (bottom - top);
+        final float areaB = (o.right - o.left) * (o.bottom - o.top);
+        final float w = Math.min(right, o.right) - Math.max(left, o.left);
+        final float h = Math.min(bottom, o.bottom) - Math.max(top, o.top);
+        final float overlapped = w < 0 || h < 0 ? 0 : w * h;
+        return overlapped >= 0.95 * areaA && overlapped >= 0.95 * areaB;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "[%d] (%.2f, %.2f, %.2f, %.2f) %.4f",
+                detectedClass, left, top, right, bottom, confidence);
+    }
+}
@@ -0,0 +1,116 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A recorded output tensor plus the detections it must produce. Lives in {@code golden/} on the
+ * test classpath as {@code <name>.yolt} and {@code <name>.txt}; {@code golden/cases.txt} lists
+ * the names.
+ */
+final class GoldenCase {
+    static final String DIR = "golden/";
+    static final String INDEX = "cases.txt";
+
+    final String name;
+    final int numLabels;
+    final float objThresh;
+    final float iouThresh;
+    final List<GoldenBox> expected;
+
+    GoldenCase(String name, int numLabels, float objThresh, float iouThresh, List<GoldenBox> expected) {
+        this.name = name;
+        this.numLabels = numLabels;
+        this.objThresh = objThresh;
+        this.iouThresh = iouThresh;
+        this.expected = expected;
+    }
+
+    static List<String> names() throws IOException {
+        final List<String> names = new ArrayList<>();
+        for (String line : readLines(DIR + INDEX)) {
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                names.add(line);
+            }
+        }
+        return names;
+    }
+
+    static GoldenCase load(String name) throws IOException {
+        int numLabels = -1;
+        float objThresh = Float.NaN;
+        float iouThresh = Float.NaN;
+        final List<GoldenBox> expected = new ArrayList<>();
+        for (String line : readLines(DIR + name + ".txt")) {
+            if (line.startsWith("#")) {
+                for (String token : line.substring(1).trim().split("\\s+")) {
+                    final int eq = token.indexOf('=');
+                    if (eq < 0) {
+                        continue;
+                    }
+                    final String value = token.substring(eq + 1);
+                    switch (token.substring(0, eq)) {
+                        case "labels": numLabels = Integer.parseInt(value); break;
+                        case "objThresh": objThresh = Float.parseFloat(value); break;
+                        case "iouThresh": iouThresh = Float.parseFloat(value); break;
+                        default: break;
+                    }
+                }
+            } else if (!line.isEmpty()) {
+                expected.add(GoldenBox.parse(line));
+            }
+        }
+        if (numLabels < 0 || Float.isNaN(objThresh) || Float.isNaN(iouThresh)) {
+            throw new IOException(name + ".txt is missing its labels/objThresh/iouThresh header");
+        }
+        return new GoldenCase(name, numLabels, objThresh, iouThresh, expected);
+    }
+
+    /** Memory-maps the recorded tensor straight from the test resources directory. */
+    RecordedTensor tensor() throws IOException {
+        final URL url = GoldenCase.class.getClassLoader().getResource(DIR + name + RecordedTensor.EXTENSION);
+        if (url == null) {
+            throw new IOException("Missing " + DIR + name + RecordedTensor.EXTENSION);
+        }
+        try {
+            return RecordedTensor.map(new File(url.toURI()));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    void writeExpected(File dir) throws IOException {
+        try (PrintWriter out = new PrintWriter(new File(dir, name + ".txt"), "UTF-8")) {
+            out.println("# Expected post-NMS detections for " + name + RecordedTensor.EXTENSION);
+            out.println("# labels=" + numLabels + " objThresh=" + objThresh + " iouThresh=" + iouThresh);
+            out.println("# class left top right bottom confidence");
+            for (GoldenBox box : expected) {
+                out.println(box.format());
+            }
+        }
+    }
+
+    private static List<String> readLines(String resource) throws IOException {
+        final InputStream in = GoldenCase.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Missing test resource " + resource);
+        }
+        final List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+}
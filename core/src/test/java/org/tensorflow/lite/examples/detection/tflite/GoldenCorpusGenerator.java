@@ -0,0 +1,148 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+/**
+ * Regenerates the synthetic part of the golden corpus. Tensors are built from fixed seeds and the
+ * expected detections come from {@link ReferenceYoloPostprocessor}, never from the code under
+ * test. Tensors captured on a device with {@code YoloV5Classifier.recordLastOutput} can be added
+ * next to these by listing them in {@code cases.txt} with a hand-checked {@code .txt} file.
+ *
+ * <p>Run with {@code ./gradlew :core:generateGoldenCorpus}.
+ */
+public final class GoldenCorpusGenerator {
+    // Matches the app: an 80-class COCO model with the 79-line customclasses.txt label file.
+    private static final int NUM_CLASS = 80;
+    private static final int NUM_LABELS = 79;
+    private static final float OBJ_THRESH = 0.5f;
+    private static final float IOU_THRESH = 0.6f;
+
+    private static final int PERSON = 0;
+    private static final int CAR = 2;
+    private static final int CHAIR = 56;
+
+    private GoldenCorpusGenerator() {}
+
+    public static void main(String[] args) throws IOException {
+        final File dir = new File(args.length > 0 ? args[0] : "src/test/resources/golden");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        try (PrintWriter index = new PrintWriter(new File(dir, GoldenCase.INDEX), "UTF-8")) {
+            index.println("# Golden corpus cases; see GoldenCorpusGenerator.");
+            write(dir, index, "street_f32_160", street(160), false);
+            write(dir, index, "street_int8_160", street(160), true);
+            write(dir, index, "edges_f32_32", edges(32), false);
+            write(dir, index, "empty_f32_32", new Scene(32, 3), false);
+        }
+    }
+
+    /** A walking scene: a partially overlapping crowd, a clipped car and a chair in front. */
+    private static Scene street(int inputSize) {
+        final Scene scene = new Scene(inputSize, 11);
+        scene.object(PERSON, 0.30f, 0.50f, 0.16f, 0.60f, 8);
+        scene.object(PERSON, 0.40f, 0.52f, 0.16f, 0.58f, 8);
+        scene.object(PERSON, 0.55f, 0.48f, 0.15f, 0.55f, 8);
+        scene.object(CHAIR, 0.42f, 0.75f, 0.20f, 0.30f, 6);
+        scene.object(CAR, 0.95f, 0.60f, 0.30f, 0.25f, 6);
+        // The model's 80th class has no label in customclasses.txt, so this must be dropped.
+        scene.object(NUM_CLASS - 1, 0.70f, 0.20f, 0.20f, 0.20f, 4);
+        return scene;
+    }
+
+    /** Threshold boundaries, clamping, and zero-area boxes whose IoU is NaN. */
+    private static Scene edges(int inputSize) {
+        final Scene scene = new Scene(inputSize, 5);
+        scene.anchor(0, PERSON, 0.02f, 0.02f, 0.30f, 0.30f, 1.0f, 0.9f);
+        scene.anchor(1, PERSON, 0.98f, 0.98f, 0.30f, 0.30f, 0.72f, 0.70f);
+        scene.anchor(2, CAR, 0.50f, 0.50f, 0.00f, 0.00f, 0.95f, 0.95f);
+        scene.anchor(3, CAR, 0.50f, 0.50f, 0.00f, 0.00f, 0.94f, 0.94f);
+        scene.anchor(4, CHAIR, 0.50f, 0.20f, 0.20f, 0.20f, 0.80f, 0.63f);
+        scene.anchor(5, CHAIR, 0.20f, 0.80f, 0.20f, 0.20f, 0.80f, 0.62f);
+        return scene;
+    }
+
+    private static void write(File dir, PrintWriter index, String name, Scene scene, boolean quantized)
+            throws IOException {
+        final File tensorFile = new File(dir, name + RecordedTensor.EXTENSION);
+        final float scale = 1.0f / 255.0f;
+        final ByteBuffer tensor = quantized ? scene.quantized(scale) : scene.floats();
+        RecordedTensor.write(tensorFile, scene.inputSize, NUM_CLASS, quantized, quantized ? scale : 0, 0, tensor);
+
+        final RecordedTensor recorded = RecordedTensor.map(tensorFile);
+        final GoldenCase golden = new GoldenCase(name, NUM_LABELS, OBJ_THRESH, IOU_THRESH,
+                ReferenceYoloPostprocessor.run(recorded, NUM_LABELS, OBJ_THRESH, IOU_THRESH));
+        golden.writeExpected(dir);
+        index.println(name);
+    }
+
+    /** Values of a [boxes, 5 + classes] tensor, already passed through the model's sigmoid. */
+    private static final class Scene {
+        final int inputSize;
+        final int rows;
+        final float[] values;
+        final Random random;
+
+        Scene(int inputSize, long seed) {
+            this.inputSize = inputSize;
+            this.rows = YoloOutputDecoder.outputBoxesFor(inputSize);
+            this.values = new float[rows * (NUM_CLASS + 5)];
+            this.random = new Random(seed);
+            for (int i = 0; i < rows; ++i) {
+                anchor(i, -1, random.nextFloat(), random.nextFloat(),
+                        0.05f + random.nextFloat() * 0.2f, 0.05f + random.nextFloat() * 0.2f,
+                        random.nextFloat() * 0.05f, 0);
+                for (int c = 0; c < NUM_CLASS; ++c) {
+                    values[i * (NUM_CLASS + 5) + 5 + c] = random.nextFloat() * 0.1f;
+                }
+            }
+        }
+
+        /** Lights up {@code anchors} random rows with jittered copies of one box. */
+        void object(int cls, float cx, float cy, float w, float h, int anchors) {
+            for (int k = 0; k < anchors; ++k) {
+                anchor(random.nextInt(rows), cls,
+                        cx + (random.nextFloat() - 0.5f) * 0.02f,
+                        cy + (random.nextFloat() - 0.5f) * 0.02f,
+                        w * (0.95f + random.nextFloat() * 0.1f),
+                        h * (0.95f + random.nextFloat() * 0.1f),
+                        0.7f + random.nextFloat() * 0.3f,
+                        0.75f + random.nextFloat() * 0.25f);
+            }
+        }
+
+        void anchor(int row, int cls, float cx, float cy, float w, float h, float objectness, float classScore) {
+            final int base = row * (NUM_CLASS + 5);
+            values[base] = cx;
+            values[base + 1] = cy;
+            values[base + 2] = w;
+            values[base + 3] = h;
+            values[base + 4] = objectness;
+            if (cls >= 0) {
+                values[base + 5 + cls] = classScore;
+            }
+        }
+
+        ByteBuffer floats() {
+            final ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+            for (int i = 0; i < values.length; ++i) {
+                buffer.putFloat(i * 4, values[i]);
+            }
+            return buffer;
+        }
+
+        ByteBuffer quantized(float scale) {
+            final ByteBuffer buffer = ByteBuffer.allocate(values.length);
+            for (int i = 0; i < values.length; ++i) {
+                final int q = Math.round(values[i] / scale);
+                buffer.put(i, (byte) Math.max(0, Math.min(255, q)));
+            }
+            return buffer;
+        }
+    }
+}
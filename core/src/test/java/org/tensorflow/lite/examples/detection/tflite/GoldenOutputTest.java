@@ -0,0 +1,114 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Replays every recorded tensor in the golden corpus through {@link YoloOutputDecoder} and {@link
+ * Nms} and compares against the expected detections.
+ *
+ * <p>{@link #matchesExactly()} pins bit-for-bit output. An optimization that deliberately changes
+ * float rounding can regenerate the corpus or rely on {@link #matchesWithinTolerance()}, which
+ * uses the old DetectorTest tolerances (1% confidence, 95% box overlap).
+ */
+@RunWith(Parameterized.class)
+public class GoldenOutputTest {
+    // Output order within a class is only defined up to confidence ties; compare canonically.
+    private static final Comparator<GoldenBox> CANONICAL = (a, b) -> {
+        if (a.detectedClass != b.detectedClass) return Integer.compare(a.detectedClass, b.detectedClass);
+        if (a.confidence != b.confidence) return Float.compare(b.confidence, a.confidence);
+        if (a.left != b.left) return Float.compare(a.left, b.left);
+        return Float.compare(a.top, b.top);
+    };
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> cases() throws IOException {
+        final List<Object[]> cases = new ArrayList<>();
+        for (String name : GoldenCase.names()) {
+            cases.add(new Object[] {name});
+        }
+        return cases;
+    }
+
+    private final String name;
+    private GoldenCase golden;
+    private List<GoldenBox> actual;
+
+    public GoldenOutputTest(String name) {
+        this.name = name;
+    }
+
+    @Before
+    public void replay() throws IOException {
+        golden = GoldenCase.load(name);
+        final RecordedTensor tensor = golden.tensor();
+        final YoloOutputDecoder decoder = tensor.newDecoder();
+        final DetectionBuffer candidates = new DetectionBuffer(decoder.getOutputBoxes());
+        final int maxCoord = tensor.getInputSize() - 1;
+        decoder.decode(tensor.getData(), golden.numLabels, golden.objThresh, maxCoord, maxCoord, candidates);
+
+        final int[] kept = new int[candidates.size()];
+        final int numKept = new Nms(golden.iouThresh).run(candidates, golden.numLabels, kept);
+        actual = new ArrayList<>(numKept);
+        for (int k = 0; k < numKept; ++k) {
+            actual.add(GoldenBox.from(candidates, kept[k]));
+        }
+    }
+
+    @Test
+    public void matchesExactly() {
+        final List<GoldenBox> expected = sorted(golden.expected);
+        final List<GoldenBox> got = sorted(actual);
+        assertEquals(name + ": detection count", expected.size(), got.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertTrue(name + ": expected " + expected.get(i) + " but got " + got.get(i),
+                    expected.get(i).sameBits(got.get(i)));
+        }
+    }
+
+    @Test
+    public void matchesWithinTolerance() {
+        assertEquals(name + ": detection count", golden.expected.size(), actual.size());
+        final List<GoldenBox> unmatched = new ArrayList<>(actual);
+        for (GoldenBox want : golden.expected) {
+            GoldenBox match = null;
+            for (GoldenBox got : unmatched) {
+                if (got.detectedClass == want.detectedClass
+                        && want.matchConfidence(got) && want.matchBoundingBox(got)) {
+                    match = got;
+                    break;
+                }
+            }
+            assertTrue(name + ": no detection matches " + want + " in " + actual, match != null);
+            unmatched.remove(match);
+        }
+    }
+
+    @Test
+    public void outputIsGroupedByClassThenConfidence() {
+        for (int i = 1; i < actual.size(); ++i) {
+            final GoldenBox prev = actual.get(i - 1);
+            final GoldenBox cur = actual.get(i);
+            assertTrue(name + ": out of order at " + i,
+                    prev.detectedClass < cur.detectedClass
+                            || (prev.detectedClass == cur.detectedClass && prev.confidence >= cur.confidence));
+        }
+    }
+
+    private static List<GoldenBox> sorted(List<GoldenBox> boxes) {
+        final List<GoldenBox> copy = new ArrayList<>(boxes);
+        copy.sort(CANONICAL);
+        return copy;
+    }
+}
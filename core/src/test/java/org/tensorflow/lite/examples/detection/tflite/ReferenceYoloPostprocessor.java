@@ -0,0 +1,119 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The decode and NMS code as it was in YoloV5Classifier before it moved to {@link
+ * YoloOutputDecoder} and {@link Nms}: a dense float array copy of the tensor and a PriorityQueue
+ * per class. Kept deliberately naive; it is the oracle the golden corpus is generated from.
+ */
+final class ReferenceYoloPostprocessor {
+    private ReferenceYoloPostprocessor() {}
+
+    static List<GoldenBox> run(RecordedTensor tensor, int numLabels, float objThresh, float iouThresh) {
+        final int inputSize = tensor.getInputSize();
+        final int numClass = tensor.getNumClass();
+        final int outputBox = YoloOutputDecoder.outputBoxesFor(inputSize);
+        final ByteBuffer byteBuffer = tensor.getData();
+        final int labels = Math.min(numLabels, numClass);
+
+        final float[][] out = new float[outputBox][numClass + 5];
+        for (int i = 0; i < outputBox; ++i) {
+            for (int j = 0; j < numClass + 5; ++j) {
+                if (tensor.isQuantized()) {
+                    out[i][j] = tensor.getOupScale()
+                            * (((int) byteBuffer.get() & 0xFF) - tensor.getOupZeroPoint());
+                } else {
+                    out[i][j] = byteBuffer.getFloat();
+                }
+            }
+            for (int j = 0; j < 4; ++j) {
+                out[i][j] *= inputSize;
+            }
+        }
+
+        final List<GoldenBox> detections = new ArrayList<>();
+        for (int i = 0; i < outputBox; ++i) {
+            final float confidence = out[i][4];
+            int detectedClass = -1;
+            float maxClass = 0;
+            for (int c = 0; c < labels; ++c) {
+                if (out[i][5 + c] > maxClass) {
+                    detectedClass = c;
+                    maxClass = out[i][5 + c];
+                }
+            }
+            final float confidenceInClass = maxClass * confidence;
+            if (confidenceInClass > objThresh) {
+                final float xPos = out[i][0];
+                final float yPos = out[i][1];
+                final float w = out[i][2];
+                final float h = out[i][3];
+                detections.add(new GoldenBox(detectedClass,
+                        Math.max(0, xPos - w / 2),
+                        Math.max(0, yPos - h / 2),
+                        Math.min(inputSize - 1, xPos + w / 2),
+                        Math.min(inputSize - 1, yPos + h / 2),
+                        confidenceInClass));
+            }
+        }
+        return nms(detections, labels, iouThresh);
+    }
+
+    private static List<GoldenBox> nms(List<GoldenBox> list, int numLabels, float iouThresh) {
+        final List<GoldenBox> nmsList = new ArrayList<>();
+        for (int k = 0; k < numLabels; k++) {
+            final PriorityQueue<GoldenBox> pq = new PriorityQueue<>(
+                    50, (lhs, rhs) -> Float.compare(rhs.confidence, lhs.confidence));
+            for (GoldenBox box : list) {
+                if (box.detectedClass == k) {
+                    pq.add(box);
+                }
+            }
+            while (!pq.isEmpty()) {
+                final GoldenBox[] detections = pq.toArray(new GoldenBox[0]);
+                final GoldenBox max = detections[0];
+                nmsList.add(max);
+                pq.clear();
+                for (int j = 1; j < detections.length; j++) {
+                    final GoldenBox b = detections[j];
+                    if (box_iou(max, b) < iouThresh) {
+                        pq.add(b);
+                    }
+                }
+            }
+        }
+        return nmsList;
+    }
+
+    private static float box_iou(GoldenBox a, GoldenBox b) {
+        return box_intersection(a, b) / box_union(a, b);
+    }
+
+    private static float box_intersection(GoldenBox a, GoldenBox b) {
+        float w = overlap((a.left + a.right) / 2, a.right - a.left,
+                (b.left + b.right) / 2, b.right - b.left);
+        float h = overlap((a.top + a.bottom) / 2, a.bottom - a.top,
+                (b.top + b.bottom) / 2, b.bottom - b.top);
+        if (w < 0 || h < 0) return 0;
+        return w * h;
+    }
+
+    private static float box_union(GoldenBox a, GoldenBox b) {
+        float i = box_intersection(a, b);
+        return (a.right - a.left) * (a.bottom - a.top) + (b.right - b.left) * (b.bottom - b.top) - i;
+    }
+
+    private static float overlap(float x1, float w1, float x2, float w2) {
+        float l1 = x1 - w1 / 2;
+        float l2 = x2 - w2 / 2;
+        float left = Math.max(l1, l2);
+        float r1 = x1 + w1 / 2;
+        float r2 = x2 + w2 / 2;
+        float right = Math.min(r1, r2);
+        return right - left;
+    }
+}
@@ -0,0 +1,82 @@
+package org.tensorflow.lite.examples.detection.tflite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+public class TextMapDecoderTest {
+    private static final int INPUT = 320;
+    private static final int MAP = 80;
+
+    private final TextMapDecoder decoder = new TextMapDecoder(INPUT, MAP, false, 0, 0);
+    private final DetectionBuffer out = new DetectionBuffer(16);
+
+    @Test
+    public void eachTextRegionBecomesOneGrownBox() {
+        final float[] map = new float[MAP * MAP];
+        fill(map, 10, 10, 30, 13, 0.9f); // a line of text, 20 x 3
+        fill(map, 50, 60, 54, 64, 0.8f); // a word, 4 x 4
+        decoder.decode(floats(map), 0.3f, 0.6f, INPUT - 1, INPUT - 1, out);
+        assertEquals(2, out.size());
+
+        // Grow = 20 * 3 * 1.5 / (2 * 23) map pixels on each side; 4 map pixels per input pixel.
+        final float grow = 20 * 3 * 1.5f / 46;
+        assertEquals((10 - grow) * 4, out.left(0), 1e-3f);
+        assertEquals((10 - grow) * 4, out.top(0), 1e-3f);
+        assertEquals((30 + grow) * 4, out.right(0), 1e-3f);
+        assertEquals((13 + grow) * 4, out.bottom(0), 1e-3f);
+        assertEquals(0.9f, out.confidence(0), 1e-6f);
+        assertEquals(0, out.detectedClass(0));
+        assertTrue(out.left(1) < 50 * 4 && out.right(1) > 54 * 4);
+    }
+
+    @Test
+    public void weakAndTinyRegionsAreDropped() {
+        final float[] map = new float[MAP * MAP];
+        fill(map, 10, 10, 30, 13, 0.4f); // above the binary threshold, below the box threshold
+        fill(map, 40, 40, 41, 41, 0.95f); // one pixel
+        decoder.decode(floats(map), 0.3f, 0.6f, INPUT - 1, INPUT - 1, out);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void boxesAreClampedToTheImage() {
+        final float[] map = new float[MAP * MAP];
+        fill(map, 0, 0, 10, 4, 0.9f);
+        decoder.decode(floats(map), 0.3f, 0.6f, INPUT - 1, INPUT - 1, out);
+        assertEquals(1, out.size());
+        assertEquals(0, out.left(0), 0);
+        assertEquals(0, out.top(0), 0);
+    }
+
+    @Test
+    public void decodesQuantizedMaps() {
+        final TextMapDecoder quantized = new TextMapDecoder(INPUT, MAP, true, 1 / 255f, 0);
+        final ByteBuffer raw = ByteBuffer.allocateDirect(quantized.byteSize());
+        for (int y = 20; y < 24; ++y) {
+            for (int x = 20; x < 40; ++x) {
+                raw.put(y * MAP + x, (byte) 230);
+            }
+        }
+        quantized.decode(raw, 0.3f, 0.6f, INPUT - 1, INPUT - 1, out);
+        assertEquals(1, out.size());
+        assertEquals(230 / 255f, out.confidence(0), 1e-6f);
+    }
+
+    private static void fill(float[] map, int x0, int y0, int x1, int y1, float value) {
+        for (int y = y0; y < y1; ++y) {
+            for (int x = x0; x < x1; ++x) {
+                map[y * MAP + x] = value;
+            }
+        }
+    }
+
+    private static ByteBuffer floats(float[] map) {
+        final ByteBuffer raw = ByteBuffer.allocateDirect(map.length * 4).order(ByteOrder.nativeOrder());
+        raw.asFloatBuffer().put(map);
+        return raw;
+    }
+}
@@ -0,0 +1,194 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.tensorflow.lite.examples.detection.tflite.ClassMetadata;
+import org.tensorflow.lite.examples.detection.tracking.TrackAnnouncerTest.Candidate;
+
+public class AnnouncementSchedulerTest {
+    private static final String METADATA = ""
+            + "name\taliases\theight\tpriority\thazard\tground\n"
+            + "car\t-\t1.5\t3\tvehicle\ty\n"
+            + "chair\t-\t0.9\t1\tobstacle\ty\n"
+            + "person\t-\t1.7\t2\tobstacle\ty\n";
+    private static final int CAR = 0;
+    private static final int CHAIR = 1;
+    private static final int PERSON = 2;
+
+    private final FakeSpeaker speaker = new FakeSpeaker();
+    private AnnouncementScheduler<Candidate> scheduler;
+
+    @Before
+    public void setUp() throws IOException {
+        final ClassMetadata classes = ClassMetadata.load(
+                Arrays.asList("car", "chair", "person"), new StringReader(METADATA));
+        scheduler = new AnnouncementScheduler<>(classes, new TrackAnnouncer(), speaker, 4);
+    }
+
+    @Test
+    public void vehicleFartherAwayBeatsCloseChair() {
+        final Candidate chair = candidate("chair", CHAIR, 1, 2f);
+        final Candidate car = candidate("car", CAR, 2, 6f);
+        scheduler.offer(Arrays.asList(chair, car), 0.5f, 0);
+        assertEquals(Collections.singletonList(car), speaker.spoken);
+        assertEquals(1, scheduler.queued());
+    }
+
+    @Test
+    public void urgentHazardPreemptsAnnouncementInProgress() {
+        final Candidate chair = candidate("chair", CHAIR, 1, 3f);
+        scheduler.offer(Collections.singletonList(chair), 0.5f, 0);
+        assertSame(chair, scheduler.speaking());
+
+        final Candidate car = candidate("car", CAR, 2, 12f);
+        car.timeToCollision = 1.5f;
+        scheduler.offer(Collections.singletonList(car), 0.5f, 100);
+        assertEquals(Arrays.asList(chair, car), speaker.spoken);
+        assertSame(car, scheduler.speaking());
+
+        // The interrupted utterance reports in late and must not free the car's slot.
+        scheduler.onUtteranceDone(speaker.ids.get(0), 150);
+        assertSame(car, scheduler.speaking());
+    }
+
+    @Test
+    public void lessUrgentItemWaitsForUtteranceToFinish() {
+        final Candidate car = candidate("car", CAR, 1, 4f);
+        scheduler.offer(Collections.singletonList(car), 0.5f, 0);
+        final Candidate person = candidate("person", PERSON, 2, 2f);
+        scheduler.offer(Collections.singletonList(person), 0.5f, 100);
+        assertEquals(Collections.singletonList(car), speaker.spoken);
+        assertEquals(1, scheduler.queued());
+
+        scheduler.onUtteranceDone(speaker.ids.get(0), 900);
+        assertEquals(Arrays.asList(car, person), speaker.spoken);
+        assertEquals(0, scheduler.queued());
+    }
+
+    @Test
+    public void waitsWhileSomethingElseIsSpoken() {
+        speaker.busy = true;
+        final Candidate car = candidate("car", CAR, 1, 4f);
+        scheduler.offer(Collections.singletonList(car), 0.5f, 0);
+        assertTrue(speaker.spoken.isEmpty());
+
+        speaker.busy = false;
+        scheduler.offer(Collections.<Candidate>emptyList(), 0.5f, 200);
+        assertEquals(Collections.singletonList(car), speaker.spoken);
+    }
+
+    @Test
+    public void keepsOneEntryPerTrack() {
+        speaker.busy = true;
+        final Candidate far = candidate("person", PERSON, 3, 8f);
+        final Candidate near = candidate("person", PERSON, 3, 3f);
+        scheduler.offer(Collections.singletonList(far), 0.5f, 0);
+        scheduler.offer(Collections.singletonList(near), 0.5f, 100);
+        assertEquals(1, scheduler.queued());
+
+        speaker.busy = false;
+        scheduler.offer(Collections.<Candidate>emptyList(), 0.5f, 200);
+        assertEquals(Collections.singletonList(near), speaker.spoken);
+    }
+
+    @Test
+    public void trackBeingSpokenIsNotQueuedAgain() {
+        final Candidate car = candidate("car", CAR, 1, 4f);
+        scheduler.offer(Collections.singletonList(car), 0.5f, 0);
+        scheduler.offer(Collections.singletonList(car), 0.5f, 100);
+        assertEquals(0, scheduler.queued());
+        scheduler.onUtteranceDone(speaker.ids.get(0), 900);
+        assertEquals(1, speaker.spoken.size());
+    }
+
+    @Test
+    public void fullQueueDropsLeastUrgent() {
+        speaker.busy = true;
+        final List<Candidate> chairs = new ArrayList<>();
+        for (int id = 1; id <= 6; ++id) {
+            chairs.add(candidate("chair", CHAIR, id, id));
+        }
+        scheduler.offer(chairs, 0.5f, 0);
+        assertEquals(4, scheduler.queued());
+
+        speaker.busy = false;
+        scheduler.offer(Collections.<Candidate>emptyList(), 0.5f, 100);
+        for (int i = 0; i < 3; ++i) {
+            scheduler.onUtteranceDone(speaker.ids.get(i), 200 + i);
+        }
+        assertEquals(chairs.subList(0, 4), speaker.spoken);
+    }
+
+    @Test
+    public void staleEntriesExpire() {
+        speaker.busy = true;
+        scheduler.offer(Collections.singletonList(candidate("chair", CHAIR, 1, 2f)), 0.5f, 0);
+        speaker.busy = false;
+        scheduler.offer(Collections.<Candidate>emptyList(), 0.5f,
+                AnnouncementScheduler.MAX_QUEUE_AGE_MS + 1);
+        assertTrue(speaker.spoken.isEmpty());
+        assertEquals(0, scheduler.queued());
+    }
+
+    @Test
+    public void stuckUtteranceIsAbandoned() {
+        final Candidate car = candidate("car", CAR, 1, 4f);
+        scheduler.offer(Collections.singletonList(car), 0.5f, 0);
+        final long later = AnnouncementScheduler.MAX_UTTERANCE_MS + 1;
+        scheduler.offer(Collections.singletonList(candidate("chair", CHAIR, 2, 2f)), 0.5f, later);
+        assertEquals(2, speaker.spoken.size());
+    }
+
+    @Test
+    public void announcedTracksCoolDown() {
+        final Candidate chair = candidate("chair", CHAIR, 1, 2f);
+        scheduler.offer(Collections.singletonList(chair), 0.5f, 0);
+        scheduler.onUtteranceDone(speaker.ids.get(0), 800);
+        scheduler.offer(Collections.singletonList(chair), 0.5f, 1000);
+        assertEquals(1, speaker.spoken.size());
+        assertNull(scheduler.speaking());
+    }
+
+    @Test
+    public void recognizesItsUtteranceIds() {
+        scheduler.offer(Collections.singletonList(candidate("car", CAR, 1, 4f)), 0.5f, 0);
+        assertTrue(AnnouncementScheduler.isAnnouncement(speaker.ids.get(0)));
+        assertFalse(AnnouncementScheduler.isAnnouncement("PROMPT_IDLE"));
+        assertFalse(AnnouncementScheduler.isAnnouncement(null));
+    }
+
+    private static Candidate candidate(String title, int cls, int trackId, float distance) {
+        final Candidate candidate = new Candidate(title, trackId, distance, 0);
+        candidate.detectedClass = cls;
+        return candidate;
+    }
+
+    private static final class FakeSpeaker implements AnnouncementScheduler.Speaker<Candidate> {
+        final List<Candidate> spoken = new ArrayList<>();
+        final List<String> ids = new ArrayList<>();
+        boolean busy;
+
+        @Override
+        public void speak(Candidate item, String utteranceId) {
+            spoken.add(item);
+            ids.add(utteranceId);
+        }
+
+        @Override
+        public boolean isBusy() {
+            return busy;
+        }
+    }
+}
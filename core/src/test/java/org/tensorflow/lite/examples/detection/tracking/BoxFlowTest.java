@@ -0,0 +1,74 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+public class BoxFlowTest {
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 120;
+    private static final int STRIDE = 176;
+
+    @Test
+    public void recoversSubPixelTranslation() {
+        final BoxFlow flow = new BoxFlow(WIDTH, HEIGHT);
+        flow.setReference(texture(0, 0), STRIDE);
+        final float confidence = flow.track(texture(2.5f, -1.5f), STRIDE, 40, 30, 100, 90, 0, 0);
+        assertTrue("confidence " + confidence, confidence > 0.8f);
+        assertEquals(2.5f, flow.getDx(), 0.1f);
+        assertEquals(-1.5f, flow.getDy(), 0.1f);
+    }
+
+    @Test
+    public void largeMotionNeedsAGoodGuess() {
+        final BoxFlow flow = new BoxFlow(WIDTH, HEIGHT);
+        flow.setReference(texture(0, 0), STRIDE);
+        final ByteBuffer moved = texture(14, 6);
+        final float confidence = flow.track(moved, STRIDE, 30, 30, 90, 80, 12, 5);
+        assertTrue("confidence " + confidence, confidence > 0.8f);
+        assertEquals(14, flow.getDx(), 0.1f);
+        assertEquals(6, flow.getDy(), 0.1f);
+    }
+
+    @Test
+    public void flatRegionHasNoConfidence() {
+        final BoxFlow flow = new BoxFlow(WIDTH, HEIGHT);
+        final ByteBuffer flat = ByteBuffer.allocateDirect(STRIDE * HEIGHT);
+        while (flat.hasRemaining()) {
+            flat.put((byte) 128);
+        }
+        flow.setReference(flat, STRIDE);
+        assertEquals(0, flow.track(flat, STRIDE, 40, 30, 100, 90, 3, 4), 0);
+        assertEquals(3, flow.getDx(), 0);
+        assertEquals(4, flow.getDy(), 0);
+    }
+
+    @Test
+    public void noReferenceHasNoConfidence() {
+        final BoxFlow flow = new BoxFlow(WIDTH, HEIGHT);
+        assertEquals(0, flow.track(texture(0, 0), STRIDE, 40, 30, 100, 90, 0, 0), 0);
+    }
+
+    /**
+     * A smooth, non-repeating pattern shifted by (dx, dy), with row padding up to STRIDE, in a
+     * direct buffer like a camera plane.
+     */
+    private static ByteBuffer texture(float dx, float dy) {
+        final ByteBuffer pixels = ByteBuffer.allocateDirect(STRIDE * HEIGHT);
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                final double u = x - dx;
+                final double v = y - dy;
+                final double value = 128
+                        + 40 * Math.sin(u * 0.21 + v * 0.05)
+                        + 35 * Math.cos(v * 0.17 - u * 0.07)
+                        + 25 * Math.sin((u + v) * 0.11) * Math.cos(u * 0.05 - v * 0.13);
+                final int clamped = Math.max(0, Math.min(255, (int) Math.round(value)));
+                pixels.put(y * STRIDE + x, (byte) clamped);
+            }
+        }
+        return pixels;
+    }
+}
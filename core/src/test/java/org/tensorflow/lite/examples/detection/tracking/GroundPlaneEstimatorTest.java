@@ -0,0 +1,75 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class GroundPlaneEstimatorTest {
+    private static final int SIZE = 640;
+    private static final float FOCAL = 554;
+    private static final float PITCH = (float) Math.toRadians(10);
+
+    private final GroundPlaneEstimator estimator = new GroundPlaneEstimator(SIZE, FOCAL);
+
+    @Test
+    public void footRowGivesGroundDistance() {
+        for (final float distance : new float[] {1.5f, 3, 6}) {
+            assertEquals(distance, estimator.groundDistance(footRow(distance), PITCH), 0.01f);
+        }
+    }
+
+    @Test
+    public void rowsAboveHorizonDoNotHitTheGround() {
+        // The horizon is about 98 px above the centre at 10 degrees of pitch.
+        assertTrue(Float.isNaN(estimator.groundDistance(SIZE / 2f - 120, PITCH)));
+        assertTrue(Float.isNaN(estimator.groundDistance(SIZE / 2f, 0)));
+    }
+
+    @Test
+    public void agreeingEstimatesStayPut() {
+        final float bottom = footRow(4);
+        assertEquals(4, estimator.fuse(4, 100, bottom, PITCH, 0), 0.01f);
+    }
+
+    @Test
+    public void fusionLeansOnGroundWhenClose() {
+        // Close up, the ground ray is steep and precise; the height estimate is off by 30%.
+        final float fused = estimator.fuse(2.6f, 50, footRow(2), PITCH, 0);
+        assertEquals(2, fused, 0.15f);
+    }
+
+    @Test
+    public void fusionLeansOnHeightWhenFar() {
+        // Far away, a small pitch error moves the ground point a lot.
+        final float fused = estimator.fuse(10, 280, footRow(13), PITCH, 0);
+        assertEquals(10, fused, 1f);
+    }
+
+    @Test
+    public void topCutOffUsesGroundOnly() {
+        // A person whose head is out of frame looks shorter, so farther, than they are.
+        assertEquals(1.8f, estimator.fuse(3.5f, 0, footRow(1.8f), PITCH, 0), 0.01f);
+    }
+
+    @Test
+    public void bottomCutOffBoundsTheDistance() {
+        final float frameBottom = estimator.groundDistance(SIZE, PITCH);
+        assertEquals(frameBottom, estimator.fuse(8, 200, SIZE, PITCH, 0), 0);
+        assertEquals(1.2f, estimator.fuse(1.2f, 0, SIZE, PITCH, 0), 0);
+    }
+
+    @Test
+    public void fallsBackToHeightWhenGroundIsUnusable() {
+        assertEquals(5, estimator.fuse(5, 100, SIZE / 2f - 120, PITCH, 0), 0);
+        assertEquals(5, estimator.fuse(5, 100, footRow(2), PITCH, (float) Math.toRadians(40)), 0);
+        final GroundPlaneEstimator uncalibrated = new GroundPlaneEstimator(SIZE, Float.NaN);
+        assertEquals(5, uncalibrated.fuse(5, 100, footRow(2), PITCH, 0), 0);
+    }
+
+    /** Image row where the ground {@code distance} meters ahead appears. */
+    private float footRow(float distance) {
+        final double depression = Math.atan(estimator.getCameraHeight() / distance);
+        return (float) (SIZE / 2.0 + FOCAL * Math.tan(depression - PITCH));
+    }
+}
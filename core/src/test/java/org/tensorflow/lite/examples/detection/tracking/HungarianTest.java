@@ -0,0 +1,82 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class HungarianTest {
+    @Test
+    public void solvesSquareProblem() {
+        final float[][] costs = {
+            {4, 1, 3},
+            {2, 0, 5},
+            {3, 2, 2},
+        };
+        final Hungarian hungarian = load(costs, 3, 3);
+        final int[] rowToCol = new int[3];
+        hungarian.solve(3, 3, rowToCol);
+        assertArrayEquals(new int[] {1, 0, 2}, rowToCol);
+    }
+
+    @Test
+    public void solvesSubProblemOfLargerCapacity() {
+        final float[][] costs = {
+            {9, 2, 7},
+            {1, 8, 3},
+        };
+        final Hungarian hungarian = load(costs, 4, 5);
+        final int[] rowToCol = new int[2];
+        hungarian.solve(2, 3, rowToCol);
+        assertArrayEquals(new int[] {1, 0}, rowToCol);
+    }
+
+    @Test
+    public void matchesBruteForceOnRandomProblems() {
+        final Random random = new Random(42);
+        final int n = 6;
+        final Hungarian hungarian = new Hungarian(n, n);
+        final int[] rowToCol = new int[n];
+        for (int trial = 0; trial < 50; ++trial) {
+            final float[][] costs = new float[n][n];
+            for (int r = 0; r < n; ++r) {
+                for (int c = 0; c < n; ++c) {
+                    costs[r][c] = random.nextFloat();
+                    hungarian.setCost(r, c, costs[r][c]);
+                }
+            }
+            hungarian.solve(n, n, rowToCol);
+            float total = 0;
+            for (int r = 0; r < n; ++r) {
+                total += costs[r][rowToCol[r]];
+            }
+            assertEquals(bruteForce(costs, 0, new boolean[n]), total, 1e-4f);
+        }
+    }
+
+    private static Hungarian load(float[][] costs, int maxRows, int maxCols) {
+        final Hungarian hungarian = new Hungarian(maxRows, maxCols);
+        for (int r = 0; r < costs.length; ++r) {
+            for (int c = 0; c < costs[r].length; ++c) {
+                hungarian.setCost(r, c, costs[r][c]);
+            }
+        }
+        return hungarian;
+    }
+
+    private static float bruteForce(float[][] costs, int row, boolean[] used) {
+        if (row == costs.length) {
+            return 0;
+        }
+        float best = Float.POSITIVE_INFINITY;
+        for (int c = 0; c < used.length; ++c) {
+            if (!used[c]) {
+                used[c] = true;
+                best = Math.min(best, costs[row][c] + bruteForce(costs, row + 1, used));
+                used[c] = false;
+            }
+        }
+        return best;
+    }
+}
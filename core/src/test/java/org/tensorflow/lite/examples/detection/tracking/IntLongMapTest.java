@@ -0,0 +1,63 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class IntLongMapTest {
+    @Test
+    public void putGetRemove() {
+        final IntLongMap map = new IntLongMap(2);
+        map.put(1, 10);
+        map.put(-5, 50);
+        map.put(1, 11);
+        assertEquals(2, map.size());
+        assertEquals(11, map.get(1, -1));
+        assertEquals(50, map.get(-5, -1));
+        assertEquals(-1, map.get(2, -1));
+        map.remove(1);
+        assertFalse(map.containsKey(1));
+        assertTrue(map.containsKey(-5));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomChurn() {
+        final Random random = new Random(3);
+        final IntLongMap map = new IntLongMap(8);
+        final Map<Integer, Long> expected = new HashMap<>();
+        for (int step = 0; step < 20000; ++step) {
+            final int key = random.nextInt(64) - 16;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, step);
+                expected.put(key, (long) step);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -16; key < 48; ++key) {
+            final Long value = expected.get(key);
+            assertEquals(value != null ? value : -1L, map.get(key, -1));
+        }
+    }
+
+    @Test
+    public void removeValuesBelowKeepsTheRest() {
+        final IntLongMap map = new IntLongMap(4);
+        for (int key = 0; key < 100; ++key) {
+            map.put(key, key);
+        }
+        map.removeValuesBelow(60);
+        assertEquals(40, map.size());
+        for (int key = 0; key < 100; ++key) {
+            assertEquals(key >= 60, map.containsKey(key));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.tensorflow.lite.examples.detection.tflite.DetectionBuffer;
+
+public class KalmanBoxTrackerTest {
+    private static final int PERSON = 0;
+    private static final int CHAIR = 56;
+
+    private final KalmanBoxTracker tracker = new KalmanBoxTracker(8, 8);
+    private final DetectionBuffer detections = new DetectionBuffer(8);
+
+    @Test
+    public void trackIsConfirmedAfterMinHitsAndKeepsItsId() {
+        detect(0, box(100, 100, 50, 100, PERSON));
+        assertEquals(1, tracker.size());
+        assertFalse(tracker.isConfirmed(0));
+        final int id = tracker.id(0);
+
+        for (int frame = 1; frame < 10; ++frame) {
+            detect(frame * 100, box(100 + frame * 5, 100, 50, 100, PERSON));
+            assertEquals(1, tracker.size());
+            assertEquals(id, tracker.id(0));
+            assertEquals(0, tracker.matchedDetection(0));
+        }
+        assertTrue(tracker.isConfirmed(0));
+    }
+
+    @Test
+    public void tentativeTrackDiesOnFirstMiss() {
+        detect(0, box(100, 100, 50, 100, PERSON));
+        detect(100);
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void confirmedTrackSurvivesMaxMisses() {
+        detect(0, box(100, 100, 50, 100, PERSON));
+        detect(100, box(100, 100, 50, 100, PERSON));
+        for (int miss = 1; miss <= KalmanBoxTracker.MAX_MISSES; ++miss) {
+            detect(100 + miss * 100);
+            assertEquals(1, tracker.size());
+            assertEquals(miss, tracker.misses(0));
+        }
+        detect(1000);
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void velocityIsEstimatedAndExtrapolated() {
+        // 10 px per 100 ms to the right.
+        for (int frame = 0; frame < 20; ++frame) {
+            detect(frame * 100, box(100 + frame * 10, 200, 40, 80, PERSON));
+        }
+        assertEquals(100, tracker.velocityX(0), 5);
+        assertEquals(0, tracker.velocityY(0), 5);
+
+        final float before = centreX(0);
+        tracker.predict(2000);
+        assertEquals(before + 10, centreX(0), 1);
+    }
+
+    @Test
+    public void associationRespectsClassAndPicksTheBestOverlap() {
+        detect(0, box(100, 100, 60, 60, PERSON), box(130, 100, 60, 60, CHAIR));
+        detect(100, box(100, 100, 60, 60, PERSON), box(130, 100, 60, 60, CHAIR));
+        final int person = tracker.id(0);
+        final int chair = tracker.id(1);
+        assertNotEquals(person, chair);
+
+        // The chair moves onto the person's old spot; IDs must follow class, not position.
+        detect(200, box(115, 100, 60, 60, CHAIR), box(95, 100, 60, 60, PERSON));
+        assertEquals(2, tracker.size());
+        assertEquals(1, tracker.matchedDetection(tracker.indexOf(person)));
+        assertEquals(0, tracker.matchedDetection(tracker.indexOf(chair)));
+    }
+
+    @Test
+    public void idsAreNeverReused() {
+        detect(0, box(100, 100, 50, 50, PERSON));
+        final int first = tracker.id(0);
+        detect(100);
+        detect(200, box(100, 100, 50, 50, PERSON));
+        assertTrue(tracker.id(0) > first);
+    }
+
+    private float centreX(int i) {
+        return (tracker.left(i) + tracker.right(i)) / 2;
+    }
+
+    private void detect(long timestampMs, float[]... boxes) {
+        detections.clear();
+        for (float[] b : boxes) {
+            detections.add(b[0] - b[2] / 2, b[1] - b[3] / 2, b[0] + b[2] / 2, b[1] + b[3] / 2,
+                    b[3], 0.9f, (int) b[4]);
+        }
+        tracker.update(detections, timestampMs);
+    }
+
+    private static float[] box(float cx, float cy, float w, float h, int cls) {
+        return new float[] {cx, cy, w, h, cls};
+    }
+}
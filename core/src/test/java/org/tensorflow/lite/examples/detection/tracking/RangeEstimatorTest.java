@@ -0,0 +1,134 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class RangeEstimatorTest {
+    private static final long FRAME_MS = 100;
+
+    @Test
+    public void approachingObjectHasCloseSpeedAndTimeToCollision() {
+        final RangeEstimator estimator = new RangeEstimator(4);
+        final Random random = new Random(1);
+        // Walks toward the camera at 1 m/s from 10 m.
+        for (int frame = 0; frame <= 30; ++frame) {
+            final float truth = 10 - frame * FRAME_MS / 1000f;
+            estimator.update(1, noisy(truth, random), frame * FRAME_MS);
+        }
+        assertEquals(7, estimator.range(1), 0.5f);
+        assertEquals(1, estimator.closingSpeed(1), 0.35f);
+        assertEquals(7, estimator.timeToCollision(1), 2.5f);
+    }
+
+    @Test
+    public void stationaryObjectNeverCollides() {
+        final RangeEstimator estimator = new RangeEstimator(4);
+        final Random random = new Random(2);
+        int finite = 0;
+        for (int frame = 0; frame < 100; ++frame) {
+            estimator.update(1, noisy(4, random), frame * FRAME_MS);
+            if (frame >= 10 && estimator.timeToCollision(1) < 10) {
+                ++finite;
+            }
+        }
+        assertEquals(4, estimator.range(1), 0.3f);
+        assertTrue("imminent collisions reported " + finite, finite <= 5);
+    }
+
+    @Test
+    public void recedingObjectHasNegativeClosingSpeed() {
+        final RangeEstimator estimator = new RangeEstimator(4);
+        for (int frame = 0; frame <= 20; ++frame) {
+            estimator.update(1, 3 + 2 * frame * FRAME_MS / 1000f, frame * FRAME_MS);
+        }
+        assertTrue(estimator.closingSpeed(1) < -1);
+        assertEquals(Float.POSITIVE_INFINITY, estimator.timeToCollision(1), 0);
+    }
+
+    @Test
+    public void fastApproachIsPickedUpQuickly() {
+        final RangeEstimator estimator = new RangeEstimator(4);
+        // A cyclist at 5 m/s; after one second the estimate should already be alarming.
+        for (int frame = 0; frame <= 10; ++frame) {
+            estimator.update(1, 15 - 5 * frame * FRAME_MS / 1000f, frame * FRAME_MS);
+        }
+        assertTrue(estimator.timeToCollision(1) < 3);
+    }
+
+    @Test
+    public void singleMeasurementHasRangeButNoSpeed() {
+        final RangeEstimator estimator = new RangeEstimator(4);
+        estimator.update(7, 2.5f, 0);
+        assertEquals(2.5f, estimator.range(7), 0);
+        assertEquals(0, estimator.closingSpeed(7), 0);
+        assertEquals(Float.POSITIVE_INFINITY, estimator.timeToCollision(7), 0);
+        assertTrue(Float.isNaN(estimator.range(8)));
+    }
+
+    @Test
+    public void tracksAreIndependent() {
+        final RangeEstimator estimator = new RangeEstimator(4);
+        for (int frame = 0; frame <= 20; ++frame) {
+            estimator.update(1, 8 - frame * FRAME_MS / 1000f, frame * FRAME_MS);
+            estimator.update(2, 3, frame * FRAME_MS);
+        }
+        assertEquals(1, estimator.closingSpeed(1), 0.2f);
+        assertEquals(0, estimator.closingSpeed(2), 0);
+    }
+
+    @Test
+    public void longGapRestartsTheTrack() {
+        final RangeEstimator estimator = new RangeEstimator(4);
+        for (int frame = 0; frame <= 20; ++frame) {
+            estimator.update(1, 8 - frame * FRAME_MS / 1000f, frame * FRAME_MS);
+        }
+        estimator.update(1, 2, 20 * FRAME_MS + RangeEstimator.MAX_GAP_MS + 1);
+        assertEquals(2, estimator.range(1), 0);
+        assertEquals(0, estimator.closingSpeed(1), 0);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUpdatedWhenFull() {
+        final RangeEstimator estimator = new RangeEstimator(3);
+        estimator.update(1, 5, 0);
+        estimator.update(2, 5, 100);
+        estimator.update(3, 5, 200);
+        estimator.update(1, 5, 300);
+        estimator.update(4, 5, 400);
+        assertEquals(3, estimator.size());
+        assertTrue(estimator.contains(1));
+        assertFalse(estimator.contains(2));
+        assertTrue(estimator.contains(3));
+        assertTrue(estimator.contains(4));
+    }
+
+    @Test
+    public void removeKeepsOtherTracks() {
+        final RangeEstimator estimator = new RangeEstimator(3);
+        estimator.update(1, 1, 0);
+        estimator.update(2, 2, 0);
+        estimator.update(3, 3, 0);
+        estimator.remove(1);
+        assertFalse(estimator.contains(1));
+        assertEquals(2, estimator.range(2), 0);
+        assertEquals(3, estimator.range(3), 0);
+    }
+
+    @Test
+    public void ignoresInvalidMeasurements() {
+        final RangeEstimator estimator = new RangeEstimator(2);
+        estimator.update(1, 0, 0);
+        estimator.update(1, Float.NaN, 0);
+        estimator.update(1, Float.POSITIVE_INFINITY, 0);
+        assertFalse(estimator.contains(1));
+    }
+
+    /** Pinhole distances are off by a few percent of the true range from frame to frame. */
+    private static float noisy(float range, Random random) {
+        return range * (1 + 0.05f * (float) random.nextGaussian());
+    }
+}
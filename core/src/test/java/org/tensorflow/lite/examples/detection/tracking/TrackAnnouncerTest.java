@@ -0,0 +1,160 @@
+package org.tensorflow.lite.examples.detection.tracking;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrackAnnouncerTest {
+    private final TrackAnnouncer announcer = new TrackAnnouncer();
+
+    @Test
+    public void newTrackOfSameTitleIsNotCoolingDown() {
+        announcer.announced(new Candidate("person", 1, 3f, 0), 0);
+
+        final Candidate second = new Candidate("person", 2, 4f, 0);
+        assertFalse(announcer.isCoolingDown(second, 2000));
+        assertFalse(announcer.wasAnnounced(second));
+    }
+
+    @Test
+    public void sameTrackWaitsForItsCooldown() {
+        final Candidate chair = new Candidate("chair", 5, 2f, 0);
+        announcer.announced(chair, 0);
+        assertTrue(announcer.isCoolingDown(chair, 5000));
+        assertFalse(announcer.isCoolingDown(chair, TrackAnnouncer.TRACK_COOLDOWN_MS));
+        assertTrue(announcer.wasAnnounced(chair));
+    }
+
+    @Test
+    public void approachingTrackHasShorterCooldown() {
+        final Candidate car = new Candidate("car", 7, 6f, 0.5f);
+        announcer.announced(car, 0);
+        assertFalse(announcer.isCoolingDown(car, TrackAnnouncer.APPROACHING_COOLDOWN_MS));
+    }
+
+    @Test
+    public void timeToCollisionShortensCooldown() {
+        final Candidate car = new Candidate("car", 3, 10f, 0);
+        car.timeToCollision = 5f;
+        announcer.announced(car, 0);
+        assertFalse(announcer.isCoolingDown(car, TrackAnnouncer.APPROACHING_COOLDOWN_MS));
+    }
+
+    @Test
+    public void approachingTrackCountsAsCloser() {
+        final Candidate car = new Candidate("car", 7, 6f, 0.5f);
+        final Candidate bench = new Candidate("bench", 8, 4f, 0);
+
+        // The bench is nearer, but the approaching car gets the boost.
+        assertTrue(reach(car) < reach(bench));
+    }
+
+    @Test
+    public void imminentCollisionBeatsCloserStaticObject() {
+        final Candidate wall = new Candidate("wall", 1, 2f, 0);
+        final Candidate bike = new Candidate("bicycle", 2, 5f, 0);
+        bike.timeToCollision = 1.0f;
+        assertTrue(reach(bike) < reach(wall));
+    }
+
+    @Test
+    public void slowApproachDoesNotBeatMuchCloserObject() {
+        final Candidate chair = new Candidate("chair", 1, 1f, 0);
+        final Candidate person = new Candidate("person", 2, 20f, 0);
+        person.timeToCollision = 40f;
+        assertTrue(reach(chair) < reach(person));
+    }
+
+    @Test
+    public void untrackedResultsFallBackToTitle() {
+        announcer.announced(new Candidate("person", 0, 3f, 0), 0);
+        final Candidate sameTitle = new Candidate("person", 0, 2f, 0);
+        assertTrue(announcer.isCoolingDown(sameTitle, 5000));
+        assertFalse(announcer.isCoolingDown(new Candidate("door", 0, 2f, 0), 5000));
+        final Candidate tracked = new Candidate("person", 1, 2f, 0);
+        assertNotEquals(TrackAnnouncer.key(sameTitle), TrackAnnouncer.key(tracked));
+    }
+
+    @Test
+    public void manyTracksDoNotGrowWithoutBound() {
+        for (int id = 1; id <= 1000; ++id) {
+            announcer.announced(new Candidate("person", id, 3f, 0), id * 1000L);
+        }
+        final Candidate latest = new Candidate("person", 1000, 3f, 0);
+        assertTrue(announcer.isCoolingDown(latest, 1001 * 1000L));
+        assertFalse(announcer.wasAnnounced(new Candidate("person", 1, 3f, 0)));
+    }
+
+    @Test
+    public void clearForgetsEveryTrack() {
+        final Candidate chair = new Candidate("chair", 5, 2f, 0);
+        announcer.announced(chair, 0);
+        announcer.clear();
+        assertFalse(announcer.isCoolingDown(chair, 1000));
+        assertFalse(announcer.wasAnnounced(chair));
+    }
+
+    private static float reach(Candidate candidate) {
+        return TrackAnnouncer.timeToReach(
+                candidate, candidate.distance, TrackAnnouncer.isApproaching(candidate));
+    }
+
+    static final class Candidate implements Announceable {
+        final String title;
+        final int trackId;
+        final Float distance;
+        final float approachRate;
+        final float confidence;
+        float timeToCollision = Float.POSITIVE_INFINITY;
+        int detectedClass;
+
+        Candidate(String title, int trackId, Float distance, float approachRate) {
+            this(title, trackId, distance, approachRate, 0.9f);
+        }
+
+        Candidate(String title, int trackId, Float distance, float approachRate, float confidence) {
+            this.title = title;
+            this.trackId = trackId;
+            this.distance = distance;
+            this.approachRate = approachRate;
+            this.confidence = confidence;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public int getDetectedClass() {
+            return detectedClass;
+        }
+
+        @Override
+        public Float getConfidence() {
+            return confidence;
+        }
+
+        @Override
+        public Float getDistance() {
+            return distance;
+        }
+
+        @Override
+        public int getTrackId() {
+            return trackId;
+        }
+
+        @Override
+        public float getApproachRate() {
+            return approachRate;
+        }
+
+        @Override
+        public float getTimeToCollision() {
+            return timeToCollision;
+        }
+    }
+}